@@ -19,10 +19,12 @@ package eu.cassandra.training.activity;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.concurrent.CancellationException;
 
 import org.jfree.chart.ChartPanel;
 
@@ -35,6 +37,7 @@ import eu.cassandra.training.entities.Person;
 import eu.cassandra.training.utils.ChartUtils;
 import eu.cassandra.training.utils.Constants;
 import eu.cassandra.training.utils.MixtureCreator;
+import eu.cassandra.training.utils.MixtureParameters;
 import eu.cassandra.training.utils.Utils;
 
 /**
@@ -163,6 +166,24 @@ public class ActivityModel
 
   protected double[] expectedPower = null;
 
+  /**
+   * This flag is set when the training of the activity model has been
+   * cancelled.
+   */
+  private volatile boolean cancelled = false;
+
+  /**
+   * This variable is the mixture creator fitting a distribution of the
+   * activity model, or null if no fitting is in progress.
+   */
+  private volatile MixtureCreator fitting = null;
+
+  /**
+   * This list contains the summaries of the GMM fittings of the training of
+   * the activity model, one for each random variable with a GMM distribution.
+   */
+  private final List<String> fitReports = new ArrayList<String>();
+
   public ActivityModel ()
   {
     name = "";
@@ -253,6 +274,16 @@ public class ActivityModel
     return activity;
   }
 
+  /**
+   * This function is used as a getter for the activity ID.
+   * 
+   * @return activity's id.
+   */
+  public String getActivityID ()
+  {
+    return activityID;
+  }
+
   /**
    * This function is used as a getter for the activity model ID.
    * 
@@ -383,7 +414,7 @@ public class ActivityModel
    */
   public int getDays ()
   {
-    int days = consumptionEventRepo.getEventsPerDate().size();
+    int days = consumptionEventRepo.getNumberOfDays();
     System.out.println("Days of use: " + days);
     return days;
   }
@@ -462,11 +493,15 @@ public class ActivityModel
    */
   public void train (String[] distributions) throws IOException
   {
+    fitReports.clear();
 
     // For each of the 4 ditributions that have to be defined for the activity
     // model.
     for (int i = 0; i < 4; i++) {
 
+      if (cancelled)
+        throw new CancellationException("Training of " + name + " cancelled");
+
       // Find the correct file containing the distribution definition values.
       String file = fileDistribution(i);
       // Fill the distribution with the values.
@@ -526,7 +561,10 @@ public class ActivityModel
 
   /**
    * This function fills the distributions of the activity model with the
-   * correct values as they were produced by the training procedure.
+   * correct values as they were produced by the training procedure. The
+   * distributions are created in memory, straight from the values of the
+   * consumption event repository, and the intermediate files are exported only
+   * if it is requested in the Constants.
    * 
    * @param file
    *          the file name of the file containing the values for the
@@ -543,11 +581,11 @@ public class ActivityModel
     throws IOException
   {
 
-    // Parsing the selected file
-    Scanner input = new Scanner(file);
     String newFile = Constants.tempFolder;
     MixtureCreator mixtureCreator = null;
+    MixtureParameters parameters = null;
     String variable = "";
+    boolean export = Constants.EXPORT_TRAINING_FILES;
 
     // See the random variable distribution under construction
     if (index == 0)
@@ -559,8 +597,8 @@ public class ActivityModel
     else if (index == 3)
       variable = "StartTimeBinned";
 
-    // Given the distribution type selected from the user, the distribution file
-    // is constructed by the event repo and then the costructor of the
+    // Given the distribution type selected from the user, the distribution
+    // values are produced by the event repo and then the costructor of the
     // probability distribution selected is called to create the object. It
     // should be noted that the start time binned distribution is created with
     // the start time distribution.
@@ -568,22 +606,32 @@ public class ActivityModel
 
     case "Histogram":
       if (index == 0) {
-        consumptionEventRepo.DailyTimesHistogramToFile(file);
-        dailyTimes = new Histogram(file);
+        if (export)
+          consumptionEventRepo.DailyTimesHistogramToFile(file);
+        dailyTimes =
+          new Histogram(file, consumptionEventRepo.DailyTimesHistogramToArray());
       }
       else if (index == 1) {
-        consumptionEventRepo.DurationHistogramToFile(file);
-        duration = new Histogram(file);
+        if (export)
+          consumptionEventRepo.DurationHistogramToFile(file);
+        duration =
+          new Histogram(file, consumptionEventRepo.DurationHistogramToArray());
       }
       else if (index == 2) {
         consumptionEventRepo.createStartTimeHistogram2();
-        consumptionEventRepo.StartTimeHistogramToFile(file);
-        startTime = new Histogram(file);
+        if (export)
+          consumptionEventRepo.StartTimeHistogramToFile(file);
+        startTime =
+          new Histogram(file, consumptionEventRepo.StartTimeHistogramToArray());
       }
       else if (index == 3) {
         if (distributionTypes.get("StartTime").equalsIgnoreCase("Histogram")) {
-          consumptionEventRepo.StartTimeBinnedHistogramToFile(file);
-          startTimeBinned = new Histogram(file);
+          if (export)
+            consumptionEventRepo.StartTimeBinnedHistogramToFile(file);
+          startTimeBinned =
+            new Histogram(file,
+                          consumptionEventRepo
+                                  .StartTimeBinnedHistogramToArray());
         }
         else {
           double[] temp =
@@ -600,16 +648,24 @@ public class ActivityModel
     case "Normal":
 
       newFile += type + variable + name + ".csv";
-      consumptionEventRepo.attributeToFile(file, variable);
       mixtureCreator = new MixtureCreator();
-      mixtureCreator.createNormal(file, newFile, variable, false);
+      startFitting(mixtureCreator);
+      parameters =
+        mixtureCreator.fitNormal(consumptionEventRepo
+                .attributeToSample(variable), variable);
+      fitting = null;
+
+      if (export) {
+        consumptionEventRepo.attributeToFile(file, variable);
+        MixtureCreator.Gaussian2File(parameters, newFile, false);
+      }
 
       if (index == 0)
-        dailyTimes = new Gaussian(newFile);
+        dailyTimes = new Gaussian(newFile, parameters);
       else if (index == 1)
-        duration = new Gaussian(newFile);
+        duration = new Gaussian(newFile, parameters);
       else if (index == 2) {
-        startTime = new Gaussian(newFile);
+        startTime = new Gaussian(newFile, parameters);
         double[] temp =
           Utils.aggregateStartTimeDistribution(startTime.getHistogram());
         startTimeBinned = new Histogram(file + " Binned", temp);
@@ -625,16 +681,26 @@ public class ActivityModel
     case "GMM":
 
       newFile += type + variable + name + ".csv";
-      consumptionEventRepo.attributeToFile(file, variable);
       mixtureCreator = new MixtureCreator();
-      mixtureCreator.createGMM(file, newFile, variable);
+      mixtureCreator.setSelection(person.getMixtureSelection());
+      startFitting(mixtureCreator);
+      parameters =
+        mixtureCreator.fitGMM(consumptionEventRepo
+                .attributeToSample(variable), variable);
+      fitting = null;
+      fitReports.add(variable + ": " + mixtureCreator.getReport());
+
+      if (export) {
+        consumptionEventRepo.attributeToFile(file, variable);
+        MixtureCreator.GMM2File(parameters, newFile);
+      }
 
       if (index == 0)
-        dailyTimes = new GaussianMixtureModels(newFile);
+        dailyTimes = new GaussianMixtureModels(newFile, parameters);
       else if (index == 1)
-        duration = new GaussianMixtureModels(newFile);
+        duration = new GaussianMixtureModels(newFile, parameters);
       else if (index == 2) {
-        startTime = new GaussianMixtureModels(newFile);
+        startTime = new GaussianMixtureModels(newFile, parameters);
         double[] temp =
           Utils.aggregateStartTimeDistribution(startTime.getHistogram());
         startTimeBinned = new Histogram(file + " Binned", temp);
@@ -650,7 +716,8 @@ public class ActivityModel
     case "Uniform":
       if (index == 2) {
         consumptionEventRepo.createStartTimeHistogram2();
-        consumptionEventRepo.StartTimeHistogramToFile(file);
+        if (export)
+          consumptionEventRepo.StartTimeHistogramToFile(file);
         startTime = new Uniform(450, 1000, true);
       }
       else
@@ -667,8 +734,60 @@ public class ActivityModel
     distributionTypes.put(variable, type);
     fileMap.put(variable, file);
 
-    input.close();
+  }
+
+  /**
+   * This function registers the mixture creator about to fit a distribution,
+   * so that it can be cancelled along with the training.
+   * 
+   * @param mixtureCreator
+   *          The mixture creator.
+   */
+  private void startFitting (MixtureCreator mixtureCreator)
+  {
+    fitting = mixtureCreator;
+
+    // The training may have been cancelled before the creator was registered
+    if (cancelled)
+      mixtureCreator.cancel();
+  }
+
+  /**
+   * This function cancels the training of the activity model. The fitting in
+   * progress stops at its next iteration and train throws a
+   * CancellationException. It may be called from any thread.
+   */
+  public void cancel ()
+  {
+    cancelled = true;
+
+    MixtureCreator current = fitting;
+    if (current != null)
+      current.cancel();
+  }
 
+  /**
+   * This is a getter function of the summaries of the GMM fittings of the
+   * training, with the number of mixtures chosen and the time spent on each
+   * random variable.
+   * 
+   * @return the list of the summaries, empty if no GMM distribution was
+   *         fitted.
+   */
+  public List<String> getFitReports ()
+  {
+    return new ArrayList<String>(fitReports);
+  }
+
+  /**
+   * This function states if the training of the activity model has been
+   * cancelled.
+   * 
+   * @return true if the training was cancelled, false otherwise.
+   */
+  public boolean isCancelled ()
+  {
+    return cancelled;
   }
 
   /**
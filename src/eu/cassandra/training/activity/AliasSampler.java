@@ -0,0 +1,169 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.activity;
+
+import java.util.Random;
+
+/**
+ * This class is a sampler of the bins of a precomputed distribution histogram
+ * using the alias method of Walker and Vose. The tables are built once in
+ * linear time and each draw costs a single random number and a table lookup,
+ * independently of the number of bins. If the histogram sums to less than one,
+ * the missing probability corresponds to drawing no bin (-1), as with a
+ * linear scan of the cumulative probabilities.
+ */
+public class AliasSampler
+{
+
+  /**
+   * This variable is the histogram the sampler was built for.
+   */
+  private final double[] source;
+
+  /**
+   * This variable is the number of bins of the histogram.
+   */
+  private final int bins;
+
+  /**
+   * This array contains the probability of keeping each column of the table
+   * instead of moving to its alias.
+   */
+  private final double[] probability;
+
+  /**
+   * This array contains the alias of each column of the table.
+   */
+  private final int[] alias;
+
+  /**
+   * The constructor of a sampler for the given histogram. Negative or undefined
+   * probabilities are treated as zero.
+   * 
+   * @param histogram
+   *          The probability of each bin.
+   */
+  public AliasSampler (double[] histogram)
+  {
+    source = histogram;
+    bins = histogram.length;
+
+    double total = 0;
+    for (int i = 0; i < bins; i++)
+      if (histogram[i] > 0)
+        total += histogram[i];
+
+    double missing = (total < 1) ? 1 - total : 0;
+    double scale = Math.max(total, 1);
+    int size = (missing > 0) ? bins + 1 : bins;
+
+    probability = new double[size];
+    alias = new int[size];
+
+    // Scale the probabilities so that their mean is 1
+    double[] scaled = new double[size];
+    for (int i = 0; i < bins; i++)
+      scaled[i] = (histogram[i] > 0) ? histogram[i] / scale * size : 0;
+    if (missing > 0)
+      scaled[bins] = missing * size;
+
+    int[] small = new int[size];
+    int[] large = new int[size];
+    int smallCount = 0;
+    int largeCount = 0;
+
+    for (int i = 0; i < size; i++)
+      if (scaled[i] < 1)
+        small[smallCount++] = i;
+      else
+        large[largeCount++] = i;
+
+    while (smallCount > 0 && largeCount > 0) {
+      int less = small[--smallCount];
+      int more = large[--largeCount];
+
+      probability[less] = scaled[less];
+      alias[less] = more;
+
+      scaled[more] = (scaled[more] + scaled[less]) - 1;
+
+      if (scaled[more] < 1)
+        small[smallCount++] = more;
+      else
+        large[largeCount++] = more;
+    }
+
+    // The remaining columns are full, up to rounding errors
+    while (largeCount > 0) {
+      int more = large[--largeCount];
+      probability[more] = 1;
+      alias[more] = more;
+    }
+    while (smallCount > 0) {
+      int less = small[--smallCount];
+      probability[less] = 1;
+      alias[less] = less;
+    }
+  }
+
+  /**
+   * This function states if the sampler was built for the given histogram
+   * array, so that a distribution can tell when its histogram was replaced.
+   * 
+   * @param histogram
+   *          The histogram of the distribution.
+   * @return true if the sampler was built for this array, false otherwise.
+   */
+  public boolean isFor (double[] histogram)
+  {
+    return source == histogram;
+  }
+
+  /**
+   * This function draws a random bin.
+   * 
+   * @param random
+   *          The random number generator.
+   * @return the bin drawn, or -1 if no bin was drawn.
+   */
+  public int sample (Random random)
+  {
+    int size = probability.length;
+    if (size == 0)
+      return -1;
+
+    double u = random.nextDouble() * size;
+    int column = Math.min((int) u, size - 1);
+    int bin = (u - column < probability[column]) ? column : alias[column];
+
+    return (bin < bins) ? bin : -1;
+  }
+
+  /**
+   * This function fills an array with random bins.
+   * 
+   * @param random
+   *          The random number generator.
+   * @param result
+   *          The array to be filled with the bins drawn.
+   */
+  public void sample (Random random, int[] result)
+  {
+    for (int i = 0; i < result.length; i++)
+      result[i] = sample(random);
+  }
+}
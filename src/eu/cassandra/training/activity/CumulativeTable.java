@@ -0,0 +1,116 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.activity;
+
+/**
+ * This class contains the cumulative tail probabilities of a precomputed
+ * distribution histogram. The table is built once in linear time, so that the
+ * probability of the distribution being over or under a value is found with a
+ * single lookup instead of summing the tail of the histogram on every query.
+ */
+public class CumulativeTable
+{
+
+  /**
+   * This variable is the histogram the table was built for.
+   */
+  private final double[] source;
+
+  /**
+   * This array contains the probability that the distribution has a value
+   * greater than each bin.
+   */
+  private final double[] greater;
+
+  /**
+   * This variable is the total probability of the histogram.
+   */
+  private final double total;
+
+  /**
+   * The constructor of the table of the given histogram.
+   * 
+   * @param histogram
+   *          The probability of each bin.
+   */
+  public CumulativeTable (double[] histogram)
+  {
+    source = histogram;
+    greater = new double[histogram.length];
+
+    double sum = 0;
+    for (int i = histogram.length - 1; i >= 0; i--) {
+      greater[i] = sum;
+      sum += histogram[i];
+    }
+    total = sum;
+  }
+
+  /**
+   * This function states if the table was built for the given histogram array,
+   * so that a distribution can tell when its histogram was replaced.
+   * 
+   * @param histogram
+   *          The histogram of the distribution.
+   * @return true if the table was built for this array, false otherwise.
+   */
+  public boolean isFor (double[] histogram)
+  {
+    return source == histogram;
+  }
+
+  /**
+   * This function returns the probability that the distribution has a value
+   * greater than x.
+   * 
+   * @param x
+   *          The input value.
+   * @return the probability of a value greater than x.
+   */
+  public double getProbabilityGreater (int x)
+  {
+    if (x < 0)
+      return total;
+    if (x >= greater.length)
+      return 0;
+    return greater[x];
+  }
+
+  /**
+   * This function returns the probability that the distribution has a value
+   * not greater than x.
+   * 
+   * @param x
+   *          The input value.
+   * @return the probability of a value less than or equal to x.
+   */
+  public double getProbabilityLess (int x)
+  {
+    return 1 - getProbabilityGreater(x);
+  }
+
+  /**
+   * This function returns the probability that the distribution has a value
+   * greater than each bin.
+   * 
+   * @return a copy of the array of the tail probabilities.
+   */
+  public double[] getGreaterProbability ()
+  {
+    return greater.clone();
+  }
+}
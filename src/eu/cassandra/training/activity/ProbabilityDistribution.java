@@ -16,13 +16,16 @@
 
 package eu.cassandra.training.activity;
 
+import java.io.IOException;
 import java.util.Comparator;
+import java.util.Random;
 
 import com.mongodb.DBObject;
 
 import eu.cassandra.training.response.Incentive;
 import eu.cassandra.training.response.Pricing;
 import eu.cassandra.training.response.PricingVector;
+import eu.cassandra.training.utils.JSONWriter;
 
 /**
  * This is the Probability Distribution interface, used for implementing the
@@ -163,6 +166,30 @@ public interface ProbabilityDistribution
    */
   public int getPrecomputedBin ();
 
+  /**
+   * Gets a random integer between 0 and the number of nBins, using the given
+   * random number generator. The draw takes constant time and creates no
+   * objects.
+   * 
+   * @param random
+   *          The random number generator, e.g. the ThreadLocalRandom of the
+   *          calling thread.
+   * @return A random integer following the distribution of the precomputed
+   *         histogram
+   */
+  public int getPrecomputedBin (Random random);
+
+  /**
+   * Fills an array with random integers between 0 and the number of nBins,
+   * using the given random number generator.
+   * 
+   * @param random
+   *          The random number generator.
+   * @param bins
+   *          The array to be filled with the bins drawn.
+   */
+  public void getPrecomputedBins (Random random, int[] bins);
+
   /**
    * Shows the general attributes of the distribution.
    * 
@@ -295,6 +322,19 @@ public interface ProbabilityDistribution
    */
   public DBObject toJSON (String activityModelID);
 
+  /**
+   * Writing the JSON object of the distribution straight to a stream, without
+   * creating the object first.
+   * 
+   * @param writer
+   *          The writer of the JSON document.
+   * @param activityModelID
+   *          The id of the activity model the distribution belongs to.
+   * @throws IOException
+   */
+  public void writeJSON (JSONWriter writer, String activityModelID)
+    throws IOException;
+
   /**
    * Return the distribution probability histogram.
    * 
@@ -354,4 +394,15 @@ public interface ProbabilityDistribution
    */
   public double[] getGreaterProbability ();
 
+  /**
+   * This function is used for creating a snapshot of the distribution. The
+   * snapshot shares the fitted values with the original, since they are never
+   * modified in place but only replaced, while its parameters, name and
+   * distribution ID can change independently. This way a model can be based on
+   * a trained distribution without training it again.
+   * 
+   * @return a snapshot of the distribution.
+   */
+  public ProbabilityDistribution snapshot ();
+
 }
@@ -0,0 +1,251 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.cli;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import eu.cassandra.training.entities.TrainingJob;
+import eu.cassandra.training.utils.APIUtilities;
+import eu.cassandra.training.utils.Constants;
+
+/**
+ * This class is the command line entry point of the Training Module, used for
+ * training installations without a display, for example on a server or from a
+ * scheduled script. It runs a training job for a measurements file, or for
+ * each measurements file of a folder, using the configuration of a properties
+ * file (Training.properties by default). The trained installations are written
+ * to the output folder and, if a platform URL is configured, exported to the
+ * user's library.
+ */
+public class TrainingCLI
+{
+  /**
+   * This variable is the name of the configuration file used if none is
+   * given.
+   */
+  private static final String DEFAULT_CONFIGURATION = "Training.properties";
+
+  /**
+   * These are the extensions of the measurements files processed when a folder
+   * is given.
+   */
+  private static final List<String> EXTENSIONS = Arrays.asList("csv", "xls",
+                                                               "xlsx");
+
+  /**
+   * This is the main function of the command line training. The arguments are
+   * the measurements file or folder and, optionally, the configuration file.
+   * The exit status is 0 if all the installations were trained and stored
+   * successfully, 1 otherwise.
+   */
+  public static void main (String[] args)
+  {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("Usage: TrainingCLI <measurements file or folder> "
+                         + "[configuration file]");
+      System.exit(2);
+    }
+
+    // No display is needed, even by the libraries used
+    System.setProperty("java.awt.headless", "true");
+
+    int failed;
+
+    try {
+      Properties config =
+        loadConfiguration(args.length > 1 ? args[1] : DEFAULT_CONFIGURATION);
+      failed = run(measurementsFiles(new File(args[0])), config);
+    }
+    catch (Exception e) {
+      e.printStackTrace();
+      failed = 1;
+    }
+
+    System.exit(failed > 0 ? 1 : 0);
+  }
+
+  /**
+   * This function is used for loading the configuration file.
+   * 
+   * @param filename
+   *          The name of the configuration file.
+   * @return the configuration.
+   * @throws IOException
+   */
+  public static Properties loadConfiguration (String filename)
+    throws IOException
+  {
+    Properties config = new Properties();
+    InputStream input = new FileInputStream(filename);
+
+    try {
+      config.load(input);
+    }
+    finally {
+      input.close();
+    }
+
+    return config;
+  }
+
+  /**
+   * This function is used for finding the measurements files to be processed.
+   * 
+   * @param path
+   *          A measurements file or a folder containing measurements files.
+   * @return the list of the paths of the measurements files.
+   * @throws IOException
+   */
+  public static List<String> measurementsFiles (File path) throws IOException
+  {
+    List<String> result = new ArrayList<String>();
+
+    if (path.isDirectory()) {
+      File[] files = path.listFiles();
+      Arrays.sort(files);
+
+      for (File file: files) {
+        String name = file.getName();
+        String extension =
+          name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+
+        if (file.isFile() && EXTENSIONS.contains(extension))
+          result.add(file.getPath());
+      }
+    }
+    else if (path.isFile())
+      result.add(path.getPath());
+    else
+      throw new IOException("Measurements file " + path + " not found");
+
+    return result;
+  }
+
+  /**
+   * This function is used for running the training jobs of the measurements
+   * files. The installations are trained concurrently, on as many threads as
+   * set in the configuration, sharing the training threads between them.
+   * 
+   * @param files
+   *          The paths of the measurements files.
+   * @param config
+   *          The configuration of the jobs.
+   * @return the number of installations that failed.
+   * @throws Exception
+   */
+  public static int run (List<String> files, final Properties config)
+    throws Exception
+  {
+    final String url = config.getProperty("PlatformURL", "").trim();
+    final String output = config.getProperty("OutputFolder", "").trim();
+
+    int installationThreads =
+      Integer.parseInt(config.getProperty("InstallationThreads", "1").trim());
+    int trainingThreads =
+      Integer.parseInt(config.getProperty("TrainingThreads",
+                                          "" + Constants.TRAINING_THREADS)
+              .trim());
+    final int exportThreads =
+      Integer.parseInt(config.getProperty("ExportThreads",
+                                          "" + Constants.EXPORT_THREADS)
+              .trim());
+
+    installationThreads = Math.max(1, installationThreads);
+    final int threads = Math.max(1, trainingThreads / installationThreads);
+
+    // Connect to the platform once for all the installations
+    if (url.isEmpty() == false) {
+      APIUtilities.setUrl(url);
+
+      if (APIUtilities.sendUserCredentials(config.getProperty("Username", ""),
+                                           config.getProperty("Password", "")
+                                                   .toCharArray()) == false)
+        throw new IOException("User Credentials are not correct");
+    }
+
+    if (output.isEmpty() == false)
+      new File(output).mkdirs();
+
+    ExecutorService executor =
+      Executors.newFixedThreadPool(installationThreads);
+    List<Future<String>> results = new ArrayList<Future<String>>();
+    int failed = 0;
+
+    try {
+      for (final String file: files)
+        results.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call () throws Exception
+          {
+            long start = System.nanoTime();
+            TrainingJob job = new TrainingJob(file, config, threads);
+            job.call();
+
+            String result =
+              file + ": " + job.getActivityModels().size()
+                      + " activity models, " + job.getResponseModels().size()
+                      + " response models";
+
+            if (output.isEmpty() == false)
+              result += ", written to " + job.write(new File(output));
+
+            if (url.isEmpty() == false) {
+              int skipped = job.export(exportThreads);
+              if (skipped > 0)
+                throw new IOException(skipped + " entities of " + file
+                                      + " could not be exported");
+              result += ", exported";
+            }
+
+            return result + " in " + (System.nanoTime() - start) / 1000000
+                   + " ms";
+          }
+        }));
+
+      for (int i = 0; i < results.size(); i++) {
+        try {
+          System.out.println(results.get(i).get());
+        }
+        catch (Exception e) {
+          Throwable cause = e.getCause() != null ? e.getCause() : e;
+          System.err.println(files.get(i) + ": training failed: " + cause);
+          cause.printStackTrace();
+          failed++;
+        }
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    System.out.println((files.size() - failed) + " of " + files.size()
+                       + " installations trained");
+
+    return failed;
+  }
+}
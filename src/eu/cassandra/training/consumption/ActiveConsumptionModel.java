@@ -102,23 +102,11 @@ public class ActiveConsumptionModel
       patterns[i] = new ArrayList<TripletPower>(tripplets);
       for (int j = 0; j < tripplets; j++) {
         TripletPower t = new TripletPower();
-        try {
-          t.p = ((Double) ((DBObject) values.get(j)).get("p")).doubleValue();
-        }
-        catch (ClassCastException e) {
-          t.p =
-            (double) ((Integer) ((DBObject) values.get(j)).get("p")).intValue();
-        }
+        t.p = ((Number) ((DBObject) values.get(j)).get("p")).doubleValue();
         t.d = ((Integer) ((DBObject) values.get(j)).get("d")).intValue();
         patternDuration[i] += t.d;
         totalDuration += (n[i] * t.d);
-        try {
-          t.s = ((Double) ((DBObject) values.get(j)).get("s")).doubleValue();
-        }
-        catch (ClassCastException e) {
-          t.s =
-            (double) ((Integer) ((DBObject) values.get(j)).get("s")).intValue();
-        }
+        t.s = ((Number) ((DBObject) values.get(j)).get("s")).doubleValue();
         patterns[i].add(t);
       }
     }
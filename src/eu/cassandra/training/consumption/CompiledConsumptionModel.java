@@ -0,0 +1,414 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.consumption;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+import eu.cassandra.training.utils.GrowableDoubleArray;
+import eu.cassandra.training.utils.JSONWriter;
+
+/**
+ * This class stores a consumption model (active or reactive) as a structure of
+ * arrays: the triplets of all the patterns are kept in parallel primitive
+ * arrays of values, durations and slopes, and each pattern is a range of them
+ * given by its offset. The model can be built directly from the results of the
+ * disaggregation, while its JSON schema is only created when it is exported.
+ */
+public class CompiledConsumptionModel
+{
+
+  /**
+   * This variable is the key of the value of each triplet in the JSON schema
+   * ("p" for active and "q" for reactive consumption).
+   */
+  private final String key;
+
+  /**
+   * This variable is the number of times the patterns repeat.
+   */
+  private final int outerN;
+
+  /**
+   * This variable is the number of patterns.
+   */
+  private int patternN = 0;
+
+  /**
+   * This array contains the number of times each pattern runs.
+   */
+  private int[] n = new int[1];
+
+  /**
+   * This array contains the index of the first triplet of each pattern, plus
+   * the number of triplets as its last element.
+   */
+  private int[] offsets = new int[2];
+
+  /**
+   * This variable is the number of triplets of all the patterns.
+   */
+  private int size = 0;
+
+  /**
+   * This array contains the consumption value of each triplet.
+   */
+  private double[] values = new double[4];
+
+  /**
+   * This array contains the duration of each triplet in minutes.
+   */
+  private int[] d = new int[4];
+
+  /**
+   * This array contains the slope of each triplet.
+   */
+  private double[] s = new double[4];
+
+  /**
+   * The constructor of an empty consumption model.
+   * 
+   * @param key
+   *          The key of the triplet values ("p" or "q").
+   * @param outerN
+   *          The number of times the patterns repeat.
+   */
+  public CompiledConsumptionModel (String key, int outerN)
+  {
+    this.key = key;
+    this.outerN = outerN;
+  }
+
+  /**
+   * This function is used for creating a consumption model from its JSON
+   * schema.
+   * 
+   * @param key
+   *          The key of the triplet values ("p" or "q").
+   * @param modelObj
+   *          The consumption model JSON schema as DBObject.
+   * @return the consumption model.
+   */
+  public static CompiledConsumptionModel parse (String key, DBObject modelObj)
+  {
+    CompiledConsumptionModel model =
+      new CompiledConsumptionModel(key, ((Number) modelObj.get("n")).intValue());
+
+    BasicDBList patternsObj = (BasicDBList) modelObj.get("params");
+
+    for (int i = 0; i < patternsObj.size(); i++) {
+      DBObject patternObj = (DBObject) patternsObj.get(i);
+      model.addPattern(((Number) patternObj.get("n")).intValue());
+
+      BasicDBList valuesObj = (BasicDBList) patternObj.get("values");
+
+      for (int j = 0; j < valuesObj.size(); j++) {
+        DBObject triplet = (DBObject) valuesObj.get(j);
+        model.addTriplet(((Number) triplet.get(key)).doubleValue(),
+                         ((Number) triplet.get("d")).intValue(),
+                         ((Number) triplet.get("s")).doubleValue());
+      }
+    }
+
+    return model;
+  }
+
+  /**
+   * This function is used for starting a new pattern, to which the following
+   * triplets are added.
+   * 
+   * @param times
+   *          The number of times the pattern runs.
+   */
+  public void addPattern (int times)
+  {
+    if (patternN == n.length) {
+      n = Arrays.copyOf(n, 2 * patternN);
+      offsets = Arrays.copyOf(offsets, 2 * patternN + 1);
+    }
+
+    n[patternN] = times;
+    offsets[patternN] = size;
+    patternN++;
+    offsets[patternN] = size;
+  }
+
+  /**
+   * This function is used for adding a triplet to the last pattern.
+   * 
+   * @param value
+   *          The consumption of the triplet.
+   * @param duration
+   *          The duration of the triplet in minutes.
+   * @param slope
+   *          The slope of the triplet.
+   */
+  public void addTriplet (double value, int duration, double slope)
+  {
+    if (patternN == 0)
+      throw new IllegalStateException("No pattern to add the triplet to");
+
+    if (size == values.length) {
+      values = Arrays.copyOf(values, 2 * size);
+      d = Arrays.copyOf(d, 2 * size);
+      s = Arrays.copyOf(s, 2 * size);
+    }
+
+    values[size] = value;
+    d[size] = duration;
+    s[size] = slope;
+    size++;
+    offsets[patternN] = size;
+  }
+
+  /**
+   * This is a getter function of the key of the triplet values.
+   * 
+   * @return the key of the triplet values.
+   */
+  public String getKey ()
+  {
+    return key;
+  }
+
+  /**
+   * This is a getter function for the number of times the outer pattern is
+   * repeated.
+   * 
+   * @return the outer pattern number of times.
+   */
+  public int getOuterN ()
+  {
+    return outerN;
+  }
+
+  /**
+   * This is a getter function for the number of patterns.
+   * 
+   * @return the number of patterns.
+   */
+  public int getPatternN ()
+  {
+    return patternN;
+  }
+
+  /**
+   * This is a getter function for the number of times a certain pattern is
+   * repeated.
+   * 
+   * @param i
+   *          The pattern's index in the consumption model.
+   * @return the ith pattern number of times.
+   */
+  public int getN (int i)
+  {
+    return n[i];
+  }
+
+  /**
+   * This is a getter function for the index of the first triplet of a
+   * pattern.
+   * 
+   * @param i
+   *          The pattern's index in the consumption model.
+   * @return the index of the first triplet of the ith pattern.
+   */
+  public int getPatternStart (int i)
+  {
+    return offsets[i];
+  }
+
+  /**
+   * This is a getter function for the index after the last triplet of a
+   * pattern.
+   * 
+   * @param i
+   *          The pattern's index in the consumption model.
+   * @return the index after the last triplet of the ith pattern.
+   */
+  public int getPatternEnd (int i)
+  {
+    return offsets[i + 1];
+  }
+
+  /**
+   * This is a getter function for the consumption of a triplet.
+   * 
+   * @param j
+   *          The triplet's index in the consumption model.
+   * @return the consumption of the jth triplet.
+   */
+  public double getValue (int j)
+  {
+    return values[j];
+  }
+
+  /**
+   * This is a getter function for the duration of a triplet.
+   * 
+   * @param j
+   *          The triplet's index in the consumption model.
+   * @return the duration of the jth triplet.
+   */
+  public int getDuration (int j)
+  {
+    return d[j];
+  }
+
+  /**
+   * This is a getter function for the slope of a triplet.
+   * 
+   * @param j
+   *          The triplet's index in the consumption model.
+   * @return the slope of the jth triplet.
+   */
+  public double getSlope (int j)
+  {
+    return s[j];
+  }
+
+  /**
+   * This function is used to expand the consumption model into the
+   * consumption for each minute of an example operation, where patterns that
+   * repeat an unspecified number of times run twice.
+   * 
+   * @return the consumption per minute.
+   */
+  public double[] expand ()
+  {
+    GrowableDoubleArray temp = new GrowableDoubleArray();
+    int times = outerN;
+    if (times == 0)
+      times = 2;
+    // Number of repeats
+    for (int i = 0; i < times; i++) {
+      // Number of patterns in each repeat
+      for (int j = 0; j < patternN; j++) {
+        int internalTimes = n[j];
+        if (internalTimes == 0)
+          internalTimes = 2;
+        for (int k = 0; k < internalTimes; k++)
+          for (int l = offsets[j]; l < offsets[j + 1]; l++)
+            for (int m = 0; m < d[l]; m++)
+              temp.add(values[l]);
+      }
+    }
+    return temp.toArray();
+  }
+
+  /**
+   * This function is utilized to check if the consumption model is a static
+   * one (having the same value all the operation cycle) or not.
+   * 
+   * @return a boolean variable if the model has static consumption or not.
+   */
+  public boolean isStatic ()
+  {
+    int first = -1;
+
+    for (int j = 0; j < size; j++) {
+      if (d[j] <= 0)
+        continue;
+      if (first == -1)
+        first = j;
+      else if (values[first] != values[j])
+        return false;
+    }
+
+    // A NaN consumption is never considered static
+    return first == -1 || values[first] == values[first];
+  }
+
+  /**
+   * Creating a JSON object out of the consumption model, in the schema used
+   * by the Cassandra Platform.
+   * 
+   * @return the JSON object created from the consumption model.
+   */
+  public DBObject toJSON ()
+  {
+    DBObject temp = new BasicDBObject();
+    BasicDBList params = new BasicDBList();
+
+    for (int i = 0; i < patternN; i++) {
+      BasicDBList triplets = new BasicDBList();
+
+      for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+        DBObject triplet = new BasicDBObject();
+        triplet.put(key, values[j]);
+        triplet.put("d", d[j]);
+        triplet.put("s", s[j]);
+        triplets.add(triplet);
+      }
+
+      DBObject pattern = new BasicDBObject();
+      pattern.put("n", n[i]);
+      pattern.put("values", triplets);
+      params.add(pattern);
+    }
+
+    temp.put("n", outerN);
+    temp.put("params", params);
+
+    return temp;
+  }
+
+  /**
+   * This function is used for writing the JSON schema of the model straight to
+   * a stream, as created by toJSON.
+   * 
+   * @param writer
+   *          The writer of the JSON document.
+   * @throws IOException
+   */
+  public void writeJSON (JSONWriter writer) throws IOException
+  {
+    writer.beginObject();
+    writer.name("n").value(outerN);
+    writer.name("params").beginArray();
+
+    for (int i = 0; i < patternN; i++) {
+      writer.beginObject();
+      writer.name("n").value(n[i]);
+      writer.name("values").beginArray();
+
+      for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+        writer.beginObject();
+        writer.name(key).value(values[j]);
+        writer.name("d").value(d[j]);
+        writer.name("s").value(s[j]);
+        writer.endObject();
+      }
+
+      writer.endArray();
+      writer.endObject();
+    }
+
+    writer.endArray();
+    writer.endObject();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return toJSON().toString();
+  }
+}
@@ -23,22 +23,27 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.TreeMap;
 
 import org.joda.time.DateTime;
-import org.joda.time.Interval;
+import org.joda.time.Duration;
 
 import eu.cassandra.training.entities.Installation;
 import eu.cassandra.training.utils.Constants;
+import eu.cassandra.training.utils.Sample1D;
 
 /**
  * This class is used for implementing the notion of a consumption event
  * repository. The consumption events are collected from the imported data set
  * and then an overall analysis can be done in this repository, in order to
  * create the necessary files and histograms for the training procedure at hand.
+ * The events are stored in columns of their start and end minutes, counted
+ * from the start of the installation's data set, and grouped per day through
+ * an index of offsets, so that the day and minute of day of each event are
+ * derived arithmetically instead of through calendar objects.
  * 
  * @author Antonios Chrysopoulos
  * @version 0.9, Date: 29.07.2013
@@ -52,54 +57,63 @@ public class ConsumptionEventRepo
   String appliance;
 
   /**
-   * This is a list of the consumption events collected for a single appliance
-   * from the measurements data set.
+   * This variable is the date and time the minutes of the consumption events
+   * are counted from, i.e. the start of the installation's data set.
    */
-  ArrayList<ConsumptionEvent> events = new ArrayList<ConsumptionEvent>();
+  DateTime baseDate = null;
 
   /**
-   * This variable is a map of the of the consumption events that are collected
-   * for each date available in the data set.
+   * This array contains the start minute of each consumption event.
    */
-  Map<DateTime, ArrayList<ConsumptionEvent>> eventsPerDate =
-    new HashMap<DateTime, ArrayList<ConsumptionEvent>>();
+  int[] startMinutes = new int[16];
 
   /**
-   * This is a map of the number of consumption events that are collected for
-   * each date available in the data set.
+   * This array contains the end minute of each consumption event.
    */
-  Map<DateTime, Integer> numberEventsPerDate = new TreeMap<DateTime, Integer>();
+  int[] endMinutes = new int[16];
 
   /**
-   * This variable presents a map histogram of the different values found as
-   * duration (in minutes) in the consumption events to their frequency
-   * probability in the data set..
+   * This variable is the number of consumption events of the repository.
    */
-  Map<Integer, Double> eventsDurationHistogram = new TreeMap<Integer, Double>();
+  int size = 0;
 
   /**
-   * This variable presents a map histogram of the different values found as
-   * daily times an event was present for each available date to their frequency
-   * probability in the data set.
+   * This variable is the number of dates available in the data set.
    */
-  Map<Integer, Double> eventsDailyTimesHistogram =
-    new TreeMap<Integer, Double>();
+  int days = 0;
 
   /**
-   * This variable presents a map histogram of the different values found as
-   * start minute of the day for an event to their frequency
-   * probability in the data set.
+   * This array contains, for each date available in the data set, the offset
+   * of its first event in the day index, plus the number of indexed events as
+   * its last element.
    */
-  Map<Integer, Double> eventsStartTimeHistogram =
-    new TreeMap<Integer, Double>();
+  int[] dayOffsets = new int[1];
 
   /**
-   * This variable presents a map histogram of the different values found as
-   * start minute of the day in binned intervals (e.g. 10-minute, quarter
-   * intervals) for an event to their frequency probability in the data set.
+   * This array contains the indices of the consumption events grouped by date,
+   * in the order they were added.
    */
-  Map<Integer, Double> eventsStartTimeBinnedHistogram =
-    new TreeMap<Integer, Double>();
+  int[] dayEvents = new int[0];
+
+  /**
+   * This variable contains the counts of the durations, start minutes and
+   * daily times of the consumption events, from which the frequency
+   * histograms are derived.
+   */
+  EventHistograms histograms = new EventHistograms(new int[0], new int[0], 0,
+                                                   new int[1], 0);
+
+  /**
+   * This array presents the frequency probability of each start minute of the
+   * day, either per minute or spread evenly over the minutes of each bin.
+   */
+  double[] startTimeHistogram = new double[Constants.MINUTES_PER_DAY];
+
+  /**
+   * This array presents the frequency probability of each bin of start minutes
+   * of the day (e.g. 10-minute, quarter intervals).
+   */
+  double[] startTimeBinnedHistogram = new double[0];
 
   /**
    * This variable represents the number of bins that are appropriate for that
@@ -139,53 +153,141 @@ public class ConsumptionEventRepo
    */
   public void addEvent (ConsumptionEvent e)
   {
-    events.add(e);
+    if (baseDate == null)
+      baseDate = e.getStartDate();
+
+    addEvent(minutesFromBase(e.getStartDateTime()),
+             minutesFromBase(e.getEndDateTime()));
+  }
+
+  /**
+   * This function adds an consumption event to the repository.
+   * 
+   * @param startMinute
+   *          The start minute of the event from the start of the data set.
+   * @param endMinute
+   *          The end minute of the event from the start of the data set.
+   */
+  public void addEvent (int startMinute, int endMinute)
+  {
+    if (size == startMinutes.length) {
+      startMinutes = Arrays.copyOf(startMinutes, 2 * size);
+      endMinutes = Arrays.copyOf(endMinutes, 2 * size);
+    }
+
+    startMinutes[size] = startMinute;
+    endMinutes[size] = endMinute;
+    size++;
+  }
+
+  /**
+   * This function returns the minutes from the start of the data set to a
+   * certain date and time.
+   * 
+   * @param dateTime
+   *          The date and time.
+   * @return the number of minutes.
+   */
+  private int minutesFromBase (DateTime dateTime)
+  {
+    return (int) new Duration(baseDate, dateTime).getStandardMinutes();
+  }
+
+  /**
+   * This function returns the date index of a minute from the start of the
+   * data set.
+   * 
+   * @param minute
+   *          The minute from the start of the data set.
+   * @return the index of the date.
+   */
+  static int dayOf (int minute)
+  {
+    int day = minute / Constants.MINUTES_PER_DAY;
+    if (minute < 0 && day * Constants.MINUTES_PER_DAY != minute)
+      day--;
+    return day;
   }
 
   /**
-   * This function is used to fill the event per date map of the repository.
-   * Each available consumption event is parsed and added to the appropriate
-   * date.
+   * This function returns the minute of the day of a minute from the start of
+   * the data set.
+   * 
+   * @param minute
+   *          The minute from the start of the data set.
+   * @return the minute of the day.
+   */
+  static int minuteOfDay (int minute)
+  {
+    return minute - dayOf(minute) * Constants.MINUTES_PER_DAY;
+  }
+
+  /**
+   * This function is used to fill the event per date index of the repository.
+   * Each available consumption event is added to the date it starts at, using
+   * a counting sort over the dates between the start and end of the data set.
    */
   public void createEventPerDateHashmap (DateTime startDate, DateTime endDate)
   {
-    // Initialize the auxiliary variables
-    Map<DateTime, ArrayList<ConsumptionEvent>> tempMap =
-      new TreeMap<DateTime, ArrayList<ConsumptionEvent>>(Constants.comp);
-    ArrayList<ConsumptionEvent> events = getEvents();
+    if (baseDate == null)
+      baseDate = startDate;
+
+    int shift = (int) new Duration(startDate, baseDate).getStandardMinutes();
 
-    // Find the starting dates of all the events.
-    DateTime temp = startDate;
-    DateTime temp2 = endDate;
+    long minutes = new Duration(startDate, endDate).getStandardMinutes();
+    days = (int) (minutes / Constants.MINUTES_PER_DAY) + 1;
 
-    // Fill the map with all the dates
-    while (!temp.isAfter(temp2)) {
+    dayOffsets = new int[days + 1];
+    int[] eventDays = new int[size];
 
-      tempMap.put(temp, new ArrayList<ConsumptionEvent>());
-      temp = temp.plusDays(1);
+    // Count the events of each date, leaving out those outside the data set.
+    for (int i = 0; i < size; i++) {
+      int day = dayOf(startMinutes[i] + shift);
 
+      if (day < 0 || day >= days) {
+        System.out.println("Event " + i + " out of the data set dates");
+        eventDays[i] = -1;
+      }
+      else {
+        eventDays[i] = day;
+        dayOffsets[day + 1]++;
+      }
     }
 
-    // System.out.println(tempMap.toString());
+    for (int day = 0; day < days; day++)
+      dayOffsets[day + 1] += dayOffsets[day];
 
-    // Add each and every event to the appropriate date.
-    for (int i = 0; i < events.size(); i++) {
-      // System.out.println(events.get(i).getStartDate());
-      DateTime loop = events.get(i).getStartDate();
-      ArrayList<ConsumptionEvent> tempList = tempMap.get(loop);
-      tempList.add(events.get(i));
-      tempMap.put(loop, tempList);
-    }
+    // Place each event in its date, keeping the order they were added.
+    int[] next = Arrays.copyOf(dayOffsets, days);
+    dayEvents = new int[dayOffsets[days]];
 
-    // Sort the map based on dates
-    eventsPerDate = new TreeMap<DateTime, ArrayList<ConsumptionEvent>>(tempMap);
+    for (int i = 0; i < size; i++)
+      if (eventDays[i] >= 0)
+        dayEvents[next[eventDays[i]]++] = i;
+  }
 
-    // Fill the number of events per date map also.
-    for (DateTime date: eventsPerDate.keySet())
-      numberEventsPerDate.put(date, eventsPerDate.get(date).size());
+  /**
+   * This is a getter function for the number of dates available in the data
+   * set.
+   * 
+   * @return the number of dates.
+   */
+  public int getNumberOfDays ()
+  {
+    return days;
+  }
 
-    // System.out.println(eventsPerDate.toString());
-    // System.out.println(numberEventsPerDate.toString());
+  /**
+   * This function returns the number of consumption events of a certain date
+   * of the data set.
+   * 
+   * @param day
+   *          The index of the date.
+   * @return the number of events.
+   */
+  public int getNumberOfEvents (int day)
+  {
+    return dayOffsets[day + 1] - dayOffsets[day];
   }
 
   /**
@@ -194,12 +296,12 @@ public class ConsumptionEventRepo
    */
   public void clear ()
   {
-    numberEventsPerDate.clear();
-    eventsPerDate.clear();
-    eventsDurationHistogram.clear();
-    eventsDailyTimesHistogram.clear();
-    eventsStartTimeHistogram.clear();
-    eventsStartTimeBinnedHistogram.clear();
+    days = 0;
+    dayOffsets = new int[1];
+    dayEvents = new int[0];
+    histograms = new EventHistograms(new int[0], new int[0], 0, dayOffsets, 0);
+    startTimeHistogram = new double[Constants.MINUTES_PER_DAY];
+    startTimeBinnedHistogram = new double[0];
   }
 
   /**
@@ -208,7 +310,7 @@ public class ConsumptionEventRepo
    */
   public void cleanEvents ()
   {
-    events.clear();
+    size = 0;
   }
 
   /**
@@ -227,9 +329,7 @@ public class ConsumptionEventRepo
 
     // System.out.println("Overall Days:" + eventsPerDate.keySet().size());
     setBins();
-    createDurationHistogram();
-    createDailyTimesHistogram();
-    createStartTimeHistogram();
+    createHistograms();
     createStartTimeBinnedHistogram(binSize, bins);
 
     // ChartUtils.createHistogram("Duration", "Minutes", "Possibility",
@@ -256,19 +356,19 @@ public class ConsumptionEventRepo
   private void setBins ()
   {
 
-    if (events.size() <= Constants.HOUR_SAMPLE_LIMIT) {
+    if (size <= Constants.HOUR_SAMPLE_LIMIT) {
       binSize = Constants.MINUTES_PER_HOUR;
       bins = Constants.HOURS_PER_DAY;
     }
-    else if (events.size() <= Constants.QUARTER_SAMPLE_LIMIT) {
+    else if (size <= Constants.QUARTER_SAMPLE_LIMIT) {
       binSize = Constants.QUARTER;
       bins = Constants.QUARTERS_PER_DAY;
     }
-    else if (events.size() <= Constants.TEN_MINUTE_SAMPLE_LIMIT) {
+    else if (size <= Constants.TEN_MINUTE_SAMPLE_LIMIT) {
       binSize = Constants.TEN_MINUTES;
       bins = Constants.TEN_MINUTES_PER_DAY;
     }
-    else if (events.size() <= Constants.FIVE_MINUTE_SAMPLE_LIMIT) {
+    else if (size <= Constants.FIVE_MINUTE_SAMPLE_LIMIT) {
       binSize = Constants.FIVE_MINUTES;
       bins = Constants.FIVE_MINUTES_PER_DAY;
     }
@@ -277,7 +377,7 @@ public class ConsumptionEventRepo
       bins = Constants.MINUTES_PER_DAY;
     }
 
-    System.out.println("Events: " + events.size() + " Bins: " + bins
+    System.out.println("Events: " + size + " Bins: " + bins
                        + " Minutes per bin: " + binSize);
 
   }
@@ -303,282 +403,193 @@ public class ConsumptionEventRepo
   }
 
   /**
-   * This is a getter function for the available consumption events.
+   * This is a getter function for the available consumption events, which are
+   * created on demand from the columns of the repository.
    * 
    * @return the list of consumption events of the repository
    */
   public ArrayList<ConsumptionEvent> getEvents ()
   {
+    ArrayList<ConsumptionEvent> events = new ArrayList<ConsumptionEvent>(size);
+
+    for (int i = 0; i < size; i++)
+      events.add(toEvent(i));
+
     return events;
   }
 
   /**
-   * This is a getter function for the map of number of events per date.
+   * This function creates the consumption event object of an event of the
+   * repository.
+   * 
+   * @param i
+   *          The index of the event.
+   * @return the consumption event.
+   */
+  private ConsumptionEvent toEvent (int i)
+  {
+    DateTime startDateTime = baseDate.plusMinutes(startMinutes[i]);
+    DateTime endDateTime = baseDate.plusMinutes(endMinutes[i]);
+
+    DateTime startDate =
+      new DateTime(startDateTime.getYear(), startDateTime.getMonthOfYear(),
+                   startDateTime.getDayOfMonth(), 0, 0);
+    DateTime endDate =
+      new DateTime(endDateTime.getYear(), endDateTime.getMonthOfYear(),
+                   endDateTime.getDayOfMonth(), 0, 0);
+
+    return new ConsumptionEvent(i, startDateTime, startDate, endDateTime,
+                                endDate);
+  }
+
+  /**
+   * This is a getter function for the map of number of events per date, which
+   * is created on demand from the per date index.
    * 
    * @return the map of number of events per date.
    */
   public Map<DateTime, Integer> getNumberEventsPerDate ()
   {
+    Map<DateTime, Integer> numberEventsPerDate =
+      new TreeMap<DateTime, Integer>();
+
+    for (int day = 0; day < days; day++)
+      numberEventsPerDate.put(dateOf(day), getNumberOfEvents(day));
+
     return numberEventsPerDate;
   }
 
   /**
-   * This is a getter function for the map of events per date.
+   * This is a getter function for the map of events per date, which is
+   * created on demand from the per date index.
    * 
    * @return the map of events per date.
    */
   public Map<DateTime, ArrayList<ConsumptionEvent>> getEventsPerDate ()
   {
+    Map<DateTime, ArrayList<ConsumptionEvent>> eventsPerDate =
+      new TreeMap<DateTime, ArrayList<ConsumptionEvent>>();
+
+    for (int day = 0; day < days; day++) {
+      ArrayList<ConsumptionEvent> dayList = new ArrayList<ConsumptionEvent>();
+      for (int j = dayOffsets[day]; j < dayOffsets[day + 1]; j++)
+        dayList.add(toEvent(dayEvents[j]));
+      eventsPerDate.put(dateOf(day), dayList);
+    }
+
     return eventsPerDate;
   }
 
   /**
-   * This is a getter function for the duration histogram.
+   * This function returns the date of a date index of the data set.
+   * 
+   * @param day
+   *          The index of the date.
+   * @return the date.
+   */
+  private DateTime dateOf (int day)
+  {
+    return baseDate.plusDays(day);
+  }
+
+  /**
+   * This is a getter function for the counts of the consumption events, from
+   * which the histograms are derived.
+   * 
+   * @return the counts of the consumption events.
+   */
+  public EventHistograms getHistograms ()
+  {
+    return histograms;
+  }
+
+  /**
+   * This is a getter function for the duration histogram, which is created on
+   * demand with the durations present in the consumption events.
    * 
    * @return the duration histogram.
    */
   public Map<Integer, Double> getDurationHistogram ()
   {
-    return eventsDurationHistogram;
+    return toMap(histograms.getDurationHistogram(), true);
   }
 
   /**
-   * This is a getter function for the daily times histogram.
+   * This is a getter function for the daily times histogram, which is created
+   * on demand with the daily times present in the data set.
    * 
    * @return the daily times histogram.
    */
   public Map<Integer, Double> getDailyTimesHistogram ()
   {
-    return eventsDailyTimesHistogram;
+    return toMap(histograms.getDailyTimesHistogram(), true);
   }
 
   /**
-   * This is a getter function for the start time histogram.
+   * This is a getter function for the start time histogram, which is created
+   * on demand with the start minutes present in the consumption events.
    * 
    * @return the start time histogram.
    */
   public Map<Integer, Double> getStartTimeHistogram ()
   {
-    return eventsStartTimeHistogram;
+    return toMap(startTimeHistogram, true);
   }
 
   /**
-   * This is a getter function for the start time binned histogram.
+   * This is a getter function for the start time binned histogram, which is
+   * created on demand with all the bins.
    * 
    * @return the start time binned histogram.
    */
   public Map<Integer, Double> getStartTimeBinnedHistogram ()
   {
-    return eventsStartTimeBinnedHistogram;
+    return toMap(startTimeBinnedHistogram, false);
   }
 
   /**
-   * This is the function that creates the duration histogram by parsing through
-   * all the available consumption events and checking on their duration.
-   */
-  public void createDurationHistogram ()
-  {
-
-    Map<Integer, Double> tempDurationHistogram = new HashMap<Integer, Double>();
-    ArrayList<ConsumptionEvent> events = getEvents();
-
-    for (int i = 0; i < events.size(); i++) {
-
-      Integer temp = (int) events.get(i).getDuration().getStandardMinutes();
-
-      if (tempDurationHistogram.containsKey(temp))
-        tempDurationHistogram.put(temp, tempDurationHistogram.get(temp) + 1);
-      else
-        tempDurationHistogram.put(temp, Double.valueOf(1));
-    }
-
-    // System.out.println(tempDurationHistogram.toString());
-    // double sum = 0;
-
-    for (Integer duration: tempDurationHistogram.keySet()) {
-
-      tempDurationHistogram.put(duration,
-                                Double.valueOf(tempDurationHistogram
-                                        .get(duration) / events.size()));
-
-      // sum += tempDurationHistogram.get(duration);
-    }
-
-    eventsDurationHistogram =
-      new TreeMap<Integer, Double>(tempDurationHistogram);
-    /*
-     * System.out.print("Number of Events for type " + type + ":" +
-     * events.size() + " "); System.out.println(sortedMap.toString());
-     * System.out.println(sum);
-     */
-
-  }
-
-  /**
-   * This is the function that creates the daily histogram by parsing through
-   * all the available dates and checking on the number of consumption events
-   * present for each date.
+   * Function for converting a histogram array to a map of the values to their
+   * frequency probability.
+   * 
+   * @param histogram
+   *          The histogram array.
+   * @param present
+   *          The flag stating that only the values with non zero probability
+   *          are included.
+   * @return the histogram map.
    */
-  public void createDailyTimesHistogram ()
+  private static Map<Integer, Double> toMap (double[] histogram,
+                                             boolean present)
   {
-    Map<Integer, Double> tempDailyTimesHistogram =
-      new HashMap<Integer, Double>();
+    Map<Integer, Double> result = new TreeMap<Integer, Double>();
 
-    Map<DateTime, Integer> eventsPerDate = getNumberEventsPerDate();
-
-    for (DateTime date: eventsPerDate.keySet()) {
-
-      Integer temp = eventsPerDate.get(date);
-
-      if (tempDailyTimesHistogram.containsKey(temp))
-        tempDailyTimesHistogram
-                .put(temp, tempDailyTimesHistogram.get(temp) + 1);
-      else
-        tempDailyTimesHistogram.put(temp, Double.valueOf(1));
-    }
-
-    // System.out.println(tempDailyTimesHistogram.toString());
-    double total = 0;
-
-    for (Integer times: tempDailyTimesHistogram.keySet()) {
-
-      total += tempDailyTimesHistogram.get(times);
-
-    }
-
-    // double sum = 0;
-    for (Integer dailyTimes: tempDailyTimesHistogram.keySet()) {
-
-      tempDailyTimesHistogram.put(dailyTimes,
-                                  Double.valueOf(tempDailyTimesHistogram
-                                          .get(dailyTimes) / total));
-
-      // sum += tempDailyTimesHistogram.get(dailyTimes);
-    }
-
-    eventsDailyTimesHistogram =
-      new TreeMap<Integer, Double>(tempDailyTimesHistogram);
-
-    // System.out.println(eventsDailyTimesHistogram.toString());
-    /*
-     * System.out.print("Number of Events for type " + type + ":" +
-     * events.size() + " ");
-     * System.out.println(tempDailyTimesHistogram.toString());
-     * System.out.println(sum);
-     */
+    for (int i = 0; i < histogram.length; i++)
+      if (!present || histogram[i] != 0)
+        result.put(i, histogram[i]);
 
+    return result;
   }
 
   /**
-   * This is the function that creates the start time histogram by parsing
-   * through all the available consumption events and checking on their
-   * start minute of the day.
+   * This is the function that creates the duration, daily times and start time
+   * histograms, counting the durations and start minutes of all the available
+   * consumption events and the number of events of each date in a single pass.
    */
-  public void createStartTimeHistogram ()
+  public void createHistograms ()
   {
-
-    Map<Integer, Double> tempStartTimeHistogram =
-      new HashMap<Integer, Double>();
-
-    ArrayList<ConsumptionEvent> events = getEvents();
-
-    for (int i = 0; i < events.size(); i++) {
-
-      Integer temp = events.get(i).getStartMinuteOfDay();
-
-      if (tempStartTimeHistogram.containsKey(temp))
-        tempStartTimeHistogram.put(temp, tempStartTimeHistogram.get(temp) + 1);
-      else
-        tempStartTimeHistogram.put(temp, Double.valueOf(1));
-    }
-
-    // System.out.println(tempStartTimeHistogram.toString());
-    // double sum = 0;
-
-    for (Integer startTime: tempStartTimeHistogram.keySet()) {
-
-      tempStartTimeHistogram.put(startTime,
-                                 Double.valueOf(tempStartTimeHistogram
-                                         .get(startTime) / events.size()));
-
-      // sum += tempStartTimeHistogram.get(startTime);
-    }
-
-    eventsStartTimeHistogram =
-      new TreeMap<Integer, Double>(tempStartTimeHistogram);
-    /*
-     * System.out.print("Number of Events for type " + type + ":" +
-     * events.size() + " ");
-     * System.out.println(tempStartTimeHistogram.toString());
-     * System.out.println(sum);
-     */
-
+    histograms =
+      new EventHistograms(startMinutes, endMinutes, size, dayOffsets, days);
+    startTimeHistogram = histograms.getStartTimeHistogram();
   }
 
   /**
-   * This is the function that creates the start time histogram by parsing
-   * through all the available consumption events and checking on their
-   * start minute of the day.
+   * This is the function that replaces the start time histogram by the one
+   * where the probability of each bin of minutes is spread evenly over its
+   * minutes.
    */
   public void createStartTimeHistogram2 ()
   {
-
-    Map<Integer, Double> tempStartTimeHistogram =
-      new HashMap<Integer, Double>();
-
-    Map<Integer, Double> temp = new HashMap<Integer, Double>();
-
-    ArrayList<ConsumptionEvent> events = getEvents();
-    double percentage = 0;
-    Integer minute;
-
-    for (int i = 0; i < events.size(); i++) {
-
-      minute = events.get(i).getStartMinuteOfDay() / binSize;
-
-      if (tempStartTimeHistogram.containsKey(minute))
-        tempStartTimeHistogram.put(minute,
-                                   tempStartTimeHistogram.get(minute) + 1);
-      else
-        tempStartTimeHistogram.put(minute, Double.valueOf(1));
-    }
-
-    // System.out.println(tempStartTimeHistogram.toString());
-
-    for (Integer startTime: tempStartTimeHistogram.keySet()) {
-
-      tempStartTimeHistogram.put(startTime,
-                                 Double.valueOf(tempStartTimeHistogram
-                                         .get(startTime) / events.size()));
-
-    }
-
-    for (int i = 0; i < bins; i++) {
-
-      if (tempStartTimeHistogram.containsKey(i)) {
-
-        percentage = tempStartTimeHistogram.get(i) / binSize;
-
-        for (int j = 0; j < binSize; j++) {
-          minute = i * binSize + j;
-          temp.put(minute, percentage);
-        }
-
-      }
-
-    }
-
-    // double sum = 0;
-    //
-    // for (Integer startTime: temp.keySet())
-    // sum += temp.get(startTime);
-
-    eventsStartTimeHistogram = new TreeMap<Integer, Double>(temp);
-
-    // System.out.print("Number of Events:" + events.size() + " ");
-    // System.out.println(temp.toString());
-    // System.out.println(sum);
-
+    startTimeHistogram = histograms.getStartTimeSpreadHistogram(binSize, bins);
   }
 
   /**
@@ -594,89 +605,173 @@ public class ConsumptionEventRepo
   public void
     createStartTimeBinnedHistogram (int minuteInterval, int intervals)
   {
+    startTimeBinnedHistogram =
+      EventHistograms.toBins(startTimeHistogram, minuteInterval, intervals);
+  }
 
-    Map<Integer, Double> tempStartTimeBinnedHistogram =
-      new HashMap<Integer, Double>();
+  /**
+   * Function for exporting the consumption event start and end times
+   * to a file for the training procedure.
+   * 
+   * @param filename
+   *          The name of the file that will be exported.
+   */
+  public void eventsToFile (String filename)
+  {
+    try {
 
-    Map<Integer, Double> eventsStartTimeHistogram = getStartTimeHistogram();
+      if (size == 0)
+        throw new IndexOutOfBoundsException("No consumption events");
 
-    // System.out.println(eventsStartTimeHistogram.toString());
+      // The minutes are counted from the start of the first event's date
+      int startBase = dayOf(startMinutes[0]) * Constants.MINUTES_PER_DAY;
+      int endBase =
+        (dayOf(endMinutes[size - 1]) + 1) * Constants.MINUTES_PER_DAY;
 
-    for (int i = 0; i < intervals; i++) {
+      long endTick = endBase - startBase;
 
-      double tempSum = 0;
+      OutputStream output = new FileOutputStream(filename);
+      PrintStream printOut = new PrintStream(output);
 
-      for (int j = 0; j < minuteInterval; j++) {
+      printOut.println("End:" + endTick);
 
-        int tick = minuteInterval * i + j;
-        if (eventsStartTimeHistogram.containsKey(tick))
-          tempSum += eventsStartTimeHistogram.get(tick);
-      }
+      for (int i = 0; i < size; i++)
+        printOut.println((startMinutes[i] - startBase) + "-"
+                         + (endMinutes[i] - startBase));
 
-      tempStartTimeBinnedHistogram.put(i, tempSum);
+      output.close();
 
     }
+    catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
 
-    // double sum = 0;
-
-    // for (Integer startTime: tempStartTimeBinnedHistogram.keySet()) {
-    //
-    // sum += tempStartTimeBinnedHistogram.get(startTime);
-    // }
-
-    eventsStartTimeBinnedHistogram =
-      new TreeMap<Integer, Double>(tempStartTimeBinnedHistogram);
+  /**
+   * Function for collecting the values that are found in the consumption
+   * events for a certain attribute, in the order they are exported to the
+   * training file.
+   * 
+   * @param atribute
+   *          The name of the attribute ((Daily Times, Duration, Start Time,
+   *          Start Time Binned)
+   * @return an array with the values of the attribute.
+   */
+  public int[] attributeToArray (String attribute)
+  {
+    int[] values = null;
+
+    switch (attribute) {
+
+    case "DailyTimes":
+      values = new int[days];
+      for (int day = 0; day < days; day++)
+        values[day] = getNumberOfEvents(day);
+      break;
+
+    case "Duration":
+      values = new int[size];
+      for (int i = 0; i < size; i++)
+        values[i] = endMinutes[i] - startMinutes[i];
+      break;
+
+    case "StartTime":
+      values = new int[size];
+      for (int i = 0; i < size; i++)
+        values[i] = minuteOfDay(startMinutes[i]);
+      break;
+
+    case "StartTimeBinned":
+      values = new int[size];
+      for (int i = 0; i < size; i++)
+        values[i] = minuteOfDay(startMinutes[i]) / Constants.TEN_MINUTES;
+      break;
+
+    default:
+      System.out.println("ERROR in attribute");
+      values = new int[0];
 
-    // System.out.println(tempStartTimeBinnedHistogram.toString());
-    // System.out.println(sum);
+    }
 
+    return values;
   }
 
   /**
-   * Function for exporting the consumption event start and end times
-   * to a file for the training procedure.
+   * Function for collecting the values that are found in the consumption
+   * events for a certain attribute in compact form, as the distinct values
+   * with their number of occurrences. The counts are recovered from the
+   * frequency histograms of the repository, so the size of the result depends
+   * on the number of distinct values and not on the number of events.
    * 
-   * @param filename
-   *          The name of the file that will be exported.
+   * @param atribute
+   *          The name of the attribute ((Daily Times, Duration, Start Time,
+   *          Start Time Binned)
+   * @return the sample of the attribute.
    */
-  public void eventsToFile (String filename)
+  public Sample1D attributeToSample (String attribute)
   {
-    try {
+    int[] counts;
 
-      DateTime startBase = events.get(0).getStartDate();
-      DateTime endBase = events.get(events.size() - 1).getEndDate().plusDays(1);
+    switch (attribute) {
 
-      long endTick =
-        new Interval(startBase, endBase).toDuration().getStandardMinutes();
+    case "DailyTimes":
+      counts = histograms.getDailyTimesCounts();
+      break;
 
-      PrintStream realSystemOut = System.out;
-      OutputStream output = new FileOutputStream(filename);
-      PrintStream printOut = new PrintStream(output);
-      System.setOut(printOut);
+    case "Duration":
+      counts = histograms.getDurationCounts();
+      break;
+
+    case "StartTime":
+      counts = histograms.getStartMinuteCounts();
+      break;
 
-      System.out.println("End:" + endTick);
+    case "StartTimeBinned":
+      counts = toBins(histograms.getStartMinuteCounts(), Constants.TEN_MINUTES);
+      break;
 
-      for (int i = 0; i < events.size(); i++) {
+    default:
+      System.out.println("ERROR in attribute");
+      counts = new int[0];
+
+    }
 
-        long startDistance =
-          new Interval(startBase, events.get(i).getStartDateTime())
-                  .toDuration().getStandardMinutes();
+    int present = 0;
 
-        long endDistance =
-          new Interval(startBase, events.get(i).getEndDateTime()).toDuration()
-                  .getStandardMinutes();
+    for (int i = 0; i < counts.length; i++)
+      if (counts[i] > 0)
+        present++;
 
-        System.out.println(startDistance + "-" + endDistance);
+    double[] values = new double[present];
+    double[] weights = new double[present];
+    int index = 0;
 
+    for (int i = 0; i < counts.length; i++)
+      if (counts[i] > 0) {
+        values[index] = i;
+        weights[index++] = counts[i];
       }
 
-      System.setOut(realSystemOut);
-      output.close();
+    return new Sample1D(values, weights);
+  }
 
-    }
-    catch (Exception e) {
-      e.printStackTrace();
-    }
+  /**
+   * Function for merging the counts of consecutive values in bins.
+   * 
+   * @param counts
+   *          The number of occurrences of each value.
+   * @param binSize
+   *          The number of consecutive values per bin.
+   * @return the number of occurrences of each bin.
+   */
+  private static int[] toBins (int[] counts, int binSize)
+  {
+    int[] result = new int[(counts.length + binSize - 1) / binSize];
+
+    for (int i = 0; i < counts.length; i++)
+      result[i / binSize] += counts[i];
+
+    return result;
   }
 
   /**
@@ -693,53 +788,14 @@ public class ConsumptionEventRepo
   {
     try {
 
-      ArrayList<ConsumptionEvent> events = getEvents();
-      Map<DateTime, Integer> numberEvents = getNumberEventsPerDate();
-      int temp = 0;
+      int[] values = attributeToArray(attribute);
 
-      PrintStream realSystemOut = System.out;
+      PrintStream printOut = new PrintStream(new FileOutputStream(filename));
 
-      OutputStream output = new FileOutputStream(filename);
-      PrintStream printOut = new PrintStream(output);
-      System.setOut(printOut);
-
-      switch (attribute) {
-
-      case "DailyTimes":
-        for (DateTime date: numberEvents.keySet()) {
-          temp = numberEvents.get(date);
-          System.out.println(temp);
-        }
-        break;
-
-      case "Duration":
-        for (int i = 0; i < events.size(); i++) {
-          temp = (int) (events.get(i).getDuration().getStandardMinutes());
-          System.out.println(temp);
-        }
-        break;
-
-      case "StartTime":
-        for (int i = 0; i < events.size(); i++) {
-          temp = (events.get(i).getStartMinuteOfDay());
-          System.out.println(temp);
-        }
-        break;
-
-      case "StartTimeBinned":
-        for (int i = 0; i < events.size(); i++) {
-          temp = events.get(i).getStartMinuteOfDay() / Constants.TEN_MINUTES;
-          System.out.println(temp);
-        }
-        break;
-
-      default:
-        System.out.println("ERROR");
-
-      }
+      for (int i = 0; i < values.length; i++)
+        printOut.println(values[i]);
 
-      System.setOut(realSystemOut);
-      output.close();
+      printOut.close();
 
     }
     catch (Exception e) {
@@ -747,6 +803,67 @@ public class ConsumptionEventRepo
     }
   }
 
+  /**
+   * Function for copying a histogram of the consumption event repository to a
+   * new array of at least one element.
+   * 
+   * @param histogram
+   *          The histogram to be copied.
+   * @return the array of probabilities.
+   */
+  private static double[] histogramToArray (double[] histogram)
+  {
+    return Arrays.copyOf(histogram, Math.max(1, histogram.length));
+  }
+
+  /**
+   * Function for creating the Duration histogram array of the consumption
+   * event repository for the training procedure, with the same bins as the
+   * exported file.
+   * 
+   * @return the array of the Duration histogram.
+   */
+  public double[] DurationHistogramToArray ()
+  {
+    return histogramToArray(histograms.getDurationHistogram());
+  }
+
+  /**
+   * Function for creating the Daily Times histogram array of the consumption
+   * event repository for the training procedure, with the same bins as the
+   * exported file.
+   * 
+   * @return the array of the Daily Times histogram.
+   */
+  public double[] DailyTimesHistogramToArray ()
+  {
+    return histogramToArray(histograms.getDailyTimesHistogram());
+  }
+
+  /**
+   * Function for creating the Start Time histogram array of the consumption
+   * event repository for the training procedure, with one bin per minute of
+   * the day.
+   * 
+   * @return the array of the Start Time histogram.
+   */
+  public double[] StartTimeHistogramToArray ()
+  {
+    return histogramToArray(startTimeHistogram);
+  }
+
+  /**
+   * Function for creating the Start Time Binned histogram array of the
+   * consumption event repository for the training procedure, with the same
+   * bins as the exported file.
+   * 
+   * @return the array of the Start Time Binned histogram.
+   */
+  public double[] StartTimeBinnedHistogramToArray ()
+  {
+    return histogramToArray(startTimeBinnedHistogram);
+  }
+
   /**
    * Function for exporting the Duration histogram of the consumption event
    * repository to a file for the training procedure.
@@ -759,23 +876,20 @@ public class ConsumptionEventRepo
     try {
 
       DecimalFormat df = new DecimalFormat("#.#####");
-      Map<Integer, Double> temp = getDurationHistogram();
-
-      PrintStream realSystemOut = System.out;
+      double[] temp = histograms.getDurationHistogram();
 
       OutputStream output = new FileOutputStream(filename);
       PrintStream printOut = new PrintStream(output);
-      System.setOut(printOut);
-      System.out.println("Histogram");
-      System.out.println("0-0");
+      printOut.println("Histogram");
+      printOut.println("0-0");
 
-      for (Integer duration: temp.keySet()) {
+      for (int i = 0; i < temp.length; i++) {
 
-        System.out.println(duration + "-" + df.format(temp.get(duration)));
+        if (temp[i] != 0)
+          printOut.println(i + "-" + df.format(temp[i]));
 
       }
 
-      System.setOut(realSystemOut);
       output.close();
     }
     catch (Exception e) {
@@ -795,23 +909,20 @@ public class ConsumptionEventRepo
     try {
 
       DecimalFormat df = new DecimalFormat("#.#####");
-      Map<Integer, Double> temp = getDailyTimesHistogram();
-
-      PrintStream realSystemOut = System.out;
+      double[] temp = histograms.getDailyTimesHistogram();
 
       OutputStream output = new FileOutputStream(filename);
       PrintStream printOut = new PrintStream(output);
-      System.setOut(printOut);
 
-      System.out.println("Histogram");
+      printOut.println("Histogram");
 
-      for (Integer duration: temp.keySet()) {
+      for (int i = 0; i < temp.length; i++) {
 
-        System.out.println(duration + "-" + df.format(temp.get(duration)));
+        if (temp[i] != 0)
+          printOut.println(i + "-" + df.format(temp[i]));
 
       }
 
-      System.setOut(realSystemOut);
       output.close();
     }
     catch (Exception e) {
@@ -831,25 +942,21 @@ public class ConsumptionEventRepo
     try {
 
       DecimalFormat df = new DecimalFormat("#.#####");
-      Map<Integer, Double> temp = getStartTimeHistogram();
-
-      PrintStream realSystemOut = System.out;
+      double[] temp = startTimeHistogram;
 
       OutputStream output = new FileOutputStream(filename);
       PrintStream printOut = new PrintStream(output);
-      System.setOut(printOut);
 
-      System.out.println("Histogram");
+      printOut.println("Histogram");
 
       for (int i = 0; i < Constants.MINUTES_PER_DAY; i++) {
 
-        if (temp.containsKey(i))
-          System.out.println(i + "-" + df.format(temp.get(i)));
+        if (temp[i] != 0)
+          printOut.println(i + "-" + df.format(temp[i]));
         else
-          System.out.println(i + "-0");
+          printOut.println(i + "-0");
       }
 
-      System.setOut(realSystemOut);
       output.close();
 
     }
@@ -870,23 +977,16 @@ public class ConsumptionEventRepo
     try {
 
       DecimalFormat df = new DecimalFormat("#.#####");
-      Map<Integer, Double> temp = getStartTimeBinnedHistogram();
-
-      PrintStream realSystemOut = System.out;
+      double[] temp = startTimeBinnedHistogram;
 
       OutputStream output = new FileOutputStream(filename);
       PrintStream printOut = new PrintStream(output);
-      System.setOut(printOut);
 
-      System.out.println("Histogram");
+      printOut.println("Histogram");
 
-      for (Integer duration: temp.keySet()) {
+      for (int i = 0; i < temp.length; i++)
+        printOut.println(i + "-" + df.format(temp[i]));
 
-        System.out.println(duration + "-" + df.format(temp.get(duration)));
-
-      }
-
-      System.setOut(realSystemOut);
       output.close();
 
     }
@@ -909,13 +1009,13 @@ public class ConsumptionEventRepo
 
     int startMinute = 0;
     int endMinute = 0;
-    int counter = 0;
-    DateTime startDateTime = new DateTime();
-    DateTime endDateTime = new DateTime();
-    DateTime startDate = new DateTime();
-    DateTime endDate = new DateTime();
     DateTime date = installation.getStartDate();
 
+    if (baseDate == null)
+      baseDate = date;
+
+    int shift = (int) new Duration(baseDate, date).getStandardMinutes();
+
     System.out.println(filename);
 
     File file = new File(filename);
@@ -933,21 +1033,11 @@ public class ConsumptionEventRepo
       startMinute = Integer.parseInt(temp[0]);
       endMinute = Integer.parseInt(temp[1]);
 
-      startDateTime = date.plusMinutes(startMinute);
-      endDateTime = date.plusMinutes(endMinute);
-
-      startDate =
-        new DateTime(startDateTime.getYear(), startDateTime.getMonthOfYear(),
-                     startDateTime.getDayOfMonth(), 0, 0);
-      endDate =
-        new DateTime(endDateTime.getYear(), endDateTime.getMonthOfYear(),
-                     endDateTime.getDayOfMonth(), 0, 0);
-
-      if (startDateTime.isAfter(endDateTime) == false)
-        events.add(new ConsumptionEvent(counter++, startDateTime, startDate,
-                                        endDateTime, endDate));
+      if (startMinute <= endMinute)
+        addEvent(startMinute + shift, endMinute + shift);
       else
-        System.out.println("Start: " + startDateTime + " End: " + endDateTime);
+        System.out.println("Start: " + date.plusMinutes(startMinute)
+                           + " End: " + date.plusMinutes(endMinute));
 
     }
 
@@ -0,0 +1,299 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.consumption;
+
+import java.util.Arrays;
+
+import eu.cassandra.training.utils.Constants;
+
+/**
+ * This class is used for building the frequency histograms of a consumption
+ * event repository. The number of occurrences of each duration, start minute
+ * of the day and number of events per day are counted in dense primitive
+ * arrays in a single pass over the events, and the probability histograms of
+ * any bin size are derived from these counts without going over the events
+ * again.
+ */
+public class EventHistograms
+{
+
+  /**
+   * This variable is the number of consumption events counted.
+   */
+  private final int events;
+
+  /**
+   * This variable is the number of dates counted.
+   */
+  private final int days;
+
+  /**
+   * This array contains the number of events for each duration in minutes.
+   */
+  private int[] durationCounts;
+
+  /**
+   * This array contains the number of dates for each number of events per
+   * date.
+   */
+  private int[] dailyTimesCounts;
+
+  /**
+   * This array contains the number of events for each start minute of the
+   * day.
+   */
+  private final int[] startMinuteCounts =
+    new int[Constants.MINUTES_PER_DAY];
+
+  /**
+   * The constructor of the histograms of a set of consumption events, counting
+   * all the histograms at once.
+   * 
+   * @param startMinutes
+   *          The start minute of each event from the start of the data set.
+   * @param endMinutes
+   *          The end minute of each event from the start of the data set.
+   * @param size
+   *          The number of events.
+   * @param dayOffsets
+   *          The offsets of the events of each date in the per date index.
+   * @param days
+   *          The number of dates.
+   */
+  public EventHistograms (int[] startMinutes, int[] endMinutes, int size,
+                          int[] dayOffsets, int days)
+  {
+    this.events = size;
+    this.days = days;
+
+    int[] durations = new int[Constants.MINUTES_PER_DAY];
+
+    for (int i = 0; i < size; i++) {
+      int duration = endMinutes[i] - startMinutes[i];
+
+      if (duration >= durations.length)
+        durations =
+          Arrays.copyOf(durations,
+                        Math.max(duration + 1, 2 * durations.length));
+
+      // Events ending before they start have no duration to count
+      if (duration >= 0)
+        durations[duration]++;
+
+      startMinuteCounts[ConsumptionEventRepo.minuteOfDay(startMinutes[i])]++;
+    }
+
+    int[] dailyTimes = new int[1];
+
+    for (int day = 0; day < days; day++) {
+      int times = dayOffsets[day + 1] - dayOffsets[day];
+
+      if (times >= dailyTimes.length)
+        dailyTimes =
+          Arrays.copyOf(dailyTimes, Math.max(times + 1, 2 * dailyTimes.length));
+
+      dailyTimes[times]++;
+    }
+
+    durationCounts = trim(durations);
+    dailyTimesCounts = trim(dailyTimes);
+  }
+
+  /**
+   * This function removes the trailing zero counts of an array, keeping at
+   * least one element.
+   * 
+   * @param counts
+   *          The array of counts.
+   * @return the trimmed array of counts.
+   */
+  private static int[] trim (int[] counts)
+  {
+    int length = counts.length;
+
+    while (length > 1 && counts[length - 1] == 0)
+      length--;
+
+    return Arrays.copyOf(counts, length);
+  }
+
+  /**
+   * This is a getter function of the number of events counted.
+   * 
+   * @return the number of events.
+   */
+  public int getEvents ()
+  {
+    return events;
+  }
+
+  /**
+   * This is a getter function of the number of dates counted.
+   * 
+   * @return the number of dates.
+   */
+  public int getDays ()
+  {
+    return days;
+  }
+
+  /**
+   * This is a getter function of the number of events for each duration in
+   * minutes, up to the largest duration. The array is shared and must not be
+   * modified.
+   * 
+   * @return the duration counts.
+   */
+  public int[] getDurationCounts ()
+  {
+    return durationCounts;
+  }
+
+  /**
+   * This is a getter function of the number of dates for each number of
+   * events per date, up to the largest one. The array is shared and must not
+   * be modified.
+   * 
+   * @return the daily times counts.
+   */
+  public int[] getDailyTimesCounts ()
+  {
+    return dailyTimesCounts;
+  }
+
+  /**
+   * This is a getter function of the number of events for each start minute
+   * of the day. The array is shared and must not be modified.
+   * 
+   * @return the start minute counts.
+   */
+  public int[] getStartMinuteCounts ()
+  {
+    return startMinuteCounts;
+  }
+
+  /**
+   * This function returns the probability of each duration in minutes.
+   * 
+   * @return the duration histogram.
+   */
+  public double[] getDurationHistogram ()
+  {
+    return toProbabilities(durationCounts, events);
+  }
+
+  /**
+   * This function returns the probability of each number of events per date.
+   * 
+   * @return the daily times histogram.
+   */
+  public double[] getDailyTimesHistogram ()
+  {
+    return toProbabilities(dailyTimesCounts, days);
+  }
+
+  /**
+   * This function returns the probability of each start minute of the day.
+   * 
+   * @return the start time histogram.
+   */
+  public double[] getStartTimeHistogram ()
+  {
+    return toProbabilities(startMinuteCounts, events);
+  }
+
+  /**
+   * This function returns the start time histogram with the probability of
+   * each bin of minutes spread evenly over the minutes of the bin.
+   * 
+   * @param binSize
+   *          The number of minutes per bin.
+   * @param bins
+   *          The number of bins.
+   * @return the start time histogram, with one value per minute of the day.
+   */
+  public double[] getStartTimeSpreadHistogram (int binSize, int bins)
+  {
+    double[] result = new double[Constants.MINUTES_PER_DAY];
+
+    for (int i = 0; i < bins; i++) {
+
+      int count = 0;
+      for (int j = 0; j < binSize; j++)
+        count += startMinuteCounts[i * binSize + j];
+
+      if (count > 0) {
+        double percentage = (double) count / events / binSize;
+        Arrays.fill(result, i * binSize, (i + 1) * binSize, percentage);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * This function aggregates a histogram with one value per minute of the day
+   * to bins of consecutive minutes.
+   * 
+   * @param startTime
+   *          The start time histogram, with one value per minute of the day.
+   * @param binSize
+   *          The number of minutes per bin.
+   * @param bins
+   *          The number of bins.
+   * @return the binned start time histogram.
+   */
+  public static double[] toBins (double[] startTime, int binSize, int bins)
+  {
+    double[] result = new double[bins];
+
+    for (int i = 0; i < bins; i++) {
+
+      double tempSum = 0;
+
+      for (int j = 0; j < binSize; j++) {
+        int tick = binSize * i + j;
+        if (tick < startTime.length)
+          tempSum += startTime[tick];
+      }
+
+      result[i] = tempSum;
+    }
+
+    return result;
+  }
+
+  /**
+   * This function converts counts to probabilities.
+   * 
+   * @param counts
+   *          The number of occurrences of each value.
+   * @param total
+   *          The number of observations.
+   * @return the probability of each value.
+   */
+  private static double[] toProbabilities (int[] counts, int total)
+  {
+    double[] result = new double[counts.length];
+
+    if (total > 0)
+      for (int i = 0; i < counts.length; i++)
+        result[i] = (double) counts[i] / total;
+
+    return result;
+  }
+}
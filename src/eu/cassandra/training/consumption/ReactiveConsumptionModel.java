@@ -100,23 +100,11 @@ public class ReactiveConsumptionModel
       patterns[i] = new ArrayList<TripletReactive>(tripplets);
       for (int j = 0; j < tripplets; j++) {
         TripletReactive t = new TripletReactive();
-        try {
-          t.q = ((Double) ((DBObject) values.get(j)).get("q")).doubleValue();
-        }
-        catch (ClassCastException e) {
-          t.q =
-            (double) ((Integer) ((DBObject) values.get(j)).get("q")).intValue();
-        }
+        t.q = ((Number) ((DBObject) values.get(j)).get("q")).doubleValue();
         t.d = ((Integer) ((DBObject) values.get(j)).get("d")).intValue();
         patternDuration[i] += t.d;
         totalDuration += (n[i] * t.d);
-        try {
-          t.s = ((Double) ((DBObject) values.get(j)).get("s")).doubleValue();
-        }
-        catch (ClassCastException e) {
-          t.s =
-            (double) ((Integer) ((DBObject) values.get(j)).get("s")).intValue();
-        }
+        t.s = ((Number) ((DBObject) values.get(j)).get("s")).doubleValue();
         patterns[i].add(t);
       }
     }
@@ -145,19 +145,30 @@ public class ActivityTemp
    */
   public void createEventFile () throws IOException
   {
-    PrintStream realSystemOut = System.out;
-    eventsFile = Constants.tempFolder + name + " events.csv";
+    createEventFile("");
+  }
+
+  /**
+   * This function is giving the capability of creating an event file out of the
+   * list of consumption events imported from the user to this temporary
+   * activity, with a prefix in the file name.
+   * 
+   * @param prefix
+   *          The prefix of the events file name, keeping apart the events
+   *          files of different installations.
+   */
+  public void createEventFile (String prefix) throws IOException
+  {
+    eventsFile = Constants.tempFolder + prefix + name + " events.csv";
     OutputStream output = new FileOutputStream(eventsFile);
     PrintStream printOut = new PrintStream(output);
-    System.setOut(printOut);
 
-    System.out.println("Start Time, End Time");
+    printOut.println("Start Time, End Time");
 
     for (Integer[] temp: events) {
-      System.out.println(temp[0] + "-" + temp[1]);
+      printOut.println(temp[0] + "-" + temp[1]);
     }
 
-    System.setOut(realSystemOut);
     output.close();
 
   }
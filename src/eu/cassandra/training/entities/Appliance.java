@@ -19,7 +19,6 @@ package eu.cassandra.training.entities;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Scanner;
 
 import org.jfree.chart.ChartPanel;
@@ -28,11 +27,9 @@ import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 import com.mongodb.util.JSON;
 
-import eu.cassandra.training.consumption.ActiveConsumptionModel;
-import eu.cassandra.training.consumption.ReactiveConsumptionModel;
-import eu.cassandra.training.consumption.TripletPower;
-import eu.cassandra.training.consumption.TripletReactive;
+import eu.cassandra.training.consumption.CompiledConsumptionModel;
 import eu.cassandra.training.utils.ChartUtils;
+import eu.cassandra.training.utils.JSONWriter;
 
 /**
  * This class is used for implementing the Appliance Models in the Training
@@ -99,32 +96,30 @@ public class Appliance
   private double standbyConsumption = 0.0;
 
   /**
-   * This variable presents this appliance's active active consumption model
-   * in
-   * form of a string.
+   * This variable presents this appliance's active active consumption
+   * model.
    */
-  private String activeConsumptionModelString = "";
+  private CompiledConsumptionModel activeConsumptionModel;
 
   /**
    * This variable presents this appliance's reactive active consumption
-   * model in
-   * form of a string.
+   * model.
    */
-  private String reactiveConsumptionModelString = "";
+  private CompiledConsumptionModel reactiveConsumptionModel;
 
   /**
-   * This variable presents this appliance's active active consumption
-   * model.
+   * This array contains the active consumption of the appliance for each
+   * minute of its operation, expanded from the active consumption model on
+   * first use.
    */
-  private ActiveConsumptionModel activeConsumptionModel =
-    new ActiveConsumptionModel();
+  private volatile double[] activeProfile = null;
 
   /**
-   * This variable presents this appliance's active active consumption
-   * model.
+   * This array contains the reactive consumption of the appliance for each
+   * minute of its operation, expanded from the reactive consumption model on
+   * first use.
    */
-  private ReactiveConsumptionModel reactiveConsumptionModel =
-    new ReactiveConsumptionModel();
+  private volatile double[] reactiveProfile = null;
 
   /**
    * This variable contains the file name of the events file corresponding to
@@ -155,16 +150,39 @@ public class Appliance
   public Appliance (String name, String installation, String activeModel,
                     String reactiveModel, String eventFile, Boolean... base)
   {
+    this(name, installation, CompiledConsumptionModel
+            .parse("p", (DBObject) JSON.parse(activeModel)),
+         CompiledConsumptionModel.parse("q", (DBObject) JSON
+                 .parse(reactiveModel)), eventFile, base);
+  }
+
+  /**
+   * The constructor of an Appliance Model from consumption models built
+   * directly, without their JSON schemas. The consumption models must not be
+   * modified afterwards.
+   * 
+   * @param name
+   *          The name of the Appliance Model
+   * @param installation
+   *          The name of the installation that the Appliance Model is installed
+   * @param activeModel
+   *          The active consumption model of the Appliance Model
+   * @param reactiveModel
+   *          The reactive consumption model of the Appliance Model
+   * @param eventFile
+   *          The event file of the Appliance Model
+   */
+  public Appliance (String name, String installation,
+                    CompiledConsumptionModel activeModel,
+                    CompiledConsumptionModel reactiveModel, String eventFile,
+                    Boolean... base)
+  {
 
     this.name = name;
     this.installation = installation;
     this.eventsFile = eventFile;
-    activeConsumptionModelString = activeModel;
-    reactiveConsumptionModelString = reactiveModel;
-    DBObject dbo = (DBObject) JSON.parse(activeConsumptionModelString);
-    activeConsumptionModel.init(dbo);
-    dbo = (DBObject) JSON.parse(reactiveConsumptionModelString);
-    reactiveConsumptionModel.init(dbo);
+    activeConsumptionModel = activeModel;
+    reactiveConsumptionModel = reactiveModel;
     if (base.length == 1)
       this.base = base[0];
 
@@ -292,37 +310,7 @@ public class Appliance
    */
   public Double[] getActiveConsumptionModel ()
   {
-
-    ArrayList<Double> temp = new ArrayList<Double>();
-    int times = activeConsumptionModel.getOuterN();
-    if (times == 0)
-      times = 2;
-    // Number of repeats
-    for (int i = 0; i < times; i++) {
-      // System.out.println("Time: " + i);
-      // Number of patterns in each repeat
-      for (int j = 0; j < activeConsumptionModel.getPatternN(); j++) {
-        // System.out.println("Pattern: " + j);
-        int internalTimes = activeConsumptionModel.getN(j);
-        if (internalTimes == 0)
-          internalTimes = 2;
-        // System.out.println("Internal Times: " + k);
-        for (int k = 0; k < internalTimes; k++) {
-          ArrayList<TripletPower> tripplets =
-            activeConsumptionModel.getPattern(j);
-          for (int l = 0; l < tripplets.size(); l++) {
-            // System.out.println("TripletPower: " + l);
-            for (int m = 0; m < tripplets.get(l).d; m++) {
-              temp.add(tripplets.get(l).p);
-            }
-          }
-        }
-      }
-    }
-    Double[] result = new Double[temp.size()];
-    temp.toArray(result);
-    return result;
-
+    return box(getActiveProfile());
   }
 
   /**
@@ -334,37 +322,62 @@ public class Appliance
    */
   public Double[] getReactiveConsumptionModel ()
   {
+    return box(getReactiveProfile());
+  }
+
+  /**
+   * This is a getter function of the active consumption of the appliance for
+   * each minute of its operation. The array is expanded once from the active
+   * consumption model and shared by all callers, so it must not be modified.
+   * 
+   * @return the active consumption per minute.
+   */
+  public double[] getActiveProfile ()
+  {
+    double[] profile = activeProfile;
 
-    ArrayList<Double> temp = new ArrayList<Double>();
-    int times = reactiveConsumptionModel.getOuterN();
-    if (times == 0)
-      times = 2;
-    // Number of repeats
-    for (int i = 0; i < times; i++) {
-      // System.out.println("Time: " + i);
-      // Number of patterns in each repeat
-      for (int j = 0; j < reactiveConsumptionModel.getPatternN(); j++) {
-        // System.out.println("Pattern: " + j);
-        int internalTimes = reactiveConsumptionModel.getN(j);
-        if (internalTimes == 0)
-          internalTimes = 2;
-        // System.out.println("Internal Times: " + k);
-        for (int k = 0; k < internalTimes; k++) {
-          ArrayList<TripletReactive> tripplets =
-            reactiveConsumptionModel.getPattern(j);
-          for (int l = 0; l < tripplets.size(); l++) {
-            // System.out.println("TripletPower: " + l);
-            for (int m = 0; m < tripplets.get(l).d; m++) {
-              temp.add(tripplets.get(l).q);
-            }
-          }
-        }
-      }
+    if (profile == null) {
+      profile = activeConsumptionModel.expand();
+      activeProfile = profile;
     }
-    Double[] result = new Double[temp.size()];
-    temp.toArray(result);
-    return result;
 
+    return profile;
+  }
+
+  /**
+   * This is a getter function of the reactive consumption of the appliance
+   * for each minute of its operation. The array is expanded once from the
+   * reactive consumption model and shared by all callers, so it must not be
+   * modified.
+   * 
+   * @return the reactive consumption per minute.
+   */
+  public double[] getReactiveProfile ()
+  {
+    double[] profile = reactiveProfile;
+
+    if (profile == null) {
+      profile = reactiveConsumptionModel.expand();
+      reactiveProfile = profile;
+    }
+
+    return profile;
+  }
+
+  /**
+   * This function is used to convert a consumption profile to the boxed form
+   * used by the charts.
+   * 
+   * @param profile
+   *          The consumption per minute.
+   * @return the boxed consumption per minute.
+   */
+  private static Double[] box (double[] profile)
+  {
+    Double[] result = new Double[profile.length];
+    for (int i = 0; i < profile.length; i++)
+      result[i] = profile[i];
+    return result;
   }
 
   /**
@@ -401,17 +414,18 @@ public class Appliance
     }
     scanner.close();
 
-    activeConsumptionModelString = model;
-    DBObject dbo = (DBObject) JSON.parse(activeConsumptionModelString);
-    activeConsumptionModel.init(dbo);
+    DBObject dbo = (DBObject) JSON.parse(model);
+    activeConsumptionModel = CompiledConsumptionModel.parse("p", dbo);
+
+    String reactiveModel = model.replace("p", "q");
+    reactiveModel = reactiveModel.replace("qara", "para");
+    System.out.println(reactiveModel);
+    dbo = (DBObject) JSON.parse(reactiveModel);
+    reactiveConsumptionModel = CompiledConsumptionModel.parse("q", dbo);
 
-    reactiveConsumptionModelString =
-      activeConsumptionModelString.replace("p", "q");
-    reactiveConsumptionModelString =
-      reactiveConsumptionModelString.replace("qara", "para");
-    System.out.println(reactiveConsumptionModelString);
-    dbo = (DBObject) JSON.parse(reactiveConsumptionModelString);
-    reactiveConsumptionModel.init(dbo);
+    // The expanded profiles are rebuilt from the new models on next use
+    activeProfile = null;
+    reactiveProfile = null;
 
   }
 
@@ -463,14 +477,40 @@ public class Appliance
     temp.put("type", type);
     temp.put("description", "P and Q Consumption Model");
     temp.put("app_id", applianceID);
-    temp.put("pmodel", JSON.parse(activeConsumptionModelString));
-    temp.put("qmodel", JSON.parse(reactiveConsumptionModelString));
+    temp.put("pmodel", activeConsumptionModel.toJSON());
+    temp.put("qmodel", reactiveConsumptionModel.toJSON());
     temp.put("pvalues", new double[1]);
     temp.put("qvalues", new double[1]);
     return temp;
 
   }
 
+  /**
+   * This function is used to write the JSON schema of the power consumption
+   * model of the appliance straight to a stream, as created by
+   * powerConsumptionModelToJSON.
+   * 
+   * @param writer
+   *          The writer of the JSON document.
+   * @throws IOException
+   */
+  public void writePowerConsumptionModelJSON (JSONWriter writer)
+    throws IOException
+  {
+    writer.beginObject();
+    writer.name("name").value(name + " Consumption Model");
+    writer.name("type").value(type);
+    writer.name("description").value("P and Q Consumption Model");
+    writer.name("app_id").value(applianceID);
+    writer.name("pmodel");
+    activeConsumptionModel.writeJSON(writer);
+    writer.name("qmodel");
+    reactiveConsumptionModel.writeJSON(writer);
+    writer.name("pvalues").value(new double[1]);
+    writer.name("qvalues").value(new double[1]);
+    writer.endObject();
+  }
+
   /**
    * This function is utilized to create the sample active consumption model
    * to
@@ -494,27 +534,7 @@ public class Appliance
    */
   private boolean checkStatic ()
   {
-    boolean result = true;
-
-    Double[] values = activeConsumptionModel.getValues();
-
-    // System.out.println("Appliance: " + name + " Model: "
-    // + activeConsumptionModelString);
-    //
-    // System.out.println("Appliance: " + name + " Values: "
-    // + Arrays.toString(values));
-
-    for (int i = 0; i < values.length - 1; i++) {
-      // System.out.println("Previous: " + values[i].doubleValue() + " Next: "
-      // + values[i + 1].doubleValue());
-      if (values[i].doubleValue() != values[i + 1].doubleValue()) {
-        // System.out.println("IN");
-        result = false;
-        break;
-      }
-    }
-
-    return result;
+    return activeConsumptionModel.isStatic();
   }
 
   public double getMeanActiveConsumption ()
@@ -522,15 +542,15 @@ public class Appliance
 
     double result = 0;
 
-    Double[] activeConsumptionModel = getActiveConsumptionModel();
+    double[] profile = getActiveProfile();
 
-    for (int i = 0; i < activeConsumptionModel.length; i++) {
+    for (int i = 0; i < profile.length; i++) {
 
-      result += activeConsumptionModel[i];
+      result += profile[i];
 
     }
 
-    return result / activeConsumptionModel.length;
+    return result / profile.length;
 
   }
 
@@ -550,9 +570,8 @@ public class Appliance
     System.out.println("Energy Class: " + energyClass);
     System.out.println("StandBy Consumption: " + standbyConsumption);
     System.out.println("Events File: " + eventsFile);
-    System.out.println("Power Consumption Model:"
-                       + activeConsumptionModelString);
+    System.out.println("Power Consumption Model:" + activeConsumptionModel);
     System.out.println("Reactive Power Consumption Model:"
-                       + reactiveConsumptionModelString);
+                       + reactiveConsumptionModel);
   }
 }
@@ -20,6 +20,8 @@ package eu.cassandra.training.entities;
 import java.io.FileNotFoundException;
 import java.util.Arrays;
 
+import eu.cassandra.training.consumption.CompiledConsumptionModel;
+
 /**
  * This class is used for implementing the temporary appliances that will become
  * later the Appliance Entity models of the Training Module of Cassandra
@@ -207,68 +209,40 @@ public class ApplianceTemp
    */
   public Appliance toAppliance ()
   {
-    String activeModel = "";
-    String reactiveModel = "";
+    CompiledConsumptionModel activeModel = new CompiledConsumptionModel("p", 0);
+    CompiledConsumptionModel reactiveModel =
+      new CompiledConsumptionModel("q", 0);
     boolean base = false;
 
     boolean refFlag = activity.contains("Refrigeration");
     boolean wmFlag = name.contains("Washing");
     boolean standbyFlag = activity.contains("Standby Consumption");
 
+    activeModel.addPattern(1);
+    reactiveModel.addPattern(1);
+
     if (refFlag) {
-      activeModel =
-        "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"p\" :" + p
-                + ", \"d\" :" + duration
-                + ", \"s\": 0.0}, {\"p\" : 0 , \"d\" :" + distance
-                + ", \"s\": 0.0}]}]}";
-
-      reactiveModel =
-        "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"q\" :" + q
-                + ", \"d\" :" + duration
-                + ", \"s\": 0.0}, {\"q\" : 0 , \"d\" :" + distance
-                + ", \"s\": 0.0}]}]}";
+      activeModel.addTriplet(p, duration, 0.0);
+      activeModel.addTriplet(0, distance, 0.0);
+
+      reactiveModel.addTriplet(q, duration, 0.0);
+      reactiveModel.addTriplet(0, distance, 0.0);
 
       base = true;
     }
     else if (wmFlag) {
 
-      // System.out.println(Arrays.toString(pValues));
-      // System.out.println(Arrays.toString(qValues));
-
-      for (int i = 0; i < pValues.length; i++) {
-
-        if (i == 0)
-          activeModel =
-            "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"p\" :"
-                    + pValues[i] + ", \"d\" : 1 , \"s\": 0.0}";
-        else if (i == pValues.length - 1)
-          activeModel += "]}]}";
-        else
-          activeModel += ",{\"p\" :" + pValues[i] + ", \"d\" : 1 , \"s\": 0.0}";
-
-        if (i == 0)
-          reactiveModel =
-            "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"q\" :"
-                    + qValues[i] + ", \"d\" : 1 , \"s\": 0.0}";
-        else if (i == pValues.length - 1)
-          reactiveModel += "]}]}";
-        else
-          reactiveModel +=
-            ",{\"q\" :" + qValues[i] + ", \"d\" : 1 , \"s\": 0.0}";
-
+      // The last sample ends the operation and is not part of the pattern
+      for (int i = 0; i < pValues.length - 1; i++) {
+        activeModel.addTriplet(pValues[i], 1, 0.0);
+        reactiveModel.addTriplet(qValues[i], 1, 0.0);
       }
 
-      // System.out.println(activeModel);
-      // System.out.println(reactiveModel);
     }
     else {
-      activeModel =
-        "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"p\" :" + p
-                + ", \"d\" :" + duration + ", \"s\": 0.0}]}]}";
+      activeModel.addTriplet(p, duration, 0.0);
 
-      reactiveModel =
-        "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"q\" :" + q
-                + ", \"d\" :" + duration + ", \"s\": 0.0}]}]}";
+      reactiveModel.addTriplet(q, duration, 0.0);
 
       if (standbyFlag)
         base = true;
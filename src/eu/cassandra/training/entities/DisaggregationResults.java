@@ -0,0 +1,341 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.entities;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import eu.cassandra.disaggregation.Disaggregate;
+import eu.cassandra.training.utils.Constants;
+
+/**
+ * This class is used for reading the results of the Disaggregation Module for
+ * a measurements file and creating the appliances and temporary activities of
+ * an installation out of them. It is used both by the Training Module GUI and
+ * by the headless training, so no graphical classes are used here.
+ */
+public class DisaggregationResults
+{
+  /**
+   * This variable is the lock used for running the Disaggregation Module,
+   * since it is not known to be safe to run it on more threads at once.
+   */
+  private static final Object DISAGGREGATION_LOCK = new Object();
+
+  /**
+   * This variable is the installation the appliances are added to.
+   */
+  private final Installation installation;
+
+  /**
+   * This is the list of the appliances found in the results.
+   */
+  private final List<Appliance> appliances = new ArrayList<Appliance>();
+
+  /**
+   * This is the list of the temporary appliances found in the results.
+   */
+  private final ArrayList<ApplianceTemp> tempAppliances =
+    new ArrayList<ApplianceTemp>();
+
+  /**
+   * This is the list of the temporary activities found in the results that
+   * have appliances taking part in them.
+   */
+  private final ArrayList<ActivityTemp> tempActivities =
+    new ArrayList<ActivityTemp>();
+
+  /**
+   * The constructor of the disaggregation results of an installation.
+   * 
+   * @param installation
+   *          The installation the appliances are added to.
+   */
+  public DisaggregationResults (Installation installation)
+  {
+    this.installation = installation;
+  }
+
+  /**
+   * This function is used as a getter for the appliances found.
+   * 
+   * @return the list of the appliances.
+   */
+  public List<Appliance> getAppliances ()
+  {
+    return appliances;
+  }
+
+  /**
+   * This function is used as a getter for the temporary appliances found.
+   * 
+   * @return the list of the temporary appliances.
+   */
+  public List<ApplianceTemp> getTempAppliances ()
+  {
+    return tempAppliances;
+  }
+
+  /**
+   * This function is used as a getter for the temporary activities found.
+   * 
+   * @return the list of the temporary activities.
+   */
+  public List<ActivityTemp> getTempActivities ()
+  {
+    return tempActivities;
+  }
+
+  /**
+   * This function is used for loading the results of the disaggregation of a
+   * measurements file. In case the results are not already available in the
+   * result folder, the Disaggregation Module is run first. The appliances
+   * found are added to the installation, while an events file is created for
+   * each activity, so that it can be used for training.
+   * 
+   * @param path
+   *          The path of the measurements file.
+   * @return true if the results were found, false otherwise.
+   * @throws IOException
+   */
+  public boolean load (String path) throws IOException
+  {
+    // Get auxiliary files containing appliances and activities which are the
+    // output of the disaggregation process.
+    File file = new File(path);
+
+    String folder = file.getParent() + "/";
+
+    String fileNameWithExtension = file.getName();
+
+    String fileName = file.getName().substring(0, file.getName().length() - 4);
+
+    File appliancesFile =
+      new File(Constants.resultFolder + fileName + "ApplianceList.csv");
+    File activitiesFile =
+      new File(Constants.resultFolder + fileName + "ActivityList.csv");
+
+    if ((Constants.USE_FILES == false)
+        || (!appliancesFile.exists() && !activitiesFile.exists())) {
+      try {
+        synchronized (DISAGGREGATION_LOCK) {
+          new Disaggregate(folder, fileNameWithExtension);
+        }
+      }
+      catch (Exception e) {
+        System.out.println("Missing File");
+        e.printStackTrace();
+      }
+    }
+
+    // If these exist, disaggregation was successful and the procedure can
+    // continue
+    if (!appliancesFile.exists() || !activitiesFile.exists())
+      return false;
+
+    parseAppliances(appliancesFile);
+    parseActivities(activitiesFile);
+
+    // Add each found appliance (after converting temporary appliance to normal
+    // appliance) in the installation Entity
+    for (ApplianceTemp temp: tempAppliances) {
+      Appliance appliance = temp.toAppliance();
+      installation.addAppliance(appliance);
+      appliances.add(appliance);
+    }
+
+    // Add appliances corresponding to each activity and remove activities
+    // without appliances.
+    for (int i = tempActivities.size() - 1; i >= 0; i--) {
+      tempActivities.get(i).setAppliances(findAppliances(tempActivities
+                                                  .get(i)));
+      if (tempActivities.get(i).getAppliances().size() == 0)
+        tempActivities.remove(i);
+    }
+
+    return true;
+  }
+
+  /**
+   * This function is used for parsing the appliance file of the results,
+   * creating a temporary appliance for each line.
+   * 
+   * @param appliancesFile
+   *          The appliance file.
+   * @throws FileNotFoundException
+   */
+  private void parseAppliances (File appliancesFile)
+    throws FileNotFoundException
+  {
+    Scanner input = new Scanner(appliancesFile);
+
+    try {
+      while (input.hasNext()) {
+        String[] line = input.nextLine().split(",");
+
+        String name = line[1] + " " + line[0];
+        String activity = name;
+        String[] temp = line[0].split(" ");
+
+        String type = "";
+
+        if (temp.length == 1)
+          type = temp[0];
+        else {
+          for (int i = 0; i < temp.length - 1; i++)
+            type += temp[i] + " ";
+          type = type.trim();
+        }
+
+        // For each appliance found in the file, a temporary Appliance Entity
+        // is created.
+        if (activity.contains("Refrigeration")) {
+          double p = Double.parseDouble(line[2]);
+          double q = Double.parseDouble(line[3]);
+          int duration = Integer.parseInt(line[4]);
+          int distance = Integer.parseInt(line[5]);
+
+          tempAppliances.add(new ApplianceTemp(name, installation.getName(),
+                                               type, activity, p, q, duration,
+                                               distance));
+        }
+        else if (name.contains("Washing")) {
+          double[] pValues = new double[line.length / 2 - 1];
+          double[] qValues = new double[line.length / 2 - 1];
+
+          for (int i = 0; i < pValues.length; i++) {
+            pValues[i] = Double.parseDouble(line[2 + 2 * i]);
+            qValues[i] = Double.parseDouble(line[3 + 2 * i]);
+          }
+
+          tempAppliances.add(new ApplianceTemp(name, installation.getName(),
+                                               type, activity, pValues,
+                                               qValues));
+        }
+        else {
+          double p = Double.parseDouble(line[2]);
+          double q = Double.parseDouble(line[3]);
+
+          tempAppliances.add(new ApplianceTemp(name, installation.getName(),
+                                               type, activity, p, q));
+        }
+      }
+    }
+    finally {
+      input.close();
+    }
+
+    System.out.println("Appliances:" + tempAppliances.size());
+  }
+
+  /**
+   * This function is used for parsing the activity file of the results,
+   * gathering the events of each temporary activity and creating its events
+   * file.
+   * 
+   * @param activitiesFile
+   *          The activity file.
+   * @throws IOException
+   */
+  private void parseActivities (File activitiesFile) throws IOException
+  {
+    Scanner input = new Scanner(activitiesFile);
+
+    try {
+      while (input.hasNext()) {
+        String[] line = input.nextLine().split(",");
+
+        String activity = line[1] + " " + line[0];
+        String type = line[1];
+        int start = Integer.parseInt(line[2]);
+        int end = Integer.parseInt(line[3]);
+
+        // Search for existing activity, or create a new one
+        ActivityTemp found = findActivity(activity);
+
+        if (found == null) {
+          found = new ActivityTemp(activity, type);
+          tempActivities.add(found);
+        }
+
+        found.addEvent(start, end);
+      }
+    }
+    finally {
+      input.close();
+    }
+
+    // The refrigeration and standby consumption are not trained as activities
+    for (int i = tempActivities.size() - 1; i >= 0; i--)
+      if (tempActivities.get(i).getName().contains("Refrigeration")) {
+        tempActivities.remove(i);
+        System.out.println("Refrigeration Removed");
+      }
+
+    ActivityTemp standby = findActivity("Standby");
+    if (standby != null) {
+      tempActivities.remove(standby);
+      System.out.println("Standby Consumption Removed");
+    }
+
+    // Create an event file for each activity, in order to be able to use it
+    // for training the behaviour models. The files are named after the
+    // installation, so that installations can be processed concurrently.
+    for (ActivityTemp activity: tempActivities)
+      activity.createEventFile(installation.getName() + " ");
+  }
+
+  /**
+   * This function is used for searching through the list of temporary
+   * activities for the first one containing the given name.
+   * 
+   * @param name
+   *          The name of the activity.
+   * @return the temporary activity, or null if not found.
+   */
+  private ActivityTemp findActivity (String name)
+  {
+    for (ActivityTemp activity: tempActivities)
+      if (activity.getName().contains(name))
+        return activity;
+
+    return null;
+  }
+
+  /**
+   * This function is used for finding the list of appliances of the
+   * installation that participate in a certain activity.
+   * 
+   * @param activity
+   *          The temporary activity.
+   * @return list of the appliances.
+   */
+  private ArrayList<Appliance> findAppliances (ActivityTemp activity)
+  {
+    ArrayList<Appliance> result = new ArrayList<Appliance>();
+
+    for (Appliance appliance: installation.getAppliances())
+      if (activity.getName().equalsIgnoreCase(appliance.getActivity()))
+        result.add(appliance);
+
+    return result;
+  }
+}
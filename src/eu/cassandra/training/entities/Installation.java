@@ -17,14 +17,10 @@ limitations under the License.
 package eu.cassandra.training.entities;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
-import java.util.Scanner;
 
-import org.apache.poi.hssf.usermodel.HSSFRow;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.jfree.chart.ChartPanel;
 import org.joda.time.DateTime;
 
@@ -32,6 +28,10 @@ import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 
 import eu.cassandra.training.utils.ChartUtils;
+import eu.cassandra.training.utils.Constants;
+import eu.cassandra.training.utils.Measurements;
+import eu.cassandra.training.utils.MeasurementsStore;
+import eu.cassandra.training.utils.Utils;
 
 public class Installation
 {
@@ -80,16 +80,16 @@ public class Installation
   boolean activeOnly = true;
 
   /**
-   * This is an array of the active power measurements of the installation as
-   * provided by the user.
+   * This is a buffer of the active power measurements of the installation as
+   * provided by the user, mapped from the installation's measurements store.
    */
-  double[] activePower = null;
+  DoubleBuffer activePower = null;
 
   /**
-   * This is an array of the reactive power measurements of the installation as
-   * provided by the user.
+   * This is a buffer of the reactive power measurements of the installation as
+   * provided by the user, mapped from the installation's measurements store.
    */
-  double[] reactivePower = null;
+  DoubleBuffer reactivePower = null;
 
   /**
    * This variable provides the id of the Appliance model as sent by the
@@ -116,13 +116,40 @@ public class Installation
   public Installation (String filename, boolean power) throws IOException
   {
     File file = new File(filename);
-    name = file.getName().substring(0, file.getName().length() - 4);
+    name = file.getName().substring(0, file.getName().lastIndexOf('.'));
     type = "";
     measurementsFile = filename;
     appliances = new ArrayList<Appliance>();
     person = new Person("Person", this);
     this.activeOnly = power;
-    parseMeasurementsFile();
+    loadMeasurements();
+  }
+
+  /**
+   * The constructor of an Installation Model out of measurements that have
+   * already been validated and loaded, so that the measurements file does not
+   * need to be parsed again.
+   * 
+   * @param filename
+   *          The name of the file containing the power measurements of the
+   *          installation.
+   * @param power
+   *          The flag of the type of power measurements available.
+   * @param measurements
+   *          The measurements loaded from the file.
+   * @throws IOException
+   */
+  public Installation (String filename, boolean power,
+                       Measurements measurements) throws IOException
+  {
+    File file = new File(filename);
+    name = file.getName().substring(0, file.getName().lastIndexOf('.'));
+    type = "";
+    measurementsFile = filename;
+    appliances = new ArrayList<Appliance>();
+    person = new Person("Person", this);
+    this.activeOnly = power;
+    loadMeasurements(measurements);
   }
 
   /**
@@ -201,6 +228,38 @@ public class Installation
     return endDate;
   }
 
+  /**
+   * This is a getter function of the active power measurements.
+   * 
+   * @return a read-only buffer of the active power measurements.
+   */
+  public DoubleBuffer getActivePower ()
+  {
+    return activePower == null ? null : activePower.asReadOnlyBuffer();
+  }
+
+  /**
+   * This is a getter function of the reactive power measurements.
+   * 
+   * @return a read-only buffer of the reactive power measurements, or null if
+   *         only active power is available.
+   */
+  public DoubleBuffer getReactivePower ()
+  {
+    return reactivePower == null ? null : reactivePower.asReadOnlyBuffer();
+  }
+
+  /**
+   * This function states if the installation measurements contain only active
+   * power.
+   * 
+   * @return true if only active power is available, false otherwise.
+   */
+  public boolean isActiveOnly ()
+  {
+    return activeOnly;
+  }
+
   /**
    * This is a getter function of the Installation model's appliances.
    * 
@@ -245,103 +304,97 @@ public class Installation
   }
 
   /**
-   * This is the parser for the measurement file. It parses through the file and
-   * creates the arrays of the active and reactive power consumptions.
+   * This function loads the measurements of the installation. The first time a
+   * measurements file is imported it is parsed and written to a binary
+   * measurements store, which is then memory-mapped. Later imports of the same,
+   * unchanged file map the store directly without parsing the file again.
    */
-  public void parseMeasurementsFile () throws IOException
+  public void loadMeasurements () throws IOException
   {
+    loadMeasurements(null);
+  }
 
-    ArrayList<Double> temp = new ArrayList<Double>();
-    ArrayList<Double> temp2 = new ArrayList<Double>();
-
-    String extension =
-      measurementsFile.substring(measurementsFile.length() - 3,
-                                 measurementsFile.length());
-
-    switch (extension) {
-
-    case "csv":
-
-      boolean startFlag = true;
-
-      File file = new File(measurementsFile);
-      Scanner scanner = new Scanner(file);
-
-      int counter = 0;
-
-      while (scanner.hasNext()) {
-
-        String line = scanner.nextLine();
-        // System.out.println(line);
-
-        if (startFlag) {
-          if (line.split(",")[0].equalsIgnoreCase("1")) {
-
-            startDate = new DateTime(2012, 01, 01, 00, 00);
-
-          }
-          else {
-
-            int year = Integer.parseInt(line.split(",")[0].substring(0, 4));
-            int month = Integer.parseInt(line.split(",")[0].substring(4, 6));
-            int day = Integer.parseInt(line.split(",")[0].substring(6, 8));
-            int hour = 0;
-            int minute = 0;
-
-            startDate = new DateTime(year, month, day, hour, minute);
-
-          }
-
-          // System.out.println(startDate.toString());
-          startFlag = false;
-        }
-
-        temp.add(Double.parseDouble(line.split(",")[1]));
-
-        if (!activeOnly)
-          temp2.add(Double.parseDouble(line.split(",")[2]));
-
-        counter++;
+  /**
+   * This function loads the measurements of the installation, using the given
+   * measurements instead of parsing the file if the measurements store must be
+   * created.
+   * 
+   * @param measurements
+   *          The measurements already loaded from the file, or null.
+   */
+  public void loadMeasurements (Measurements measurements) throws IOException
+  {
+    File storeFile = MeasurementsStore.storeFileFor(measurementsFile);
+
+    MeasurementsStore store =
+      MeasurementsStore.open(storeFile, measurementsFile, activeOnly);
+
+    if (store == null) {
+      if (measurements != null)
+        setMeasurements(measurements);
+      else
+        parseMeasurementsFile();
+
+      if (!MeasurementsStore.fits(activePower.remaining()))
+        return;
+
+      // The store is only a cache, so the parsed arrays are kept if it cannot
+      // be written
+      try {
+        MeasurementsStore.write(storeFile, measurementsFile, startDate,
+                                Constants.SECONDS_PER_MINUTE,
+                                activePower.array(),
+                                activeOnly ? null : reactivePower.array());
+
+        store =
+          MeasurementsStore.open(storeFile, measurementsFile, activeOnly);
+      }
+      catch (IOException e) {
+        e.printStackTrace();
       }
 
-      endDate = startDate.plusMinutes(counter);
-
-      // System.out.println(endDate.toString());
-
-      scanner.close();
-      break;
-
-    case "xls":
-
-      HSSFWorkbook workbook =
-        new HSSFWorkbook(new FileInputStream(measurementsFile));
-
-      // Get the first sheet.
-      HSSFSheet sheet = workbook.getSheetAt(0);
-      for (int i = 0; i < sheet.getLastRowNum(); i++) {
+      if (store == null)
+        return;
+    }
 
-        // Set value of the first cell.
-        HSSFRow row = sheet.getRow(i + 1);
-        temp.add(row.getCell(1).getNumericCellValue());
-        if (!activeOnly)
-          temp2.add(row.getCell(2).getNumericCellValue());
-      }
+    startDate = store.getStartDate();
+    endDate = (startDate == null) ? null : startDate.plusMinutes(store.size());
+    activePower = store.getActivePower();
+    reactivePower = store.getReactivePower();
+  }
 
-      break;
+  /**
+   * This is the parser for the measurement file. It parses through the file and
+   * creates the arrays of the active and reactive power consumptions.
+   */
+  public void parseMeasurementsFile () throws IOException
+  {
+    Measurements measurements =
+      Utils.loadMeasurementsFile(measurementsFile, activeOnly);
 
-    }
+    if (!measurements.isValid())
+      throw new IOException("Parsing measurements file failed at line "
+                            + measurements.getErrorLine());
 
-    activePower = new double[temp.size()];
+    setMeasurements(measurements);
+  }
 
-    for (int i = 0; i < temp.size(); i++)
-      activePower[i] = temp.get(i);
+  /**
+   * This function sets the dates and the arrays of the active and reactive
+   * power consumptions out of loaded measurements.
+   * 
+   * @param measurements
+   *          The measurements loaded from the file.
+   */
+  private void setMeasurements (Measurements measurements)
+  {
+    startDate = measurements.getStartDate();
+    endDate = measurements.getEndDate();
 
-    if (!activeOnly) {
-      reactivePower = new double[temp2.size()];
-      for (int i = 0; i < temp2.size(); i++)
-        reactivePower[i] = temp2.get(i);
-    }
+    activePower = DoubleBuffer.wrap(measurements.getActivePower());
 
+    if (!activeOnly)
+      reactivePower = DoubleBuffer.wrap(measurements.getReactivePower());
   }
 
   /**
@@ -29,6 +29,7 @@ import eu.cassandra.training.activity.ActivityModel;
 import eu.cassandra.training.response.ResponseModel;
 import eu.cassandra.training.utils.ChartUtils;
 import eu.cassandra.training.utils.Constants;
+import eu.cassandra.training.utils.MixtureCreator;
 import eu.cassandra.training.utils.Utils;
 
 /**
@@ -76,6 +77,12 @@ public class Person
    */
   private String personID = "";
 
+  /**
+   * This variable is the way the number of mixtures of the GMM distributions
+   * of the Activity Models of the Person Model is chosen.
+   */
+  private MixtureCreator.Selection mixtureSelection = Constants.GMM_SELECTION;
+
   /**
    * A simple constructor of an Person Model.
    */
@@ -107,7 +114,7 @@ public class Person
    * @param activity
    *          The Activity Model in need of addition.
    */
-  public void addActivity (ActivityModel activity)
+  public synchronized void addActivity (ActivityModel activity)
   {
     activityModels.add(activity);
   }
@@ -132,93 +139,95 @@ public class Person
     throws IOException
   {
 
-    if (activity.getActivity()) {
+    // The response model is created before locking the Person Model, so that
+    // the response models of different activities can be created concurrently
+    ResponseModel response = new ResponseModel(activity, this, responseType);
 
-      String temp =
-        activity.getNameActivity().replace(" Activity",
-                                           " Response Model (Optimal)");
+    response.respond(responseType, basicScheme, newScheme, awareness,
+                     sensitivity);
 
-      String temp2 =
-        activity.getNameActivity().replace(" Activity",
-                                           " Response Model (Normal)");
+    synchronized (this) {
 
-      String temp3 =
-        activity.getNameActivity().replace(" Activity",
-                                           " Response Model (Discrete)");
+      if (activity.getActivity()) {
 
-      ResponseModel exists = findResponse(temp);
+        String temp =
+          activity.getNameActivity().replace(" Activity",
+                                             " Response Model (Optimal)");
+
+        String temp2 =
+          activity.getNameActivity().replace(" Activity",
+                                             " Response Model (Normal)");
+
+        String temp3 =
+          activity.getNameActivity().replace(" Activity",
+                                             " Response Model (Discrete)");
+
+        ResponseModel exists = findResponse(temp);
 
-      if (exists != null) {
-        // System.out.println("Optimal Exists!");
-        responseModels.remove(exists);
-      }
-      else {
-        exists = findResponse(temp2);
         if (exists != null) {
-          // System.out.println("Normal Exists!");
+          // System.out.println("Optimal Exists!");
           responseModels.remove(exists);
         }
         else {
-          exists = findResponse(temp3);
+          exists = findResponse(temp2);
           if (exists != null) {
-            // System.out.println("Discrete Exists!");
+            // System.out.println("Normal Exists!");
             responseModels.remove(exists);
           }
+          else {
+            exists = findResponse(temp3);
+            if (exists != null) {
+              // System.out.println("Discrete Exists!");
+              responseModels.remove(exists);
+            }
+          }
         }
-      }
 
-    }
-    else {
-      String temp =
-        name + " " + activity.getAppliancesOf()[0]
-                + " Response Model (Optimal)";
+      }
+      else {
+        String temp =
+          name + " " + activity.getAppliancesOf()[0]
+                  + " Response Model (Optimal)";
 
-      String temp2 =
-        name + " " + activity.getAppliancesOf()[0] + " Response Model (Normal)";
+        String temp2 =
+          name + " " + activity.getAppliancesOf()[0]
+                  + " Response Model (Normal)";
 
-      String temp3 =
-        name + " " + activity.getAppliancesOf()[0]
-                + " Response Model (Discrete)";
+        String temp3 =
+          name + " " + activity.getAppliancesOf()[0]
+                  + " Response Model (Discrete)";
 
-      ResponseModel exists = findResponse(temp);
+        ResponseModel exists = findResponse(temp);
 
-      // System.out.println(temp + " " + temp2 + " " + temp3);
+        // System.out.println(temp + " " + temp2 + " " + temp3);
 
-      if (exists != null) {
-        // System.out.println("Optimal Exists!");
-        responseModels.remove(exists);
-      }
-      else {
-        exists = findResponse(temp2);
         if (exists != null) {
-          // System.out.println("Normal Exists!");
+          // System.out.println("Optimal Exists!");
           responseModels.remove(exists);
         }
         else {
-          exists = findResponse(temp3);
+          exists = findResponse(temp2);
           if (exists != null) {
-            // System.out.println("Discrete Exists!");
+            // System.out.println("Normal Exists!");
             responseModels.remove(exists);
           }
+          else {
+            exists = findResponse(temp3);
+            if (exists != null) {
+              // System.out.println("Discrete Exists!");
+              responseModels.remove(exists);
+            }
+          }
         }
       }
-    }
-
-    String result = "";
-
-    ResponseModel response = new ResponseModel(activity, this, responseType);
-
-    response.respond(responseType, basicScheme, newScheme, awareness,
-                     sensitivity);
 
-    responseModels.add(response);
-
-    result = response.toString();
+      responseModels.add(response);
+    }
 
-    return result;
+    return response.toString();
   }
 
-  public ActivityModel findActivity (Appliance appliance)
+  public synchronized ActivityModel findActivity (Appliance appliance)
   {
 
     ActivityModel result = null;
@@ -245,7 +254,7 @@ public class Person
    *          Model.
    * @return the found Activity Model.
    */
-  public ActivityModel findActivity (String name, boolean suffix)
+  public synchronized ActivityModel findActivity (String name, boolean suffix)
   {
 
     ActivityModel result = null;
@@ -272,7 +281,7 @@ public class Person
    *          The name of the Activity Model in search of.
    * @return the found Response Model.
    */
-  public ResponseModel findResponse (String name)
+  public synchronized ResponseModel findResponse (String name)
   {
 
     ResponseModel result = null;
@@ -293,7 +302,7 @@ public class Person
    * 
    * @return the number of Activity Models present on the Appliance model.
    */
-  public int getActivityModelsSize ()
+  public synchronized int getActivityModelsSize ()
   {
     return activityModels.size();
   }
@@ -329,13 +338,24 @@ public class Person
     return personID;
   }
 
+  /**
+   * This is a getter function of the way the number of mixtures of the GMM
+   * distributions is chosen.
+   * 
+   * @return the mixture selection of the Person model.
+   */
+  public MixtureCreator.Selection getMixtureSelection ()
+  {
+    return mixtureSelection;
+  }
+
   /**
    * This is a getter function of the size of the Response models of the Person
    * Model.
    * 
    * @return the number of Reponse Models present on the Appliance model.
    */
-  public int getResponseModelsSize ()
+  public synchronized int getResponseModelsSize ()
   {
     return responseModels.size();
   }
@@ -399,6 +419,18 @@ public class Person
     personID = id;
   }
 
+  /**
+   * This is a setter function of the way the number of mixtures of the GMM
+   * distributions is chosen.
+   * 
+   * @param mixtureSelection
+   *          The mixture selection used for training the Activity Models.
+   */
+  public void setMixtureSelection (MixtureCreator.Selection mixtureSelection)
+  {
+    this.mixtureSelection = mixtureSelection;
+  }
+
   /**
    * It enables the creation of a graphical statistic graph for an overview of
    * the Person Model.
@@ -463,16 +495,7 @@ public class Person
   public void train (ActivityTemp activity, String[] distributions)
     throws IOException
   {
-    ActivityModel exists =
-      findActivity(name + " " + activity.getName() + " Activity Model", false);
-
-    if (exists != null)
-      activityModels.remove(exists);
-
-    ActivityModel activityModel = activity.toActivityModel(this);
-    activityModel.train(distributions);
-    Utils.estimateExpectedPower(activityModel);
-    activityModels.add(activityModel);
+    replaceActivity(createActivityModel(activity, distributions));
   }
 
   /**
@@ -488,21 +511,103 @@ public class Person
   public void train (Appliance appliance, String[] distributions)
     throws IOException
   {
-    ActivityModel exists =
-      findActivity(name + " " + appliance.getName() + " Activity Model", false);
+    replaceActivity(createActivityModel(appliance, distributions));
+  }
 
-    if (exists != null)
-      activityModels.remove(exists);
+  /**
+   * This function is used for training an Activity Model out of a temporary
+   * activity without adding it to the Person Model, so that several models can
+   * be trained concurrently.
+   * 
+   * @param activity
+   *          The base temporary activity for the Activity Model.
+   * @param distributions
+   *          The distribution types selected by the user on the GUI.
+   * @return the trained Activity Model.
+   * @throws IOException
+   */
+  public ActivityModel createActivityModel (ActivityTemp activity,
+                                            String[] distributions)
+    throws IOException
+  {
+    return trainActivityModel(activity.toActivityModel(this), distributions);
+  }
+
+  /**
+   * This function is used for training an Activity Model out of a single
+   * appliance without adding it to the Person Model, so that several models
+   * can be trained concurrently.
+   * 
+   * @param appliance
+   *          The base appliance for the Activity Model.
+   * @param distributions
+   *          The distribution types selected by the user on the GUI.
+   * @return the trained Activity Model.
+   * @throws IOException
+   */
+  public ActivityModel createActivityModel (Appliance appliance,
+                                            String[] distributions)
+    throws IOException
+  {
+    return trainActivityModel(newActivityModel(appliance), distributions);
+  }
 
+  /**
+   * This function is used for creating the untrained Activity Model of a
+   * single appliance.
+   * 
+   * @param appliance
+   *          The base appliance for the Activity Model.
+   * @return the untrained Activity Model.
+   * @throws IOException
+   */
+  public ActivityModel newActivityModel (Appliance appliance)
+    throws IOException
+  {
     String type = appliance.getName().split(" ")[0];
 
-    ActivityModel activityModel = new ActivityModel(appliance, type, this);
+    return new ActivityModel(appliance, type, this);
+  }
+
+  /**
+   * This function is used for training an Activity Model without adding it to
+   * the Person Model. The model can be cancelled from another thread while it
+   * is trained.
+   * 
+   * @param activityModel
+   *          The untrained Activity Model.
+   * @param distributions
+   *          The distribution types selected by the user on the GUI.
+   * @return the trained Activity Model.
+   * @throws IOException
+   */
+  public ActivityModel trainActivityModel (ActivityModel activityModel,
+                                           String[] distributions)
+    throws IOException
+  {
     activityModel.train(distributions);
     Utils.estimateExpectedPower(activityModel);
+    return activityModel;
+  }
+
+  /**
+   * This function is used for adding a trained Activity Model to the Person
+   * Model, replacing any existing model with the same name.
+   * 
+   * @param activityModel
+   *          The trained Activity Model.
+   */
+  public synchronized void replaceActivity (ActivityModel activityModel)
+  {
+    ActivityModel exists = findActivity(activityModel.getName(), false);
+
+    if (exists != null)
+      activityModels.remove(exists);
+
     activityModels.add(activityModel);
   }
 
-  public ChartPanel expectedPowerChart ()
+  public synchronized ChartPanel expectedPowerChart ()
   {
     double[] overallExpectedPower = new double[Constants.MINUTES_PER_DAY];
 
@@ -519,9 +624,13 @@ public class Person
     Appliance standby = installation.findAppliance("Standby Consumption");
     // standby.status();
 
+    double standbyPower = 0;
+    if (standby != null)
+      standbyPower = standby.getActiveProfile()[0];
+
     for (int i = 0; i < overallExpectedPower.length; i++) {
       if (standby != null)
-        overallExpectedPower[i] += standby.getActiveConsumptionModel()[0];
+        overallExpectedPower[i] += standbyPower;
 
       if (fridge != null)
         overallExpectedPower[i] += mean;
@@ -0,0 +1,406 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.entities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import eu.cassandra.training.activity.ActivityModel;
+
+/**
+ * This class is used for training the Activity Models of a Person Model for a
+ * batch of temporary activities and appliances concurrently, on a bounded pool
+ * of worker threads. The progress of the batch is reported through a listener
+ * and the batch can be cancelled at any time. The trained models are added to
+ * the Person Model in the order they were added to the batch, once all of them
+ * are finished.
+ */
+public class TrainingBatch
+{
+
+  /**
+   * This interface is used for reporting the progress of a training batch.
+   * The functions are called from the thread running the batch.
+   */
+  public interface Listener
+  {
+    /**
+     * This function is called when an Activity Model has been trained.
+     * 
+     * @param activityModel
+     *          The trained Activity Model.
+     * @param completed
+     *          The number of entries finished so far.
+     * @param total
+     *          The number of entries of the batch.
+     */
+    public void trained (ActivityModel activityModel, int completed, int total);
+
+    /**
+     * This function is called when the training of an entry has failed.
+     * 
+     * @param name
+     *          The name of the temporary activity or appliance.
+     * @param error
+     *          The cause of the failure.
+     * @param completed
+     *          The number of entries finished so far.
+     * @param total
+     *          The number of entries of the batch.
+     */
+    public void failed (String name, Throwable error, int completed, int total);
+  }
+
+  /**
+   * This variable is the Person Model the Activity Models are trained for.
+   */
+  private final Person person;
+
+  /**
+   * This array contains the distribution types selected by the user.
+   */
+  private final String[] distributions;
+
+  /**
+   * This is the list of the entries of the batch, either temporary activities
+   * or appliances.
+   */
+  private final List<Object> entries = new ArrayList<Object>();
+
+  /**
+   * This variable is the flag signifying that the batch was cancelled.
+   */
+  private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+  /**
+   * This is the list of the futures of the entries submitted for training.
+   */
+  private final List<Future<Integer>> futures =
+    new ArrayList<Future<Integer>>();
+
+  /**
+   * This is the list of the Activity Models being trained at the moment.
+   */
+  private final List<ActivityModel> training = new ArrayList<ActivityModel>();
+
+  /**
+   * This variable is the listener of the progress of the batch, or null.
+   */
+  private Listener listener = null;
+
+  /**
+   * The constructor of a training batch.
+   * 
+   * @param person
+   *          The Person Model the Activity Models are trained for.
+   * @param distributions
+   *          The distribution types selected by the user on the GUI.
+   */
+  public TrainingBatch (Person person, String[] distributions)
+  {
+    this.person = person;
+    this.distributions = distributions.clone();
+  }
+
+  /**
+   * This function is used for adding a temporary activity to the batch.
+   * 
+   * @param activity
+   *          The temporary activity.
+   */
+  public void add (ActivityTemp activity)
+  {
+    entries.add(activity);
+  }
+
+  /**
+   * This function is used for adding a single appliance to the batch.
+   * 
+   * @param appliance
+   *          The appliance.
+   */
+  public void add (Appliance appliance)
+  {
+    entries.add(appliance);
+  }
+
+  /**
+   * This is a getter function of the number of entries of the batch.
+   * 
+   * @return the number of entries.
+   */
+  public int size ()
+  {
+    return entries.size();
+  }
+
+  /**
+   * This is a setter function of the listener of the progress of the batch.
+   * 
+   * @param listener
+   *          The listener, or null.
+   */
+  public void setListener (Listener listener)
+  {
+    this.listener = listener;
+  }
+
+  /**
+   * This function is used for cancelling the batch. Entries that have not
+   * started are skipped and the fitting of the running ones is stopped at
+   * once, while the models already trained are still added to the Person
+   * Model. It may be called from any thread.
+   */
+  public synchronized void cancel ()
+  {
+    cancelled.set(true);
+
+    for (Future<Integer> future: futures)
+      future.cancel(false);
+
+    for (ActivityModel activityModel: training)
+      activityModel.cancel();
+  }
+
+  /**
+   * This function states if the batch was cancelled.
+   * 
+   * @return true if the batch was cancelled, false otherwise.
+   */
+  public boolean isCancelled ()
+  {
+    return cancelled.get();
+  }
+
+  /**
+   * This function is used for training all the entries of the batch on a pool
+   * of the given number of threads, blocking until they are finished or the
+   * batch is cancelled. In both cases it returns only once no entry is still
+   * running.
+   * 
+   * @param threads
+   *          The maximum number of entries trained at the same time.
+   * @return the list of the trained Activity Models, in the order of the
+   *         entries.
+   * @throws InterruptedException
+   */
+  public List<ActivityModel> run (int threads) throws InterruptedException
+  {
+    int total = entries.size();
+    ActivityModel[] results = new ActivityModel[total];
+    boolean[] finished = new boolean[total];
+
+    if (total == 0)
+      return new ArrayList<ActivityModel>();
+
+    ExecutorService executor =
+      Executors.newFixedThreadPool(Math.max(1, Math.min(threads, total)));
+
+    try {
+      CompletionService<Integer> completion =
+        new ExecutorCompletionService<Integer>(executor);
+
+      synchronized (this) {
+        for (int i = 0; i < total; i++)
+          futures.add(completion.submit(new Entry(i, results)));
+      }
+
+      int completed = 0;
+
+      while (completed < total) {
+
+        Future<Integer> future = completion.take();
+        completed++;
+
+        if (future.isCancelled())
+          continue;
+
+        try {
+          int index = future.get();
+          finished[index] = true;
+          if (results[index] != null && listener != null)
+            listener.trained(results[index], completed, total);
+        }
+        catch (ExecutionException e) {
+          if (listener != null)
+            listener.failed(nameOf(indexOf(future)), e.getCause(), completed,
+                            total);
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      cancel();
+      throw e;
+    }
+    finally {
+      executor.shutdown();
+      awaitTermination(executor);
+    }
+
+    List<ActivityModel> trained = new ArrayList<ActivityModel>();
+
+    // Only the entries seen finished are merged, since the cancelled ones may
+    // have stopped in the middle of their training
+    for (int i = 0; i < total; i++)
+      if (finished[i] && results[i] != null) {
+        person.replaceActivity(results[i]);
+        trained.add(results[i]);
+      }
+
+    return trained;
+  }
+
+  /**
+   * This function waits until the entries running on an executor that has
+   * been shut down have returned. The fitting does not check for interruption,
+   * so an interrupted wait cancels the batch and goes on waiting.
+   * 
+   * @param executor
+   *          The executor of the entries.
+   */
+  private void awaitTermination (ExecutorService executor)
+  {
+    boolean interrupted = false;
+
+    while (!executor.isTerminated()) {
+      try {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException e) {
+        interrupted = true;
+        cancel();
+      }
+    }
+
+    if (interrupted)
+      Thread.currentThread().interrupt();
+  }
+
+  /**
+   * This function returns the index of the entry of a future.
+   * 
+   * @param future
+   *          The future of the entry.
+   * @return the index of the entry.
+   */
+  private synchronized int indexOf (Future<Integer> future)
+  {
+    return futures.indexOf(future);
+  }
+
+  /**
+   * This function registers an Activity Model whose training is starting, so
+   * that it can be cancelled with the batch.
+   * 
+   * @param activityModel
+   *          The Activity Model.
+   */
+  private synchronized void started (ActivityModel activityModel)
+  {
+    training.add(activityModel);
+
+    if (cancelled.get())
+      activityModel.cancel();
+  }
+
+  /**
+   * This function removes an Activity Model whose training has stopped from
+   * the models being trained.
+   * 
+   * @param activityModel
+   *          The Activity Model.
+   */
+  private synchronized void stopped (ActivityModel activityModel)
+  {
+    training.remove(activityModel);
+  }
+
+  /**
+   * This function returns the name of an entry of the batch.
+   * 
+   * @param index
+   *          The index of the entry.
+   * @return the name of the temporary activity or appliance.
+   */
+  private String nameOf (int index)
+  {
+    Object entry = entries.get(index);
+
+    if (entry instanceof ActivityTemp)
+      return ((ActivityTemp) entry).getName();
+    else
+      return ((Appliance) entry).getName();
+  }
+
+  /**
+   * This class is the task training a single entry of the batch.
+   */
+  private class Entry implements Callable<Integer>
+  {
+
+    /**
+     * This variable is the index of the entry.
+     */
+    private final int index;
+
+    /**
+     * This array contains the trained models of the batch.
+     */
+    private final ActivityModel[] results;
+
+    private Entry (int index, ActivityModel[] results)
+    {
+      this.index = index;
+      this.results = results;
+    }
+
+    @Override
+    public Integer call () throws Exception
+    {
+      if (cancelled.get())
+        return index;
+
+      Object entry = entries.get(index);
+
+      ActivityModel activityModel =
+        (entry instanceof ActivityTemp) ? ((ActivityTemp) entry)
+                .toActivityModel(person) : person
+                .newActivityModel((Appliance) entry);
+
+      started(activityModel);
+
+      try {
+        results[index] =
+          person.trainActivityModel(activityModel, distributions);
+      }
+      finally {
+        stopped(activityModel);
+      }
+
+      return index;
+    }
+  }
+}
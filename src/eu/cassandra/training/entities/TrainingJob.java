@@ -0,0 +1,397 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.entities;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+
+import eu.cassandra.training.activity.ActivityModel;
+import eu.cassandra.training.response.ResponseModel;
+import eu.cassandra.training.utils.Constants;
+import eu.cassandra.training.utils.ExportPipeline;
+import eu.cassandra.training.utils.Measurements;
+import eu.cassandra.training.utils.MeasurementsStore;
+import eu.cassandra.training.utils.MixtureCreator;
+import eu.cassandra.training.utils.Utils;
+
+/**
+ * This class is used for training the models of an installation without the
+ * Training Module GUI, following the same steps: the measurements file is
+ * imported, the results of the disaggregation are parsed, the activity models
+ * are trained and, if asked, the response models are created for a new
+ * pricing scheme. The trained installation can then be exported to the
+ * Cassandra Platform or written to a file. The job is configured through a
+ * properties file, like the Disaggregation Module, and no graphical classes
+ * are used, so that many jobs can run on a server at once.
+ */
+public class TrainingJob implements Callable<Installation>
+{
+  /**
+   * These are the names of the response types, in the order of their indices
+   * in the response models.
+   */
+  private static final String[] RESPONSE_TYPES = { "Optimal", "Normal",
+                                                  "Discrete" };
+
+  /**
+   * This variable is the path of the measurements file.
+   */
+  private final String path;
+
+  /**
+   * This variable contains the configuration of the job.
+   */
+  private final Properties config;
+
+  /**
+   * This variable is the number of threads used for training.
+   */
+  private final int threads;
+
+  /**
+   * This variable is the installation trained, or null if the job has not run
+   * yet.
+   */
+  private Installation installation = null;
+
+  /**
+   * This is the list of the activity models trained.
+   */
+  private final List<ActivityModel> activities = new ArrayList<ActivityModel>();
+
+  /**
+   * This is the list of the response models created.
+   */
+  private final List<ActivityModel> responses = new ArrayList<ActivityModel>();
+
+  /**
+   * The constructor of a training job.
+   * 
+   * @param path
+   *          The path of the measurements file.
+   * @param config
+   *          The configuration of the job.
+   * @param threads
+   *          The number of threads used for training the activity models.
+   */
+  public TrainingJob (String path, Properties config, int threads)
+  {
+    this.path = path;
+    this.config = config;
+    this.threads = threads;
+  }
+
+  /**
+   * This function is used as a getter for the installation trained.
+   * 
+   * @return the installation, or null if the job has not run yet.
+   */
+  public Installation getInstallation ()
+  {
+    return installation;
+  }
+
+  /**
+   * This function is used as a getter for the activity models trained.
+   * 
+   * @return the list of the activity models.
+   */
+  public List<ActivityModel> getActivityModels ()
+  {
+    return activities;
+  }
+
+  /**
+   * This function is used as a getter for the response models created.
+   * 
+   * @return the list of the response models.
+   */
+  public List<ActivityModel> getResponseModels ()
+  {
+    return responses;
+  }
+
+  /**
+   * This function is used for running the job, importing the measurements,
+   * training the activity models and creating the response models.
+   * 
+   * @return the trained installation.
+   * @throws Exception
+   */
+  @Override
+  public Installation call () throws Exception
+  {
+    boolean power = Boolean.parseBoolean(config.getProperty("ActiveOnly",
+                                                            "true"));
+
+    // A file imported before is loaded from its measurements store, otherwise
+    // it is parsed and loaded in a single pass
+    if (MeasurementsStore.exists(path, power))
+      installation = new Installation(path, power);
+    else {
+      Measurements measurements = Utils.loadMeasurementsFile(path, power);
+
+      if (measurements.getErrorLine() != -1)
+        throw new IOException("Parsing measurements file " + path
+                              + " failed. The problem seems to be in line "
+                              + measurements.getErrorLine());
+
+      installation = new Installation(path, power, measurements);
+    }
+
+    // Reading the appliances and activities found by the disaggregation
+    DisaggregationResults results = new DisaggregationResults(installation);
+
+    if (results.load(path) == false)
+      throw new FileNotFoundException("No disaggregation results found for "
+                                      + path);
+
+    // Training all the activities found
+    String[] distributions =
+      { config.getProperty("DailyTimesDistribution", "GMM"),
+       config.getProperty("DurationDistribution", "GMM"),
+       config.getProperty("StartTimeDistribution", "GMM"), "Histogram" };
+
+    installation.getPerson().setMixtureSelection(MixtureCreator.Selection
+            .valueOf(config.getProperty("MixtureSelection",
+                                        Constants.GMM_SELECTION.name())
+                    .trim().toUpperCase()));
+
+    TrainingBatch batch =
+      new TrainingBatch(installation.getPerson(), distributions);
+
+    for (ActivityTemp activity: results.getTempActivities())
+      batch.add(activity);
+
+    activities.addAll(batch.run(threads));
+
+    for (ActivityModel activity: activities)
+      for (String report: activity.getFitReports())
+        System.out.println(installation.getName() + ": " + activity.getName()
+                           + " " + report);
+
+    String responseType = config.getProperty("ResponseType", "").trim();
+
+    if (responseType.isEmpty() == false)
+      createResponses(responseType);
+
+    return installation;
+  }
+
+  /**
+   * This function is used for creating the response models of all the trained
+   * activity models for the pricing schemes of the configuration.
+   * 
+   * @param responseType
+   *          The name of the response type.
+   * @throws IOException
+   */
+  private void createResponses (String responseType) throws IOException
+  {
+    int type = -1;
+
+    for (int i = 0; i < RESPONSE_TYPES.length; i++)
+      if (RESPONSE_TYPES[i].equalsIgnoreCase(responseType))
+        type = i;
+
+    if (type == -1)
+      throw new IllegalArgumentException("Unknown response type "
+                                         + responseType);
+
+    double[] basicScheme =
+      readScheme(config.getProperty("BasicPricingScheme", ""));
+    double[] newScheme = readScheme(config.getProperty("NewPricingScheme", ""));
+
+    float awareness =
+      Float.parseFloat(config.getProperty("Awareness", "0.5"));
+    float sensitivity =
+      Float.parseFloat(config.getProperty("Sensitivity", "0.5"));
+
+    Person person = installation.getPerson();
+
+    for (ActivityModel activity: activities) {
+      String name =
+        person.createResponse(activity, type, basicScheme, newScheme,
+                              awareness, sensitivity);
+      ResponseModel response = person.findResponse(name);
+      responses.add(response);
+    }
+  }
+
+  /**
+   * This function is used for reading a pricing scheme file, written in the
+   * same way as in the Create Response Models tab of the GUI.
+   * 
+   * @param filename
+   *          The name of the pricing scheme file.
+   * @return the price of each minute of the day.
+   * @throws IOException
+   */
+  private static double[] readScheme (String filename) throws IOException
+  {
+    StringBuilder scheme = new StringBuilder();
+    Scanner input = new Scanner(new File(filename));
+
+    try {
+      while (input.hasNextLine()) {
+        String line = input.nextLine().trim();
+        if (line.isEmpty() == false) {
+          if (scheme.length() > 0)
+            scheme.append("\n");
+          scheme.append(line);
+        }
+      }
+    }
+    finally {
+      input.close();
+    }
+
+    int error = Utils.parsePricingScheme(scheme.toString());
+
+    if (error != -1)
+      throw new IOException("Parsing pricing scheme " + filename
+                            + " failed. The problem seems to be in line "
+                            + error);
+
+    return Utils.parseScheme(scheme.toString());
+  }
+
+  /**
+   * This function is used for creating the export pipeline of the trained
+   * installation, containing its appliances and either the activity models or
+   * the response models.
+   * 
+   * @param response
+   *          true for the response models, false for the activity models.
+   * @return the pipeline.
+   */
+  public ExportPipeline createPipeline (boolean response)
+  {
+    ExportPipeline pipeline =
+      new ExportPipeline(installation, installation.getName()
+                                       + (response ? " Response" : " Base"));
+
+    for (Appliance appliance: installation.getAppliances())
+      pipeline.add(appliance);
+
+    for (ActivityModel activity: response ? responses : activities)
+      pipeline.add(activity);
+
+    return pipeline;
+  }
+
+  /**
+   * This function is used for exporting the trained installation to the
+   * Cassandra Platform, to which the user must already be connected. The base
+   * installation model is always exported, while the response installation
+   * model is exported if response models were created.
+   * 
+   * @param exportThreads
+   *          The number of threads sending the entities.
+   * @return the number of entities that failed or were skipped.
+   * @throws InterruptedException
+   */
+  public int export (int exportThreads) throws InterruptedException
+  {
+    int failed = run(createPipeline(false), exportThreads);
+
+    if (responses.isEmpty() == false)
+      failed += run(createPipeline(true), exportThreads);
+
+    return failed;
+  }
+
+  /**
+   * This function is used for running an export pipeline, in batches or
+   * entity by entity as set in the Constants.
+   * 
+   * @param pipeline
+   *          The pipeline.
+   * @param exportThreads
+   *          The number of threads sending the entities.
+   * @return the number of entities that failed or were skipped.
+   * @throws InterruptedException
+   */
+  private static int run (ExportPipeline pipeline, int exportThreads)
+    throws InterruptedException
+  {
+    if (Constants.BATCH_EXPORT)
+      return pipeline.runBatch(Constants.EXPORT_BATCH_SIZE);
+    else
+      return pipeline.run(exportThreads);
+  }
+
+  /**
+   * This function is used for writing the trained installation to files in
+   * a folder, instead of exporting it. The base installation model is written
+   * to a file named after the installation followed by "Base.json", while the
+   * response installation model, if response models were created, is written
+   * to one followed by "Response.json".
+   * 
+   * @param folder
+   *          The folder the files are written to.
+   * @return the list of the files written.
+   * @throws IOException
+   */
+  public List<File> write (File folder) throws IOException
+  {
+    List<File> files = new ArrayList<File>();
+
+    files.add(write(createPipeline(false), new File(folder, installation
+            .getName() + " Base.json")));
+
+    if (responses.isEmpty() == false)
+      files.add(write(createPipeline(true), new File(folder, installation
+              .getName() + " Response.json")));
+
+    return files;
+  }
+
+  /**
+   * This function is used for writing the entities of an export pipeline to a
+   * file.
+   * 
+   * @param pipeline
+   *          The pipeline.
+   * @param file
+   *          The file.
+   * @return the file written.
+   * @throws IOException
+   */
+  private static File write (ExportPipeline pipeline, File file)
+    throws IOException
+  {
+    OutputStream out = new FileOutputStream(file);
+
+    try {
+      pipeline.write(out);
+    }
+    finally {
+      out.close();
+    }
+
+    return file;
+  }
+}
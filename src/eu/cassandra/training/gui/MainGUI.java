@@ -37,7 +37,11 @@ import java.io.IOException;
 import java.net.URL;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.swing.ButtonGroup;
 import javax.swing.DefaultListModel;
@@ -75,16 +79,21 @@ import javax.swing.event.ListSelectionListener;
 import org.apache.http.auth.AuthenticationException;
 import org.jfree.chart.ChartPanel;
 
-import eu.cassandra.disaggregation.Disaggregate;
 import eu.cassandra.training.activity.ActivityModel;
 import eu.cassandra.training.entities.ActivityTemp;
 import eu.cassandra.training.entities.Appliance;
 import eu.cassandra.training.entities.ApplianceTemp;
+import eu.cassandra.training.entities.DisaggregationResults;
 import eu.cassandra.training.entities.Installation;
+import eu.cassandra.training.entities.Person;
+import eu.cassandra.training.entities.TrainingBatch;
 import eu.cassandra.training.response.ResponseModel;
 import eu.cassandra.training.utils.APIUtilities;
 import eu.cassandra.training.utils.ChartUtils;
 import eu.cassandra.training.utils.Constants;
+import eu.cassandra.training.utils.ExportPipeline;
+import eu.cassandra.training.utils.Measurements;
+import eu.cassandra.training.utils.MeasurementsStore;
 import eu.cassandra.training.utils.MyFilter;
 import eu.cassandra.training.utils.MyFilter2;
 import eu.cassandra.training.utils.Utils;
@@ -107,27 +116,6 @@ public class MainGUI extends JFrame
    */
   private static final long serialVersionUID = 1L;
 
-  /**
-   * This function is used when the program needs to search through the list of
-   * available activities to find the selected one.
-   * 
-   * @param name
-   *          name of the activity as it can be found on the list of detected /
-   *          selected activities
-   * @return the index of the activity in the list of the tempActivities.
-   */
-  private static ArrayList<ActivityTemp> findAllActivity (String name)
-  {
-
-    ArrayList<ActivityTemp> result = new ArrayList<ActivityTemp>();
-
-    for (int i = 0; i < tempActivities.size(); i++)
-      if (tempActivities.get(i).getName().contains(name))
-        result.add(tempActivities.get(i));
-
-    return result;
-  }
-
   /**
    * This function is used when the program needs to search through the list of
    * available activities to find the selected one.
@@ -180,10 +168,10 @@ public class MainGUI extends JFrame
   private final JPanel contentPane;
 
   /**
-   * This variable is used to check if one or more items are processed at the
-   * same time.
+   * This variable is the queue running the long operations of the GUI in the
+   * background, showing their progress on the status bar.
    */
-  private boolean manyFlag = false;
+  private final TaskQueue tasks = new TaskQueue();
 
   /**
    * This is the variable controlling over the radio buttons used for choosing
@@ -335,7 +323,7 @@ public class MainGUI extends JFrame
     // Setting the basic attributes of the Training Module GUI
     setTitle("Training Module (BETA)");
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    setBounds(100, 100, 1228, 799);
+    setBounds(100, 100, 1228, 829);
 
     // Creating the menu bar and adding the menu items
     JMenuBar menuBar = new JMenuBar();
@@ -373,7 +361,9 @@ public class MainGUI extends JFrame
     gl_contentPane.setHorizontalGroup(gl_contentPane
             .createParallelGroup(Alignment.LEADING)
             .addComponent(tabbedPane, Alignment.TRAILING,
-                          GroupLayout.DEFAULT_SIZE, 1202, Short.MAX_VALUE));
+                          GroupLayout.DEFAULT_SIZE, 1202, Short.MAX_VALUE)
+            .addComponent(tasks.getStatusPanel(), GroupLayout.DEFAULT_SIZE,
+                          1202, Short.MAX_VALUE));
     gl_contentPane.setVerticalGroup(gl_contentPane
             .createParallelGroup(Alignment.LEADING)
             .addGroup(gl_contentPane
@@ -381,7 +371,12 @@ public class MainGUI extends JFrame
                               .addComponent(tabbedPane,
                                             GroupLayout.PREFERRED_SIZE, 736,
                                             GroupLayout.PREFERRED_SIZE)
-                              .addContainerGap(47, Short.MAX_VALUE)));
+                              .addComponent(tasks.getStatusPanel(),
+                                            GroupLayout.PREFERRED_SIZE,
+                                            GroupLayout.DEFAULT_SIZE,
+                                            GroupLayout.PREFERRED_SIZE)
+                              .addContainerGap(GroupLayout.DEFAULT_SIZE,
+                                               Short.MAX_VALUE)));
 
     // TABS //
 
@@ -1142,13 +1137,28 @@ public class MainGUI extends JFrame
        * This function is called when the user presses the reset button
        * on the Data File panel of the Import Data tab. All the imported and
        * created entities are removed and the Training Module goes back to its
-       * initial state.
+       * initial state. If there are tasks running, they are cancelled and the
+       * reset is done once they have all finished.
        * 
        */
       @Override
       public void actionPerformed (ActionEvent e)
       {
 
+        // The tasks work on the installation and the temporary files, so they
+        // must have finished before removing them
+        if (tasks.isBusy()) {
+          tasks.cancelAll();
+          tasks.whenIdle(new Runnable() {
+            @Override
+            public void run ()
+            {
+              resetButton.doClick();
+            }
+          });
+          return;
+        }
+
         // Cleaning the Import Data tab components
         pathField.setText("");
         consumptionPathField.setText("");
@@ -1271,100 +1281,117 @@ public class MainGUI extends JFrame
     importDataButton.addActionListener(new ActionListener() {
       /**
        * This function is called when the user presses the Import Data
-       * button on the Data File panel of the Import Data tab.
+       * button on the Data File panel of the Import Data tab. The measurements
+       * file is parsed in the background.
        */
       @Override
       public void actionPerformed (ActionEvent e)
       {
-        Component root = SwingUtilities.getRoot((JButton) e.getSource());
+        // Change the state of some components
+        installationRadioButton.setEnabled(false);
+        singleApplianceRadioButton.setEnabled(false);
+        importDataButton.setEnabled(false);
+        dataBrowseButton.setEnabled(false);
+        activePowerRadioButton.setEnabled(false);
+        activeAndReactivePowerRadioButton.setEnabled(false);
 
-        try {
+        // Check if both active and reactive activeOnly data set are available
+        final boolean power = activePowerRadioButton.isSelected();
+        final String path = pathField.getText();
+
+        tasks.submit(new TaskQueue.Task<Installation>("Importing data") {
+          /**
+           * This variable is the line of error of the measurements file, or -1
+           * if no error was found.
+           */
+          private int parse = -1;
+
+          @Override
+          protected Installation doInBackground () throws Exception
+          {
+            // A file imported before is loaded from its measurements store
+            // without parsing it again
+            if (MeasurementsStore.exists(path, power))
+              return new Installation(path, power);
+
+            // Parsing and loading the measurements file in a single pass
+            Measurements measurements = Utils.loadMeasurementsFile(path, power);
+            parse = measurements.getErrorLine();
+
+            // If everything is OK, creating new installation
+            if (parse == -1)
+              return new Installation(path, power, measurements);
+
+            return null;
+          }
 
-          root.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+          @Override
+          protected void succeeded (Installation result)
+          {
+            // If everything is OK
+            if (result != null) {
 
-          // Change the state of some components
-          installationRadioButton.setEnabled(false);
-          singleApplianceRadioButton.setEnabled(false);
-          importDataButton.setEnabled(false);
-          dataBrowseButton.setEnabled(false);
-          activePowerRadioButton.setEnabled(false);
-          activeAndReactivePowerRadioButton.setEnabled(false);
-
-          // Check if both active and reactive activeOnly data set are available
-          boolean power = activePowerRadioButton.isSelected();
-          int parse = -1;
-
-          // Parsing the measurements file
-          try {
-            parse = Utils.parseMeasurementsFile(pathField.getText(), power);
-          }
-          catch (IOException e2) {
-            e2.printStackTrace();
-          }
+              installation = result;
 
-          // If everything is OK
-          if (parse == -1) {
-            try {
-              // Creating new installation
-              installation = new Installation(pathField.getText(), power);
-            }
-            catch (IOException e2) {
-              e2.printStackTrace();
-            }
+              // Show the measurements in the preview chart
+              ChartPanel chartPanel = null;
+              try {
+                chartPanel = installation.measurementsChart();
+              }
+              catch (IOException e1) {
+                e1.printStackTrace();
+              }
 
-            // Show the measurements in the preview chart
-            ChartPanel chartPanel = null;
-            try {
-              chartPanel = installation.measurementsChart();
-            }
-            catch (IOException e1) {
-              e1.printStackTrace();
-            }
+              dataReviewPanel.add(chartPanel, BorderLayout.CENTER);
+              dataReviewPanel.validate();
 
-            dataReviewPanel.add(chartPanel, BorderLayout.CENTER);
-            dataReviewPanel.validate();
+              disaggregateButton.setEnabled(false);
+              createEventsButton.setEnabled(false);
 
-            disaggregateButton.setEnabled(false);
-            createEventsButton.setEnabled(false);
+              // Enable the appropriate buttons given source of measurements
+              if (installationRadioButton.isSelected()) {
+                disaggregateButton.setEnabled(true);
+              }
+              else if (singleApplianceRadioButton.isSelected()) {
+                consumptionPathField.setEnabled(true);
+                consumptionBrowseButton.setEnabled(true);
 
-            // Enable the appropriate buttons given source of measurements
-            if (installationRadioButton.isSelected()) {
-              disaggregateButton.setEnabled(true);
-            }
-            else if (singleApplianceRadioButton.isSelected()) {
-              consumptionPathField.setEnabled(true);
-              consumptionBrowseButton.setEnabled(true);
+              }
 
-            }
+              // Add installation to the export models list
+              exportModels.addElement(installation.toString());
+              exportModels.addElement(installation.getPerson().getName());
+              householdNameTextField.setText(installation.getName());
 
-            // Add installation to the export models list
-            exportModels.addElement(installation.toString());
-            exportModels.addElement(installation.getPerson().getName());
-            householdNameTextField.setText(installation.getName());
+              // Enable Export Models tab
+              exportModelList.setEnabled(true);
+              exportModelList.setModel(exportModels);
+              tabbedPane.setEnabledAt(3, true);
 
-            // Enable Export Models tab
-            exportModelList.setEnabled(true);
-            exportModelList.setModel(exportModels);
-            tabbedPane.setEnabledAt(3, true);
+            }
+            // In case of an error during the measurement parsing show the line
+            // of error and reset settings.
+            else {
+              JFrame error = new JFrame();
 
+              JOptionPane
+                      .showMessageDialog(error,
+                                         "Parsing measurements file failed. The problem seems to be in line "
+                                                 + parse
+                                                 + ".Check the selected buttons and the file provided and try again.",
+                                         "Inane error",
+                                         JOptionPane.ERROR_MESSAGE);
+              resetButton.doClick();
+            }
           }
-          // In case of an error during the measurement parsing show the line of
-          // error and reset settings.
-          else {
-            JFrame error = new JFrame();
 
-            JOptionPane
-                    .showMessageDialog(error,
-                                       "Parsing measurements file failed. The problem seems to be in line "
-                                               + parse
-                                               + ".Check the selected buttons and the file provided and try again.",
-                                       "Inane error", JOptionPane.ERROR_MESSAGE);
+          @Override
+          protected void failed (Throwable error)
+          {
+            super.failed(error);
             resetButton.doClick();
           }
-        }
-        finally {
-          root.setCursor(Cursor.getDefaultCursor());
-        }
+        });
       }
     });
 
@@ -1373,320 +1400,151 @@ public class MainGUI extends JFrame
        * This function is called when the user presses the Disaggregate
        * button on the Data File panel of the Import Data tab in order to
        * automatically analyse the data set and extract the appliances and
-       * activities within.
+       * activities within. The analysis runs in the background and the lists
+       * are filled when it is finished.
        */
       @Override
       public void actionPerformed (ActionEvent e)
       {
+        disaggregateButton.setEnabled(false);
 
-        Component root = SwingUtilities.getRoot((JButton) e.getSource());
-
-        try {
-
-          root.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-
-          // Get auxiliary files containing appliances and activities which are
-          // the output of the disaggregation process.
-          String filename = pathField.getText();
-
-          File file = new File(filename);
-
-          String folder = file.getParent() + "/";
-
-          String fileNameWithExtension = file.getName();
-
-          String fileName =
-            file.getName().substring(0, file.getName().length() - 4);
-
-          filename =
-            pathField.getText().substring(0, pathField.getText().length() - 4);
-          File appliancesFile =
-            new File(Constants.resultFolder + fileName + "ApplianceList.csv");
-          File activitiesFile =
-            new File(Constants.resultFolder + fileName + "ActivityList.csv");
-
-          if ((Constants.USE_FILES == false)
-              || (!appliancesFile.exists() && !activitiesFile.exists())) {
-            try {
-              System.out.println("IN!!!");
-
-              Disaggregate dis =
-                new Disaggregate(folder, fileNameWithExtension);
-
-              appliancesFile =
-                new File(Constants.resultFolder + fileName
-                         + "ApplianceList.csv");
-              activitiesFile =
-                new File(Constants.resultFolder + fileName + "ActivityList.csv");
-            }
-            catch (Exception e2) {
-              System.out.println("Missing File");
-              e2.printStackTrace();
-            }
-          }
-
-          // If these exist, disaggregation was successful and the procedure can
-          // continue
-          if (appliancesFile.exists() && activitiesFile.exists()) {
-
-            // Read appliance file and start appliance parsing
-            Scanner input = null;
-            try {
-              input = new Scanner(appliancesFile);
-            }
-            catch (FileNotFoundException e1) {
-              e1.printStackTrace();
-            }
-            String nextLine;
-            String[] line;
-
-            while (input.hasNext()) {
-              nextLine = input.nextLine();
-              line = nextLine.split(",");
-
-              String name = line[1] + " " + line[0];
-              // String activity = line[1];
-              String activity = name;
-              String[] temp = line[0].split(" ");
-
-              String type = "";
-
-              if (temp.length == 1)
-                type = temp[0];
-              else {
-                for (int i = 0; i < temp.length - 1; i++)
-                  type += temp[i] + " ";
-                type = type.trim();
-
-              }
-
-              boolean refFlag = activity.contains("Refrigeration");
-              boolean wmFlag = name.contains("Washing");
-
-              double p = 0, q = 0;
-              int distance = 0, duration = 0;
-
-              if (refFlag) {
-                p = Double.parseDouble(line[2]);
-                q = Double.parseDouble(line[3]);
-                duration = Integer.parseInt(line[4]);
-                distance = Integer.parseInt(line[5]);
-                // For each appliance found in the file, an temporary Appliance
-                // Entity is created.
-
-                tempAppliances.add(new ApplianceTemp(name, installation
-                        .getName(), type, activity, p, q, duration, distance));
+        final String path = pathField.getText();
+        final List<String> detected = new ArrayList<String>();
+        final List<String> selected = new ArrayList<String>();
+        final List<String> exported = new ArrayList<String>();
+
+        tasks.submit(new TaskQueue.Task<Void>("Disaggregating") {
+          /**
+           * This variable is the results of the disaggregation, or null if
+           * they were not found.
+           */
+          private DisaggregationResults results = null;
+
+          @Override
+          protected Void doInBackground () throws Exception
+          {
+            DisaggregationResults loaded =
+              new DisaggregationResults(installation);
+
+            // If the results of the disaggregation exist, it was successful
+            // and the procedure can continue
+            if (loaded.load(path)) {
+
+              results = loaded;
+
+              // Add each found appliance to the detected appliance and export
+              // models list.
+              for (Appliance appliance: results.getAppliances()) {
+                detected.add(appliance.toString());
+                exported.add(appliance.toString());
               }
-              else if (wmFlag) {
-                double[] pValues = new double[line.length / 2 - 1];
-                double[] qValues = new double[line.length / 2 - 1];
-                // For each appliance found in the file, an temporary Appliance
-                // Entity is created.
-
-                for (int i = 0; i < pValues.length; i++) {
-                  pValues[i] = Double.parseDouble(line[2 + 2 * i]);
-                  qValues[i] = Double.parseDouble(line[3 + 2 * i]);
-                }
 
-                tempAppliances.add(new ApplianceTemp(name, installation
-                        .getName(), type, activity, pValues, qValues));
-              }
-              else {
-                p = Double.parseDouble(line[2]);
-                q = Double.parseDouble(line[3]);
-                // For each appliance found in the file, an temporary Appliance
-                // Entity is created.
-
-                tempAppliances.add(new ApplianceTemp(name, installation
-                        .getName(), type, activity, p, q));
-              }
             }
+            // In case of an error.
+            else {
 
-            System.out.println("Appliances:" + tempAppliances.size());
-
-            input.close();
-
-            // Read activity file and start activity parsing
-
-            try {
-              input = new Scanner(activitiesFile);
-            }
-            catch (FileNotFoundException e1) {
-              System.out.println("Problem with activity file.");
-              e1.printStackTrace();
-            }
+              int temp = 8 + ((int) (Math.random() * 2));
+
+              for (int i = 0; i < temp; i++) {
+
+                String name = "Appliance " + i;
+                String powerModel = "";
+                String reactiveModel = "";
+                int tempIndex = i % 5;
+                switch (tempIndex) {
+                case 0:
+                  powerModel =
+                    "{\"n\":1,\"params\":[{\"n\":1,\"values\":[{\"p\":1900,\"d\":1,\"s\":0}]},{\"n\":0,\"values\":[{\"p\":300,\"d\":1,\"s\":0}]}]}";
+                  reactiveModel =
+                    "{\"n\":1,\"params\":[{\"n\":1,\"values\":[{\"q\":-40,\"d\":1,\"s\":0}]},{\"n\":0,\"values\":[{\"q\":-10,\"d\":1,\"s\":0}]}]}";
+                  break;
+                case 1:
+                  powerModel =
+                    "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"p\" : 140.0, \"d\" : 20, \"s\": 0.0}]}]}";
+                  reactiveModel =
+                    "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"q\" : 120.0, \"d\" : 20, \"s\": 0.0}]}]}";
+                  break;
+                case 2:
+                  powerModel =
+                    "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"p\" : 95.0, \"d\" : 20, \"s\": 0.0}, {\"p\" :80.0, \"d\" : 18, \"s\": 0.0}, {\"p\" : 0.0, \"d\" : 73, \"s\": 0.0}]}]}]}";
+                  reactiveModel =
+                    "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"q\" : 0.0, \"d\" : 20, \"s\": 0.0}, {\"q\" : 0.0, \"d\" : 18, \"s\": 0.0}, {\"q\" : 0.0, \"d\" : 73, \"s\": 0.0}]}]}]}";
+                  break;
+                case 3:
+                  powerModel =
+                    "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"p\" : 30.0, \"d\" : 20, \"s\": 0.0}]}]}";
+                  reactiveModel =
+                    "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"q\" : -5.0, \"d\" : 20, \"s\": 0.0}]}]}";
+                  break;
+                case 4:
+                  powerModel =
+                    "{\"n\":1,\"params\":[{\"n\":1,\"values\":[{\"p\":150,\"d\":25,\"s\":0},{\"p\":2000,\"d\":13,\"s\":0},{\"p\":100,\"d\":62,\"s\":0}]}]}";
+                  reactiveModel =
+                    "{\"n\":1,\"params\":[{\"n\":1,\"values\":[{\"q\":400,\"d\":25,\"s\":0},{\"q\":200,\"d\":13,\"s\":0},{\"q\":300,\"d\":62,\"s\":0}]}]}";
+                  break;
+                }
 
-            while (input.hasNext()) {
-              nextLine = input.nextLine();
-              line = nextLine.split(",");
-
-              // System.out.println(Arrays.toString(line));
-              // String name = line[0];
-              // String activity = line[1];
-              String activity = line[1] + " " + line[0];
-              String type = line[1];
-              int start = Integer.parseInt(line[2]);
-              int end = Integer.parseInt(line[3]);
-
-              // Search for existing activity
-              int activityIndex = findActivity(activity);
-
-              // if not found, create a new one
-              if (activityIndex == -1) {
-                // System.out.println("In!");
-                ActivityTemp newActivity = new ActivityTemp(activity, type);
-                newActivity.addEvent(start, end);
-                tempActivities.add(newActivity);
-                // System.out.println(tempActivities.toString());
+                Appliance tempAppliance =
+                  new Appliance(name, installation.getName(), powerModel,
+                                reactiveModel, "Demo/eventsAll" + tempIndex
+                                               + ".csv");
 
+                installation.addAppliance(tempAppliance);
+                detected.add(tempAppliance.toString());
+                selected.add(tempAppliance.toString());
+                exported.add(tempAppliance.toString());
               }
-              // else add data to the found activity
-              else
-                tempActivities.get(activityIndex).addEvent(start, end);
             }
 
-            // This is hard copied for now
-            ArrayList<ActivityTemp> activities =
-              findAllActivity("Refrigeration");
-            for (ActivityTemp activityTemp: activities) {
-              tempActivities.remove(activityTemp);
-              System.out.println("Refrigeration Removed");
-            }
+            return null;
+          }
 
-            int index = findActivity("Standby");
-            if (index != -1) {
-              tempActivities.remove(index);
-              System.out.println("Standby Consumption Removed");
-            }
-            // TODO Add these lines in case we want to remove activities with
-            // small sampling number
-
-            // System.out.println(tempActivities.size());
-            // for (int i = tempActivities.size() - 1; i >= 0; i--)
-            // if (tempActivities.get(i).getEvents().size() < threshold)
-            // tempActivities.remove(i);
-
-            // Create an event file for each activity, in order to be able to
-            // use
-            // it for training the behaviour models if asked from the user
-            for (int i = 0; i < tempActivities.size(); i++) {
-              // tempActivities.get(i).status();
-              try {
-                tempActivities.get(i).createEventFile();
-              }
-              catch (IOException e1) {
-                System.out.println("Problem with creating events file.");
-                e1.printStackTrace();
-              }
+          @Override
+          protected void succeeded (Void result)
+          {
+            // The temporary appliances and activities are only used on the
+            // event dispatch thread, so they are added here
+            if (results != null) {
+              tempAppliances.addAll(results.getTempAppliances());
+              tempActivities.addAll(results.getTempActivities());
+
+              // Add each activity to the selected activities list.
+              for (int i = tempActivities.size() - 1; i >= 0; i--)
+                selected.add(tempActivities.get(i).toString());
             }
 
-            input.close();
-
-            // Add each found appliance (after converting temporary appliance to
-            // normal appliance) in the installation Entity, to the detected
-            // appliance and export models list
-            for (ApplianceTemp temp: tempAppliances) {
-
-              Appliance tempAppliance = temp.toAppliance();
-
-              installation.addAppliance(tempAppliance);
-              detectedAppliances.addElement(tempAppliance.toString());
-              exportModels.addElement(tempAppliance.toString());
+            for (String name: detected)
+              detectedAppliances.addElement(name);
+            for (String name: selected)
+              selectedAppliances.addElement(name);
+            for (String name: exported)
+              exportModels.addElement(name);
 
-            }
-
-            // Add appliances corresponding to each activity, remove activities
-            // without appliances and add activities to the selected activities
-            // list.
-            for (int i = tempActivities.size() - 1; i >= 0; i--) {
+            // Enable all appliance/activity lists
+            detectedApplianceList.setEnabled(true);
+            detectedApplianceList.setModel(detectedAppliances);
+            detectedApplianceList.setSelectedIndex(0);
 
-              tempActivities.get(i).setAppliances(findAppliances(tempActivities
-                                                          .get(i)));
-              if (tempActivities.get(i).getAppliances().size() == 0) {
-                tempActivities.remove(i);
-              }
-              else
-                selectedAppliances.addElement(tempActivities.get(i).toString());
+            tabbedPane.setEnabledAt(1, true);
+            selectedApplianceList.setEnabled(true);
+            selectedApplianceList.setModel(selectedAppliances);
 
-            }
+            // exportModelList.setEnabled(true);
+            // exportModelList.setModel(exportModels);
+            // tabbedPane.setEnabledAt(3, true);
 
+            // Disable unnecessary buttons.
+            disaggregateButton.setEnabled(false);
+            createEventsButton.setEnabled(false);
           }
-          // In case of an error.
-          else {
-
-            int temp = 8 + ((int) (Math.random() * 2));
-
-            for (int i = 0; i < temp; i++) {
-
-              String name = "Appliance " + i;
-              String powerModel = "";
-              String reactiveModel = "";
-              int tempIndex = i % 5;
-              switch (tempIndex) {
-              case 0:
-                powerModel =
-                  "{\"n\":1,\"params\":[{\"n\":1,\"values\":[{\"p\":1900,\"d\":1,\"s\":0}]},{\"n\":0,\"values\":[{\"p\":300,\"d\":1,\"s\":0}]}]}";
-                reactiveModel =
-                  "{\"n\":1,\"params\":[{\"n\":1,\"values\":[{\"q\":-40,\"d\":1,\"s\":0}]},{\"n\":0,\"values\":[{\"q\":-10,\"d\":1,\"s\":0}]}]}";
-                break;
-              case 1:
-                powerModel =
-                  "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"p\" : 140.0, \"d\" : 20, \"s\": 0.0}]}]}";
-                reactiveModel =
-                  "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"q\" : 120.0, \"d\" : 20, \"s\": 0.0}]}]}";
-                break;
-              case 2:
-                powerModel =
-                  "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"p\" : 95.0, \"d\" : 20, \"s\": 0.0}, {\"p\" :80.0, \"d\" : 18, \"s\": 0.0}, {\"p\" : 0.0, \"d\" : 73, \"s\": 0.0}]}]}]}";
-                reactiveModel =
-                  "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"q\" : 0.0, \"d\" : 20, \"s\": 0.0}, {\"q\" : 0.0, \"d\" : 18, \"s\": 0.0}, {\"q\" : 0.0, \"d\" : 73, \"s\": 0.0}]}]}]}";
-                break;
-              case 3:
-                powerModel =
-                  "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"p\" : 30.0, \"d\" : 20, \"s\": 0.0}]}]}";
-                reactiveModel =
-                  "{ \"n\" : 0, \"params\" : [{ \"n\" : 1, \"values\" : [ {\"q\" : -5.0, \"d\" : 20, \"s\": 0.0}]}]}";
-                break;
-              case 4:
-                powerModel =
-                  "{\"n\":1,\"params\":[{\"n\":1,\"values\":[{\"p\":150,\"d\":25,\"s\":0},{\"p\":2000,\"d\":13,\"s\":0},{\"p\":100,\"d\":62,\"s\":0}]}]}";
-                reactiveModel =
-                  "{\"n\":1,\"params\":[{\"n\":1,\"values\":[{\"q\":400,\"d\":25,\"s\":0},{\"q\":200,\"d\":13,\"s\":0},{\"q\":300,\"d\":62,\"s\":0}]}]}";
-                break;
-              }
-
-              Appliance tempAppliance =
-                new Appliance(name, installation.getName(), powerModel,
-                              reactiveModel, "Demo/eventsAll" + tempIndex
-                                             + ".csv");
 
-              installation.addAppliance(tempAppliance);
-              detectedAppliances.addElement(tempAppliance.toString());
-              selectedAppliances.addElement(tempAppliance.toString());
-              exportModels.addElement(tempAppliance.toString());
-            }
+          @Override
+          protected void failed (Throwable error)
+          {
+            super.failed(error);
+            disaggregateButton.setEnabled(true);
           }
-
-          // Enable all appliance/activity lists
-          detectedApplianceList.setEnabled(true);
-          detectedApplianceList.setModel(detectedAppliances);
-          detectedApplianceList.setSelectedIndex(0);
-
-          tabbedPane.setEnabledAt(1, true);
-          selectedApplianceList.setEnabled(true);
-          selectedApplianceList.setModel(selectedAppliances);
-
-          // exportModelList.setEnabled(true);
-          // exportModelList.setModel(exportModels);
-          // tabbedPane.setEnabledAt(3, true);
-
-          // Disable unnecessary buttons.
-          disaggregateButton.setEnabled(false);
-          createEventsButton.setEnabled(false);
-        }
-        finally {
-          root.setCursor(Cursor.getDefaultCursor());
-        }
+        });
       }
     });
 
@@ -1702,59 +1560,64 @@ public class MainGUI extends JFrame
       @Override
       public void actionPerformed (ActionEvent e)
       {
-        Component root = SwingUtilities.getRoot((JButton) e.getSource());
-
-        try {
-
-          root.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        createEventsButton.setEnabled(false);
 
-          // Parse the consumption model file
-          File file = new File(consumptionPathField.getText());
-          String temp = file.getName();
-          temp = temp.replace(".", " ");
-          String name = temp.split(" ")[0];
+        // Parse the consumption model file
+        final String path = consumptionPathField.getText();
+        final boolean power = activePowerRadioButton.isSelected();
+        File file = new File(path);
+        String temp = file.getName();
+        temp = temp.replace(".", " ");
+        final String name = temp.split(" ")[0];
+
+        tasks.submit(new TaskQueue.Task<Appliance>("Creating events") {
+          @Override
+          protected Appliance doInBackground () throws Exception
+          {
+            int rand = (int) (Math.random() * 5);
 
-          Appliance appliance = null;
-          try {
+            Appliance appliance =
+              new Appliance(name, path, path, "Demo/eventsAll" + rand + ".csv",
+                            installation, power);
 
-            int rand = (int) (Math.random() * 5);
+            // Add appliance to the installation entity
+            installation.addAppliance(appliance);
 
-            appliance =
-              new Appliance(name, consumptionPathField.getText(),
-                            consumptionPathField.getText(), "Demo/eventsAll"
-                                                            + rand + ".csv",
-                            installation, activePowerRadioButton.isSelected());
-          }
-          catch (IOException e1) {
-            e1.printStackTrace();
+            return appliance;
           }
-          // Add appliance to the installation entity
-          installation.addAppliance(appliance);
 
-          // Enable all appliance/activity lists
-          detectedAppliances.addElement(appliance.toString());
-          selectedAppliances.addElement(appliance.toString());
-          exportModels.addElement(appliance.toString());
+          @Override
+          protected void succeeded (Appliance appliance)
+          {
+            // Enable all appliance/activity lists
+            detectedAppliances.addElement(appliance.toString());
+            selectedAppliances.addElement(appliance.toString());
+            exportModels.addElement(appliance.toString());
 
-          detectedApplianceList.setEnabled(true);
-          detectedApplianceList.setModel(detectedAppliances);
-          detectedApplianceList.setSelectedIndex(0);
+            detectedApplianceList.setEnabled(true);
+            detectedApplianceList.setModel(detectedAppliances);
+            detectedApplianceList.setSelectedIndex(0);
 
-          tabbedPane.setEnabledAt(1, true);
-          selectedApplianceList.setEnabled(true);
-          selectedApplianceList.setModel(selectedAppliances);
+            tabbedPane.setEnabledAt(1, true);
+            selectedApplianceList.setEnabled(true);
+            selectedApplianceList.setModel(selectedAppliances);
 
-          // exportModelList.setEnabled(true);
-          // exportModelList.setModel(exportModels);
-          // tabbedPane.setEnabledAt(3, true);
+            // exportModelList.setEnabled(true);
+            // exportModelList.setModel(exportModels);
+            // tabbedPane.setEnabledAt(3, true);
 
-          // Disable unnecessary buttons.
-          disaggregateButton.setEnabled(false);
-          createEventsButton.setEnabled(false);
-        }
-        finally {
-          root.setCursor(Cursor.getDefaultCursor());
-        }
+            // Disable unnecessary buttons.
+            disaggregateButton.setEnabled(false);
+            createEventsButton.setEnabled(false);
+          }
+
+          @Override
+          protected void failed (Throwable error)
+          {
+            super.failed(error);
+            createEventsButton.setEnabled(true);
+          }
+        });
       }
     });
 
@@ -1802,14 +1665,12 @@ public class MainGUI extends JFrame
        * This function is called when the user presses the Train button on
        * the Training Parameters panel of the Train Activity Models tab. It
        * contains the procedure needed to create an activity model based on the
-       * event set of the appliance or activity.
+       * event set of the appliance or activity. The training runs in the
+       * background and the results are shown when it is finished.
        */
       @Override
       public void actionPerformed (ActionEvent e)
       {
-
-        Component root = SwingUtilities.getRoot((JButton) e.getSource());
-
         responsePanel.removeAll();
         responsePanel.validate();
         pricingPreviewPanel.removeAll();
@@ -1820,160 +1681,191 @@ public class MainGUI extends JFrame
         dailyResponseButton.setEnabled(false);
         startResponseButton.setEnabled(false);
 
-        try {
-
-          root.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-
-          // Searching for existing activity or appliance.
-          String selection = selectedApplianceList.getSelectedValue();
-          ActivityTemp activity = null;
-
-          if (tempActivities.size() > 0)
-            activity = tempActivities.get(findActivity(selection));
-
-          Appliance current = installation.findAppliance(selection);
+        // Searching for existing activity or appliance.
+        final String selection = selectedApplianceList.getSelectedValue();
+        final ActivityTemp activity =
+          tempActivities.size() > 0 ? tempActivities
+                  .get(findActivity(selection)) : null;
 
-          String startTime, duration, dailyTimes;
+        final Appliance current = installation.findAppliance(selection);
 
-          // Check for the selected distribution methods for training.
-          if (timesHistogramRadioButton.isSelected())
-            dailyTimes = "Histogram";
-          else if (timesNormalRadioButton.isSelected())
-            dailyTimes = "Normal";
-          else
-            dailyTimes = "GMM";
-
-          if (durationHistogramRadioButton.isSelected())
-            duration = "Histogram";
-          else if (durationNormalRadioButton.isSelected())
-            duration = "Normal";
-          else
-            duration = "GMM";
+        String startTime, duration, dailyTimes;
 
-          if (startHistogramRadioButton.isSelected())
-            startTime = "Histogram";
-          else if (startNormalRadioButton.isSelected())
-            startTime = "Normal";
-          else
-            startTime = "GMM";
+        // Check for the selected distribution methods for training.
+        if (timesHistogramRadioButton.isSelected())
+          dailyTimes = "Histogram";
+        else if (timesNormalRadioButton.isSelected())
+          dailyTimes = "Normal";
+        else
+          dailyTimes = "GMM";
 
-          String[] distributions =
-            { dailyTimes, duration, startTime, "Histogram" };
+        if (durationHistogramRadioButton.isSelected())
+          duration = "Histogram";
+        else if (durationNormalRadioButton.isSelected())
+          duration = "Normal";
+        else
+          duration = "GMM";
 
-          // If the selected object from the list is an appliance the training
-          // procedure for the appliance begins.
-          if (activity == null) {
+        if (startHistogramRadioButton.isSelected())
+          startTime = "Histogram";
+        else if (startNormalRadioButton.isSelected())
+          startTime = "Normal";
+        else
+          startTime = "GMM";
+
+        final String[] distributions =
+          { dailyTimes, duration, startTime, "Histogram" };
+
+        tasks.submit(new TaskQueue.Task<Void>("Training " + selection) {
+          /**
+           * This variable is the Activity Model being trained, or null if the
+           * training has not started.
+           */
+          private volatile ActivityModel training = null;
+
+          @Override
+          protected Void doInBackground () throws Exception
+          {
+            Person person = installation.getPerson();
+
+            // If the selected object from the list is an appliance the
+            // training procedure for the appliance begins, otherwise the
+            // training procedure for the activity begins.
+            ActivityModel activityModel =
+              (activity == null) ? person.newActivityModel(current) : activity
+                      .toActivityModel(person);
+
+            training = activityModel;
+            if (isCancelled())
+              return null;
+
+            person.replaceActivity(person
+                    .trainActivityModel(activityModel, distributions));
+
+            return null;
+          }
 
-            try {
-              installation.getPerson().train(current, distributions);
-            }
-            catch (IOException e1) {
-              e1.printStackTrace();
-            }
+          /**
+           * The fitting of the model does not check for interruption, so the
+           * model is cancelled as well.
+           */
+          @Override
+          protected void cancelRequested ()
+          {
+            super.cancelRequested();
+
+            ActivityModel activityModel = training;
+            if (activityModel != null)
+              activityModel.cancel();
           }
-          // If the selected object from the list is an activity the training
-          // procedure for the activity begins.
-          else {
 
-            try {
-              installation.getPerson().train(activity, distributions);
-            }
-            catch (IOException e1) {
-              e1.printStackTrace();
-            }
+          @Override
+          protected void succeeded (Void result)
+          {
+            distributionPreviewPanel.removeAll();
+            distributionPreviewPanel.updateUI();
 
-          }
+            expectedPowerPanel.removeAll();
+            expectedPowerPanel.updateUI();
 
-          // System.out.println("Training OK!");
+            // Show the distribution created on the Distribution Preview Panel
+            ActivityModel activityModel =
+              installation.getPerson().findActivity(selection, true);
 
-          distributionPreviewPanel.removeAll();
-          distributionPreviewPanel.updateUI();
+            if (activityModel == null)
+              activityModel = installation.getPerson().findActivity(current);
 
-          expectedPowerPanel.removeAll();
-          expectedPowerPanel.updateUI();
+            for (String report: activityModel.getFitReports())
+              System.out.println(activityModel.getName() + " " + report);
 
-          // Show the distribution created on the Distribution Preview Panel
-          ActivityModel activityModel =
-            installation.getPerson().findActivity(selection, true);
+            ChartPanel chartPanel =
+              activityModel.createDailyTimesDistributionChart();
+            distributionPreviewPanel.add(chartPanel, BorderLayout.CENTER);
+            distributionPreviewPanel.validate();
 
-          if (activityModel == null)
-            activityModel = installation.getPerson().findActivity(current);
+            chartPanel = activityModel.createExpectedPowerChart();
+            expectedPowerPanel.add(chartPanel, BorderLayout.CENTER);
+            expectedPowerPanel.validate();
 
-          ChartPanel chartPanel =
-            activityModel.createDailyTimesDistributionChart();
-          distributionPreviewPanel.add(chartPanel, BorderLayout.CENTER);
-          distributionPreviewPanel.validate();
-
-          chartPanel = activityModel.createExpectedPowerChart();
-          expectedPowerPanel.add(chartPanel, BorderLayout.CENTER);
-          expectedPowerPanel.validate();
-
-          // Add the Activity model to the list of trained Activity models of
-          // the Create Response Models tab
-          int size = activitySelectList.getModel().getSize();
-
-          if (size > 0) {
-            activityModels =
-              (DefaultListModel<String>) activitySelectList.getModel();
-            if (activityModels.contains(activityModel.getName()) == false)
+            // Add the Activity model to the list of trained Activity models of
+            // the Create Response Models tab
+            int size = activitySelectList.getModel().getSize();
+
+            if (size > 0) {
+              activityModels =
+                (DefaultListModel<String>) activitySelectList.getModel();
+              if (activityModels.contains(activityModel.getName()) == false)
+                activityModels.addElement(activityModel.getName());
+            }
+            else {
+              activityModels = new DefaultListModel<String>();
               activityModels.addElement(activityModel.getName());
-          }
-          else {
-            activityModels = new DefaultListModel<String>();
-            activityModels.addElement(activityModel.getName());
-            activitySelectList.setEnabled(true);
-          }
+              activitySelectList.setEnabled(true);
+            }
 
-          activitySelectList.setModel(activityModels);
+            activitySelectList.setModel(activityModels);
 
-          // Add the trained model to the export list also.
-          size = exportModelList.getModel().getSize();
-          if (size > 0) {
-            exportModels =
-              (DefaultListModel<String>) exportModelList.getModel();
-            if (exportModels.contains(activityModel.getName()) == false)
+            // Add the trained model to the export list also.
+            size = exportModelList.getModel().getSize();
+            if (size > 0) {
+              exportModels =
+                (DefaultListModel<String>) exportModelList.getModel();
+              if (exportModels.contains(activityModel.getName()) == false)
+                exportModels.addElement(activityModel.getName());
+            }
+            else {
+              exportModels = new DefaultListModel<String>();
               exportModels.addElement(activityModel.getName());
-          }
-          else {
-            exportModels = new DefaultListModel<String>();
-            exportModels.addElement(activityModel.getName());
-            exportModelList.setEnabled(true);
-          }
+              exportModelList.setEnabled(true);
+            }
 
-          // Enable some buttons necessary to show the results.
-          dailyTimesButton.setEnabled(true);
-          durationButton.setEnabled(true);
-          startTimeButton.setEnabled(true);
-          startTimeBinnedButton.setEnabled(true);
+            // Enable some buttons necessary to show the results.
+            dailyTimesButton.setEnabled(true);
+            durationButton.setEnabled(true);
+            startTimeButton.setEnabled(true);
+            startTimeBinnedButton.setEnabled(true);
 
-          exportModelList.setModel(exportModels);
+            exportModelList.setModel(exportModels);
 
-          exportDailyButton.setEnabled(true);
-          exportDurationButton.setEnabled(true);
-          exportStartButton.setEnabled(true);
-          exportStartBinnedButton.setEnabled(true);
+            exportDailyButton.setEnabled(true);
+            exportDurationButton.setEnabled(true);
+            exportStartButton.setEnabled(true);
+            exportStartBinnedButton.setEnabled(true);
 
-          tabbedPane.setEnabledAt(2, true);
-        }
+            tabbedPane.setEnabledAt(2, true);
+          }
 
-        finally {
-          root.setCursor(Cursor.getDefaultCursor());
-          trained = true;
-        }
+          @Override
+          protected void finished ()
+          {
+            trained = true;
+          }
+        });
       }
     });
 
     trainAllButton.addActionListener(new ActionListener() {
+      /**
+       * This variable is the training batch currently running, or null.
+       */
+      private TrainingBatch batch = null;
+
       /**
        * This function is called when the user presses the Train All button on
        * the Training Parameters panel of the Train Activity Models tab. It
-       * is iterating the aforementioned training procedure to each of the
-       * objects on the list.
+       * trains all the objects on the list concurrently in the background,
+       * while the button can be used for cancelling the training.
        */
       @Override
       public void actionPerformed (ActionEvent e)
       {
 
+        if (batch != null) {
+          batch.cancel();
+          trainAllButton.setEnabled(false);
+          return;
+        }
+
         responsePanel.removeAll();
         responsePanel.validate();
         pricingPreviewPanel.removeAll();
@@ -1984,44 +1876,199 @@ public class MainGUI extends JFrame
         dailyResponseButton.setEnabled(false);
         startResponseButton.setEnabled(false);
 
-        for (int i = 0; i < selectedApplianceList.getModel().getSize(); i++) {
-          selectedApplianceList.setSelectedIndex(i);
-          trainingButton.doClick();
-        }
-      }
-    });
+        String dailyTimes, duration, startTime;
 
-    dailyTimesButton.addActionListener(new ActionListener() {
-      /**
-       * This function is called when the user presses the Daily Times button on
-       * the Distribution Preview panel of the Train Activity Models tab. It
-       * shows the Daily Times Distribution for the selected object from the
-       * list if available.
-       */
-      @Override
-      public void actionPerformed (ActionEvent arg0)
-      {
+        // Check for the selected distribution methods for training.
+        if (timesHistogramRadioButton.isSelected())
+          dailyTimes = "Histogram";
+        else if (timesNormalRadioButton.isSelected())
+          dailyTimes = "Normal";
+        else
+          dailyTimes = "GMM";
 
-        distributionPreviewPanel.removeAll();
-        distributionPreviewPanel.updateUI();
+        if (durationHistogramRadioButton.isSelected())
+          duration = "Histogram";
+        else if (durationNormalRadioButton.isSelected())
+          duration = "Normal";
+        else
+          duration = "GMM";
 
-        String selection = selectedApplianceList.getSelectedValue();
+        if (startHistogramRadioButton.isSelected())
+          startTime = "Histogram";
+        else if (startNormalRadioButton.isSelected())
+          startTime = "Normal";
+        else
+          startTime = "GMM";
 
-        Appliance current = installation.findAppliance(selection);
+        String[] distributions =
+          { dailyTimes, duration, startTime, "Histogram" };
 
-        ActivityModel activityModel =
-          installation.getPerson().findActivity(selection, true);
+        final TrainingBatch current =
+          new TrainingBatch(installation.getPerson(), distributions);
 
-        if (activityModel == null)
-          activityModel = installation.getPerson().findActivity(current);
+        final int size = selectedApplianceList.getModel().getSize();
 
-        ChartPanel chartPanel =
-          activityModel.createDailyTimesDistributionChart();
-        distributionPreviewPanel.add(chartPanel, BorderLayout.CENTER);
-        distributionPreviewPanel.validate();
+        for (int i = 0; i < size; i++) {
+          String selection = selectedApplianceList.getModel().getElementAt(i);
+          int index = findActivity(selection);
 
-      }
-    });
+          if (tempActivities.size() > 0 && index != -1)
+            current.add(tempActivities.get(index));
+          else
+            current.add(installation.findAppliance(selection));
+        }
+
+        batch = current;
+        trainingButton.setEnabled(false);
+        trainAllButton.setText("Cancel");
+
+        tasks.submit(new TaskQueue.Task<List<ActivityModel>>("Training all") {
+          @Override
+          protected List<ActivityModel> doInBackground () throws Exception
+          {
+            current.setListener(new TrainingBatch.Listener() {
+              @Override
+              public void trained (ActivityModel activityModel,
+                                   int completed, int total)
+              {
+                for (String report: activityModel.getFitReports())
+                  System.out.println(activityModel.getName() + " " + report);
+
+                progress(completed, total);
+              }
+
+              @Override
+              public void failed (String name, Throwable error,
+                                  int completed, int total)
+              {
+                error.printStackTrace();
+                progress(completed, total);
+              }
+            });
+
+            return current.run(Constants.TRAINING_THREADS);
+          }
+
+          /**
+           * The batch is cancelled instead of the task, so that the models
+           * trained so far are still presented.
+           */
+          @Override
+          protected void cancelRequested ()
+          {
+            current.cancel();
+          }
+
+          @Override
+          protected void succeeded (List<ActivityModel> trainedModels)
+          {
+            if (trainedModels == null || trainedModels.isEmpty())
+              return;
+
+            // Add the Activity models to the lists of trained Activity
+            // models of the Create Response Models and Export Models tabs
+            if (activitySelectList.getModel().getSize() > 0)
+              activityModels =
+                (DefaultListModel<String>) activitySelectList.getModel();
+            else {
+              activityModels = new DefaultListModel<String>();
+              activitySelectList.setEnabled(true);
+            }
+
+            if (exportModelList.getModel().getSize() > 0)
+              exportModels =
+                (DefaultListModel<String>) exportModelList.getModel();
+            else {
+              exportModels = new DefaultListModel<String>();
+              exportModelList.setEnabled(true);
+            }
+
+            for (ActivityModel activityModel: trainedModels) {
+              if (activityModels.contains(activityModel.getName()) == false)
+                activityModels.addElement(activityModel.getName());
+              if (exportModels.contains(activityModel.getName()) == false)
+                exportModels.addElement(activityModel.getName());
+            }
+
+            activitySelectList.setModel(activityModels);
+            exportModelList.setModel(exportModels);
+
+            // Show the last trained model on the preview panels
+            ActivityModel activityModel =
+              trainedModels.get(trainedModels.size() - 1);
+
+            distributionPreviewPanel.removeAll();
+            distributionPreviewPanel.updateUI();
+            expectedPowerPanel.removeAll();
+            expectedPowerPanel.updateUI();
+
+            ChartPanel chartPanel =
+              activityModel.createDailyTimesDistributionChart();
+            distributionPreviewPanel.add(chartPanel, BorderLayout.CENTER);
+            distributionPreviewPanel.validate();
+
+            chartPanel = activityModel.createExpectedPowerChart();
+            expectedPowerPanel.add(chartPanel, BorderLayout.CENTER);
+            expectedPowerPanel.validate();
+
+            // Enable some buttons necessary to show the results.
+            dailyTimesButton.setEnabled(true);
+            durationButton.setEnabled(true);
+            startTimeButton.setEnabled(true);
+            startTimeBinnedButton.setEnabled(true);
+
+            exportDailyButton.setEnabled(true);
+            exportDurationButton.setEnabled(true);
+            exportStartButton.setEnabled(true);
+            exportStartBinnedButton.setEnabled(true);
+
+            tabbedPane.setEnabledAt(2, true);
+            trained = true;
+          }
+
+          @Override
+          protected void finished ()
+          {
+            batch = null;
+            trainAllButton.setText("Train All");
+            trainAllButton.setEnabled(true);
+            trainingButton.setEnabled(true);
+          }
+        });
+      }
+    });
+
+    dailyTimesButton.addActionListener(new ActionListener() {
+      /**
+       * This function is called when the user presses the Daily Times button on
+       * the Distribution Preview panel of the Train Activity Models tab. It
+       * shows the Daily Times Distribution for the selected object from the
+       * list if available.
+       */
+      @Override
+      public void actionPerformed (ActionEvent arg0)
+      {
+
+        distributionPreviewPanel.removeAll();
+        distributionPreviewPanel.updateUI();
+
+        String selection = selectedApplianceList.getSelectedValue();
+
+        Appliance current = installation.findAppliance(selection);
+
+        ActivityModel activityModel =
+          installation.getPerson().findActivity(selection, true);
+
+        if (activityModel == null)
+          activityModel = installation.getPerson().findActivity(current);
+
+        ChartPanel chartPanel =
+          activityModel.createDailyTimesDistributionChart();
+        distributionPreviewPanel.add(chartPanel, BorderLayout.CENTER);
+        distributionPreviewPanel.validate();
+
+      }
+    });
 
     startTimeBinnedButton.addActionListener(new ActionListener() {
       /**
@@ -2278,105 +2325,65 @@ public class MainGUI extends JFrame
        * button on the Response Parameters panel of the Create Response Models
        * tab. This button is enabled after preview results of the selected
        * activity model, response type and pricing for testing and creates the
-       * response model for the user.
+       * response model for the user in the background.
        */
       @Override
       public void actionPerformed (ActionEvent e)
       {
-        Component root = SwingUtilities.getRoot((JButton) e.getSource());
-
-        try {
-
-          root.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-
-          exportPreviewPanel.removeAll();
-          exportPreviewPanel.updateUI();
-
-          int responseType = -1;
-          String responseString = "";
-          // Check for the selected response type
-          if (optimalCaseRadioButton.isSelected()) {
-            responseType = 0;
-            responseString = "Optimal";
-          }
-          else if (normalCaseRadioButton.isSelected()) {
-            responseType = 1;
-            responseString = "Normal";
-          }
-          else if (discreteCaseRadioButton.isSelected()) {
-            responseType = 2;
-            responseString = "Discrete";
-          }
-
-          // Parse the pricing schemes
-          double[] basicScheme =
-            Utils.parseScheme(basicPricingSchemePane.getText());
-          double[] newScheme =
-            Utils.parseScheme(newPricingSchemePane.getText());
-
-          // Create the response model
-          ActivityModel activity =
-            installation.getPerson().findActivity(activitySelectList
-                                                          .getSelectedValue(),
-                                                  false);
-
-          String response = "";
-
-          float awareness = (float) (awarenessSlider.getValue()) / 100;
-          float sensitivity = (float) (sensitivitySlider.getValue()) / 100;
-
-          System.out.println("Awareness: " + awareness + " Sensitivity: "
-                             + sensitivity);
-
-          try {
-            response =
-              installation.getPerson().createResponse(activity, responseType,
-                                                      basicScheme, newScheme,
-                                                      awareness, sensitivity);
-          }
-          catch (IOException exc) {
-
-            exc.printStackTrace();
-          }
-
-          // Add the response model extracted to the export model list.
-          int size = exportModelList.getModel().getSize();
-          // System.out.println(size);
-
-          if (size > 0) {
-            exportModels =
-              (DefaultListModel<String>) exportModelList.getModel();
-
-            String response2 = "", response3 = "";
-            if (responseString.equalsIgnoreCase("Optimal")) {
-              response2 = response.replace(responseString, "Normal");
-              response3 = response.replace(responseString, "Discrete");
-            }
-            else if (responseString.equalsIgnoreCase("Normal")) {
-              response2 = response.replace(responseString, "Optimal");
-              response3 = response.replace(responseString, "Discrete");
-            }
-            else {
-              response2 = response.replace(responseString, "Optimal");
-              response3 = response.replace(responseString, "Normal");
-            }
+        exportPreviewPanel.removeAll();
+        exportPreviewPanel.updateUI();
 
-            if (exportModels.contains(response2))
-              exportModels.removeElement(response2);
-            if (exportModels.contains(response3))
-              exportModels.removeElement(response3);
+        int type = -1;
+        String typeString = "";
+        // Check for the selected response type
+        if (optimalCaseRadioButton.isSelected()) {
+          type = 0;
+          typeString = "Optimal";
+        }
+        else if (normalCaseRadioButton.isSelected()) {
+          type = 1;
+          typeString = "Normal";
+        }
+        else if (discreteCaseRadioButton.isSelected()) {
+          type = 2;
+          typeString = "Discrete";
+        }
 
-            if (exportModels.contains(response) == false)
-              exportModels.addElement(response);
-          }
-          else {
-            exportModels = new DefaultListModel<String>();
-            exportModels.addElement(response);
-            exportModelList.setEnabled(true);
+        final int responseType = type;
+        final String responseString = typeString;
+
+        // Parse the pricing schemes
+        final double[] basicScheme =
+          Utils.parseScheme(basicPricingSchemePane.getText());
+        final double[] newScheme =
+          Utils.parseScheme(newPricingSchemePane.getText());
+
+        // Create the response model
+        final ActivityModel activity =
+          installation.getPerson().findActivity(activitySelectList
+                                                        .getSelectedValue(),
+                                                false);
+
+        final float awareness = (float) (awarenessSlider.getValue()) / 100;
+        final float sensitivity = (float) (sensitivitySlider.getValue()) / 100;
+
+        System.out.println("Awareness: " + awareness + " Sensitivity: "
+                           + sensitivity);
+
+        tasks.submit(new TaskQueue.Task<String>("Creating response model") {
+          @Override
+          protected String doInBackground () throws Exception
+          {
+            return installation.getPerson()
+                    .createResponse(activity, responseType, basicScheme,
+                                    newScheme, awareness, sensitivity);
           }
-          exportModelList.setModel(exportModels);
 
-          if (manyFlag == false) {
+          @Override
+          protected void succeeded (String response)
+          {
+            // Add the response model extracted to the export model list.
+            addResponseModel(exportModelList, response, responseString);
 
             JFrame success = new JFrame();
 
@@ -2387,11 +2394,7 @@ public class MainGUI extends JFrame
                                        "Response Model Created",
                                        JOptionPane.INFORMATION_MESSAGE);
           }
-        }
-
-        finally {
-          root.setCursor(Cursor.getDefaultCursor());
-        }
+        });
       }
     });
 
@@ -2399,28 +2402,99 @@ public class MainGUI extends JFrame
       /**
        * This function is called when the user presses the Create Response All
        * button on the Response Parameters panel of the Create Response Models
-       * tab. This is achieved by iterating the procedure above for all the
-       * available activity models in the list.
+       * tab. This is achieved by running the procedure above for all the
+       * available activity models in the list, using more threads.
        */
       @Override
       public void actionPerformed (ActionEvent arg0)
       {
-        manyFlag = true;
+        exportPreviewPanel.removeAll();
+        exportPreviewPanel.updateUI();
 
-        for (int i = 0; i < activitySelectList.getModel().getSize(); i++) {
-          activitySelectList.setSelectedIndex(i);
-          createResponseButton.doClick();
+        int type = -1;
+        String typeString = "";
+        // Check for the selected response type
+        if (optimalCaseRadioButton.isSelected()) {
+          type = 0;
+          typeString = "Optimal";
+        }
+        else if (normalCaseRadioButton.isSelected()) {
+          type = 1;
+          typeString = "Normal";
+        }
+        else if (discreteCaseRadioButton.isSelected()) {
+          type = 2;
+          typeString = "Discrete";
         }
 
-        JFrame success = new JFrame();
+        final int responseType = type;
+        final String responseString = typeString;
+
+        // Parse the pricing schemes
+        final double[] basicScheme =
+          Utils.parseScheme(basicPricingSchemePane.getText());
+        final double[] newScheme =
+          Utils.parseScheme(newPricingSchemePane.getText());
+
+        final float awareness = (float) (awarenessSlider.getValue()) / 100;
+        final float sensitivity = (float) (sensitivitySlider.getValue()) / 100;
+
+        final List<ActivityModel> activities = new ArrayList<ActivityModel>();
+
+        for (int i = 0; i < activitySelectList.getModel().getSize(); i++)
+          activities.add(installation.getPerson()
+                  .findActivity(activitySelectList.getModel().getElementAt(i),
+                                false));
+
+        tasks.submit(new TaskQueue.Task<List<String>>("Creating responses") {
+          @Override
+          protected List<String> doInBackground () throws Exception
+          {
+            ExecutorService executor =
+              Executors.newFixedThreadPool(Constants.TRAINING_THREADS);
+            List<Future<String>> pending = new ArrayList<Future<String>>();
+            List<String> responses = new ArrayList<String>();
+
+            try {
+              for (final ActivityModel activity: activities)
+                pending.add(executor.submit(new Callable<String>() {
+                  @Override
+                  public String call () throws Exception
+                  {
+                    return installation.getPerson()
+                            .createResponse(activity, responseType,
+                                            basicScheme, newScheme, awareness,
+                                            sensitivity);
+                  }
+                }));
+
+              for (Future<String> future: pending) {
+                responses.add(future.get());
+                progress(responses.size(), pending.size());
+              }
+            }
+            finally {
+              executor.shutdownNow();
+            }
+
+            return responses;
+          }
+
+          @Override
+          protected void succeeded (List<String> responses)
+          {
+            for (String response: responses)
+              addResponseModel(exportModelList, response, responseString);
 
-        JOptionPane
-                .showMessageDialog(success,
-                                   "The response models were created successfully",
-                                   "Response Models Created",
-                                   JOptionPane.INFORMATION_MESSAGE);
+            JFrame success = new JFrame();
 
-        manyFlag = false;
+            JOptionPane
+                    .showMessageDialog(success,
+                                       "The response models were created successfully",
+                                       "Response Models Created",
+                                       JOptionPane.INFORMATION_MESSAGE);
+          }
+        });
       }
     });
 
@@ -2963,6 +3037,18 @@ public class MainGUI extends JFrame
         try {
           APIUtilities.setUrl(urlTextField.getText());
 
+          if (APIUtilities.installCertificate()) {
+            JFrame success = new JFrame();
+
+            JOptionPane.showMessageDialog(success,
+                                          "Certificate was created for user "
+                                                  + usernameTextField.getText()
+                                                  + ". Now the connection will"
+                                                  + " start",
+                                          "Response Model Exported",
+                                          JOptionPane.INFORMATION_MESSAGE);
+          }
+
           result =
             APIUtilities.sendUserCredentials(usernameTextField.getText(),
                                              passwordField.getPassword());
@@ -3011,698 +3097,532 @@ public class MainGUI extends JFrame
        * This function is called when the user presses the Export button on the
        * Connection Properties panel of the Export Models tab. The entity model
        * selected from the list is then exported to the User Library in
-       * Cassandra Platform.
+       * Cassandra Platform in the background.
        */
       @Override
       public void actionPerformed (ActionEvent e)
       {
-        Component root = SwingUtilities.getRoot((JButton) e.getSource());
-
-        try {
-
-          root.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-
-          // Parsing the selected entity and find out what type of entity it is.
-          String selection = exportModelList.getSelectedValue();
-
-          Appliance appliance = installation.findAppliance(selection);
-
-          ActivityModel activity =
-            installation.getPerson().findActivity(selection, false);
-
-          ResponseModel response =
-            installation.getPerson().findResponse(selection);
+        final String selection = exportModelList.getSelectedValue();
+        final String householdName = householdNameTextField.getText();
+
+        tasks.submit(new TaskQueue.Task<String[]>("Exporting " + selection) {
+          @Override
+          protected String[] doInBackground () throws Exception
+          {
+            // Parsing the selected entity and find out what type of entity it
+            // is.
+            Appliance appliance = installation.findAppliance(selection);
 
-          // If it is installation
-          if (selection.equalsIgnoreCase(installation.getName())) {
-            String oldName = installation.getName();
-            installation.setName(householdNameTextField.getText());
+            ActivityModel activity =
+              installation.getPerson().findActivity(selection, false);
 
-            try {
-              installation.setInstallationID(APIUtilities
-                      .sendEntity(installation.toJSON(APIUtilities.getUserID())
-                              .toString(), "/inst"));
+            ResponseModel response =
+              installation.getPerson().findResponse(selection);
 
-            }
-            catch (IOException | AuthenticationException
-                   | NoSuchAlgorithmException e1) {
-              e1.printStackTrace();
-            }
+            // If it is installation
+            if (selection.equalsIgnoreCase(installation.getName())) {
+              String oldName = installation.getName();
+              installation.setName(householdName);
 
-            installation.setName(oldName);
+              try {
+                installation.setInstallationID(APIUtilities
+                        .sendEntity(installation.toJSON(APIUtilities.getUserID())
+                                .toString(), "/inst"));
 
-            JFrame success = new JFrame();
+              }
+              catch (IOException | AuthenticationException
+                     | NoSuchAlgorithmException e1) {
+                e1.printStackTrace();
+              }
 
-            JOptionPane.showMessageDialog(success,
-                                          "The installation model "
-                                                  + installation.getName()
-                                                  + " was exported successfully",
-                                          "Installation Model Exported",
-                                          JOptionPane.INFORMATION_MESSAGE);
+              installation.setName(oldName);
 
-          }
-          // If it is person
-          else if (selection.equalsIgnoreCase(installation.getPerson()
-                  .getName())) {
+              return new String[] {
+                  "The installation model " + installation.getName()
+                          + " was exported successfully",
+                  "Installation Model Exported" };
 
-            try {
-              installation
-                      .getPerson()
-                      .setPersonID(APIUtilities.sendEntity(installation
-                                                                   .getPerson()
-                                                                   .toJSON(APIUtilities
-                                                                                   .getUserID())
-                                                                   .toString(),
-                                                           "/pers"));
-            }
-            catch (IOException | AuthenticationException
-                   | NoSuchAlgorithmException e1) {
-              e1.printStackTrace();
             }
+            // If it is person
+            else if (selection.equalsIgnoreCase(installation.getPerson()
+                    .getName())) {
 
-            JFrame success = new JFrame();
-
-            JOptionPane
-                    .showMessageDialog(success, "The person model "
-                                                + installation.getPerson()
-                                                        .getName()
-                                                + " was exported successfully",
-                                       "Person Model Exported",
-                                       JOptionPane.INFORMATION_MESSAGE);
-
-          }
-          // If it is appliance
-          else if (appliance != null) {
-
-            try {
-              appliance.setApplianceID(APIUtilities.sendEntity(appliance
-                      .toJSON(APIUtilities.getUserID()).toString(), "/app"));
+              try {
+                installation
+                        .getPerson()
+                        .setPersonID(APIUtilities.sendEntity(installation
+                                                                     .getPerson()
+                                                                     .toJSON(APIUtilities
+                                                                                     .getUserID())
+                                                                     .toString(),
+                                                             "/pers"));
+              }
+              catch (IOException | AuthenticationException
+                     | NoSuchAlgorithmException e1) {
+                e1.printStackTrace();
+              }
 
-              APIUtilities.sendEntity(appliance.powerConsumptionModelToJSON()
-                      .toString(), "/consmod");
+              return new String[] {
+                  "The person model " + installation.getPerson().getName()
+                          + " was exported successfully",
+                  "Person Model Exported" };
 
             }
-            catch (IOException | AuthenticationException
-                   | NoSuchAlgorithmException e1) {
-              e1.printStackTrace();
-            }
-
-            JFrame success = new JFrame();
-
-            JOptionPane.showMessageDialog(success,
-                                          "The appliance model "
-                                                  + appliance.getName()
-                                                  + " was exported successfully",
-                                          "Appliance Model Exported",
-                                          JOptionPane.INFORMATION_MESSAGE);
-
-          }
-          // If it is activity
-          else if (activity != null) {
-
-            String[] applianceTemp =
-              new String[activity.getAppliancesOf().length];
-            String activityTemp = "";
-            String durationTemp = "";
-            String dailyTemp = "";
-            String startTemp = "";
+            // If it is appliance
+            else if (appliance != null) {
 
-            // For each appliance that participates in the activity
-            for (int i = 0; i < activity.getAppliancesOf().length; i++) {
+              try {
+                appliance.setApplianceID(APIUtilities.sendEntity(appliance
+                        .toJSON(APIUtilities.getUserID()).toString(), "/app"));
 
-              Appliance activityAppliance = activity.getAppliancesOf()[i];
+                APIUtilities.sendEntity(appliance.powerConsumptionModelToJSON()
+                        .toString(), "/consmod");
 
-              try {
-                // In case the appliances contained in the Activity model are
-                // not
-                // in the database, we create the object there before sending
-                // the
-                // activity model
-                if (activityAppliance.getApplianceID().equalsIgnoreCase("")) {
-
-                  activityAppliance.setApplianceID(APIUtilities
-                          .sendEntity(activityAppliance
-                                              .toJSON(APIUtilities.getUserID())
-                                              .toString(), "/app"));
-
-                  APIUtilities
-                          .sendEntity(activityAppliance
-                                              .powerConsumptionModelToJSON()
-                                              .toString(),
-                                      "/consmod");
-                }
-                applianceTemp[i] = activityAppliance.getApplianceID();
               }
               catch (IOException | AuthenticationException
                      | NoSuchAlgorithmException e1) {
                 e1.printStackTrace();
               }
 
-            }
-
-            try {
+              return new String[] {
+                  "The appliance model " + appliance.getName()
+                          + " was exported successfully",
+                  "Appliance Model Exported" };
 
-              String[] appliancesID = applianceTemp;
+            }
+            // If it is activity
+            else if (activity != null) {
 
-              // Creating the JSON of the activity model
-              activity.setActivityModelID(APIUtilities.sendEntity(activity
-                      .toJSON(appliancesID, APIUtilities.getUserID())
-                      .toString(), "/actmod"));
+              String[] applianceTemp =
+                new String[activity.getAppliancesOf().length];
+              String activityTemp = "";
+              String durationTemp = "";
+              String dailyTemp = "";
+              String startTemp = "";
 
-              activityTemp = activity.getActivityModelID();
+              // For each appliance that participates in the activity
+              for (int i = 0; i < activity.getAppliancesOf().length; i++) {
+
+                Appliance activityAppliance = activity.getAppliancesOf()[i];
+
+                try {
+                  // In case the appliances contained in the Activity model are
+                  // not
+                  // in the database, we create the object there before sending
+                  // the
+                  // activity model
+                  if (activityAppliance.getApplianceID().equalsIgnoreCase("")) {
+
+                    activityAppliance.setApplianceID(APIUtilities
+                            .sendEntity(activityAppliance
+                                                .toJSON(APIUtilities.getUserID())
+                                                .toString(), "/app"));
+
+                    APIUtilities
+                            .sendEntity(activityAppliance
+                                                .powerConsumptionModelToJSON()
+                                                .toString(),
+                                        "/consmod");
+                  }
+                  applianceTemp[i] = activityAppliance.getApplianceID();
+                }
+                catch (IOException | AuthenticationException
+                       | NoSuchAlgorithmException e1) {
+                  e1.printStackTrace();
+                }
 
-              // Creating the JSON of the distributions
-              activity.getDailyTimes()
-                      .setDistributionID(APIUtilities
-                                                 .sendEntity(activity
-                                                         .getDailyTimes()
-                                                         .toJSON(activityTemp)
-                                                         .toString(), "/distr"));
+              }
 
-              activity.setDailyID(activity.getDailyTimes().getDistributionID());
-              dailyTemp = activity.getDailyID();
+              try {
 
-              activity.getDuration()
-                      .setDistributionID(APIUtilities
-                                                 .sendEntity(activity.getDuration()
-                                                                     .toJSON(activityTemp)
-                                                                     .toString(),
-                                                             "/distr"));
+                String[] appliancesID = applianceTemp;
 
-              activity.setDurationID(activity.getDuration().getDistributionID());
-              durationTemp = activity.getDurationID();
+                // Creating the JSON of the activity model
+                activity.setActivityModelID(APIUtilities.sendEntity(activity
+                        .toJSON(appliancesID, APIUtilities.getUserID())
+                        .toString(), "/actmod"));
 
-              activity.getStartTime()
-                      .setDistributionID(APIUtilities
-                                                 .sendEntity(activity
-                                                         .getStartTime()
-                                                         .toJSON(activityTemp)
-                                                         .toString(), "/distr"));
+                activityTemp = activity.getActivityModelID();
 
-              activity.setStartID(activity.getStartTime().getDistributionID());
-              startTemp = activity.getStartID();
+                // Creating the JSON of the distributions
+                activity.getDailyTimes()
+                        .setDistributionID(APIUtilities
+                                                   .sendEntity(activity
+                                                           .getDailyTimes()
+                                                           .toJSON(activityTemp)
+                                                           .toString(), "/distr"));
 
-              // Adding the JSON of the distributions to the activity model
-              APIUtilities.updateEntity(activity.toJSON(appliancesID,
-                                                        APIUtilities
-                                                                .getUserID())
-                                                .toString(), "/actmod",
-                                        activityTemp);
+                activity.setDailyID(activity.getDailyTimes()
+                        .getDistributionID());
+                dailyTemp = activity.getDailyID();
 
-            }
-            catch (AuthenticationException | NoSuchAlgorithmException
-                   | IOException e1) {
-
-              e1.printStackTrace();
-            }
-
-            JFrame success = new JFrame();
-
-            JOptionPane.showMessageDialog(success,
-                                          "The activity model "
-                                                  + activity.getName()
-                                                  + " was exported successfully",
-                                          "Activity Model Exported",
-                                          JOptionPane.INFORMATION_MESSAGE);
-
-          }
-          // If it is response
-          else if (response != null) {
-            String[] applianceTemp =
-              new String[response.getAppliancesOf().length];
-
-            String responseTemp = "";
-            String durationTemp = "";
-            String dailyTemp = "";
-            String startTemp = "";
-
-            // For each appliance that participates in the activity
-            for (int i = 0; i < response.getAppliancesOf().length; i++) {
-
-              Appliance responseAppliance = response.getAppliancesOf()[i];
-
-              try {
-                // In case the appliances contained in the Activity model are
-                // not
-                // in the database, we create the object there before sending
-                // the
-                // activity model
-                if (responseAppliance.getApplianceID().equalsIgnoreCase("")) {
-
-                  responseAppliance.setApplianceID(APIUtilities
-                          .sendEntity(responseAppliance
-                                              .toJSON(APIUtilities.getUserID())
-                                              .toString(), "/app"));
-
-                  APIUtilities
-                          .sendEntity(responseAppliance
-                                              .powerConsumptionModelToJSON()
-                                              .toString(),
-                                      "/consmod");
-                }
-                applianceTemp[i] = responseAppliance.getApplianceID();
-              }
-              catch (IOException | AuthenticationException
-                     | NoSuchAlgorithmException e1) {
-                e1.printStackTrace();
-              }
-            }
-
-            try {
-
-              String[] appliancesID = applianceTemp;
-
-              // Creating the JSON of the response
-              response.setActivityModelID(APIUtilities.sendEntity(response
-                      .toJSON(appliancesID, APIUtilities.getUserID())
-                      .toString(), "/actmod"));
-
-              responseTemp = response.getActivityModelID();
-
-              // Creating the JSON of the distributions
-              response.getDailyTimes()
-                      .setDistributionID(APIUtilities
-                                                 .sendEntity(response
-                                                         .getDailyTimes()
-                                                         .toJSON(responseTemp)
-                                                         .toString(), "/distr"));
-
-              response.setDailyID(response.getDailyTimes().getDistributionID());
-              dailyTemp = response.getDailyID();
-
-              response.getDuration()
-                      .setDistributionID(APIUtilities
-                                                 .sendEntity(response.getDuration()
-                                                                     .toJSON(responseTemp)
-                                                                     .toString(),
-                                                             "/distr"));
-
-              response.setDurationID(response.getDuration().getDistributionID());
-              durationTemp = response.getDurationID();
-
-              response.getStartTime()
-                      .setDistributionID(APIUtilities
-                                                 .sendEntity(response
-                                                         .getStartTime()
-                                                         .toJSON(responseTemp)
-                                                         .toString(), "/distr"));
-
-              response.setStartID(response.getStartTime().getDistributionID());
-              startTemp = response.getStartID();
-
-              // Adding the JSON of the distributions to the activity model
-              APIUtilities.updateEntity(response.toJSON(appliancesID,
-                                                        APIUtilities
-                                                                .getUserID())
-                                                .toString(), "/actmod",
-                                        responseTemp);
-
-            }
-            catch (AuthenticationException | NoSuchAlgorithmException
-                   | IOException e1) {
-
-              e1.printStackTrace();
-            }
-
-            JFrame success = new JFrame();
-
-            JOptionPane.showMessageDialog(success,
-                                          "The response model "
-                                                  + response.getName()
-                                                  + " was exported successfully",
-                                          "Response Model Exported",
-                                          JOptionPane.INFORMATION_MESSAGE);
-
-          }
-        }
-
-        finally {
-          root.setCursor(Cursor.getDefaultCursor());
-        }
-      }
-    });
-
-    exportAllBaseButton.addActionListener(new ActionListener() {
-      /**
-       * This function is called when the user presses the Export All Base
-       * button on the Connection Properties panel of the Export Models tab. The
-       * export procedure above is iterated through all the entities available
-       * on the list except for the response models.
-       */
-      @Override
-      public void actionPerformed (ActionEvent e)
-      {
-        Component root = SwingUtilities.getRoot((JButton) e.getSource());
-
-        try {
-
-          root.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-
-          for (int i = 0; i < exportModelList.getModel().getSize(); i++) {
-            exportModelList.setSelectedIndex(i);
-
-            String selection = exportModelList.getSelectedValue();
-
-            Appliance appliance = installation.findAppliance(selection);
-
-            ActivityModel activity =
-              installation.getPerson().findActivity(selection, false);
-
-            ResponseModel response =
-              installation.getPerson().findResponse(selection);
-
-            if (selection.equalsIgnoreCase(installation.getName())) {
+                activity.getDuration()
+                        .setDistributionID(APIUtilities
+                                                   .sendEntity(activity.getDuration()
+                                                                       .toJSON(activityTemp)
+                                                                       .toString(),
+                                                               "/distr"));
 
-              String oldName = installation.getName();
+                activity.setDurationID(activity.getDuration()
+                        .getDistributionID());
+                durationTemp = activity.getDurationID();
 
-              try {
+                activity.getStartTime()
+                        .setDistributionID(APIUtilities
+                                                   .sendEntity(activity
+                                                           .getStartTime()
+                                                           .toJSON(activityTemp)
+                                                           .toString(), "/distr"));
 
-                installation.setName(householdNameTextField.getText() + " Base");
+                activity.setStartID(activity.getStartTime()
+                        .getDistributionID());
+                startTemp = activity.getStartID();
 
-                installation.setInstallationID(APIUtilities
-                        .sendEntity(installation.toJSON(APIUtilities
-                                                                .getUserID())
-                                            .toString(), "/inst"));
+                // Adding the JSON of the distributions to the activity model
+                APIUtilities.updateEntity(activity.toJSON(appliancesID,
+                                                          APIUtilities
+                                                                  .getUserID())
+                                                  .toString(), "/actmod",
+                                          activityTemp);
 
-                installation.setName(oldName);
-              }
-              catch (IOException | AuthenticationException
-                     | NoSuchAlgorithmException e1) {
-                e1.printStackTrace();
               }
+              catch (AuthenticationException | NoSuchAlgorithmException
+                     | IOException e1) {
 
-            }
-            else if (selection.equalsIgnoreCase(installation.getPerson()
-                    .getName())) {
-
-              try {
-                installation
-                        .getPerson()
-                        .setPersonID(APIUtilities.sendEntity(installation
-                                                                     .getPerson()
-                                                                     .toJSON(installation
-                                                                                     .getInstallationID())
-                                                                     .toString(),
-                                                             "/pers"));
-              }
-              catch (IOException | AuthenticationException
-                     | NoSuchAlgorithmException e1) {
                 e1.printStackTrace();
               }
 
-            }
-            else if (appliance != null) {
-
-              try {
-                appliance.setApplianceID(APIUtilities.sendEntity(appliance
-                        .toJSON(installation.getInstallationID().toString())
-                        .toString(), "/app"));
-
-                APIUtilities.sendEntity(appliance.powerConsumptionModelToJSON()
-                        .toString(), "/consmod");
-
-              }
-              catch (IOException | AuthenticationException
-                     | NoSuchAlgorithmException e1) {
-                e1.printStackTrace();
-              }
+              return new String[] {
+                  "The activity model " + activity.getName()
+                          + " was exported successfully",
+                  "Activity Model Exported" };
 
             }
-            else if (activity != null) {
-
+            // If it is response
+            else if (response != null) {
               String[] applianceTemp =
-                new String[activity.getAppliancesOf().length];
+                new String[response.getAppliancesOf().length];
 
-              String personTemp = "";
-              String activityTemp = "";
+              String responseTemp = "";
               String durationTemp = "";
               String dailyTemp = "";
               String startTemp = "";
 
               // For each appliance that participates in the activity
-              for (int j = 0; j < activity.getAppliancesOf().length; j++) {
-
-                Appliance activityAppliance = activity.getAppliancesOf()[j];
-                applianceTemp[j] = activityAppliance.getApplianceID();
+              for (int i = 0; i < response.getAppliancesOf().length; i++) {
+
+                Appliance responseAppliance = response.getAppliancesOf()[i];
+
+                try {
+                  // In case the appliances contained in the Activity model are
+                  // not
+                  // in the database, we create the object there before sending
+                  // the
+                  // activity model
+                  if (responseAppliance.getApplianceID().equalsIgnoreCase("")) {
+
+                    responseAppliance.setApplianceID(APIUtilities
+                            .sendEntity(responseAppliance
+                                                .toJSON(APIUtilities.getUserID())
+                                                .toString(), "/app"));
+
+                    APIUtilities
+                            .sendEntity(responseAppliance
+                                                .powerConsumptionModelToJSON()
+                                                .toString(),
+                                        "/consmod");
+                  }
+                  applianceTemp[i] = responseAppliance.getApplianceID();
+                }
+                catch (IOException | AuthenticationException
+                       | NoSuchAlgorithmException e1) {
+                  e1.printStackTrace();
+                }
               }
 
-              personTemp = installation.getPerson().getPersonID();
-
               try {
 
-                activity.setActivityID(APIUtilities.sendEntity(activity
-                        .activityToJSON(personTemp).toString(), "/act"));
-
                 String[] appliancesID = applianceTemp;
 
-                activity.setActivityModelID(APIUtilities.sendEntity(activity
-                        .toJSON(appliancesID).toString(), "/actmod"));
-                activityTemp = activity.getActivityModelID();
+                // Creating the JSON of the response
+                response.setActivityModelID(APIUtilities.sendEntity(response
+                        .toJSON(appliancesID, APIUtilities.getUserID())
+                        .toString(), "/actmod"));
 
-                activity.getDailyTimes()
+                responseTemp = response.getActivityModelID();
+
+                // Creating the JSON of the distributions
+                response.getDailyTimes()
                         .setDistributionID(APIUtilities
-                                                   .sendEntity(activity.getDailyTimes()
-                                                                       .toJSON(activityTemp)
-                                                                       .toString(),
-                                                               "/distr"));
-                activity.setDailyID(activity.getDailyTimes()
+                                                   .sendEntity(response
+                                                           .getDailyTimes()
+                                                           .toJSON(responseTemp)
+                                                           .toString(), "/distr"));
+
+                response.setDailyID(response.getDailyTimes()
                         .getDistributionID());
-                dailyTemp = activity.getDailyID();
+                dailyTemp = response.getDailyID();
 
-                activity.getDuration()
+                response.getDuration()
                         .setDistributionID(APIUtilities
-                                                   .sendEntity(activity.getDuration()
-                                                                       .toJSON(activityTemp)
+                                                   .sendEntity(response.getDuration()
+                                                                       .toJSON(responseTemp)
                                                                        .toString(),
                                                                "/distr"));
 
-                activity.setDurationID(activity.getDuration()
+                response.setDurationID(response.getDuration()
                         .getDistributionID());
-                durationTemp = activity.getDurationID();
+                durationTemp = response.getDurationID();
 
-                activity.getStartTime()
+                response.getStartTime()
                         .setDistributionID(APIUtilities
-                                                   .sendEntity(activity.getStartTime()
-                                                                       .toJSON(activityTemp)
-                                                                       .toString(),
-                                                               "/distr"));
+                                                   .sendEntity(response
+                                                           .getStartTime()
+                                                           .toJSON(responseTemp)
+                                                           .toString(), "/distr"));
 
-                activity.setStartID(activity.getStartTime().getDistributionID());
-                startTemp = activity.getStartID();
+                response.setStartID(response.getStartTime()
+                        .getDistributionID());
+                startTemp = response.getStartID();
 
-                APIUtilities.updateEntity(activity.toJSON(appliancesID)
-                        .toString(), "/actmod", activityTemp);
+                // Adding the JSON of the distributions to the activity model
+                APIUtilities.updateEntity(response.toJSON(appliancesID,
+                                                          APIUtilities
+                                                                  .getUserID())
+                                                  .toString(), "/actmod",
+                                          responseTemp);
 
               }
-              catch (IOException | AuthenticationException
-                     | NoSuchAlgorithmException e1) {
+              catch (AuthenticationException | NoSuchAlgorithmException
+                     | IOException e1) {
+
                 e1.printStackTrace();
               }
 
-            }
-            else if (response != null) {
+              return new String[] {
+                  "The response model " + response.getName()
+                          + " was exported successfully",
+                  "Response Model Exported" };
 
             }
-          }
-
-        }
 
-        finally {
-          root.setCursor(Cursor.getDefaultCursor());
-        }
+            return null;
+          }
 
-        JFrame success = new JFrame();
+          @Override
+          protected void succeeded (String[] result)
+          {
+            if (result == null)
+              return;
 
-        JOptionPane.showMessageDialog(success,
-                                      "The installation model "
-                                              + installation.getName()
-                                              + " for the base pricing scheme and all the entities contained within were exported successfully",
-                                      "Installation Model Exported",
-                                      JOptionPane.INFORMATION_MESSAGE);
+            JFrame success = new JFrame();
 
+            JOptionPane.showMessageDialog(success, result[0], result[1],
+                                          JOptionPane.INFORMATION_MESSAGE);
+          }
+        });
       }
     });
 
-    exportAllResponseButton.addActionListener(new ActionListener() {
+    exportAllBaseButton.addActionListener(new ActionListener() {
       /**
        * This function is called when the user presses the Export All Base
-       * button on the Connection Properties panel of the Export Models tab. The
-       * export procedure above is iterated through all the entities available
-       * on the list except for the activity models.
+       * button on the Connection Properties panel of the Export Models tab. All
+       * the entities available on the list except for the response models are
+       * exported, sending the independent ones concurrently.
        */
       @Override
       public void actionPerformed (ActionEvent e)
       {
-        Component root = SwingUtilities.getRoot((JButton) e.getSource());
-
-        try {
-
-          root.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-
-          for (int i = 0; i < exportModelList.getModel().getSize(); i++) {
-            exportModelList.setSelectedIndex(i);
+        ExportPipeline pipeline =
+          new ExportPipeline(installation, householdNameTextField.getText()
+                                           + " Base");
 
-            String selection = exportModelList.getSelectedValue();
-
-            Appliance appliance = installation.findAppliance(selection);
-
-            ActivityModel activity =
-              installation.getPerson().findActivity(selection, false);
-
-            ResponseModel response =
-              installation.getPerson().findResponse(selection);
-
-            if (selection.equalsIgnoreCase(installation.getName())) {
+        for (int i = 0; i < exportModelList.getModel().getSize(); i++) {
 
-              String oldName = installation.getName();
-
-              try {
-
-                installation.setName(householdNameTextField.getText()
-                                     + " Response");
-
-                installation.setInstallationID(APIUtilities
-                        .sendEntity(installation.toJSON(APIUtilities
-                                                                .getUserID())
-                                            .toString(), "/inst"));
+          String selection = exportModelList.getModel().getElementAt(i);
 
-                installation.setName(oldName);
+          if (selection.equalsIgnoreCase(installation.getName())
+              || selection.equalsIgnoreCase(installation.getPerson()
+                      .getName()))
+            continue;
 
-              }
-              catch (IOException | AuthenticationException
-                     | NoSuchAlgorithmException e1) {
-                e1.printStackTrace();
-              }
-
-            }
-            else if (selection.equalsIgnoreCase(installation.getPerson()
-                    .getName())) {
-
-              try {
-                installation
-                        .getPerson()
-                        .setPersonID(APIUtilities.sendEntity(installation
-                                                                     .getPerson()
-                                                                     .toJSON(installation
-                                                                                     .getInstallationID())
-                                                                     .toString(),
-                                                             "/pers"));
-              }
-              catch (IOException | AuthenticationException
-                     | NoSuchAlgorithmException e1) {
-                e1.printStackTrace();
-              }
-
-            }
-            else if (appliance != null) {
-
-              try {
-                appliance.setApplianceID(APIUtilities.sendEntity(appliance
-                        .toJSON(installation.getInstallationID().toString())
-                        .toString(), "/app"));
-
-                APIUtilities.sendEntity(appliance.powerConsumptionModelToJSON()
-                        .toString(), "/consmod");
-
-              }
-              catch (IOException | AuthenticationException
-                     | NoSuchAlgorithmException e1) {
-                e1.printStackTrace();
-              }
-
-            }
-            else if (activity != null) {
-
-            }
-            else if (response != null) {
-              String[] applianceTemp =
-                new String[response.getAppliancesOf().length];
-
-              String personTemp = "";
-              String responseTemp = "";
-              String durationTemp = "";
-              String dailyTemp = "";
-              String startTemp = "";
+          Appliance appliance = installation.findAppliance(selection);
 
-              // For each appliance that participates in the activity
-              for (int j = 0; j < response.getAppliancesOf().length; j++) {
+          ActivityModel activity =
+            installation.getPerson().findActivity(selection, false);
 
-                Appliance responseAppliance = response.getAppliancesOf()[j];
+          if (appliance != null)
+            pipeline.add(appliance);
+          else if (activity != null)
+            pipeline.add(activity);
+        }
 
-                applianceTemp[j] = responseAppliance.getApplianceID();
-              }
-              personTemp = installation.getPerson().getPersonID();
+        submitExport(pipeline, "base");
+      }
+    });
 
-              try {
+    exportAllResponseButton.addActionListener(new ActionListener() {
+      /**
+       * This function is called when the user presses the Export All Response
+       * button on the Connection Properties panel of the Export Models tab. All
+       * the entities available on the list except for the activity models are
+       * exported, sending the independent ones concurrently.
+       */
+      @Override
+      public void actionPerformed (ActionEvent e)
+      {
+        ExportPipeline pipeline =
+          new ExportPipeline(installation, householdNameTextField.getText()
+                                           + " Response");
 
-                response.setActivityID(APIUtilities.sendEntity(response
-                        .activityToJSON(personTemp).toString(), "/act"));
+        for (int i = 0; i < exportModelList.getModel().getSize(); i++) {
 
-                String[] appliancesID = applianceTemp;
+          String selection = exportModelList.getModel().getElementAt(i);
 
-                response.setActivityModelID(APIUtilities.sendEntity(response
-                        .toJSON(appliancesID).toString(), "/actmod"));
-                responseTemp = response.getActivityModelID();
+          if (selection.equalsIgnoreCase(installation.getName())
+              || selection.equalsIgnoreCase(installation.getPerson()
+                      .getName()))
+            continue;
 
-                response.getDailyTimes()
-                        .setDistributionID(APIUtilities
-                                                   .sendEntity(response.getDailyTimes()
-                                                                       .toJSON(responseTemp)
-                                                                       .toString(),
-                                                               "/distr"));
-                response.setDailyID(response.getDailyTimes()
-                        .getDistributionID());
-                dailyTemp = response.getDailyID();
+          Appliance appliance = installation.findAppliance(selection);
 
-                response.getDuration()
-                        .setDistributionID(APIUtilities
-                                                   .sendEntity(response.getDuration()
-                                                                       .toJSON(responseTemp)
-                                                                       .toString(),
-                                                               "/distr"));
+          ActivityModel activity =
+            installation.getPerson().findActivity(selection, false);
 
-                response.setDurationID(response.getDuration()
-                        .getDistributionID());
-                durationTemp = response.getDurationID();
+          ResponseModel response =
+            installation.getPerson().findResponse(selection);
 
-                response.getStartTime()
-                        .setDistributionID(APIUtilities
-                                                   .sendEntity(response.getStartTime()
-                                                                       .toJSON(responseTemp)
-                                                                       .toString(),
-                                                               "/distr"));
+          if (appliance != null)
+            pipeline.add(appliance);
+          else if (activity == null && response != null)
+            pipeline.add(response);
+        }
 
-                response.setStartID(response.getStartTime().getDistributionID());
-                startTemp = response.getStartID();
+        submitExport(pipeline, "new");
+      }
+    });
+  }
 
-                APIUtilities.updateEntity(response.toJSON(appliancesID)
-                        .toString(), "/actmod", responseTemp);
+  /**
+   * This function is used for exporting all the entities of an installation
+   * model in the background and presenting the outcome to the user.
+   * 
+   * @param pipeline
+   *          the pipeline containing the exported entities.
+   * @param pricingScheme
+   *          the pricing scheme the installation model is exported for.
+   */
+  private void submitExport (final ExportPipeline pipeline,
+                             final String pricingScheme)
+  {
+    tasks.submit(new TaskQueue.Task<Integer>("Exporting installation") {
+      @Override
+      protected Integer doInBackground () throws Exception
+      {
+        pipeline.setListener(new ExportPipeline.Listener() {
+          @Override
+          public void sent (String name, long millis, int completed,
+                            int total)
+          {
+            progress(completed, total);
+          }
 
-              }
-              catch (IOException | AuthenticationException
-                     | NoSuchAlgorithmException e1) {
-                e1.printStackTrace();
-              }
-            }
+          @Override
+          public void failed (String name, Throwable error, int skipped)
+          {
+            System.out.println("Export of " + name + " failed, skipping "
+                               + skipped + " requests.");
+            error.printStackTrace();
           }
-        }
+        });
 
-        finally {
-          root.setCursor(Cursor.getDefaultCursor());
-        }
+        if (Constants.BATCH_EXPORT)
+          return pipeline.runBatch(Constants.EXPORT_BATCH_SIZE);
+        else
+          return pipeline.run(Constants.EXPORT_THREADS);
+      }
 
+      @Override
+      protected void succeeded (Integer failed)
+      {
         JFrame success = new JFrame();
 
-        JOptionPane.showMessageDialog(success,
-                                      "The installation model "
-                                              + installation.getName()
-                                              + " for the new pricing scheme and all the entities contained within were exported successfully",
-                                      "Installation Model Exported",
-                                      JOptionPane.INFORMATION_MESSAGE);
+        if (failed > 0)
+          JOptionPane.showMessageDialog(success,
+                                        "Some of the entities of the"
+                                                + " installation model "
+                                                + installation.getName()
+                                                + " could not be exported",
+                                        "Installation Model Export Failed",
+                                        JOptionPane.ERROR_MESSAGE);
+        else
+          JOptionPane.showMessageDialog(success,
+                                        "The installation model "
+                                                + installation.getName()
+                                                + " for the " + pricingScheme
+                                                + " pricing scheme and all the"
+                                                + " entities contained within"
+                                                + " were exported successfully",
+                                        "Installation Model Exported",
+                                        JOptionPane.INFORMATION_MESSAGE);
       }
     });
   }
 
+  /**
+   * This function is used for adding a response model to the list of the
+   * export models, replacing the models of the same activity created with a
+   * different response type.
+   * 
+   * @param exportModelList
+   *          the list of the export models.
+   * @param response
+   *          the name of the response model.
+   * @param responseString
+   *          the response type of the model.
+   */
+  private void addResponseModel (JList<String> exportModelList,
+                                 String response, String responseString)
+  {
+    // Add the response model extracted to the export model list.
+    int size = exportModelList.getModel().getSize();
+    // System.out.println(size);
+
+    if (size > 0) {
+      exportModels =
+        (DefaultListModel<String>) exportModelList.getModel();
+
+      String response2 = "", response3 = "";
+      if (responseString.equalsIgnoreCase("Optimal")) {
+        response2 = response.replace(responseString, "Normal");
+        response3 = response.replace(responseString, "Discrete");
+      }
+      else if (responseString.equalsIgnoreCase("Normal")) {
+        response2 = response.replace(responseString, "Optimal");
+        response3 = response.replace(responseString, "Discrete");
+      }
+      else {
+        response2 = response.replace(responseString, "Optimal");
+        response3 = response.replace(responseString, "Normal");
+      }
+
+      if (exportModels.contains(response2))
+        exportModels.removeElement(response2);
+      if (exportModels.contains(response3))
+        exportModels.removeElement(response3);
+
+      if (exportModels.contains(response) == false)
+        exportModels.addElement(response);
+    }
+    else {
+      exportModels = new DefaultListModel<String>();
+      exportModels.addElement(response);
+      exportModelList.setEnabled(true);
+    }
+    exportModelList.setModel(exportModels);
+  }
+
   /**
    * This function is used when the program needs to find the list of appliances
    * that participate in a certain activity.
@@ -0,0 +1,378 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.gui;
+
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+/**
+ * This class is used for running the long operations of the Training Module
+ * GUI in the background, so that the GUI stays responsive while they run.
+ * The tasks are queued and run one after the other on a single thread, since
+ * they work on the same installation, while each task may use more threads
+ * for its own work. The queue shows the running task and its progress on a
+ * status bar, which also offers the cancellation of all the queued tasks. The
+ * functions of the queue are called from the event dispatch thread.
+ */
+public class TaskQueue
+{
+
+  /**
+   * This class is a task run by the queue. The work of the task is done in
+   * doInBackground, while the results are presented in succeeded, called on
+   * the event dispatch thread.
+   * 
+   * @param <T>
+   *          The type of the result of the task.
+   */
+  public static abstract class Task<T> extends SwingWorker<T, Void>
+  {
+    /**
+     * This variable is the name of the task shown on the status bar.
+     */
+    private final String name;
+
+    /**
+     * The constructor of a task.
+     * 
+     * @param name
+     *          The name of the task shown on the status bar.
+     */
+    public Task (String name)
+    {
+      this.name = name;
+    }
+
+    /**
+     * This function is used as a getter for the name of the task.
+     * 
+     * @return the name of the task.
+     */
+    public String getName ()
+    {
+      return name;
+    }
+
+    /**
+     * This function is called on the event dispatch thread when the task has
+     * finished successfully.
+     * 
+     * @param result
+     *          The result of the task.
+     */
+    protected void succeeded (T result)
+    {
+    }
+
+    /**
+     * This function is called on the event dispatch thread when the task has
+     * failed. By default the error is shown to the user.
+     * 
+     * @param error
+     *          The cause of the failure.
+     */
+    protected void failed (Throwable error)
+    {
+      error.printStackTrace();
+
+      JFrame frame = new JFrame();
+
+      JOptionPane.showMessageDialog(frame, name + " failed: " + error,
+                                    "Inane error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * This function is called on the event dispatch thread after the task has
+     * finished, failed or been cancelled.
+     */
+    protected void finished ()
+    {
+    }
+
+    /**
+     * This function is called on the event dispatch thread when the user
+     * cancels the task. By default the task is cancelled and its thread is
+     * interrupted.
+     */
+    protected void cancelRequested ()
+    {
+      cancel(true);
+    }
+
+    /**
+     * This function is used for reporting the progress of the task from its
+     * background thread.
+     * 
+     * @param completed
+     *          The number of steps completed so far.
+     * @param total
+     *          The number of steps of the task.
+     */
+    protected void progress (int completed, int total)
+    {
+      if (total > 0)
+        setProgress(Math.min(100, Math.max(0, 100 * completed / total)));
+    }
+
+    @Override
+    protected final void done ()
+    {
+      try {
+        if (!isCancelled())
+          succeeded(get());
+      }
+      catch (ExecutionException e) {
+        failed(e.getCause());
+      }
+      catch (InterruptedException | CancellationException e) {
+      }
+      finally {
+        finished();
+      }
+    }
+  }
+
+  /**
+   * This variable is the single thread running the tasks.
+   */
+  private final ExecutorService executor = Executors
+          .newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread (Runnable runnable)
+            {
+              Thread thread = new Thread(runnable, "Training Module Tasks");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+
+  /**
+   * This is the list of the tasks not yet finished, starting with the running
+   * one.
+   */
+  private final List<Task<?>> tasks = new ArrayList<Task<?>>();
+
+  /**
+   * This is the list of the actions waiting for the queue to become idle.
+   */
+  private final List<Runnable> idleActions = new ArrayList<Runnable>();
+
+  /**
+   * This variable is the status bar of the queue.
+   */
+  private final JPanel statusPanel = new JPanel(new BorderLayout(10, 0));
+
+  /**
+   * This variable is the label showing the running task.
+   */
+  private final JLabel statusLabel = new JLabel("Ready");
+
+  /**
+   * This variable is the progress bar of the running task.
+   */
+  private final JProgressBar progressBar = new JProgressBar(0, 100);
+
+  /**
+   * This variable is the button cancelling the queued tasks.
+   */
+  private final JButton cancelButton = new JButton("Cancel");
+
+  /**
+   * This variable is the listener of the progress of the tasks.
+   */
+  private final PropertyChangeListener progressListener =
+    new PropertyChangeListener() {
+      @Override
+      public void propertyChange (PropertyChangeEvent event)
+      {
+        if ("progress".equals(event.getPropertyName()))
+          update();
+      }
+    };
+
+  /**
+   * The constructor of a task queue, creating its status bar.
+   */
+  public TaskQueue ()
+  {
+    statusPanel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+    statusPanel.add(statusLabel, BorderLayout.CENTER);
+
+    JPanel controls = new JPanel(new BorderLayout(5, 0));
+    controls.add(progressBar, BorderLayout.CENTER);
+    controls.add(cancelButton, BorderLayout.EAST);
+    statusPanel.add(controls, BorderLayout.EAST);
+
+    cancelButton.addActionListener(new ActionListener() {
+      @Override
+      public void actionPerformed (ActionEvent e)
+      {
+        cancelAll();
+      }
+    });
+
+    update();
+  }
+
+  /**
+   * This function is used as a getter for the status bar of the queue.
+   * 
+   * @return the status bar.
+   */
+  public JPanel getStatusPanel ()
+  {
+    return statusPanel;
+  }
+
+  /**
+   * This function is used for adding a task to the queue. The task runs once
+   * the tasks submitted before it are finished. A task leaves the queue only
+   * when its background work has returned, even if it was cancelled earlier,
+   * so that a busy queue means that no task is still working.
+   * 
+   * @param task
+   *          The task.
+   */
+  public void submit (final Task<?> task)
+  {
+    task.addPropertyChangeListener(progressListener);
+    tasks.add(task);
+    executor.execute(new Runnable() {
+      @Override
+      public void run ()
+      {
+        try {
+          task.run();
+        }
+        finally {
+          SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run ()
+            {
+              remove(task);
+            }
+          });
+        }
+      }
+    });
+    update();
+  }
+
+  /**
+   * This function states if there are tasks running or waiting.
+   * 
+   * @return true if the queue is busy, false otherwise.
+   */
+  public boolean isBusy ()
+  {
+    return !tasks.isEmpty();
+  }
+
+  /**
+   * This function is used for running an action once there are no tasks
+   * running or waiting, at once if the queue is idle.
+   * 
+   * @param action
+   *          The action, run on the event dispatch thread.
+   */
+  public void whenIdle (Runnable action)
+  {
+    if (tasks.isEmpty())
+      action.run();
+    else
+      idleActions.add(action);
+  }
+
+  /**
+   * This function is used for cancelling the running task and the ones
+   * waiting in the queue.
+   */
+  public void cancelAll ()
+  {
+    for (Task<?> task: new ArrayList<Task<?>>(tasks))
+      task.cancelRequested();
+
+    statusLabel.setText("Cancelling...");
+  }
+
+  /**
+   * This function is used for removing a finished task from the queue.
+   * 
+   * @param task
+   *          The finished task.
+   */
+  private void remove (Task<?> task)
+  {
+    task.removePropertyChangeListener(progressListener);
+    tasks.remove(task);
+    update();
+
+    if (tasks.isEmpty()) {
+      List<Runnable> actions = new ArrayList<Runnable>(idleActions);
+      idleActions.clear();
+
+      for (Runnable action: actions)
+        action.run();
+    }
+  }
+
+  /**
+   * This function is used for presenting the state of the queue on the status
+   * bar.
+   */
+  private void update ()
+  {
+    if (tasks.isEmpty()) {
+      statusLabel.setText("Ready");
+      progressBar.setIndeterminate(false);
+      progressBar.setValue(0);
+      cancelButton.setEnabled(false);
+      return;
+    }
+
+    Task<?> current = tasks.get(0);
+    String text = current.getName() + "...";
+
+    if (tasks.size() > 1)
+      text += " (" + (tasks.size() - 1) + " queued)";
+
+    statusLabel.setText(text);
+    progressBar.setIndeterminate(current.getProgress() == 0);
+    progressBar.setValue(current.getProgress());
+    cancelButton.setEnabled(true);
+  }
+}
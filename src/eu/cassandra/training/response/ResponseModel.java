@@ -110,14 +110,16 @@ public class ResponseModel extends ActivityModel
       new HashMap<String, String>(activity.getDistributionTypes());
     consumptionEventRepo = activity.getConsumptionEventRepo();
 
-    String[] types =
-      { "DailyTimes", "Duration", "StartTime", "StartTimeBinned" };
-
-    for (int i = 0; i < types.length; i++)
-      fillDistribution(fileMap.get(types[i]), distributionTypes.get(types[i]),
-                       i);
-
-    Utils.estimateExpectedPower(this);
+    // The trained distributions of the base Activity model are reused instead
+    // of training them again. The snapshots share the fitted values, which are
+    // replaced and not modified when responding, so the base model is intact.
+    dailyTimes = activity.getDailyTimes().snapshot();
+    duration = activity.getDuration().snapshot();
+    startTime = activity.getStartTime().snapshot();
+    startTimeBinned = activity.getStartTimeBinned().snapshot();
+
+    // The expected power is estimated by respond(), once the distributions of
+    // the response are in place.
   }
 
   /**
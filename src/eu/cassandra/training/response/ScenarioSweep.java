@@ -0,0 +1,438 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.response;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import eu.cassandra.training.activity.ActivityModel;
+import eu.cassandra.training.entities.Appliance;
+import eu.cassandra.training.utils.Constants;
+import eu.cassandra.training.utils.ExpectedPowerEngine;
+
+/**
+ * This class is used for evaluating the response of an Activity model to many
+ * candidate pricing schemes at once, for every combination of the given
+ * awareness and sensitivity values. The scenarios are evaluated in parallel
+ * and neither the Activity model nor its Person model are modified, so the
+ * same sweep can be run for as many schemes as needed. The results are kept
+ * in compact matrices, with one row per scenario.
+ */
+public class ScenarioSweep
+{
+
+  /**
+   * This variable is the Activity model the response is evaluated for.
+   */
+  private final ActivityModel activity;
+
+  /**
+   * This variable is the response type (0 Optimal, 1 Normal, 2 Discrete).
+   */
+  private final int responseType;
+
+  /**
+   * This array contains the basic pricing scheme.
+   */
+  private final double[] basicScheme;
+
+  /**
+   * This variable is the engine of the expected power of the activity, shared
+   * by all the scenarios since the duration and appliances do not change.
+   */
+  private final ExpectedPowerEngine engine;
+
+  /**
+   * This variable is the number of appliances of the activity.
+   */
+  private final int appliances;
+
+  /**
+   * This variable is the pool evaluating the scenarios.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * This variable is the pool shared by the sweeps that are not given a
+   * specific one, sized after the number of available processors.
+   */
+  private static ForkJoinPool sharedPool = null;
+
+  /**
+   * The constructor of a scenario sweep.
+   * 
+   * @param activity
+   *          The trained Activity model.
+   * @param responseType
+   *          The response type (0 Optimal, 1 Normal, 2 Discrete).
+   * @param basicScheme
+   *          The basic pricing scheme.
+   */
+  public ScenarioSweep (ActivityModel activity, int responseType,
+                        double[] basicScheme)
+  {
+    this(activity, responseType, basicScheme, getSharedPool());
+  }
+
+  /**
+   * The constructor of a scenario sweep with the pool that will evaluate the
+   * scenarios.
+   * 
+   * @param activity
+   *          The trained Activity model.
+   * @param responseType
+   *          The response type (0 Optimal, 1 Normal, 2 Discrete).
+   * @param basicScheme
+   *          The basic pricing scheme.
+   * @param pool
+   *          The pool evaluating the scenarios.
+   */
+  public ScenarioSweep (ActivityModel activity, int responseType,
+                        double[] basicScheme, ForkJoinPool pool)
+  {
+    this.activity = activity;
+    this.responseType = responseType;
+    this.basicScheme = basicScheme.clone();
+    this.pool = pool;
+
+    Appliance[] appliancesOf = activity.getAppliancesOf();
+    appliances = appliancesOf.length;
+
+    engine =
+      new ExpectedPowerEngine(activity.getDuration(),
+                              Math.min(Constants.MINUTES_PER_DAY,
+                                       activity.getDurationMax()));
+
+    for (Appliance appliance: appliancesOf)
+      engine.addAppliance(appliance.getActiveProfile(),
+                          appliance.getStaticConsumption());
+  }
+
+  /**
+   * This function returns the pool shared by the sweeps, creating it on first
+   * use.
+   * 
+   * @return the shared pool.
+   */
+  private static synchronized ForkJoinPool getSharedPool ()
+  {
+    if (sharedPool == null)
+      sharedPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    return sharedPool;
+  }
+
+  /**
+   * This function is used for evaluating every combination of the candidate
+   * pricing schemes with the awareness and sensitivity values.
+   * 
+   * @param newSchemes
+   *          The candidate pricing schemes.
+   * @param awareness
+   *          The awareness values of the person.
+   * @param sensitivity
+   *          The sensitivity values of the person.
+   * @return the results of the scenarios.
+   */
+  public Result run (double[][] newSchemes, float[] awareness,
+                     float[] sensitivity)
+  {
+    for (double[] scheme: newSchemes)
+      if (scheme.length != basicScheme.length)
+        throw new IllegalArgumentException("Pricing schemes of different length");
+
+    Result result =
+      new Result(newSchemes.length, awareness.length, sensitivity.length);
+
+    // The pricing schemes are analysed once and shared by their scenarios
+    PricingVector[] pricings = new PricingVector[newSchemes.length];
+    IncentiveVector[] incentives = new IncentiveVector[newSchemes.length];
+
+    for (int i = 0; i < newSchemes.length; i++) {
+      result.energyRatios[i] = energyRatio(basicScheme, newSchemes[i]);
+      pricings[i] = new PricingVector(basicScheme, newSchemes[i]);
+
+      if (responseType == 1 && pricings[i].getPricings().size() > 1)
+        incentives[i] = new IncentiveVector(basicScheme, newSchemes[i]);
+    }
+
+    if (result.size() > 0)
+      pool.invoke(new ScenarioTask(pricings, incentives, awareness.clone(),
+                                   sensitivity.clone(), result, 0,
+                                   result.size()));
+
+    return result;
+  }
+
+  /**
+   * This function is used for evaluating a single scenario and storing it in
+   * the results.
+   * 
+   * @param pricing
+   *          The pricing vector of the candidate scheme.
+   * @param incentives
+   *          The incentive vector of the candidate scheme, needed only for the
+   *          Normal response.
+   * @param awareness
+   *          The awareness of the person.
+   * @param sensitivity
+   *          The sensitivity of the person.
+   * @param energyRatio
+   *          The energy ratio of the candidate scheme.
+   * @param result
+   *          The results of the sweep.
+   * @param index
+   *          The index of the scenario.
+   */
+  private void evaluate (PricingVector pricing, IncentiveVector incentives,
+                         float awareness, float sensitivity,
+                         double energyRatio, Result result, int index)
+  {
+    double[] dailyTimes =
+      activity.getDailyTimes().shiftingDailyPreview(energyRatio, awareness,
+                                                    sensitivity);
+
+    double[] startTime =
+      ShiftingEngine.shiftingPreview(activity.getStartTime().getHistogram(),
+                                     responseType, pricing, incentives,
+                                     awareness, sensitivity);
+
+    double factor = 0;
+    for (int i = 0; i < dailyTimes.length; i++)
+      factor += i * dailyTimes[i];
+    factor /= appliances;
+
+    double[] expectedPower = engine.estimate(startTime);
+    for (int i = 0; i < expectedPower.length; i++)
+      expectedPower[i] *= factor;
+
+    result.dailyTimes[index] = dailyTimes;
+    result.startTime[index] = startTime;
+    result.expectedPower[index] = expectedPower;
+  }
+
+  /**
+   * This function estimates the ratio of the energy cost of a pricing scheme
+   * to the one of the basic scheme, as in Utils.estimateEnergyRatio but without
+   * reporting it on the console.
+   * 
+   * @param basicScheme
+   *          The basic pricing scheme.
+   * @param newScheme
+   *          The candidate pricing scheme.
+   * @return the energy ratio.
+   */
+  private static double energyRatio (double[] basicScheme, double[] newScheme)
+  {
+    double baseEnergy = 0;
+    double newEnergy = 0;
+
+    for (int i = 0; i < basicScheme.length; i++) {
+      baseEnergy += basicScheme[i];
+      newEnergy += newScheme[i];
+    }
+
+    return newEnergy / baseEnergy;
+  }
+
+  /**
+   * This class contains the results of a scenario sweep. Scenarios are indexed
+   * by scheme, then awareness and then sensitivity, and each matrix has one
+   * row per scenario.
+   */
+  public static class Result
+  {
+
+    /**
+     * This variable is the number of candidate pricing schemes.
+     */
+    private final int schemes;
+
+    /**
+     * This variable is the number of awareness values.
+     */
+    private final int awareness;
+
+    /**
+     * This variable is the number of sensitivity values.
+     */
+    private final int sensitivity;
+
+    /**
+     * This array contains the energy ratio of each candidate scheme.
+     */
+    private final double[] energyRatios;
+
+    /**
+     * This matrix contains the shifted daily times distribution of each
+     * scenario.
+     */
+    private final double[][] dailyTimes;
+
+    /**
+     * This matrix contains the shifted start time distribution of each
+     * scenario.
+     */
+    private final double[][] startTime;
+
+    /**
+     * This matrix contains the expected power of each scenario.
+     */
+    private final double[][] expectedPower;
+
+    private Result (int schemes, int awareness, int sensitivity)
+    {
+      this.schemes = schemes;
+      this.awareness = awareness;
+      this.sensitivity = sensitivity;
+      energyRatios = new double[schemes];
+      dailyTimes = new double[size()][];
+      startTime = new double[size()][];
+      expectedPower = new double[size()][];
+    }
+
+    /**
+     * This function returns the number of scenarios.
+     * 
+     * @return the number of scenarios.
+     */
+    public int size ()
+    {
+      return schemes * awareness * sensitivity;
+    }
+
+    /**
+     * This function returns the index of a scenario in the result matrices.
+     * 
+     * @param scheme
+     *          The index of the candidate pricing scheme.
+     * @param awarenessIndex
+     *          The index of the awareness value.
+     * @param sensitivityIndex
+     *          The index of the sensitivity value.
+     * @return the index of the scenario.
+     */
+    public int index (int scheme, int awarenessIndex, int sensitivityIndex)
+    {
+      return (scheme * awareness + awarenessIndex) * sensitivity
+             + sensitivityIndex;
+    }
+
+    /**
+     * This is a getter function of the energy ratio of a candidate scheme.
+     * 
+     * @param scheme
+     *          The index of the candidate pricing scheme.
+     * @return the energy ratio.
+     */
+    public double getEnergyRatio (int scheme)
+    {
+      return energyRatios[scheme];
+    }
+
+    /**
+     * This is a getter function of the energy ratios of all the candidate
+     * schemes.
+     * 
+     * @return the energy ratios.
+     */
+    public double[] getEnergyRatios ()
+    {
+      return energyRatios;
+    }
+
+    /**
+     * This is a getter function of the shifted daily times distributions.
+     * 
+     * @return the matrix of the daily times, one row per scenario.
+     */
+    public double[][] getDailyTimes ()
+    {
+      return dailyTimes;
+    }
+
+    /**
+     * This is a getter function of the shifted start time distributions.
+     * 
+     * @return the matrix of the start times, one row per scenario.
+     */
+    public double[][] getStartTime ()
+    {
+      return startTime;
+    }
+
+    /**
+     * This is a getter function of the expected power of the scenarios.
+     * 
+     * @return the matrix of the expected power, one row per scenario.
+     */
+    public double[][] getExpectedPower ()
+    {
+      return expectedPower;
+    }
+  }
+
+  /**
+   * This class is the task evaluating a range of scenarios, splitting it in
+   * halves until a single scenario is left.
+   */
+  private class ScenarioTask extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final PricingVector[] pricings;
+    private final IncentiveVector[] incentives;
+    private final float[] awareness;
+    private final float[] sensitivity;
+    private final Result result;
+    private final int from;
+    private final int to;
+
+    private ScenarioTask (PricingVector[] pricings,
+                          IncentiveVector[] incentives, float[] awareness,
+                          float[] sensitivity, Result result, int from, int to)
+    {
+      this.pricings = pricings;
+      this.incentives = incentives;
+      this.awareness = awareness;
+      this.sensitivity = sensitivity;
+      this.result = result;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute ()
+    {
+      if (to - from == 1) {
+        int perScheme = awareness.length * sensitivity.length;
+        int scheme = from / perScheme;
+        int a = (from % perScheme) / sensitivity.length;
+        int s = from % sensitivity.length;
+
+        evaluate(pricings[scheme], incentives[scheme], awareness[a],
+                 sensitivity[s], result.energyRatios[scheme], result, from);
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new ScenarioTask(pricings, incentives, awareness,
+                                 sensitivity, result, from, middle),
+                new ScenarioTask(pricings, incentives, awareness,
+                                 sensitivity, result, middle, to));
+    }
+  }
+}
@@ -0,0 +1,696 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.response;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import eu.cassandra.training.utils.Constants;
+
+/**
+ * This class contains the shifting procedures of the Response models, shared
+ * by all the probability distribution types. They work directly on primitive
+ * arrays of the probability of each minute of the day. Windows crossing
+ * midnight are split into at most two contiguous ranges instead of wrapping
+ * each index, and the kernels modify the given array in place without any
+ * auxiliary collections, so that the only allocation of a response is its
+ * resulting array.
+ */
+public class ShiftingEngine
+{
+
+  /**
+   * This variable signifies an incentive whose residual percentage is not
+   * moved to either side of it.
+   */
+  private static final int UNSET = 0;
+
+  /**
+   * This variable signifies an incentive whose residual percentage is moved
+   * to both sides of it.
+   */
+  private static final int BOTH = 1;
+
+  /**
+   * This variable signifies an incentive whose residual percentage is moved
+   * before it.
+   */
+  private static final int LEFT = 2;
+
+  /**
+   * This variable signifies an incentive whose residual percentage is moved
+   * after it.
+   */
+  private static final int RIGHT = 3;
+
+  /**
+   * This variable signifies an incentive that does not cause any shifting.
+   */
+  private static final int NONE = 4;
+
+  /**
+   * This function is used for the response of a start time distribution to a
+   * new pricing scheme.
+   * 
+   * @param values
+   *          The probability of each minute of the day. It is not modified.
+   * @param shiftingCase
+   *          The response type (0 Optimal, 1 Normal, 2 Discrete).
+   * @param basicScheme
+   *          The basic pricing scheme.
+   * @param newScheme
+   *          The new pricing scheme.
+   * @param awareness
+   *          The awareness of the person.
+   * @param sensitivity
+   *          The sensitivity of the person.
+   * @return the shifted probabilities.
+   */
+  public static double[] shiftingPreview (double[] values, int shiftingCase,
+                                          double[] basicScheme,
+                                          double[] newScheme,
+                                          float awareness, float sensitivity)
+  {
+    PricingVector pricing = new PricingVector(basicScheme, newScheme);
+    IncentiveVector incentives = null;
+
+    if (shiftingCase == 1 && pricing.getPricings().size() > 1)
+      incentives = new IncentiveVector(basicScheme, newScheme);
+
+    return shiftingPreview(values, shiftingCase, pricing, incentives,
+                           awareness, sensitivity);
+  }
+
+  /**
+   * This function is used for the response of a start time distribution to a
+   * new pricing scheme already analysed, so that the analysis can be shared
+   * by several responses to the same scheme.
+   * 
+   * @param values
+   *          The probability of each minute of the day. It is not modified.
+   * @param shiftingCase
+   *          The response type (0 Optimal, 1 Normal, 2 Discrete).
+   * @param pricing
+   *          The pricing vector of the pricing schemes.
+   * @param incentives
+   *          The incentive vector of the pricing schemes, needed only for the
+   *          Normal response.
+   * @param awareness
+   *          The awareness of the person.
+   * @param sensitivity
+   *          The sensitivity of the person.
+   * @return the shifted probabilities.
+   */
+  public static double[] shiftingPreview (double[] values, int shiftingCase,
+                                          PricingVector pricing,
+                                          IncentiveVector incentives,
+                                          float awareness, float sensitivity)
+  {
+    switch (shiftingCase) {
+    case 0:
+      return shiftingOptimal(values, pricing, awareness, sensitivity);
+    case 1:
+      return shiftingNormal(values, pricing, incentives, awareness,
+                            sensitivity);
+    case 2:
+      return shiftingDiscrete(values, pricing, awareness, sensitivity);
+    default:
+      System.out.println("ERROR in shifting function");
+      return new double[Constants.MINUTES_PER_DAY];
+    }
+  }
+
+  /**
+   * This function is used for the Optimal response, where the residual
+   * percentages of the penalties are moved to the bases and rewards.
+   * 
+   * @param values
+   *          The probability of each minute of the day. It is not modified.
+   * @param pricing
+   *          The pricing vector of the pricing schemes.
+   * @param awareness
+   *          The awareness of the person.
+   * @param sensitivity
+   *          The sensitivity of the person.
+   * @return the shifted probabilities.
+   */
+  public static double[] shiftingOptimal (double[] values,
+                                          PricingVector pricing,
+                                          float awareness, float sensitivity)
+  {
+    double[] result = Arrays.copyOf(values, values.length);
+
+    if (pricing.getPricings().size() > 1)
+      discreteOptimal(result, pricing, awareness, sensitivity);
+
+    return result;
+  }
+
+  /**
+   * This function is used for the Normal response, where each incentive moves
+   * a residual percentage to or from its neighbouring minutes.
+   * 
+   * @param values
+   *          The probability of each minute of the day. It is not modified.
+   * @param pricing
+   *          The pricing vector of the pricing schemes.
+   * @param incentives
+   *          The incentive vector of the pricing schemes.
+   * @param awareness
+   *          The awareness of the person.
+   * @param sensitivity
+   *          The sensitivity of the person.
+   * @return the shifted probabilities.
+   */
+  public static double[] shiftingNormal (double[] values,
+                                         PricingVector pricing,
+                                         IncentiveVector incentives,
+                                         float awareness, float sensitivity)
+  {
+    double[] result = Arrays.copyOf(values, values.length);
+
+    if (pricing.getPricings().size() > 1)
+      for (Incentive incentive: incentives.getIncentives())
+        movingAverage(result, incentive, awareness, sensitivity);
+
+    return result;
+  }
+
+  /**
+   * This function is used for the Discrete response, where the residual
+   * percentages are moved to the cheapest pricings.
+   * 
+   * @param values
+   *          The probability of each minute of the day. It is not modified.
+   * @param pricing
+   *          The pricing vector of the pricing schemes.
+   * @param awareness
+   *          The awareness of the person.
+   * @param sensitivity
+   *          The sensitivity of the person.
+   * @return the shifted probabilities.
+   */
+  public static double[] shiftingDiscrete (double[] values,
+                                           PricingVector pricing,
+                                           float awareness, float sensitivity)
+  {
+    double[] result = Arrays.copyOf(values, values.length);
+
+    if (pricing.getPricings().size() > 1)
+      discreteAverage(result, pricing, awareness, sensitivity);
+
+    return result;
+  }
+
+  /**
+   * This function is used for moving the residual percentage of an incentive
+   * to or from its neighbouring minutes, modifying the given array.
+   * 
+   * @param values
+   *          The probability of each minute of the day.
+   * @param incentive
+   *          The incentive of the pricing schemes.
+   * @param awareness
+   *          The awareness of the person.
+   * @param sensitivity
+   *          The sensitivity of the person.
+   * @return the given array.
+   */
+  public static double[] movingAverage (double[] values, Incentive incentive,
+                                        float awareness, float sensitivity)
+  {
+    int startIndex = incentive.getStartMinute();
+    int endIndex = incentive.getEndMinute();
+    double base = incentive.getBase();
+    double price = incentive.getPrice();
+    int type = sides(incentive);
+    double overDiff = 0;
+
+    if (type == NONE)
+      return values;
+
+    // In case of penalty the residual percentage is moved out of the window
+    // to close distance, either on one or both sides accordingly
+    if (incentive.isPenalty()) {
+
+      overDiff =
+        reduce(values, startIndex, endIndex - startIndex, base, price,
+               awareness, sensitivity, overDiff);
+
+      double additive = overDiff / Constants.SHIFTING_WINDOW_IN_MINUTES;
+      int side;
+
+      switch (type) {
+      case BOTH:
+        side = Constants.SHIFTING_WINDOW_IN_MINUTES / 2;
+        add(values, startIndex - side + 1, side, additive);
+        add(values, endIndex, side, additive);
+        break;
+      case LEFT:
+        side = Constants.SHIFTING_WINDOW_IN_MINUTES;
+        add(values, startIndex - side + 1, side, additive);
+        break;
+      case RIGHT:
+        side = Constants.SHIFTING_WINDOW_IN_MINUTES;
+        add(values, endIndex, side, additive);
+        break;
+      default:
+        break;
+      }
+    }
+    // In case of reward a percentage of the close distances are moved in the
+    // window, either from one or both sides accordingly.
+    else {
+
+      int side = Constants.SHIFTING_WINDOW_IN_MINUTES * 2;
+
+      switch (type) {
+      case BOTH:
+        overDiff =
+          reduce(values, startIndex - side, side, price, base, awareness,
+                 sensitivity, overDiff);
+        overDiff =
+          reduce(values, endIndex, side, price, base, awareness, sensitivity,
+                 overDiff);
+        break;
+      case LEFT:
+        overDiff =
+          reduce(values, startIndex - 2 * side, 2 * side, price, base,
+                 awareness, sensitivity, overDiff);
+        break;
+      case RIGHT:
+        overDiff =
+          reduce(values, endIndex, 2 * side, price, base, awareness,
+                 sensitivity, overDiff);
+        break;
+      default:
+        break;
+      }
+
+      double additive = overDiff / (endIndex - startIndex);
+      add(values, startIndex, endIndex - startIndex, additive);
+    }
+
+    return values;
+  }
+
+  /**
+   * This function is used for moving the residual percentages of the
+   * penalties to the bases and rewards, or of the bases to the rewards if
+   * there are no penalties, modifying the given array.
+   * 
+   * @param values
+   *          The probability of each minute of the day.
+   * @param pricing
+   *          The pricing vector of the pricing schemes.
+   * @param awareness
+   *          The awareness of the person.
+   * @param sensitivity
+   *          The sensitivity of the person.
+   * @return the given array.
+   */
+  public static double[] discreteOptimal (double[] values,
+                                          PricingVector pricing,
+                                          float awareness, float sensitivity)
+  {
+    ArrayList<Integer> bases = pricing.getBases();
+    ArrayList<Integer> rewards = pricing.getRewards();
+
+    if (pricing.getNumberOfPenalties() > 0) {
+
+      // The residual is shared to the bases and rewards by their gain ratio
+      double gainSum = 0;
+
+      for (int i = 0; i < bases.size(); i++)
+        gainSum += pricing.getPricings(bases.get(i)).getGainRatio();
+      for (int i = 0; i < rewards.size(); i++)
+        gainSum += pricing.getPricings(rewards.get(i)).getGainRatio();
+
+      for (Integer index: pricing.getPenalties()) {
+
+        Pricing penalty = pricing.getPricings(index);
+        int start = penalty.getStartMinute();
+        int end = penalty.getEndMinute();
+
+        double overDiff =
+          reduce(values, start, end - start + 1, penalty.getPreviousPrice(),
+                 penalty.getCurrentPrice(), awareness, sensitivity, 0);
+
+        for (int i = 0; i < bases.size(); i++)
+          share(values, pricing.getPricings(bases.get(i)), overDiff, gainSum);
+        for (int i = 0; i < rewards.size(); i++)
+          share(values, pricing.getPricings(rewards.get(i)), overDiff,
+                gainSum);
+      }
+    }
+    else if (pricing.getNumberOfRewards() > 0) {
+
+      for (int i = 0; i < rewards.size(); i++) {
+
+        Pricing reward = pricing.getPricings(rewards.get(i));
+        double newPrice = reward.getCurrentPrice();
+        int start2 = reward.getStartMinute();
+        int end2 = reward.getEndMinute();
+        int duration = end2 - start2;
+
+        for (int j = 0; j < bases.size(); j++) {
+
+          Pricing base = pricing.getPricings(bases.get(j));
+          int start = base.getStartMinute();
+          int end = base.getEndMinute();
+
+          double overDiff =
+            reduce(values, start, end - start + 1, newPrice,
+                   base.getCurrentPrice(), awareness, sensitivity, 0);
+
+          add(values, start2, duration, overDiff / duration);
+        }
+      }
+    }
+
+    return values;
+  }
+
+  /**
+   * This function is used for moving the residual percentages of all the
+   * pricings to the cheapest ones, modifying the given array.
+   * 
+   * @param values
+   *          The probability of each minute of the day.
+   * @param pricing
+   *          The pricing vector of the pricing schemes.
+   * @param awareness
+   *          The awareness of the person.
+   * @param sensitivity
+   *          The sensitivity of the person.
+   * @return the given array.
+   */
+  public static double[] discreteAverage (double[] values,
+                                          PricingVector pricing,
+                                          float awareness, float sensitivity)
+  {
+    ArrayList<Integer> cheapest = pricing.getCheapest();
+    int durationCheapest = 0;
+
+    for (int i = 0; i < cheapest.size(); i++) {
+      Pricing window = pricing.getPricings(cheapest.get(i));
+      durationCheapest += window.getEndMinute() - window.getStartMinute();
+    }
+
+    double cheapestPrice =
+      pricing.getPricings(cheapest.get(0)).getCurrentPrice();
+
+    // The indices of the cheapest pricings are in ascending order
+    int next = 0;
+
+    for (int i = 0; i < pricing.getPricings().size(); i++) {
+
+      if (next < cheapest.size() && cheapest.get(next) == i) {
+        next++;
+        continue;
+      }
+
+      Pricing current = pricing.getPricings(i);
+      int start = current.getStartMinute();
+      int end = current.getEndMinute();
+
+      double overDiff =
+        reduce(values, start, end - start + 1, cheapestPrice,
+               current.getCurrentPrice(), awareness, sensitivity, 0);
+
+      double additive = overDiff / durationCheapest;
+
+      for (int j = 0; j < cheapest.size(); j++) {
+        Pricing window = pricing.getPricings(cheapest.get(j));
+        add(values, window.getStartMinute(), window.getEndMinute()
+                                             - window.getStartMinute() + 1,
+            additive);
+      }
+    }
+
+    return values;
+  }
+
+  /**
+   * This function is used for the response of a daily times distribution to
+   * the energy ratio of the pricing schemes.
+   * 
+   * @param values
+   *          The probability of each number of times per day. It is not
+   *          modified.
+   * @param energyRatio
+   *          The energy ratio of the pricing schemes.
+   * @param awareness
+   *          The awareness of the person.
+   * @param sensitivity
+   *          The sensitivity of the person.
+   * @return the shifted probabilities.
+   */
+  public static double[] shiftingDailyPreview (double[] values,
+                                               double energyRatio,
+                                               float awareness,
+                                               float sensitivity)
+  {
+    double[] temp = Arrays.copyOf(values, values.length);
+
+    double diff = (energyRatio - 1) * (awareness * sensitivity);
+
+    if (diff > 0) {
+
+      if (diff > 1)
+        return new double[] { 1 };
+      else
+        return reduceUse(temp, diff);
+
+    }
+    else
+      return increaseUse(temp, Math.abs(diff));
+  }
+
+  /**
+   * This function moves probability from the larger numbers of times per day
+   * to the smaller ones.
+   * 
+   * @param result
+   *          The probabilities, modified in place.
+   * @param diff
+   *          The probability moved.
+   * @return the probabilities without the trailing zeros.
+   */
+  private static double[] reduceUse (double[] result, double diff)
+  {
+    int index = result.length - 1;
+    double diffTemp = diff;
+    double sum = 0;
+
+    while (diffTemp > 0) {
+      double reduction = Math.min(result[index], diffTemp);
+      result[index] -= reduction;
+      diffTemp -= reduction;
+      index--;
+    }
+
+    // Fixes out of bounds error
+    index = Math.max(0, index);
+
+    for (int i = 0; i <= index; i++)
+      sum += result[i];
+
+    for (int i = 0; i <= index; i++)
+      result[i] += (result[i] / sum) * diff;
+
+    index = result.length - 1;
+
+    while (result[index] == 0)
+      index--;
+
+    return Arrays.copyOfRange(result, 0, index + 1);
+  }
+
+  /**
+   * This function moves probability from the smaller numbers of times per day
+   * to the larger ones.
+   * 
+   * @param result
+   *          The probabilities, modified in place.
+   * @param diff
+   *          The probability moved.
+   * @return the probabilities.
+   */
+  private static double[] increaseUse (double[] result, double diff)
+  {
+    int index = 0;
+    double diffTemp = diff;
+    double sum = 0;
+
+    while (diffTemp > 0) {
+      double reduction = Math.min(result[index], diffTemp);
+      result[index] -= reduction;
+      diffTemp -= reduction;
+      index++;
+    }
+
+    index = Math.min(index, result.length - 1);
+
+    for (int i = index; i < result.length; i++)
+      sum += result[i];
+
+    for (int i = index; i < result.length; i++)
+      result[i] += (result[i] / sum) * diff;
+
+    return result;
+  }
+
+  /**
+   * This function finds the sides of an incentive its residual percentage is
+   * moved to, depending on the price differences before and after it.
+   * 
+   * @param incentive
+   *          The incentive of the pricing schemes.
+   * @return the sides of the incentive.
+   */
+  private static int sides (Incentive incentive)
+  {
+    double before = incentive.getBeforeDifference();
+    double after = incentive.getAfterDifference();
+
+    if (incentive.isPenalty()) {
+      if (before > 0 && after < 0)
+        return BOTH;
+      if (before > 0 && after >= 0)
+        return LEFT;
+      if (before <= 0 && after < 0)
+        return RIGHT;
+      if (before < 0 && after > 0)
+        return NONE;
+    }
+    else {
+      if (before < 0 && after > 0)
+        return BOTH;
+      if (before < 0 && after <= 0)
+        return LEFT;
+      if (before >= 0 && after > 0)
+        return RIGHT;
+      if (before > 0 && after < 0)
+        return NONE;
+    }
+
+    return UNSET;
+  }
+
+  /**
+   * This function is used for sharing the residual percentage of a penalty to
+   * a base or reward pricing according to its gain ratio.
+   * 
+   * @param values
+   *          The probability of each minute of the day.
+   * @param target
+   *          The base or reward pricing.
+   * @param overDiff
+   *          The residual percentage of the penalty.
+   * @param gainSum
+   *          The sum of the gain ratios of the bases and rewards.
+   */
+  private static void share (double[] values, Pricing target, double overDiff,
+                             double gainSum)
+  {
+    int start = target.getStartMinute();
+    int end = target.getEndMinute();
+    double percentage = target.getGainRatio() / gainSum;
+    double additive = overDiff * percentage / (end - start);
+
+    add(values, start, end - start, additive);
+  }
+
+  /**
+   * This function moves a percentage of the probability of each minute of a
+   * circular window out of it. The probability of each minute is scaled by the
+   * ratio of the two prices, and the difference, weighted by the awareness and
+   * sensitivity, is removed.
+   * 
+   * @param values
+   *          The probability of each minute of the day.
+   * @param from
+   *          The first minute of the window, possibly outside the day.
+   * @param length
+   *          The number of minutes of the window, at most a day.
+   * @param numerator
+   *          The price the probability is multiplied with.
+   * @param denominator
+   *          The price the probability is divided with.
+   * @param awareness
+   *          The awareness of the person.
+   * @param sensitivity
+   *          The sensitivity of the person.
+   * @param overDiff
+   *          The percentage removed so far.
+   * @return the percentage removed so far, including this window.
+   */
+  private static double reduce (double[] values, int from, int length,
+                                double numerator, double denominator,
+                                float awareness, float sensitivity,
+                                double overDiff)
+  {
+    int n = values.length;
+    int start = ((from % n) + n) % n;
+    int first = Math.min(length, n - start);
+
+    for (int i = start; i < start + first; i++) {
+      double overDiffTemp =
+        (values[i] - numerator * values[i] / denominator) * awareness
+                * sensitivity;
+      overDiff += overDiffTemp;
+      values[i] -= overDiffTemp;
+    }
+
+    for (int i = 0; i < length - first; i++) {
+      double overDiffTemp =
+        (values[i] - numerator * values[i] / denominator) * awareness
+                * sensitivity;
+      overDiff += overDiffTemp;
+      values[i] -= overDiffTemp;
+    }
+
+    return overDiff;
+  }
+
+  /**
+   * This function adds a percentage to each minute of a circular window.
+   * 
+   * @param values
+   *          The probability of each minute of the day.
+   * @param from
+   *          The first minute of the window, possibly outside the day.
+   * @param length
+   *          The number of minutes of the window, at most a day.
+   * @param additive
+   *          The percentage added to each minute.
+   */
+  private static void add (double[] values, int from, int length,
+                           double additive)
+  {
+    int n = values.length;
+    int start = ((from % n) + n) % n;
+    int first = Math.min(length, n - start);
+
+    for (int i = start; i < start + first; i++)
+      values[i] += additive;
+
+    for (int i = 0; i < length - first; i++)
+      values[i] += additive;
+  }
+}
@@ -18,25 +18,33 @@ package eu.cassandra.training.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
 import java.net.MalformedURLException;
 import java.security.NoSuchAlgorithmException;
 
 import javax.net.ssl.SSLContext;
-import javax.swing.JFrame;
-import javax.swing.JOptionPane;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.auth.AuthenticationException;
 import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.entity.ContentProducer;
+import org.apache.http.entity.EntityTemplate;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.util.EntityUtils;
 
@@ -48,7 +56,9 @@ import com.mongodb.util.JSON;
  * This class contains static functions that are used for the communication of
  * the Training Module with the Cassandra Server and more specifically with the
  * User's Library in the main Cassandra Platform. Mostly, they have to do with
- * sending messages and models through the API of the platform.
+ * sending messages and models through the API of the platform. The http
+ * client is backed by a pool of connections and can be used by several threads
+ * at the same time, as done by the {@link ExportPipeline}.
  * 
  * @author Antonios Chrysopoulos
  * @version 0.9, Date: 29.07.2013
@@ -80,11 +90,41 @@ public class APIUtilities
    */
   private static String url;
 
+  /**
+   * This variable is the maximum number of connections kept open to the
+   * Cassandra Server at the same time.
+   */
+  private static final int MAX_CONNECTIONS = 16;
+
+  /**
+   * This variable is the timeout in milliseconds for establishing a connection
+   * to the Cassandra Server.
+   */
+  private static final int CONNECTION_TIMEOUT = 10000;
+
+  /**
+   * This variable is the timeout in milliseconds for waiting the response of
+   * the Cassandra Server.
+   */
+  private static final int SOCKET_TIMEOUT = 60000;
+
+  /**
+   * This variable is the number of times a request is attempted before its
+   * failure is reported.
+   */
+  private static final int MAX_ATTEMPTS = 3;
+
+  /**
+   * This variable is the delay in milliseconds before the first retry of a
+   * failed request. The delay grows linearly with each attempt.
+   */
+  private static final long RETRY_DELAY = 500;
+
   /**
    * This variable is the http client that is used for the exchange of messages
    * between the Cassandra Platform and the Training Module.
    */
-  private static DefaultHttpClient httpclient = new DefaultHttpClient();
+  private static DefaultHttpClient httpclient = createHttpClient();
 
   /**
    * This variable is the ssl socket factory used for the connection and the
@@ -104,6 +144,122 @@ public class APIUtilities
    */
   private static BasicHttpContext localcontext = new BasicHttpContext();
 
+  /**
+   * This function is used to create the http client, using a pool of
+   * connections shared by all the threads exporting models to the server.
+   * 
+   * @return the thread safe http client.
+   */
+  private static DefaultHttpClient createHttpClient ()
+  {
+    PoolingClientConnectionManager connectionManager =
+      new PoolingClientConnectionManager();
+    connectionManager.setMaxTotal(MAX_CONNECTIONS);
+    connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS);
+
+    DefaultHttpClient client = new DefaultHttpClient(connectionManager);
+
+    HttpParams params = client.getParams();
+    HttpConnectionParams.setConnectionTimeout(params, CONNECTION_TIMEOUT);
+    HttpConnectionParams.setSoTimeout(params, SOCKET_TIMEOUT);
+
+    return client;
+  }
+
+  /**
+   * This function is used to execute a request to the Cassandra Server and
+   * read its response. Requests failing with an I/O error or a server that is
+   * temporarily unavailable are retried, while other error responses are
+   * reported at once. Requests that are not idempotent, such as the POST
+   * requests creating entities, are retried only when they have not reached
+   * the server, so that the entities are not created twice. Each attempt is
+   * executed on its own context derived from the context of the connection,
+   * so that requests can be executed concurrently.
+   * 
+   * @param request
+   *          The request to execute.
+   * @return the body of the response.
+   * @throws IOException
+   */
+  private static String execute (HttpRequestBase request) throws IOException
+  {
+    boolean idempotent = !(request instanceof HttpPost);
+    IOException failure = null;
+
+    for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+
+      if (attempt > 1) {
+        try {
+          Thread.sleep(RETRY_DELAY * (attempt - 1));
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        request.reset();
+      }
+
+      long start = System.nanoTime();
+
+      try {
+        HttpResponse response =
+          httpclient.execute(request, new BasicHttpContext(localcontext));
+        HttpEntity responseEntity = response.getEntity();
+        String responseString =
+          responseEntity == null ? "" : EntityUtils.toString(responseEntity,
+                                                             "UTF-8");
+        int status = response.getStatusLine().getStatusCode();
+
+        System.out.println(request.getRequestLine() + " " + status + " in "
+                           + (System.nanoTime() - start) / 1000000 + " ms");
+
+        if (status >= 200 && status < 300)
+          return responseString;
+
+        failure =
+          new HttpResponseException(status, response.getStatusLine()
+                  .getReasonPhrase());
+
+        // Only the responses of a server not reached or unavailable are
+        // retried, since the rest may have already been processed. A gateway
+        // error may come after the server has processed the request, so it
+        // is retried only if the request is idempotent.
+        if (status != 503 && (!idempotent || (status != 502 && status != 504)))
+          break;
+      }
+      catch (IOException e) {
+        request.abort();
+        System.out.println(request.getRequestLine() + " failed in "
+                           + (System.nanoTime() - start) / 1000000 + " ms: "
+                           + e);
+        failure = e;
+
+        // A request that is not idempotent may have been processed if it was
+        // sent before failing, for example on a read timeout
+        if (!idempotent && !notSent(e))
+          break;
+      }
+    }
+
+    throw failure == null ? new IOException("Request interrupted") : failure;
+  }
+
+  /**
+   * This function states if a request failed before it was sent to the
+   * Cassandra Server, because no connection could be leased from the pool or
+   * established to the server.
+   * 
+   * @param error
+   *          The failure of the request.
+   * @return true if the request was not sent, false otherwise.
+   */
+  private static boolean notSent (IOException error)
+  {
+    // The timeouts of leasing a pooled connection are connect timeouts too
+    return error instanceof ConnectException
+           || error instanceof ConnectTimeoutException;
+  }
+
   /**
    * This function is used to set up the server url as provided by the user.
    * 
@@ -153,9 +309,7 @@ public class APIUtilities
     httppost.setEntity(entity);
     System.out.println("executing request: " + httppost.getRequestLine());
 
-    HttpResponse response = httpclient.execute(httppost, localcontext);
-    HttpEntity responseEntity = response.getEntity();
-    String responseString = EntityUtils.toString(responseEntity, "UTF-8");
+    String responseString = execute(httppost);
     System.out.println(responseString);
 
     DBObject dbo = (DBObject) JSON.parse(responseString);
@@ -193,15 +347,119 @@ public class APIUtilities
     httpput.setEntity(entity);
     System.out.println("executing request: " + httpput.getRequestLine());
 
-    HttpResponse response = httpclient.execute(httpput, localcontext);
-    HttpEntity responseEntity = response.getEntity();
-    String responseString = EntityUtils.toString(responseEntity, "UTF-8");
+    String responseString = execute(httpput);
     System.out.println(responseString);
 
     return "Done";
 
   }
 
+  /**
+   * This function is used to send an entity model to the Cassandra Server,
+   * specifically on the connected user's Library, writing its JSON schema
+   * straight to the body of the request.
+   * 
+   * @param message
+   *          The model writing the JSON schema of the entity.
+   * @param suffix
+   *          The library the model must be sent to.
+   * @return the id of the entity model provided by the server.
+   * @throws IOException
+   */
+  public static String sendEntity (JSONWriter.Source message, String suffix)
+    throws IOException
+  {
+    HttpPost httppost = new HttpPost(url + suffix);
+    httppost.setEntity(streamingEntity(message));
+    System.out.println("executing request: " + httppost.getRequestLine());
+
+    String responseString = execute(httppost);
+    System.out.println(responseString);
+
+    DBObject dbo = (DBObject) JSON.parse(responseString);
+
+    DBObject dataObj = (DBObject) dbo.get("data");
+
+    return dataObj.get("_id").toString();
+  }
+
+  /**
+   * This function is used to send a batch of entity models to the Cassandra
+   * Server in a single request, specifically on the connected user's Library.
+   * The batch is written straight to the body of the request.
+   * 
+   * @param message
+   *          The batch writing its JSON document.
+   * @param suffix
+   *          The path the batch must be sent to.
+   * @throws IOException
+   */
+  public static void sendBatch (JSONWriter.Source message, String suffix)
+    throws IOException
+  {
+    HttpPost httppost = new HttpPost(url + suffix);
+    httppost.setEntity(streamingEntity(message));
+    System.out.println("executing request: " + httppost.getRequestLine());
+
+    String responseString = execute(httppost);
+    System.out.println(responseString);
+
+    DBObject dbo = (DBObject) JSON.parse(responseString);
+
+    if (dbo == null || !"true".equalsIgnoreCase(String.valueOf(dbo
+            .get("success"))))
+      throw new IOException("The batch was rejected by the server: "
+                            + responseString);
+  }
+
+  /**
+   * This function is used to create the body of a request that writes a JSON
+   * document straight to the connection, without keeping it in memory. The
+   * document is written again whenever the request is retried.
+   * 
+   * @param message
+   *          The source of the JSON document.
+   * @return the entity of the request.
+   */
+  private static HttpEntity streamingEntity (final JSONWriter.Source message)
+  {
+    EntityTemplate entity = new EntityTemplate(new ContentProducer() {
+      @Override
+      public void writeTo (OutputStream out) throws IOException
+      {
+        JSONWriter writer = new JSONWriter(out);
+        message.writeJSON(writer);
+        writer.flush();
+      }
+    });
+    entity.setContentType("application/json");
+    return entity;
+  }
+
+  /**
+   * This function is used for creating the certificate of the Cassandra Server,
+   * in case it is not already installed. No dialog is shown here, so that the
+   * connection can also be made without a display.
+   * 
+   * @return true if the certificate was created, false if it was already
+   *         installed.
+   * @throws Exception
+   */
+  public static boolean installCertificate () throws Exception
+  {
+    char SEP = File.separatorChar;
+    File dir =
+      new File(System.getProperty("java.home") + SEP + "lib" + SEP
+               + "security");
+    File file = new File(dir, "jssecacerts");
+
+    if (file.isFile())
+      return false;
+
+    InstallCert.createCertificate("160.40.50.233", 8443);
+    return true;
+  }
+
   /**
    * This function is used to send the user's credentials to the Cassandra
    * Server.
@@ -223,23 +481,9 @@ public class APIUtilities
       UsernamePasswordCredentials usernamePasswordCredentials =
         new UsernamePasswordCredentials(username, pass);
 
-      char SEP = File.separatorChar;
-      File dir =
-        new File(System.getProperty("java.home") + SEP + "lib" + SEP
-                 + "security");
-      File file = new File(dir, "jssecacerts");
-      if (file.isFile() == false) {
-        InstallCert.createCertificate("160.40.50.233", 8443);
-        JFrame success = new JFrame();
-
-        JOptionPane
-                .showMessageDialog(success,
-                                   "Certificate was created for user "
-                                           + username
-                                           + ". Now the connection will start",
-                                   "Response Model Exported",
-                                   JOptionPane.INFORMATION_MESSAGE);
-      }
+      if (installCertificate())
+        System.out.println("Certificate was created for user " + username
+                           + ". Now the connection will start");
 
       try {
         sslContext = SSLContext.getInstance("TLS");
@@ -17,6 +17,7 @@ limitations under the License.
 package eu.cassandra.training.utils;
 
 import java.awt.Color;
+import java.nio.DoubleBuffer;
 import java.text.DecimalFormat;
 import java.util.Arrays;
 
@@ -193,10 +194,30 @@ public class ChartUtils
   public static ChartPanel createLineDiagram (String title, String x, String y,
                                               double[] data)
   {
+    return createLineDiagram(title, x, y, DoubleBuffer.wrap(data));
+  }
+
+  /**
+   * This function is used for the visualization of a Line Diagram of
+   * measurements read directly from a (possibly memory-mapped) buffer.
+   * 
+   * @param title
+   *          The title of the chart.
+   * @param x
+   *          The unit on the X axis of the chart.
+   * @param y
+   *          The unit on the Y axis of the chart.
+   * @param data
+   *          The buffer of values.
+   * @return a chart panel with the graphical representation.
+   */
+  public static ChartPanel createLineDiagram (String title, String x, String y,
+                                              DoubleBuffer data)
+  {
 
     XYSeries series1 = new XYSeries("Active Power");
-    for (int i = 0; i < data.length; i++) {
-      series1.add(i, data[i]);
+    for (int i = data.position(); i < data.limit(); i++) {
+      series1.add(i - data.position(), data.get(i));
     }
 
     XYSeriesCollection dataset = new XYSeriesCollection();
@@ -217,15 +238,40 @@ public class ChartUtils
   public static ChartPanel createLineDiagram (String title, String x, String y,
                                               double[] data, double[] data2)
   {
+    return createLineDiagram(title, x, y, DoubleBuffer.wrap(data),
+                             DoubleBuffer.wrap(data2));
+  }
+
+  /**
+   * This function is used for the visualization of a Line Diagram of active
+   * and reactive measurements read directly from (possibly memory-mapped)
+   * buffers.
+   * 
+   * @param title
+   *          The title of the chart.
+   * @param x
+   *          The unit on the X axis of the chart.
+   * @param y
+   *          The unit on the Y axis of the chart.
+   * @param data
+   *          The buffer of active power values.
+   * @param data2
+   *          The buffer of reactive power values.
+   * @return a chart panel with the graphical representation.
+   */
+  public static ChartPanel createLineDiagram (String title, String x, String y,
+                                              DoubleBuffer data,
+                                              DoubleBuffer data2)
+  {
 
     XYSeries series1 = new XYSeries("Active Power");
-    for (int i = 0; i < data.length; i++) {
-      series1.add(i, data[i]);
+    for (int i = data.position(); i < data.limit(); i++) {
+      series1.add(i - data.position(), data.get(i));
     }
 
     XYSeries series2 = new XYSeries("Reactive Power");
-    for (int i = 0; i < data2.length; i++) {
-      series2.add(i, data2[i]);
+    for (int i = data2.position(); i < data2.limit(); i++) {
+      series2.add(i - data2.position(), data2.get(i));
     }
 
     XYSeriesCollection dataset = new XYSeriesCollection();
@@ -244,6 +290,7 @@ public class ChartUtils
     return new ChartPanel(chart);
   }
 
+
   /**
    * This function is used for the visualization of a Histogram.
    * 
@@ -65,6 +65,7 @@ public class Constants
   public static final int TEN_MINUTES_PER_DAY = 144;
   public static final int FIVE_MINUTES_PER_DAY = 288;
   public static final int MINUTES_PER_HOUR = 60;
+  public static final int SECONDS_PER_MINUTE = 60;
   public static final int QUARTER = 15;
   public static final int TEN_MINUTES = 10;
   public static final int FIVE_MINUTES = 5;
@@ -93,4 +94,52 @@ public class Constants
   public static final int VERY_HIGH_SAMPLE_MIXTURE = 10;
 
   public static final boolean USE_FILES = true;
+
+  /**
+   * This variable is the number of days a measurements store is kept in the
+   * temporary folder after it was last used.
+   */
+  public static final int MEASUREMENTS_STORE_DAYS = 30;
+
+  /**
+   * This variable states if the intermediate files of the training procedure
+   * (attribute values, histograms and fitted distribution parameters) are
+   * exported to the temporary folder for inspection. The training itself is
+   * done in memory.
+   */
+  public static final boolean EXPORT_TRAINING_FILES = false;
+
+  /**
+   * This variable is the way the number of mixtures of a GMM distribution is
+   * chosen: from the size of the sample, or by the Bayesian or Akaike
+   * information criterion of fitted candidates.
+   */
+  public static final MixtureCreator.Selection GMM_SELECTION =
+    MixtureCreator.Selection.SAMPLE_SIZE;
+
+  /**
+   * This variable is the number of Activity Models trained at the same time
+   * when training all the activities and appliances of an installation.
+   */
+  public static final int TRAINING_THREADS = Runtime.getRuntime()
+          .availableProcessors();
+
+  /**
+   * This variable is the number of requests sent to the Cassandra Server at
+   * the same time when exporting all the entities of an installation.
+   */
+  public static final int EXPORT_THREADS = 8;
+
+  /**
+   * This variable states if all the entities of an installation are exported
+   * in batches, instead of one request per entity. The server must accept the
+   * batches for this.
+   */
+  public static final boolean BATCH_EXPORT = false;
+
+  /**
+   * This variable is the maximum number of entities sent in a single batch, or
+   * 0 for sending each installation in one batch.
+   */
+  public static final int EXPORT_BATCH_SIZE = 500;
 }
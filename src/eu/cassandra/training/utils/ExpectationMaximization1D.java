@@ -16,11 +16,7 @@ limitations under the License.
 */
 package eu.cassandra.training.utils;
 
-import jMEF.MixtureModel;
-import jMEF.PVector;
-import jMEF.UnivariateGaussian;
-
-import java.util.Vector;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ExpectationMaximization1D
 {
@@ -31,177 +27,192 @@ public class ExpectationMaximization1D
   private static int MAX_ITERATIONS = 200;
 
   /**
-   * Initializes a mixture model from clusters of points. The parameters
-   * estimated corresponds to univariate Gaussian distributions.
+   * Initializes a mixture model from the clusters of a one-dimensional sample,
+   * as computed by KMeans1D. The parameters estimated are the weight, mean and
+   * standard deviation of each cluster.
    * 
+   * @param sample
+   *          the sample
    * @param clusters
-   *          clusters of points
+   *          the cluster of each distinct value of the sample
+   * @param k
+   *          number of clusters
    * @return mixture model
    */
-  public static MixtureModel initialize (Vector<PVector>[] clusters)
+  public static GaussianMixture1D initialize (Sample1D sample, int[] clusters,
+                                              int k)
   {
-
-    // Mixture model
-    MixtureModel mm = new MixtureModel(clusters.length);
-    mm.EF = new UnivariateGaussian();
-
-    // Amount of points
-    int nb = 0;
-    for (int i = 0; i < clusters.length; i++)
-      nb += clusters[i].size();
-
-    // Loop on the clusters
-    for (int i = 0; i < clusters.length; i++) {
-
-      // Weight
-      mm.weight[i] = ((double) clusters[i].size()) / nb;
-
-      // Mean
-      double mean = 0;
-      for (int j = 0; j < clusters[i].size(); j++)
-        mean += clusters[i].get(j).array[0];
-      mean /= clusters[i].size();
-
-      // Variance
-      double var = 0;
-      for (int j = 0; j < clusters[i].size(); j++)
-        var +=
-          (clusters[i].get(j).array[0] - mean)
-                  * (clusters[i].get(j).array[0] - mean);
-
-      if (clusters[i].size() > 0)
-        var = Math.sqrt(var / clusters[i].size());
-      else
-        var = 0.0;
-
-      if (var < 0.00000001) {
-        var = 0.00000001;
-      }
-
-      // Parameters
-      PVector param = new PVector(2);
-      param.array[0] = mean;
-      param.array[1] = var;
-      mm.param[i] = param;
+    GaussianMixture1D mm = new GaussianMixture1D(k);
+    double[] values = sample.values;
+    double[] weights = sample.weights;
+
+    // Weights and means
+    for (int i = 0; i < values.length; i++) {
+      mm.weights[clusters[i]] += weights[i];
+      mm.means[clusters[i]] += weights[i] * values[i];
+    }
+    for (int j = 0; j < k; j++)
+      if (mm.weights[j] > 0)
+        mm.means[j] /= mm.weights[j];
+
+    // Standard deviations
+    for (int i = 0; i < values.length; i++) {
+      double diff = values[i] - mm.means[clusters[i]];
+      mm.sigmas[clusters[i]] += weights[i] * diff * diff;
+    }
+    for (int j = 0; j < k; j++) {
+      if (mm.weights[j] > 0)
+        mm.sigmas[j] = Math.sqrt(mm.sigmas[j] / mm.weights[j]);
+      if (mm.sigmas[j] < 0.00000001)
+        mm.sigmas[j] = 0.00000001;
+      mm.weights[j] /= sample.total;
     }
 
-    // Return
     return mm;
   }
 
   /**
-   * Performs the Expectation-Maximization algorithm. The parameters estimated
-   * corresponds to univariate Gaussian distributions.
+   * Performs the Expectation-Maximization algorithm on a one-dimensional
+   * sample. The responsibilities are computed once per distinct value and
+   * weighted by its number of occurrences, and all the buffers are allocated
+   * before iterating. The standard deviations are kept above a minimum, so
+   * that a component cannot collapse on a single value.
    * 
-   * @param points
-   *          point set
+   * @param sample
+   *          the sample
    * @param f
    *          initial mixture model
+   * @param minSigma
+   *          minimum standard deviation of the components
+   * @param cancelled
+   *          flag checked at each iteration, or null
    * @return mixture model
    */
-  public static MixtureModel run (PVector[] points, MixtureModel f)
+  public static GaussianMixture1D run (Sample1D sample, GaussianMixture1D f,
+                                       double minSigma, AtomicBoolean cancelled)
   {
-
-    MixtureModel fout = f.clone();
+    GaussianMixture1D fout = f.copy();
 
     // Variables
-    int k = fout.size;
-    int n = points.length;
-    int row, col;
+    int k = fout.size();
+    int d = sample.values.length;
     int iterations = 0;
-    double[][] p = new double[n][k];
+    double[] p = new double[d * k];
+
+    for (int col = 0; col < k; col++)
+      fout.sigmas[col] = Math.max(fout.sigmas[col], minSigma);
 
     // Initial log likelihood
-    double logLikelihoodNew = logLikelihood(points, fout);
+    double logLikelihoodNew = expectationStep(sample, fout, p);
     double logLikelihoodThreshold = Math.abs(logLikelihoodNew) * 0.01;
     double logLikelihoodOld;
 
-    // Display
-    // System.out.printf("%2d : %12.6f\n", iterations, logLikelihoodNew);
-
     do {
-
       logLikelihoodOld = logLikelihoodNew;
 
-      // E-step: computation of matrix P (fast version, we don't compute
-      // 1/f(x)
-      // for all P[i][j])
-      for (row = 0; row < n; row++) {
-        double sum = 0;
-        for (col = 0; col < k; col++) {
-          double tmp =
-            fout.weight[col]
-                    * fout.EF.density(points[row], (PVector) fout.param[col]);
-          p[row][col] = tmp;
-          sum += tmp;
-        }
-        for (col = 0; col < k; col++)
-          p[row][col] /= sum;
-      }
+      maximizationStep(sample, fout, p, minSigma);
 
-      // M-step: computation of new Gaussians and the new weights
-      for (col = 0; col < k; col++) {
+      // Update of iterations and log likelihood value, computing the
+      // responsibilities of the next iteration at the same time
+      iterations++;
+      logLikelihoodNew = expectationStep(sample, fout, p);
+    }
+    while (Math.abs(logLikelihoodNew - logLikelihoodOld) > logLikelihoodThreshold
+           && iterations < MAX_ITERATIONS
+           && (cancelled == null || !cancelled.get()));
 
-        // Variables
-        double sum = 0;
-        double mu = 0;
-        double sigma = 0;
+    return fout;
+  }
 
-        // First step of the computation of new mu
-        for (row = 0; row < n; row++) {
-          double w = p[row][col];
-          sum += w;
-          mu += points[row].array[0] * w;
-        }
-        mu /= sum;
+  /**
+   * Computes the responsibilities of the components for each distinct value of
+   * the sample and returns the log likelihood of the sample.
+   * 
+   * @param sample
+   *          the sample
+   * @param f
+   *          mixture model
+   * @param p
+   *          the responsibilities, row by row for each distinct value
+   * @return log likelihood
+   */
+  private static double expectationStep (Sample1D sample, GaussianMixture1D f,
+                                         double[] p)
+  {
+    int k = f.size();
+    double[] values = sample.values;
+    double[] weights = sample.weights;
+    double logLikelihood = 0;
 
-        // Computation of new sigma
-        for (row = 0; row < n; row++) {
-          double diff = points[row].array[0] - mu;
-          sigma += p[row][col] * diff * diff;
-        }
-        // sigma /= sum;
-        sigma = Math.sqrt(sigma / sum);
-
-        // Set new mu and sigma to the PVectorMatrix
-        PVector param = new PVector(2);
-        param.array[0] = mu;
-        param.array[1] = sigma;
-        fout.param[col] = param;
-        fout.weight[col] = sum / n;
-      }
+    for (int row = 0, offset = 0; row < values.length; row++, offset += k) {
 
-      // Update of iterations and log likelihood value
-      iterations++;
-      logLikelihoodNew = logLikelihood(points, fout);
+      double max = Double.NEGATIVE_INFINITY;
+      for (int col = 0; col < k; col++) {
+        p[offset + col] = f.logWeightedDensity(col, values[row]);
+        max = Math.max(max, p[offset + col]);
+      }
 
-      // Display
-      // System.out.printf("%2d : %12.6f\n", iterations,
-      // logLikelihoodNew);
+      double sum = 0;
+      for (int col = 0; col < k; col++) {
+        p[offset + col] = Math.exp(p[offset + col] - max);
+        sum += p[offset + col];
+      }
+      for (int col = 0; col < k; col++)
+        p[offset + col] /= sum;
 
+      if (weights[row] > 0)
+        logLikelihood += weights[row] * (max + Math.log(sum));
     }
-    while (Math.abs(logLikelihoodNew - logLikelihoodOld) > logLikelihoodThreshold
-           && iterations < MAX_ITERATIONS);
 
-    // Return
-    return fout;
+    return logLikelihood;
   }
 
   /**
-   * Computes the log likelihood.
+   * Computes the new weights, means and standard deviations of the components
+   * out of the responsibilities. A component without any responsibility keeps
+   * its mean and standard deviation.
    * 
-   * @param points
-   *          set of points.
+   * @param sample
+   *          the sample
    * @param f
-   *          mixture model.
-   * @return log likelihood.
+   *          mixture model, updated in place
+   * @param p
+   *          the responsibilities, row by row for each distinct value
+   * @param minSigma
+   *          minimum standard deviation of the components
    */
-  public static double logLikelihood (PVector[] points, MixtureModel f)
+  private static void maximizationStep (Sample1D sample, GaussianMixture1D f,
+                                        double[] p, double minSigma)
   {
-    double value = 0;
-    for (int i = 0; i < points.length; i++)
-      value += Math.log(f.density(points[i]));
-    return value;
-  }
+    int k = f.size();
+    double[] values = sample.values;
+    double[] weights = sample.weights;
+
+    for (int col = 0; col < k; col++) {
 
+      double sum = 0;
+      double mu = 0;
+      double sigma = 0;
+
+      for (int row = 0; row < values.length; row++) {
+        double w = weights[row] * p[row * k + col];
+        sum += w;
+        mu += values[row] * w;
+      }
+
+      if (sum > 0) {
+        mu /= sum;
+
+        for (int row = 0; row < values.length; row++) {
+          double diff = values[row] - mu;
+          sigma += weights[row] * p[row * k + col] * diff * diff;
+        }
+
+        f.means[col] = mu;
+        f.sigmas[col] = Math.max(Math.sqrt(sigma / sum), minSigma);
+      }
+
+      f.weights[col] = sum / sample.total;
+    }
+  }
 }
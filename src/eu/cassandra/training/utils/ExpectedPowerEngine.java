@@ -0,0 +1,149 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+import eu.cassandra.training.activity.ProbabilityDistribution;
+
+/**
+ * This class is used for estimating the expected power of an activity over the
+ * minutes of the day. The expected power at each minute is the circular
+ * convolution of the start time distribution with a kernel made of the
+ * probability that the activity is still running after each minute of
+ * duration, multiplied by the consumption of the appliances at that minute.
+ * The kernel and the start time probabilities are extracted once into
+ * primitive arrays and the convolution is done directly on them.
+ */
+public class ExpectedPowerEngine
+{
+
+  /**
+   * This array contains the probability that the duration is greater than each
+   * minute.
+   */
+  private final double[] survival;
+
+  /**
+   * This array contains the sum of the survival weighted consumption of all
+   * the appliances added so far.
+   */
+  private final double[] kernel;
+
+  /**
+   * The constructor of the engine for the given duration distribution. The
+   * same engine can be used for convolving several start time distributions
+   * with the kernel of its appliances.
+   * 
+   * @param duration
+   *          The duration distribution of the activity.
+   * @param durationMax
+   *          The maximum duration considered, in minutes.
+   */
+  public ExpectedPowerEngine (ProbabilityDistribution duration, int durationMax)
+  {
+    int length =
+      Math.max(0, Math.min(Constants.MINUTES_PER_DAY, durationMax));
+
+    survival = new double[length];
+    for (int i = 0; i < length; i++)
+      survival[i] = duration.getProbabilityGreater(i);
+
+    kernel = new double[length];
+  }
+
+  /**
+   * This function is used for adding the consumption of an appliance to the
+   * kernel of the convolution.
+   * 
+   * @param consumption
+   *          The active consumption of the appliance per minute, repeated
+   *          cyclically when shorter than the duration.
+   * @param staticConsumption
+   *          The flag stating that the appliance consumes the first value of
+   *          its consumption throughout the activity.
+   */
+  public void addAppliance (double[] consumption, boolean staticConsumption)
+  {
+    if (consumption.length == 0)
+      return;
+
+    if (staticConsumption) {
+      double power = consumption[0];
+      for (int i = 0; i < kernel.length; i++)
+        kernel[i] += survival[i] * power;
+    }
+    else {
+      int period = Math.min(consumption.length, kernel.length);
+
+      int index = 0;
+      for (int i = 0; i < kernel.length; i++) {
+        kernel[i] += survival[i] * consumption[index];
+        if (++index == period)
+          index = 0;
+      }
+    }
+  }
+
+  /**
+   * This function is used for the circular convolution of a start time
+   * distribution with the kernel of the appliances added so far.
+   * 
+   * @param startTime
+   *          The start time distribution of the activity.
+   * @return the expected power for each minute of the day.
+   */
+  public double[] estimate (ProbabilityDistribution startTime)
+  {
+    double[] probabilities = new double[Constants.MINUTES_PER_DAY];
+    for (int i = 0; i < probabilities.length; i++)
+      probabilities[i] = startTime.getProbability(i);
+
+    return estimate(probabilities);
+  }
+
+  /**
+   * This function is used for the circular convolution of the start time
+   * probabilities of each minute of the day with the kernel of the appliances
+   * added so far. It does not modify the engine, so it can be called
+   * concurrently once all the appliances are added.
+   * 
+   * @param startTime
+   *          The start time probability of each minute of the day.
+   * @return the expected power for each minute of the day.
+   */
+  public double[] estimate (double[] startTime)
+  {
+    int minutes = startTime.length;
+    double[] result = new double[minutes];
+
+    for (int i = 0; i < kernel.length; i++) {
+
+      double weight = kernel[i];
+
+      if (weight == 0)
+        continue;
+
+      // Minutes j >= i take the start time j - i, the rest wrap around
+      for (int j = i; j < minutes; j++)
+        result[j] += weight * startTime[j - i];
+
+      for (int j = 0; j < i; j++)
+        result[j] += weight * startTime[minutes + j - i];
+    }
+
+    return result;
+  }
+}
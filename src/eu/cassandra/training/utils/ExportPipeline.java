@@ -0,0 +1,1054 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bson.types.ObjectId;
+
+import eu.cassandra.training.activity.ActivityModel;
+import eu.cassandra.training.activity.ProbabilityDistribution;
+import eu.cassandra.training.entities.Appliance;
+import eu.cassandra.training.entities.Installation;
+import eu.cassandra.training.entities.Person;
+
+/**
+ * This class is used for exporting an installation and the entities contained
+ * within to the User's Library of the Cassandra Platform, sending the
+ * independent requests concurrently on a bounded pool of threads. The
+ * requests respect the dependencies between the entities: the installation is
+ * sent before the person, the person before the appliances, the appliances
+ * before the activities, the activity models before their distributions and
+ * the distributions before the update of their activity model. A request that
+ * fails skips the requests depending on it, while the rest of the export goes
+ * on. Alternatively, the entities can be exported in batches, with their ids
+ * generated by the Training Module, so that a whole installation is sent in
+ * one or a few requests.
+ */
+public class ExportPipeline
+{
+
+  /**
+   * This interface is used for reporting the progress of an export. The
+   * functions are called from the thread running the export.
+   */
+  public interface Listener
+  {
+    /**
+     * This function is called when a request has been completed.
+     * 
+     * @param name
+     *          The description of the request.
+     * @param millis
+     *          The time spent on the request, including its retries.
+     * @param completed
+     *          The number of requests completed so far.
+     * @param total
+     *          The number of requests of the export.
+     */
+    public void sent (String name, long millis, int completed, int total);
+
+    /**
+     * This function is called when a request has failed.
+     * 
+     * @param name
+     *          The description of the request.
+     * @param error
+     *          The cause of the failure.
+     * @param skipped
+     *          The number of requests depending on the failed one that will
+     *          not be sent.
+     */
+    public void failed (String name, Throwable error, int skipped);
+  }
+
+  /**
+   * This variable is the number of requests sent for each appliance.
+   */
+  private static final int APPLIANCE_REQUESTS = 2;
+
+  /**
+   * This variable is the number of requests sent for each activity model.
+   */
+  private static final int ACTIVITY_REQUESTS = 6;
+
+  /**
+   * This array contains the types of the distributions of an activity model.
+   */
+  private static final int[] DISTRIBUTIONS = { Constants.DAILY_TIMES,
+                                              Constants.DURATION,
+                                              Constants.START_TIME };
+
+  /**
+   * This variable is the path the batches of entities are sent to.
+   */
+  private static final String BATCH_SUFFIX = "/batch";
+
+  /**
+   * This variable is the installation exported.
+   */
+  private final Installation installation;
+
+  /**
+   * This variable is the name the installation is exported with.
+   */
+  private final String installationName;
+
+  /**
+   * This is the list of the appliances exported.
+   */
+  private final List<Appliance> appliances = new ArrayList<Appliance>();
+
+  /**
+   * This is the list of the activity or response models exported.
+   */
+  private final List<ActivityModel> activities = new ArrayList<ActivityModel>();
+
+  /**
+   * This variable is the listener of the progress of the export, or null.
+   */
+  private Listener listener = null;
+
+  /**
+   * This variable is the completion service of the running export.
+   */
+  private CompletionService<Request> completion = null;
+
+  /**
+   * This variable is the number of requests submitted and not yet finished.
+   */
+  private int pending = 0;
+
+  /**
+   * This variable is the number of appliances not yet sent.
+   */
+  private int pendingAppliances = 0;
+
+  /**
+   * This variable is the number of requests completed successfully.
+   */
+  private int completed = 0;
+
+  /**
+   * The constructor of an export pipeline.
+   * 
+   * @param installation
+   *          The installation exported.
+   * @param installationName
+   *          The name the installation is exported with.
+   */
+  public ExportPipeline (Installation installation, String installationName)
+  {
+    this.installation = installation;
+    this.installationName = installationName;
+  }
+
+  /**
+   * This function is used for adding an appliance to the export.
+   * 
+   * @param appliance
+   *          The appliance.
+   */
+  public void add (Appliance appliance)
+  {
+    appliances.add(appliance);
+  }
+
+  /**
+   * This function is used for adding an activity or response model to the
+   * export.
+   * 
+   * @param activity
+   *          The activity or response model.
+   */
+  public void add (ActivityModel activity)
+  {
+    activities.add(activity);
+  }
+
+  /**
+   * This is a setter function of the listener of the progress of the export.
+   * 
+   * @param listener
+   *          The listener, or null.
+   */
+  public void setListener (Listener listener)
+  {
+    this.listener = listener;
+  }
+
+  /**
+   * This is a getter function of the number of requests of the export.
+   * 
+   * @return the number of requests.
+   */
+  public int size ()
+  {
+    return 2 + APPLIANCE_REQUESTS * appliances.size() + ACTIVITY_REQUESTS
+           * activities.size();
+  }
+
+  /**
+   * This function is used for exporting the installation, its person and the
+   * added appliances and models on a pool of the given number of threads,
+   * blocking until all the requests are finished.
+   * 
+   * @param threads
+   *          The maximum number of requests sent at the same time.
+   * @return the number of requests that failed or were skipped.
+   * @throws InterruptedException
+   */
+  public int run (int threads) throws InterruptedException
+  {
+    ExecutorService executor =
+      Executors.newFixedThreadPool(Math.max(1, threads));
+
+    completed = 0;
+    pending = 0;
+    pendingAppliances = appliances.size();
+
+    try {
+      completion = new ExecutorCompletionService<Request>(executor);
+
+      submit(new InstallationRequest());
+
+      while (pending > 0) {
+
+        Request request;
+
+        try {
+          request = completion.take().get();
+        }
+        catch (ExecutionException e) {
+          throw new IllegalStateException(e.getCause());
+        }
+        pending--;
+
+        if (request.error != null) {
+          if (listener != null)
+            listener.failed(request.name, request.error, request.fail());
+          continue;
+        }
+
+        completed++;
+        if (listener != null)
+          listener.sent(request.name, request.millis, completed, size());
+
+        request.next();
+      }
+    }
+    finally {
+      executor.shutdownNow();
+      completion = null;
+    }
+
+    return size() - completed;
+  }
+
+  /**
+   * This function is used for exporting the installation, its person and the
+   * added appliances and models in batches. The ids of all the entities are
+   * generated beforehand, so that each entity is sent complete and no update
+   * is needed. The batches contain the entities in dependency order and are
+   * sent one after the other, while a failed batch skips the rest.
+   * 
+   * @param chunkSize
+   *          The maximum number of entities in a batch, or 0 for sending all
+   *          the entities in a single batch.
+   * @return the number of entities that failed or were skipped.
+   */
+  public int runBatch (int chunkSize)
+  {
+    List<BatchEntity> entities = createEntities();
+    int total = entities.size();
+    int size = chunkSize > 0 ? chunkSize : total;
+    int chunks = (total + size - 1) / size;
+
+    completed = 0;
+
+    for (int chunk = 0; chunk < chunks; chunk++) {
+
+      int from = chunk * size;
+      int to = Math.min(total, from + size);
+      JSONWriter.Source batch = batch(entities, from, to, chunk, chunks);
+
+      String name = "Batch " + (chunk + 1) + "/" + chunks;
+      long start = System.nanoTime();
+
+      try {
+        APIUtilities.sendBatch(batch, BATCH_SUFFIX);
+      }
+      catch (Exception e) {
+        if (listener != null)
+          listener.failed(name, e, total - to);
+        return total - completed;
+      }
+
+      completed = to;
+      if (listener != null)
+        listener.sent(name, (System.nanoTime() - start) / 1000000, completed,
+                      total);
+    }
+
+    return total - completed;
+  }
+
+  /**
+   * This function is used for writing the installation, its person and the
+   * added appliances and models to a stream instead of exporting them. The
+   * document written is the single batch that the batched export would send,
+   * so that it can be stored and sent to the platform later.
+   * 
+   * @param out
+   *          The stream the document is written to.
+   * @throws IOException
+   */
+  public void write (OutputStream out) throws IOException
+  {
+    List<BatchEntity> entities = createEntities();
+    JSONWriter writer = new JSONWriter(out);
+
+    batch(entities, 0, entities.size(), 0, 1).writeJSON(writer);
+    writer.flush();
+  }
+
+  /**
+   * This function is used for creating the JSON document of a batch.
+   * 
+   * @param entities
+   *          The list of all the exported entities.
+   * @param from
+   *          The index of the first entity of the batch.
+   * @param to
+   *          The index after the last entity of the batch.
+   * @param index
+   *          The index of the batch.
+   * @param count
+   *          The number of batches.
+   * @return the source of the document of the batch.
+   */
+  private JSONWriter.Source batch (final List<BatchEntity> entities,
+                                   final int from, final int to,
+                                   final int index, final int count)
+  {
+    return new JSONWriter.Source() {
+      @Override
+      public void writeJSON (JSONWriter writer) throws IOException
+      {
+        writer.beginObject();
+        writer.name("usr_id").value(APIUtilities.getUserID());
+        writer.name("inst_id").value(installation.getInstallationID());
+        writer.name("chunk").value(index);
+        writer.name("chunks").value(count);
+        writer.name("entities").beginArray();
+        for (int i = from; i < to; i++)
+          entities.get(i).writeJSON(writer);
+        writer.endArray();
+        writer.endObject();
+      }
+    };
+  }
+
+  /**
+   * This function is used for generating the ids of all the exported entities
+   * and creating their JSON schemas, in dependency order.
+   * 
+   * @return the list of the entities of the batches.
+   */
+  private List<BatchEntity> createEntities ()
+  {
+    List<BatchEntity> entities = new ArrayList<BatchEntity>();
+    Person person = installation.getPerson();
+
+    installation.setInstallationID(newID());
+    person.setPersonID(newID());
+
+    for (Appliance appliance: appliances)
+      appliance.setApplianceID(newID());
+
+    for (ActivityModel activity: activities) {
+      activity.setActivityID(newID());
+      activity.setActivityModelID(newID());
+
+      for (int type: DISTRIBUTIONS)
+        distribution(activity, type).setDistributionID(newID());
+
+      activity.setDailyID(activity.getDailyTimes().getDistributionID());
+      activity.setDurationID(activity.getDuration().getDistributionID());
+      activity.setStartID(activity.getStartTime().getDistributionID());
+    }
+
+    String oldName = installation.getName();
+    installation.setName(installationName);
+    try {
+      entities.add(entity("inst", installation.getInstallationID(),
+                          installation.toJSON(APIUtilities.getUserID())));
+    }
+    finally {
+      installation.setName(oldName);
+    }
+
+    entities.add(entity("pers", person.getPersonID(),
+                        person.toJSON(installation.getInstallationID())));
+
+    for (Appliance appliance: appliances)
+      entities.add(entity("app", appliance.getApplianceID(), appliance
+              .toJSON(installation.getInstallationID())));
+
+    for (final Appliance appliance: appliances)
+      entities.add(entity("consmod", newID(), new JSONWriter.Source() {
+        @Override
+        public void writeJSON (JSONWriter writer) throws IOException
+        {
+          appliance.writePowerConsumptionModelJSON(writer);
+        }
+      }));
+
+    for (ActivityModel activity: activities)
+      entities.add(entity("act", activity.getActivityID(), activity
+              .activityToJSON(person.getPersonID())));
+
+    for (ActivityModel activity: activities)
+      entities.add(entity("actmod", activity.getActivityModelID(), activity
+              .toJSON(appliancesID(activity))));
+
+    for (final ActivityModel activity: activities)
+      for (int type: DISTRIBUTIONS) {
+        final ProbabilityDistribution distribution =
+          distribution(activity, type);
+        entities.add(entity("distr", distribution.getDistributionID(),
+                            new JSONWriter.Source() {
+                              @Override
+                              public void writeJSON (JSONWriter writer)
+                                throws IOException
+                              {
+                                distribution.writeJSON(writer, activity
+                                        .getActivityModelID());
+                              }
+                            }));
+      }
+
+    return entities;
+  }
+
+  /**
+   * This function is used for creating an entry of a batch.
+   * 
+   * @param type
+   *          The type of the entity, as in the path it is sent to when exported
+   *          on its own.
+   * @param id
+   *          The id of the entity.
+   * @param data
+   *          The JSON schema of the entity, either as a DBObject or as a
+   *          source writing it.
+   * @return the entry of the batch.
+   */
+  private static BatchEntity entity (String type, String id, Object data)
+  {
+    return new BatchEntity(type, id, data);
+  }
+
+  /**
+   * This class is an entry of a batch, written as its type, its id and its
+   * JSON schema.
+   */
+  private static class BatchEntity implements JSONWriter.Source
+  {
+    /**
+     * This variable is the type of the entity.
+     */
+    private final String type;
+
+    /**
+     * This variable is the id of the entity.
+     */
+    private final String id;
+
+    /**
+     * This variable is the JSON schema of the entity, or its source.
+     */
+    private final Object data;
+
+    BatchEntity (String type, String id, Object data)
+    {
+      this.type = type;
+      this.id = id;
+      this.data = data;
+    }
+
+    @Override
+    public void writeJSON (JSONWriter writer) throws IOException
+    {
+      writer.beginObject();
+      writer.name("type").value(type);
+      writer.name("_id").value(id);
+      writer.name("data").value(data);
+      writer.endObject();
+    }
+  }
+
+  /**
+   * This function is used for generating the id of an entity.
+   * 
+   * @return the new id.
+   */
+  private static String newID ()
+  {
+    return new ObjectId().toString();
+  }
+
+  /**
+   * This function is used for submitting a request to the pool of threads.
+   * 
+   * @param request
+   *          The request.
+   */
+  private void submit (Request request)
+  {
+    pending++;
+    completion.submit(request);
+  }
+
+  /**
+   * This function is used for submitting the requests of the activity models,
+   * once all the appliances have been sent.
+   */
+  private void applianceFinished ()
+  {
+    pendingAppliances--;
+
+    if (pendingAppliances == 0)
+      submitActivities();
+  }
+
+  /**
+   * This function is used for submitting the requests of the activities of
+   * all the activity models.
+   */
+  private void submitActivities ()
+  {
+    for (ActivityModel activity: activities)
+      submit(new ActivityRequest(activity));
+  }
+
+  /**
+   * This class is a single request of the export. The request is sent on a
+   * thread of the pool, while the requests depending on it are submitted by
+   * the thread running the export.
+   */
+  private abstract class Request implements Callable<Request>
+  {
+    /**
+     * This variable is the description of the request.
+     */
+    final String name;
+
+    /**
+     * This variable is the time spent on the request in milliseconds.
+     */
+    long millis = 0;
+
+    /**
+     * This variable is the cause of the failure of the request, or null.
+     */
+    Exception error = null;
+
+    /**
+     * The constructor of a request.
+     * 
+     * @param name
+     *          The description of the request.
+     */
+    Request (String name)
+    {
+      this.name = name;
+    }
+
+    @Override
+    public Request call ()
+    {
+      long start = System.nanoTime();
+
+      try {
+        send();
+      }
+      catch (Exception e) {
+        error = e;
+      }
+
+      millis = (System.nanoTime() - start) / 1000000;
+      return this;
+    }
+
+    /**
+     * This function is used for sending the request to the server.
+     * 
+     * @throws Exception
+     */
+    abstract void send () throws Exception;
+
+    /**
+     * This function is used for submitting the requests depending on this
+     * one, after it has been completed successfully.
+     */
+    abstract void next ();
+
+    /**
+     * This function is used after the request has failed, for releasing the
+     * requests waiting on it that do not depend on its result.
+     * 
+     * @return the number of requests skipped due to the failure.
+     */
+    abstract int fail ();
+  }
+
+  /**
+   * This class is the request sending the installation.
+   */
+  private class InstallationRequest extends Request
+  {
+    InstallationRequest ()
+    {
+      super("Installation " + installationName);
+    }
+
+    @Override
+    void send () throws Exception
+    {
+      String oldName = installation.getName();
+      String message;
+
+      installation.setName(installationName);
+      try {
+        message = installation.toJSON(APIUtilities.getUserID()).toString();
+      }
+      finally {
+        installation.setName(oldName);
+      }
+
+      installation.setInstallationID(APIUtilities.sendEntity(message,
+                                                             "/inst"));
+    }
+
+    @Override
+    void next ()
+    {
+      submit(new PersonRequest());
+    }
+
+    @Override
+    int fail ()
+    {
+      return size() - 1;
+    }
+  }
+
+  /**
+   * This class is the request sending the person of the installation.
+   */
+  private class PersonRequest extends Request
+  {
+    PersonRequest ()
+    {
+      super("Person " + installation.getPerson().getName());
+    }
+
+    @Override
+    void send () throws Exception
+    {
+      Person person = installation.getPerson();
+      person.setPersonID(APIUtilities.sendEntity(person
+              .toJSON(installation.getInstallationID()).toString(), "/pers"));
+    }
+
+    @Override
+    void next ()
+    {
+      if (appliances.isEmpty())
+        submitActivities();
+
+      for (Appliance appliance: appliances)
+        submit(new ApplianceRequest(appliance));
+    }
+
+    @Override
+    int fail ()
+    {
+      return size() - 2;
+    }
+  }
+
+  /**
+   * This class is the request sending an appliance.
+   */
+  private class ApplianceRequest extends Request
+  {
+    /**
+     * This variable is the appliance sent.
+     */
+    private final Appliance appliance;
+
+    ApplianceRequest (Appliance appliance)
+    {
+      super("Appliance " + appliance.getName());
+      this.appliance = appliance;
+    }
+
+    @Override
+    void send () throws Exception
+    {
+      appliance.setApplianceID(APIUtilities.sendEntity(appliance
+              .toJSON(installation.getInstallationID()).toString(), "/app"));
+    }
+
+    @Override
+    void next ()
+    {
+      submit(new ConsumptionModelRequest(appliance));
+      applianceFinished();
+    }
+
+    @Override
+    int fail ()
+    {
+      // The activity models are still sent, as they are when exporting them
+      // one by one
+      applianceFinished();
+      return APPLIANCE_REQUESTS - 1;
+    }
+  }
+
+  /**
+   * This class is the request sending the consumption model of an appliance.
+   */
+  private class ConsumptionModelRequest extends Request
+  {
+    /**
+     * This variable is the appliance whose consumption model is sent.
+     */
+    private final Appliance appliance;
+
+    ConsumptionModelRequest (Appliance appliance)
+    {
+      super("Consumption Model " + appliance.getName());
+      this.appliance = appliance;
+    }
+
+    @Override
+    void send () throws Exception
+    {
+      APIUtilities.sendEntity(new JSONWriter.Source() {
+        @Override
+        public void writeJSON (JSONWriter writer) throws IOException
+        {
+          appliance.writePowerConsumptionModelJSON(writer);
+        }
+      }, "/consmod");
+    }
+
+    @Override
+    void next ()
+    {
+    }
+
+    @Override
+    int fail ()
+    {
+      return 0;
+    }
+  }
+
+  /**
+   * This class is the request sending the activity of an activity model.
+   */
+  private class ActivityRequest extends Request
+  {
+    /**
+     * This variable is the activity model whose activity is sent.
+     */
+    private final ActivityModel activity;
+
+    ActivityRequest (ActivityModel activity)
+    {
+      super("Activity " + activity.getName());
+      this.activity = activity;
+    }
+
+    @Override
+    void send () throws Exception
+    {
+      activity.setActivityID(APIUtilities.sendEntity(activity
+              .activityToJSON(installation.getPerson().getPersonID())
+              .toString(), "/act"));
+    }
+
+    @Override
+    void next ()
+    {
+      submit(new ActivityModelRequest(activity));
+    }
+
+    @Override
+    int fail ()
+    {
+      return ACTIVITY_REQUESTS - 1;
+    }
+  }
+
+  /**
+   * This class is the request sending an activity model, before its
+   * distributions are known.
+   */
+  private class ActivityModelRequest extends Request
+  {
+    /**
+     * This variable is the activity model sent.
+     */
+    private final ActivityModel activity;
+
+    /**
+     * This variable is the number of distributions of the activity model not
+     * yet sent.
+     */
+    private int pendingDistributions = DISTRIBUTIONS.length;
+
+    /**
+     * This variable states if the sending of a distribution failed.
+     */
+    private boolean distributionFailed = false;
+
+    ActivityModelRequest (ActivityModel activity)
+    {
+      super("Activity Model " + activity.getName());
+      this.activity = activity;
+    }
+
+    @Override
+    void send () throws Exception
+    {
+      activity.setActivityModelID(APIUtilities.sendEntity(activity
+              .toJSON(appliancesID(activity)).toString(), "/actmod"));
+    }
+
+    @Override
+    void next ()
+    {
+      for (int type: DISTRIBUTIONS)
+        submit(new DistributionRequest(this, type));
+    }
+
+    @Override
+    int fail ()
+    {
+      return ACTIVITY_REQUESTS - 2;
+    }
+
+    /**
+     * This function is used for submitting the update of the activity model
+     * once all of its distributions have been sent.
+     * 
+     * @param failed
+     *          The flag stating that the sending of the distribution failed.
+     * @return true if the update is skipped due to this failure, false
+     *         otherwise.
+     */
+    boolean distributionFinished (boolean failed)
+    {
+      boolean skipped = failed && !distributionFailed;
+
+      distributionFailed |= failed;
+      pendingDistributions--;
+
+      if (pendingDistributions == 0 && !distributionFailed)
+        submit(new UpdateRequest(activity));
+
+      return skipped;
+    }
+  }
+
+  /**
+   * This class is the request sending a distribution of an activity model.
+   */
+  private class DistributionRequest extends Request
+  {
+    /**
+     * This variable is the request of the activity model of the distribution.
+     */
+    private final ActivityModelRequest parent;
+
+    /**
+     * This variable is the type of the distribution.
+     */
+    private final int type;
+
+    DistributionRequest (ActivityModelRequest parent, int type)
+    {
+      super(distributionName(parent.activity, type));
+      this.parent = parent;
+      this.type = type;
+    }
+
+    @Override
+    void send () throws Exception
+    {
+      final ActivityModel activity = parent.activity;
+      final ProbabilityDistribution distribution =
+        distribution(activity, type);
+
+      distribution.setDistributionID(APIUtilities
+              .sendEntity(new JSONWriter.Source() {
+                @Override
+                public void writeJSON (JSONWriter writer) throws IOException
+                {
+                  distribution.writeJSON(writer, activity.getActivityModelID());
+                }
+              }, "/distr"));
+
+      switch (type) {
+      case Constants.DAILY_TIMES:
+        activity.setDailyID(distribution.getDistributionID());
+        break;
+      case Constants.DURATION:
+        activity.setDurationID(distribution.getDistributionID());
+        break;
+      default:
+        activity.setStartID(distribution.getDistributionID());
+      }
+    }
+
+    @Override
+    void next ()
+    {
+      parent.distributionFinished(false);
+    }
+
+    @Override
+    int fail ()
+    {
+      return parent.distributionFinished(true) ? 1 : 0;
+    }
+  }
+
+  /**
+   * This class is the request updating an activity model with the ids of its
+   * distributions.
+   */
+  private class UpdateRequest extends Request
+  {
+    /**
+     * This variable is the activity model updated.
+     */
+    private final ActivityModel activity;
+
+    UpdateRequest (ActivityModel activity)
+    {
+      super("Activity Model Update " + activity.getName());
+      this.activity = activity;
+    }
+
+    @Override
+    void send () throws Exception
+    {
+      APIUtilities.updateEntity(activity.toJSON(appliancesID(activity))
+              .toString(), "/actmod", activity.getActivityModelID());
+    }
+
+    @Override
+    void next ()
+    {
+    }
+
+    @Override
+    int fail ()
+    {
+      return 0;
+    }
+  }
+
+  /**
+   * This function is used for gathering the ids of the appliances
+   * participating in an activity model.
+   * 
+   * @param activity
+   *          The activity model.
+   * @return the array of the appliance ids.
+   */
+  private static String[] appliancesID (ActivityModel activity)
+  {
+    Appliance[] appliancesOf = activity.getAppliancesOf();
+    String[] appliancesID = new String[appliancesOf.length];
+
+    for (int i = 0; i < appliancesOf.length; i++)
+      appliancesID[i] = appliancesOf[i].getApplianceID();
+
+    return appliancesID;
+  }
+
+  /**
+   * This function is used for finding a distribution of an activity model.
+   * 
+   * @param activity
+   *          The activity model.
+   * @param type
+   *          The type of the distribution.
+   * @return the distribution.
+   */
+  private static ProbabilityDistribution distribution (ActivityModel activity,
+                                                       int type)
+  {
+    switch (type) {
+    case Constants.DAILY_TIMES:
+      return activity.getDailyTimes();
+    case Constants.DURATION:
+      return activity.getDuration();
+    default:
+      return activity.getStartTime();
+    }
+  }
+
+  /**
+   * This function is used for describing the request of a distribution of an
+   * activity model.
+   * 
+   * @param activity
+   *          The activity model.
+   * @param type
+   *          The type of the distribution.
+   * @return the description of the request.
+   */
+  private static String distributionName (ActivityModel activity, int type)
+  {
+    switch (type) {
+    case Constants.DAILY_TIMES:
+      return "Daily Times " + activity.getName();
+    case Constants.DURATION:
+      return "Duration " + activity.getName();
+    default:
+      return "Start Time " + activity.getName();
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+/**
+ * This class contains a univariate Gaussian mixture in primitive arrays, as it
+ * is estimated by the one-dimensional KMeans and Expectation Maximization
+ * methods working on a Sample1D.
+ */
+public class GaussianMixture1D
+{
+
+  /**
+   * This variable is the logarithm of the square root of 2 * pi.
+   */
+  static final double LOG_SQRT_2PI = 0.5 * Math.log(2 * Math.PI);
+
+  /**
+   * This is the array of the weights of the mixture components.
+   */
+  final double[] weights;
+
+  /**
+   * This is the array of the mean values of the mixture components.
+   */
+  final double[] means;
+
+  /**
+   * This is the array of the standard deviations of the mixture components.
+   */
+  final double[] sigmas;
+
+  /**
+   * The constructor of a mixture of k components with zero parameters.
+   * 
+   * @param k
+   *          The number of components.
+   */
+  public GaussianMixture1D (int k)
+  {
+    weights = new double[k];
+    means = new double[k];
+    sigmas = new double[k];
+  }
+
+  /**
+   * This is a getter function of the number of mixture components.
+   * 
+   * @return the number of components.
+   */
+  public int size ()
+  {
+    return weights.length;
+  }
+
+  /**
+   * This function creates a copy of the mixture.
+   * 
+   * @return the copy of the mixture.
+   */
+  public GaussianMixture1D copy ()
+  {
+    GaussianMixture1D copy = new GaussianMixture1D(size());
+    System.arraycopy(weights, 0, copy.weights, 0, size());
+    System.arraycopy(means, 0, copy.means, 0, size());
+    System.arraycopy(sigmas, 0, copy.sigmas, 0, size());
+    return copy;
+  }
+
+  /**
+   * This function computes the logarithm of the weighted density of a
+   * component at a given point.
+   * 
+   * @param component
+   *          The index of the component.
+   * @param x
+   *          The point.
+   * @return the logarithm of the weighted density.
+   */
+  double logWeightedDensity (int component, double x)
+  {
+    double z = (x - means[component]) / sigmas[component];
+    return Math.log(weights[component]) - Math.log(sigmas[component])
+           - LOG_SQRT_2PI - 0.5 * z * z;
+  }
+
+  /**
+   * This function computes the logarithm of the density of the mixture at a
+   * given point, scaling the terms by the largest one to avoid underflow far
+   * from the components.
+   * 
+   * @param x
+   *          The point.
+   * @return the logarithm of the density.
+   */
+  public double logDensity (double x)
+  {
+    double max = Double.NEGATIVE_INFINITY;
+
+    for (int c = 0; c < weights.length; c++)
+      max = Math.max(max, logWeightedDensity(c, x));
+
+    if (max == Double.NEGATIVE_INFINITY)
+      return max;
+
+    double sum = 0;
+    for (int c = 0; c < weights.length; c++)
+      sum += Math.exp(logWeightedDensity(c, x) - max);
+
+    return max + Math.log(sum);
+  }
+
+  /**
+   * This function computes the log likelihood of a sample given the mixture.
+   * 
+   * @param sample
+   *          The sample.
+   * @return the log likelihood.
+   */
+  public double logLikelihood (Sample1D sample)
+  {
+    double value = 0;
+
+    for (int i = 0; i < sample.values.length; i++)
+      if (sample.weights[i] > 0)
+        value += sample.weights[i] * logDensity(sample.values[i]);
+
+    return value;
+  }
+
+  /**
+   * This function exports the mixture to the parameters passed to the
+   * distribution constructors.
+   * 
+   * @param maxValue
+   *          The maximum value of the random variable.
+   * @return the parameters of the mixture.
+   */
+  public MixtureParameters toParameters (int maxValue)
+  {
+    return new MixtureParameters(maxValue, weights, means, sigmas);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return toParameters(0).toString();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+import java.util.Arrays;
+
+/**
+ * This class is a minimal growable array of primitive doubles, used in place of
+ * an ArrayList<Double> when large series of measurements must be collected
+ * without boxing every sample.
+ */
+public class GrowableDoubleArray
+{
+
+  /**
+   * This variable is the default initial capacity of the array.
+   */
+  private static final int DEFAULT_CAPACITY = 1024;
+
+  /**
+   * This variable is the backing array of the values.
+   */
+  private double[] values;
+
+  /**
+   * This variable is the number of values added so far.
+   */
+  private int size = 0;
+
+  /**
+   * The simple constructor of a growable array.
+   */
+  public GrowableDoubleArray ()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * The constructor of a growable array with a given initial capacity.
+   *
+   * @param capacity
+   *          The initial capacity of the array.
+   */
+  public GrowableDoubleArray (int capacity)
+  {
+    values = new double[Math.max(1, capacity)];
+  }
+
+  /**
+   * This function is used for appending a value at the end of the array.
+   *
+   * @param value
+   *          The value to be appended.
+   */
+  public void add (double value)
+  {
+    if (size == values.length)
+      values = Arrays.copyOf(values, grow(values.length));
+    values[size++] = value;
+  }
+
+  /**
+   * This is a getter function of a value of the array.
+   *
+   * @param index
+   *          The index of the value.
+   * @return the value at the given index.
+   */
+  public double get (int index)
+  {
+    if (index >= size)
+      throw new ArrayIndexOutOfBoundsException(index);
+    return values[index];
+  }
+
+  /**
+   * This is a getter function of the number of values in the array.
+   *
+   * @return the number of values added.
+   */
+  public int size ()
+  {
+    return size;
+  }
+
+  /**
+   * This function is used for emptying the array while keeping its capacity.
+   */
+  public void clear ()
+  {
+    size = 0;
+  }
+
+  /**
+   * This function returns the values of the array, trimmed to their actual
+   * size. If the backing array is already full it is returned as is, avoiding
+   * a final copy.
+   *
+   * @return an array of the values added.
+   */
+  public double[] toArray ()
+  {
+    if (size == values.length)
+      return values;
+    return Arrays.copyOf(values, size);
+  }
+
+  /**
+   * This function computes the next capacity of the backing array, growing it
+   * by half of its current size.
+   *
+   * @param capacity
+   *          The current capacity.
+   * @return the new capacity.
+   */
+  private static int grow (int capacity)
+  {
+    int newCapacity = capacity + (capacity >> 1) + 1;
+    if (newCapacity < 0)
+      newCapacity = Integer.MAX_VALUE - 8;
+    return newCapacity;
+  }
+}
@@ -0,0 +1,452 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import com.mongodb.DBObject;
+
+/**
+ * This class is used for writing JSON documents straight to a stream, without
+ * building an object tree or a string of the whole document first. The output
+ * has the same layout as the one of the JSON serializer of the MongoDB driver,
+ * so that a model written here is identical to the string of its DBObject.
+ */
+public class JSONWriter
+{
+
+  /**
+   * This interface is implemented by the models that can be written to a
+   * stream as a JSON document.
+   */
+  public interface Source
+  {
+    /**
+     * This function is used for writing the JSON document of the model.
+     * 
+     * @param writer
+     *          The writer of the document.
+     * @throws IOException
+     */
+    public void writeJSON (JSONWriter writer) throws IOException;
+  }
+
+  /**
+   * This variable is the maximum depth of nested objects and arrays.
+   */
+  private static final int MAX_DEPTH = 64;
+
+  /**
+   * This variable is the writer the document is written to.
+   */
+  private final Writer out;
+
+  /**
+   * This array contains, for each open object or array, the flag stating that
+   * it has no elements yet.
+   */
+  private final boolean[] empty = new boolean[MAX_DEPTH];
+
+  /**
+   * This variable is the buffer the numbers are formatted in, reused so that
+   * writing large arrays creates no strings.
+   */
+  private final StringBuilder number = new StringBuilder(32);
+
+  /**
+   * This array contains the characters of the last formatted number.
+   */
+  private char[] digits = new char[32];
+
+  /**
+   * This variable is the number of objects and arrays currently open.
+   */
+  private int depth = 0;
+
+  /**
+   * This variable states that a name has been written and its value is
+   * expected next.
+   */
+  private boolean named = false;
+
+  /**
+   * The constructor of a JSON writer writing to an output stream with the
+   * UTF-8 encoding.
+   * 
+   * @param out
+   *          The output stream.
+   */
+  public JSONWriter (OutputStream out)
+  {
+    this(new BufferedWriter(new OutputStreamWriter(out, Charset
+            .forName("UTF-8"))));
+  }
+
+  /**
+   * The constructor of a JSON writer writing to a character stream.
+   * 
+   * @param out
+   *          The character stream.
+   */
+  public JSONWriter (Writer out)
+  {
+    this.out = out;
+  }
+
+  /**
+   * This function is used for starting a JSON object.
+   * 
+   * @return the writer itself.
+   * @throws IOException
+   */
+  public JSONWriter beginObject () throws IOException
+  {
+    return open("{ ");
+  }
+
+  /**
+   * This function is used for ending the current JSON object.
+   * 
+   * @return the writer itself.
+   * @throws IOException
+   */
+  public JSONWriter endObject () throws IOException
+  {
+    return close('}');
+  }
+
+  /**
+   * This function is used for starting a JSON array.
+   * 
+   * @return the writer itself.
+   * @throws IOException
+   */
+  public JSONWriter beginArray () throws IOException
+  {
+    return open("[ ");
+  }
+
+  /**
+   * This function is used for ending the current JSON array.
+   * 
+   * @return the writer itself.
+   * @throws IOException
+   */
+  public JSONWriter endArray () throws IOException
+  {
+    return close(']');
+  }
+
+  /**
+   * This function is used for writing the name of the next field of the
+   * current JSON object.
+   * 
+   * @param name
+   *          The name of the field.
+   * @return the writer itself.
+   * @throws IOException
+   */
+  public JSONWriter name (String name) throws IOException
+  {
+    separate();
+    string(name);
+    out.write(" : ");
+    named = true;
+    return this;
+  }
+
+  /**
+   * This function is used for writing a string value.
+   * 
+   * @param value
+   *          The string, or null.
+   * @return the writer itself.
+   * @throws IOException
+   */
+  public JSONWriter value (String value) throws IOException
+  {
+    if (value == null)
+      return nullValue();
+
+    separate();
+    string(value);
+    return this;
+  }
+
+  /**
+   * This function is used for writing a numeric value.
+   * 
+   * @param value
+   *          The number.
+   * @return the writer itself.
+   * @throws IOException
+   */
+  public JSONWriter value (double value) throws IOException
+  {
+    separate();
+    number.setLength(0);
+    number.append(value);
+    return number();
+  }
+
+  /**
+   * This function is used for writing an integer value.
+   * 
+   * @param value
+   *          The integer.
+   * @return the writer itself.
+   * @throws IOException
+   */
+  public JSONWriter value (int value) throws IOException
+  {
+    separate();
+    number.setLength(0);
+    number.append(value);
+    return number();
+  }
+
+  /**
+   * This function is used for writing an array of numbers.
+   * 
+   * @param values
+   *          The array of numbers.
+   * @return the writer itself.
+   * @throws IOException
+   */
+  public JSONWriter value (double[] values) throws IOException
+  {
+    beginArray();
+    for (double value: values)
+      value(value);
+    return endArray();
+  }
+
+  /**
+   * This function is used for writing the null value.
+   * 
+   * @return the writer itself.
+   * @throws IOException
+   */
+  public JSONWriter nullValue () throws IOException
+  {
+    separate();
+    out.write(" null ");
+    return this;
+  }
+
+  /**
+   * This function is used for writing a value of the types the JSON
+   * serializer of the MongoDB driver supports for the models: DBObjects, maps,
+   * iterables, arrays, strings, numbers, booleans and sources.
+   * 
+   * @param value
+   *          The value.
+   * @return the writer itself.
+   * @throws IOException
+   */
+  public JSONWriter value (Object value) throws IOException
+  {
+    if (value == null)
+      return nullValue();
+
+    if (value instanceof String)
+      return value((String) value);
+
+    if (value instanceof Number || value instanceof Boolean) {
+      separate();
+      out.write(value.toString());
+      return this;
+    }
+
+    // A source writes a single value, separating it itself
+    if (value instanceof Source) {
+      ((Source) value).writeJSON(this);
+      return this;
+    }
+
+    if (value instanceof DBObject && !(value instanceof Iterable)) {
+      DBObject object = (DBObject) value;
+      beginObject();
+      for (String key: object.keySet())
+        name(key).value(object.get(key));
+      return endObject();
+    }
+
+    if (value instanceof Map) {
+      beginObject();
+      for (Map.Entry<?, ?> entry: ((Map<?, ?>) value).entrySet())
+        name(entry.getKey().toString()).value(entry.getValue());
+      return endObject();
+    }
+
+    if (value instanceof Iterable) {
+      beginArray();
+      for (Object item: (Iterable<?>) value)
+        value(item);
+      return endArray();
+    }
+
+    if (value.getClass().isArray()) {
+      beginArray();
+      for (int i = 0; i < Array.getLength(value); i++)
+        value(Array.get(value, i));
+      return endArray();
+    }
+
+    throw new IllegalArgumentException("Cannot write "
+                                       + value.getClass().getName()
+                                       + " as JSON");
+  }
+
+  /**
+   * This function is used for flushing the written document to the
+   * underlying stream, which is left open.
+   * 
+   * @throws IOException
+   */
+  public void flush () throws IOException
+  {
+    out.flush();
+  }
+
+  /**
+   * This function is used for writing the number formatted in the buffer.
+   * 
+   * @return the writer itself.
+   * @throws IOException
+   */
+  private JSONWriter number () throws IOException
+  {
+    int length = number.length();
+
+    if (digits.length < length)
+      digits = new char[length];
+
+    number.getChars(0, length, digits, 0);
+    out.write(digits, 0, length);
+    return this;
+  }
+
+  /**
+   * This function is used for opening a JSON object or array.
+   * 
+   * @param start
+   *          The characters starting the object or array.
+   * @return the writer itself.
+   * @throws IOException
+   */
+  private JSONWriter open (String start) throws IOException
+  {
+    if (depth == MAX_DEPTH)
+      throw new IllegalStateException("JSON document nested too deeply");
+
+    separate();
+    out.write(start);
+    empty[depth++] = true;
+    return this;
+  }
+
+  /**
+   * This function is used for closing the current JSON object or array.
+   * 
+   * @param end
+   *          The character ending the object or array.
+   * @return the writer itself.
+   * @throws IOException
+   */
+  private JSONWriter close (char end) throws IOException
+  {
+    if (depth == 0)
+      throw new IllegalStateException("No JSON object or array to close");
+
+    depth--;
+    out.write(end);
+    return this;
+  }
+
+  /**
+   * This function is used before writing a value or a field name, for writing
+   * the separator from the previous element of the current object or array.
+   * 
+   * @throws IOException
+   */
+  private void separate () throws IOException
+  {
+    if (named) {
+      named = false;
+      return;
+    }
+
+    if (depth == 0)
+      return;
+
+    if (empty[depth - 1])
+      empty[depth - 1] = false;
+    else
+      out.write(" , ");
+  }
+
+  /**
+   * This function is used for writing a quoted string, escaped as done by the
+   * JSON serializer of the MongoDB driver.
+   * 
+   * @param value
+   *          The string.
+   * @throws IOException
+   */
+  private void string (String value) throws IOException
+  {
+    out.write('"');
+
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+
+      switch (c) {
+      case '\\':
+        out.write("\\\\");
+        break;
+      case '"':
+        out.write("\\\"");
+        break;
+      case '\n':
+        out.write("\\n");
+        break;
+      case '\r':
+        out.write("\\r");
+        break;
+      case '\t':
+        out.write("\\t");
+        break;
+      case '\b':
+        out.write("\\b");
+        break;
+      default:
+        if (c >= ' ')
+          out.write(c);
+      }
+    }
+
+    out.write('"');
+  }
+}
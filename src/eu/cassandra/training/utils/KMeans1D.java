@@ -0,0 +1,157 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class performs a k-means clustering of a one-dimensional sample given
+ * as distinct values with weights. Each distinct value is assigned as a whole,
+ * the centroids are weighted means and no objects are created while
+ * iterating.
+ */
+public class KMeans1D
+{
+
+  /**
+   * Maximum number of iterations permitted.
+   */
+  private static final int MAX_ITERATIONS = 30;
+
+  /**
+   * Performs a k-means on the sample to compute k clusters. The number of
+   * clusters must not exceed the number of distinct values with positive
+   * weight.
+   * 
+   * @param sample
+   *          the sample
+   * @param k
+   *          number of clusters
+   * @param rand
+   *          random number generator used for picking the initial centroids
+   * @param cancelled
+   *          flag checked at each iteration, stopping the clustering early
+   *          when set, or null
+   * @return the cluster of each distinct value of the sample
+   */
+  public static int[] run (Sample1D sample, int k, Random rand,
+                           AtomicBoolean cancelled)
+  {
+    double[] values = sample.values;
+    double[] weights = sample.weights;
+    int d = values.length;
+
+    double[] centroids = initialize(sample, k, rand);
+    double[] sums = new double[k];
+    double[] clusterWeights = new double[k];
+    int[] clusters = new int[d];
+
+    int it = 0;
+    boolean changed = true;
+
+    while (changed && it < MAX_ITERATIONS
+           && (cancelled == null || !cancelled.get())) {
+
+      // Repartition step
+      changed = false;
+      for (int i = 0; i < d; i++) {
+        int index = 0;
+        double dist = Double.MAX_VALUE;
+        for (int j = 0; j < k; j++) {
+          double diff = values[i] - centroids[j];
+          double distTmp = diff * diff;
+          if (distTmp < dist) {
+            dist = distTmp;
+            index = j;
+          }
+        }
+        if (it == 0 || clusters[i] != index) {
+          clusters[i] = index;
+          changed = true;
+        }
+      }
+
+      // Centroid step, keeping the previous centroid of an empty cluster
+      for (int j = 0; j < k; j++) {
+        sums[j] = 0;
+        clusterWeights[j] = 0;
+      }
+      for (int i = 0; i < d; i++) {
+        sums[clusters[i]] += weights[i] * values[i];
+        clusterWeights[clusters[i]] += weights[i];
+      }
+      for (int j = 0; j < k; j++)
+        if (clusterWeights[j] > 0)
+          centroids[j] = sums[j] / clusterWeights[j];
+
+      it++;
+    }
+
+    return clusters;
+  }
+
+  /**
+   * Initializes the k-means by randomly picking distinct values of the sample,
+   * each with probability proportional to its weight.
+   * 
+   * @param sample
+   *          the sample
+   * @param k
+   *          number of clusters
+   * @param rand
+   *          random number generator
+   * @return the initial centroids
+   */
+  private static double[] initialize (Sample1D sample, int k, Random rand)
+  {
+    double[] values = sample.values;
+    double[] weights = sample.weights;
+
+    double[] centroids = new double[k];
+    boolean[] picked = new boolean[values.length];
+
+    for (int j = 0; j < k; j++) {
+
+      // Draw among the values not picked yet
+      double remaining = 0;
+      for (int i = 0; i < values.length; i++)
+        if (!picked[i])
+          remaining += weights[i];
+
+      double target = rand.nextDouble() * remaining;
+      int index = -1;
+
+      for (int i = 0; i < values.length; i++) {
+        if (picked[i] || weights[i] <= 0)
+          continue;
+        index = i;
+        target -= weights[i];
+        if (target < 0)
+          break;
+      }
+
+      if (index == -1)
+        throw new IllegalArgumentException("Fewer distinct values than clusters");
+
+      picked[index] = true;
+      centroids[j] = values[index];
+    }
+
+    return centroids;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+import org.joda.time.DateTime;
+
+/**
+ * This class contains the result of validating and loading a measurements file
+ * in a single pass: the power measurements and their start and end dates, or
+ * the line of the file where an error was found.
+ */
+public class Measurements
+{
+
+  /**
+   * This variable contains the start date of the measurements.
+   */
+  private final DateTime startDate;
+
+  /**
+   * This variable contains the end date of the measurements.
+   */
+  private final DateTime endDate;
+
+  /**
+   * This is an array of the active power measurements.
+   */
+  private final double[] activePower;
+
+  /**
+   * This is an array of the reactive power measurements, or null if only
+   * active power is available.
+   */
+  private final double[] reactivePower;
+
+  /**
+   * This variable contains the line of error, or -1 if no error was found.
+   */
+  private final int errorLine;
+
+  /**
+   * The constructor of the measurements result. The end date is derived from
+   * the start date, one minute per sample.
+   *
+   * @param startDate
+   *          The start date of the measurements, or null if not available.
+   * @param activePower
+   *          The active power measurements.
+   * @param reactivePower
+   *          The reactive power measurements, or null.
+   * @param errorLine
+   *          The line of error, or -1 if no error was found.
+   */
+  public Measurements (DateTime startDate, double[] activePower,
+                       double[] reactivePower, int errorLine)
+  {
+    this.startDate = startDate;
+    this.endDate =
+      (startDate == null) ? null : startDate.plusMinutes(activePower.length);
+    this.activePower = activePower;
+    this.reactivePower = reactivePower;
+    this.errorLine = errorLine;
+  }
+
+  /**
+   * This is a getter function of the start date of the measurements.
+   *
+   * @return the start date of the measurements.
+   */
+  public DateTime getStartDate ()
+  {
+    return startDate;
+  }
+
+  /**
+   * This is a getter function of the end date of the measurements.
+   *
+   * @return the end date of the measurements.
+   */
+  public DateTime getEndDate ()
+  {
+    return endDate;
+  }
+
+  /**
+   * This is a getter function of the active power measurements.
+   *
+   * @return the array of the active power measurements.
+   */
+  public double[] getActivePower ()
+  {
+    return activePower;
+  }
+
+  /**
+   * This is a getter function of the reactive power measurements.
+   *
+   * @return the array of the reactive power measurements, or null.
+   */
+  public double[] getReactivePower ()
+  {
+    return reactivePower;
+  }
+
+  /**
+   * This is a getter function of the line of error.
+   *
+   * @return the line of error or -1 if no error was found.
+   */
+  public int getErrorLine ()
+  {
+    return errorLine;
+  }
+
+  /**
+   * This function states if the measurements were loaded without errors.
+   *
+   * @return true if no error was found, false otherwise.
+   */
+  public boolean isValid ()
+  {
+    return errorLine == -1;
+  }
+}
@@ -0,0 +1,400 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.joda.time.DateTime;
+
+/**
+ * This class is a streaming parser for the .csv measurement files of an
+ * installation. The file is read as a buffered byte stream and the power values
+ * are parsed directly into primitive arrays, without creating a String per line
+ * or boxing each sample. The file is validated while it is loaded, so that a
+ * single pass both reports the first erroneous line and returns the data.
+ */
+public class MeasurementsReader
+{
+
+  /**
+   * This variable is the size of the read buffer in bytes.
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * This variable is the maximum field length that is parsed without falling
+   * back to the standard library parser.
+   */
+  private static final int MAX_FIELD_LENGTH = 64;
+
+  /**
+   * This variable is the largest mantissa that is exactly representable as a
+   * double.
+   */
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  /**
+   * This variable contains the powers of ten that are exactly representable as
+   * doubles.
+   */
+  private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4,
+                                                  1e5, 1e6, 1e7, 1e8, 1e9,
+                                                  1e10, 1e11, 1e12, 1e13,
+                                                  1e14, 1e15, 1e16, 1e17,
+                                                  1e18, 1e19, 1e20, 1e21,
+                                                  1e22 };
+
+  /**
+   * This variable is the stream of the measurements file.
+   */
+  private final InputStream input;
+
+  /**
+   * This variable is the read buffer.
+   */
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+
+  /**
+   * This variable is the current position in the read buffer.
+   */
+  private int position = 0;
+
+  /**
+   * This variable is the number of valid bytes in the read buffer.
+   */
+  private int limit = 0;
+
+  /**
+   * This variable is a scratch buffer holding the characters of the field
+   * currently being parsed.
+   */
+  private final byte[] field = new byte[MAX_FIELD_LENGTH];
+
+  /**
+   * This variable is the length of the field currently held in the scratch
+   * buffer.
+   */
+  private int fieldLength = 0;
+
+  /**
+   * This variable is the line currently being parsed, starting from 1.
+   */
+  private int line = 0;
+
+  /**
+   * The constructor of a measurements reader.
+   *
+   * @param input
+   *          The stream of the measurements file.
+   */
+  public MeasurementsReader (InputStream input)
+  {
+    this.input = input;
+  }
+
+  /**
+   * This function is used for validating and loading a .csv measurements file
+   * in a single pass. The first column of the first line is used for the start
+   * date of the measurements, the second column holds the active power and, if
+   * requested, the third column holds the reactive power. Reading stops at the
+   * first line that does not have this format.
+   *
+   * @param filename
+   *          The name of the measurements file.
+   * @param activeOnly
+   *          The flag stating if only the active power is available.
+   * @return the measurements read, with the line of error if one was found.
+   * @throws IOException
+   */
+  public static Measurements readCSV (String filename, boolean activeOnly)
+    throws IOException
+  {
+    try (InputStream in = new FileInputStream(filename)) {
+      return new MeasurementsReader(in).read(activeOnly);
+    }
+  }
+
+  /**
+   * This function parses the whole stream, line by line, until the end of the
+   * stream or the first erroneous line. Each line must contain exactly two
+   * columns, or three if the reactive power is available. Blank lines are
+   * accepted only at the end of the stream.
+   *
+   * @param activeOnly
+   *          The flag stating if only the active power is available.
+   * @return the measurements read, with the line of error if one was found.
+   * @throws IOException
+   */
+  public Measurements read (boolean activeOnly) throws IOException
+  {
+    GrowableDoubleArray active = new GrowableDoubleArray();
+    GrowableDoubleArray reactive = activeOnly ? null : new GrowableDoubleArray();
+
+    DateTime startDate = null;
+    int errorLine = -1;
+    int blankLine = -1;
+
+    int c = next();
+
+    while (c != -1) {
+
+      line++;
+
+      if (c == '\r' || c == '\n') {
+        if (blankLine == -1)
+          blankLine = line;
+        c = skipLineEnd(c);
+        continue;
+      }
+
+      if (blankLine != -1) {
+        errorLine = blankLine;
+        break;
+      }
+
+      try {
+        // First column: the timestamp, only needed for the first line
+        if (startDate == null) {
+          c = readField(c);
+          startDate = parseStartDate(fieldString());
+        }
+        else
+          c = skipField(c);
+
+        if (c != ',')
+          throw new MalformedLineException();
+
+        c = readField(next());
+        active.add(parseField());
+
+        if (!activeOnly) {
+          if (c != ',')
+            throw new MalformedLineException();
+
+          c = readField(next());
+          reactive.add(parseField());
+        }
+
+        if (c == ',')
+          throw new MalformedLineException();
+      }
+      catch (MalformedLineException | NumberFormatException
+             | IndexOutOfBoundsException e) {
+        errorLine = line;
+        break;
+      }
+
+      c = skipLineEnd(c);
+    }
+
+    return new Measurements(startDate, active.toArray(),
+                            activeOnly ? null : reactive.toArray(), errorLine);
+  }
+
+  /**
+   * This function is used for creating the start date of the measurements out
+   * of the first column of the first line. A value of "1" signifies a file
+   * without dates, otherwise the column begins with the date in yyyyMMdd form.
+   *
+   * @param timestamp
+   *          The first column of the first line.
+   * @return the start date of the measurements.
+   */
+  public static DateTime parseStartDate (String timestamp)
+  {
+    if (timestamp.equalsIgnoreCase("1"))
+      return new DateTime(2012, 01, 01, 00, 00);
+
+    int year = Integer.parseInt(timestamp.substring(0, 4));
+    int month = Integer.parseInt(timestamp.substring(4, 6));
+    int day = Integer.parseInt(timestamp.substring(6, 8));
+
+    return new DateTime(year, month, day, 0, 0);
+  }
+
+  /**
+   * This function returns the next byte of the stream, refilling the buffer
+   * when needed.
+   *
+   * @return the next byte or -1 at the end of the stream.
+   * @throws IOException
+   */
+  private int next () throws IOException
+  {
+    if (position == limit) {
+      limit = input.read(buffer, 0, BUFFER_SIZE);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return -1;
+      }
+    }
+    return buffer[position++] & 0xFF;
+  }
+
+  /**
+   * This function consumes the line terminator starting with the given byte.
+   *
+   * @param c
+   *          The current byte.
+   * @return the first byte of the next line.
+   * @throws IOException
+   */
+  private int skipLineEnd (int c) throws IOException
+  {
+    if (c == '\r') {
+      c = next();
+      if (c == '\n')
+        c = next();
+    }
+    else if (c == '\n')
+      c = next();
+    return c;
+  }
+
+  /**
+   * This function skips a column without storing its contents.
+   *
+   * @param c
+   *          The first byte of the column.
+   * @return the byte terminating the column.
+   * @throws IOException
+   */
+  private int skipField (int c) throws IOException
+  {
+    while (c != -1 && c != ',' && c != '\n' && c != '\r')
+      c = next();
+    return c;
+  }
+
+  /**
+   * This function reads a column into the scratch buffer. Columns longer than
+   * the scratch buffer are considered malformed.
+   *
+   * @param c
+   *          The first byte of the column.
+   * @return the byte terminating the column.
+   * @throws IOException
+   */
+  private int readField (int c) throws IOException, MalformedLineException
+  {
+    fieldLength = 0;
+    while (c != -1 && c != ',' && c != '\n' && c != '\r') {
+      if (fieldLength == MAX_FIELD_LENGTH)
+        throw new MalformedLineException();
+      field[fieldLength++] = (byte) c;
+      c = next();
+    }
+    return c;
+  }
+
+  /**
+   * This function returns the contents of the scratch buffer as a String.
+   *
+   * @return the column as a String.
+   */
+  private String fieldString ()
+  {
+    return new String(field, 0, fieldLength, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * This function parses the number held in the scratch buffer. Plain decimal
+   * numbers whose digits fit in a double mantissa are computed directly, which
+   * gives the correctly rounded result; anything else is handed to
+   * Double.parseDouble so that the result is always identical to it.
+   *
+   * @return the parsed value.
+   * @throws NumberFormatException
+   */
+  private double parseField ()
+  {
+    int start = 0;
+    int end = fieldLength;
+
+    while (start < end && field[start] <= ' ')
+      start++;
+    while (end > start && field[end - 1] <= ' ')
+      end--;
+
+    int i = start;
+    boolean negative = false;
+
+    if (i < end && (field[i] == '-' || field[i] == '+')) {
+      negative = field[i] == '-';
+      i++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean dot = false;
+    boolean anyDigit = false;
+    boolean fast = true;
+
+    for (; i < end; i++) {
+      byte b = field[i];
+      if (b >= '0' && b <= '9') {
+        anyDigit = true;
+        if (mantissa != 0 || b != '0')
+          digits++;
+        if (digits > 18) {
+          fast = false;
+          break;
+        }
+        mantissa = mantissa * 10 + (b - '0');
+        if (dot)
+          exponent--;
+      }
+      else if (b == '.' && !dot)
+        dot = true;
+      else {
+        fast = false;
+        break;
+      }
+    }
+
+    if (fast && anyDigit && mantissa < MAX_EXACT_MANTISSA && exponent >= -22) {
+      double value =
+        (mantissa == 0) ? 0 : (double) mantissa / POWERS_OF_TEN[-exponent];
+      return negative ? -value : value;
+    }
+
+    return Double.parseDouble(fieldString());
+  }
+
+  /**
+   * This is a getter function of the number of lines read so far.
+   *
+   * @return the number of lines read.
+   */
+  public int getLine ()
+  {
+    return line;
+  }
+
+  /**
+   * This exception signifies a line that does not have the expected format.
+   */
+  private static class MalformedLineException extends Exception
+  {
+    private static final long serialVersionUID = 1L;
+  }
+}
@@ -0,0 +1,517 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+import org.joda.time.DateTime;
+
+/**
+ * This class is a compact columnar binary store of the measurements of an
+ * installation. The store is written once, when a measurements file is first
+ * imported, and every later load memory-maps it, so that the samples are read
+ * straight from the page cache instead of re-parsing the text file and without
+ * keeping a copy of them on the heap.
+ *
+ * The file consists of a fixed size header followed by the active power column
+ * and, if available, the reactive power column, each as consecutive doubles.
+ * The header contains the start date, the sampling interval, the flags of the
+ * available columns, the number of samples and the length and modification
+ * time of the source file, used to detect stale stores.
+ */
+public class MeasurementsStore
+{
+
+  /**
+   * This variable is the magic number identifying a measurements store.
+   */
+  private static final int MAGIC = 0x43534D53;
+
+  /**
+   * This variable is the version of the store format.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * This variable is the size of the header in bytes, chosen so that the
+   * columns are aligned.
+   */
+  private static final int HEADER_SIZE = 64;
+
+  /**
+   * This variable is the flag of the active power column.
+   */
+  public static final int ACTIVE = 1;
+
+  /**
+   * This variable is the flag of the reactive power column.
+   */
+  public static final int REACTIVE = 2;
+
+  /**
+   * This variable is the value of the start date field when the source file did
+   * not provide a start date.
+   */
+  private static final long NO_DATE = Long.MIN_VALUE;
+
+  /**
+   * This variable is the extension of the store files.
+   */
+  public static final String EXTENSION = ".msr";
+
+  /**
+   * This variable is the size in bytes of the buffer the columns are written
+   * through.
+   */
+  private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+  /**
+   * This variable contains the start date of the measurements.
+   */
+  private final DateTime startDate;
+
+  /**
+   * This variable contains the sampling interval of the measurements in
+   * seconds.
+   */
+  private final int interval;
+
+  /**
+   * This variable contains the flags of the available columns.
+   */
+  private final int flags;
+
+  /**
+   * This variable contains the number of samples of each column.
+   */
+  private final int size;
+
+  /**
+   * This is the memory-mapped active power column.
+   */
+  private final DoubleBuffer activePower;
+
+  /**
+   * This is the memory-mapped reactive power column, or null if not available.
+   */
+  private final DoubleBuffer reactivePower;
+
+  private MeasurementsStore (DateTime startDate, int interval, int flags,
+                             int size, DoubleBuffer activePower,
+                             DoubleBuffer reactivePower)
+  {
+    this.startDate = startDate;
+    this.interval = interval;
+    this.flags = flags;
+    this.size = size;
+    this.activePower = activePower;
+    this.reactivePower = reactivePower;
+  }
+
+  /**
+   * This function returns the store file used for a measurements file. The
+   * store is kept in the temporary folder and its name contains a hash of the
+   * absolute path of the source, so that files with the same name in different
+   * folders do not collide.
+   *
+   * @param measurementsFile
+   *          The file name of the measurements file.
+   * @return the store file.
+   */
+  public static File storeFileFor (String measurementsFile)
+  {
+    File source = new File(measurementsFile);
+    String name = source.getName();
+    int dot = name.lastIndexOf('.');
+    if (dot > 0)
+      name = name.substring(0, dot);
+
+    return new File(Constants.tempFolder, name + "-"
+                                          + Integer.toHexString(source
+                                                  .getAbsolutePath()
+                                                  .hashCode()) + EXTENSION);
+  }
+
+  /**
+   * This function is used for opening the store of a measurements file. The
+   * store is used only if it exists, is up to date with the source file and
+   * contains the requested columns.
+   *
+   * @param storeFile
+   *          The store file.
+   * @param measurementsFile
+   *          The file name of the measurements file the store was created
+   *          from.
+   * @param activeOnly
+   *          The flag stating if only the active power is needed.
+   * @return the opened store, or null if it cannot be used.
+   * @throws IOException
+   */
+  public static MeasurementsStore open (File storeFile,
+                                        String measurementsFile,
+                                        boolean activeOnly) throws IOException
+  {
+    if (!storeFile.isFile() || storeFile.length() < HEADER_SIZE)
+      return null;
+
+    try (RandomAccessFile file = new RandomAccessFile(storeFile, "r");
+         FileChannel channel = file.getChannel()) {
+
+      ByteBuffer header = readHeader(channel, measurementsFile, activeOnly);
+
+      if (header == null)
+        return null;
+
+      // Skipping the magic number and the version, already checked
+      header.position(8);
+      long start = header.getLong();
+      int interval = header.getInt();
+      int flags = header.getInt();
+      int size = header.getInt();
+
+      long columnBytes = (long) size * 8;
+
+      DoubleBuffer active =
+        channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, columnBytes)
+                .asDoubleBuffer();
+
+      DoubleBuffer reactive = null;
+      if (!activeOnly)
+        reactive =
+          channel.map(FileChannel.MapMode.READ_ONLY,
+                      HEADER_SIZE + columnBytes, columnBytes).asDoubleBuffer();
+
+      // The modification time of the store marks its last use, so that
+      // stores not used for a long time can be evicted
+      storeFile.setLastModified(System.currentTimeMillis());
+
+      return new MeasurementsStore(start == NO_DATE ? null
+                                                    : new DateTime(start),
+                                   interval, flags, size, active, reactive);
+    }
+  }
+
+  /**
+   * This function checks if an up to date store of a measurements file exists
+   * containing the requested columns, so that the file does not need to be
+   * parsed. Only the header of the store is read, without mapping its
+   * columns.
+   *
+   * @param measurementsFile
+   *          The file name of the measurements file.
+   * @param activeOnly
+   *          The flag stating if only the active power is needed.
+   * @return true if the store can be used, false otherwise.
+   * @throws IOException
+   */
+  public static boolean exists (String measurementsFile, boolean activeOnly)
+    throws IOException
+  {
+    File storeFile = storeFileFor(measurementsFile);
+
+    if (!storeFile.isFile() || storeFile.length() < HEADER_SIZE)
+      return false;
+
+    try (RandomAccessFile file = new RandomAccessFile(storeFile, "r");
+         FileChannel channel = file.getChannel()) {
+
+      return readHeader(channel, measurementsFile, activeOnly) != null;
+    }
+  }
+
+  /**
+   * This function reads the header of a store and checks that the store is up
+   * to date with the source file, contains the requested columns and is
+   * complete.
+   *
+   * @param channel
+   *          The channel of the store file.
+   * @param measurementsFile
+   *          The file name of the measurements file the store was created
+   *          from.
+   * @param activeOnly
+   *          The flag stating if only the active power is needed.
+   * @return the header, rewound, or null if the store cannot be used.
+   * @throws IOException
+   */
+  private static ByteBuffer readHeader (FileChannel channel,
+                                        String measurementsFile,
+                                        boolean activeOnly) throws IOException
+  {
+    File source = new File(measurementsFile);
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    while (header.hasRemaining())
+      if (channel.read(header, header.position()) < 0)
+        return null;
+    header.flip();
+
+    if (header.getInt() != MAGIC || header.getInt() != VERSION)
+      return null;
+
+    header.getLong();
+    header.getInt();
+    int flags = header.getInt();
+    int size = header.getInt();
+    header.getInt();
+    long sourceLength = header.getLong();
+    long sourceModified = header.getLong();
+
+    if (sourceLength != source.length()
+        || sourceModified != source.lastModified())
+      return null;
+
+    if (!activeOnly && (flags & REACTIVE) == 0)
+      return null;
+
+    long columnBytes = (long) size * 8;
+    int columns = ((flags & REACTIVE) != 0) ? 2 : 1;
+
+    if (channel.size() < HEADER_SIZE + columns * columnBytes)
+      return null;
+
+    header.rewind();
+    return header;
+  }
+
+  /**
+   * This function is used for evicting the stores of a folder that have not
+   * been used for a given time, as well as any store left incomplete.
+   *
+   * @param folder
+   *          The folder containing the stores.
+   * @param maxAge
+   *          The time in milliseconds after its last use that a store is
+   *          deleted.
+   */
+  public static void evict (File folder, long maxAge)
+  {
+    File[] files = folder.listFiles();
+
+    if (files == null)
+      return;
+
+    long limit = System.currentTimeMillis() - maxAge;
+
+    for (File file: files) {
+      String name = file.getName();
+
+      boolean incomplete = name.endsWith(EXTENSION + ".tmp");
+      boolean unused =
+        name.endsWith(EXTENSION) && file.lastModified() < limit;
+
+      if ((incomplete || unused) && !file.delete())
+        System.out.println("Not Deleted File " + file);
+    }
+  }
+
+  /**
+   * This function is used for writing the store of a measurements file.
+   *
+   * @param storeFile
+   *          The store file.
+   * @param measurementsFile
+   *          The file name of the measurements file the store is created from.
+   * @param startDate
+   *          The start date of the measurements, or null if not known.
+   * @param interval
+   *          The sampling interval of the measurements in seconds.
+   * @param activePower
+   *          The active power measurements.
+   * @param reactivePower
+   *          The reactive power measurements, or null if not available.
+   * @throws IOException
+   */
+  public static void write (File storeFile, String measurementsFile,
+                            DateTime startDate, int interval,
+                            double[] activePower, double[] reactivePower)
+    throws IOException
+  {
+    File source = new File(measurementsFile);
+
+    int flags = ACTIVE;
+    if (reactivePower != null)
+      flags |= REACTIVE;
+
+    long columnBytes = (long) activePower.length * 8;
+    long length =
+      HEADER_SIZE + (reactivePower != null ? 2 : 1) * columnBytes;
+
+    File parent = storeFile.getAbsoluteFile().getParentFile();
+    if (parent != null)
+      parent.mkdirs();
+
+    File temp = new File(storeFile.getPath() + ".tmp");
+
+    try (RandomAccessFile file = new RandomAccessFile(temp, "rw");
+         FileChannel channel = file.getChannel()) {
+
+      file.setLength(length);
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC);
+      header.putInt(VERSION);
+      header.putLong(startDate == null ? NO_DATE : startDate.getMillis());
+      header.putInt(interval);
+      header.putInt(flags);
+      header.putInt(activePower.length);
+      header.putInt(0);
+      header.putLong(source.length());
+      header.putLong(source.lastModified());
+      header.rewind();
+      channel.write(header, 0);
+
+      // The columns are written through a buffer instead of being mapped,
+      // since a mapped file cannot be renamed on some platforms until the
+      // mapping is garbage collected
+      ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+
+      long position = writeColumn(channel, buffer, activePower,
+                                  activePower.length, HEADER_SIZE);
+
+      if (reactivePower != null)
+        writeColumn(channel, buffer, reactivePower, activePower.length,
+                    position);
+
+      channel.force(false);
+    }
+
+    // Replace the old store only once the new one is complete
+    storeFile.delete();
+    if (!temp.renameTo(storeFile)) {
+      temp.delete();
+      throw new IOException("Could not create measurements store "
+                            + storeFile);
+    }
+  }
+
+  /**
+   * This function is used for writing a column of the store at a given
+   * position of its file.
+   *
+   * @param channel
+   *          The channel of the store file.
+   * @param buffer
+   *          The buffer the values are copied to before writing them.
+   * @param values
+   *          The values of the column.
+   * @param length
+   *          The number of values written.
+   * @param position
+   *          The position of the column in the file.
+   * @return the position after the column.
+   * @throws IOException
+   */
+  private static long writeColumn (FileChannel channel, ByteBuffer buffer,
+                                   double[] values, int length, long position)
+    throws IOException
+  {
+    int chunk = buffer.capacity() / 8;
+
+    for (int from = 0; from < length; from += chunk) {
+      int count = Math.min(chunk, length - from);
+
+      buffer.clear();
+      buffer.asDoubleBuffer().put(values, from, count);
+      buffer.limit(count * 8);
+
+      while (buffer.hasRemaining())
+        position += channel.write(buffer, position);
+    }
+
+    return position;
+  }
+
+  /**
+   * This function checks if a number of samples fits in a single mapped
+   * column.
+   *
+   * @param samples
+   *          The number of samples.
+   * @return true if the samples can be stored, false otherwise.
+   */
+  public static boolean fits (int samples)
+  {
+    return samples <= Integer.MAX_VALUE / 8;
+  }
+
+  /**
+   * This is a getter function of the start date of the measurements.
+   *
+   * @return the start date, or null if the source file did not provide one.
+   */
+  public DateTime getStartDate ()
+  {
+    return startDate;
+  }
+
+  /**
+   * This is a getter function of the sampling interval of the measurements.
+   *
+   * @return the sampling interval in seconds.
+   */
+  public int getInterval ()
+  {
+    return interval;
+  }
+
+  /**
+   * This function states if the store contains the reactive power column.
+   *
+   * @return true if the reactive power is available, false otherwise.
+   */
+  public boolean hasReactivePower ()
+  {
+    return (flags & REACTIVE) != 0;
+  }
+
+  /**
+   * This is a getter function of the number of samples of each column.
+   *
+   * @return the number of samples.
+   */
+  public int size ()
+  {
+    return size;
+  }
+
+  /**
+   * This is a getter function of the active power column.
+   *
+   * @return a read-only view of the mapped active power column.
+   */
+  public DoubleBuffer getActivePower ()
+  {
+    return activePower.asReadOnlyBuffer();
+  }
+
+  /**
+   * This is a getter function of the reactive power column.
+   *
+   * @return a read-only view of the mapped reactive power column, or null if it
+   *         was not requested when opening the store.
+   */
+  public DoubleBuffer getReactivePower ()
+  {
+    return reactivePower == null ? null : reactivePower.asReadOnlyBuffer();
+  }
+}
@@ -16,25 +16,23 @@ limitations under the License.
 */
 package eu.cassandra.training.utils;
 
-import jMEF.MixtureModel;
-import jMEF.PVector;
-import jMEF.UnivariateGaussian;
-
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.PrintStream;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
-import java.util.Scanner;
-import java.util.Vector;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class is used to create the Normal and Gaussian Mixture Models
  * Distributions out of Histograms using Expectation Maximization
- * methods.
+ * methods. The fitting is done in memory, returning the parameters of the
+ * distribution, which can then be exported to files.
  * 
  * @author Antonios Chrysopoulos
  * @version 0.9, Date: 29.07.2013
@@ -42,396 +40,808 @@ import java.util.Vector;
 
 public class MixtureCreator
 {
+  /** The number of restarts of the GMM fitting. */
+  private static final int RESTARTS = 100;
+
+  /**
+   * The minimum standard deviation of a mixture component. The attributes are
+   * integers, so each value stands for an interval of width 1, whose standard
+   * deviation is the square root of 1/12. This also keeps a component from
+   * collapsing on a single value during Expectation Maximization.
+   */
+  private static final double MIN_SIGMA = Math.sqrt(1.0 / 12);
+
+  /**
+   * This enumeration contains the ways the number of mixtures of a GMM is
+   * chosen: from the size of the sample, or by fitting candidates with an
+   * increasing number of mixtures and keeping the one with the best Bayesian
+   * or Akaike information criterion.
+   */
+  public enum Selection
+  {
+    SAMPLE_SIZE, BIC, AIC
+  }
+
   /** The number of mixtures for the GMM distribution. */
   int n;
 
+  /**
+   * This variable is the way the number of mixtures is chosen.
+   */
+  private Selection selection = Selection.SAMPLE_SIZE;
+
+  /**
+   * This array contains the information criterion of each candidate number of
+   * mixtures fitted during the last selection, or NaN for the ones not fitted.
+   */
+  private double[] criterionValues = new double[0];
+
+  /**
+   * This array contains the time in milliseconds spent fitting each candidate
+   * number of mixtures during the last selection.
+   */
+  private double[] fitTimes = new double[0];
+
+  /**
+   * This variable is the time in milliseconds spent on the last GMM fitting.
+   */
+  private double totalTime = 0;
+
   /**
    * This array contains the values from the sample (times per day, duration,
    * start minute of the day).
    */
-  Integer[] temp;
+  int[] temp;
 
   /**
    * This variable stated the maximum value that appears in the array of values.
    */
   int max;
 
+  /**
+   * This variable is the seed from which the random number generators of the
+   * restarts of the fitting are derived.
+   */
+  private final long seed;
+
+  /**
+   * This variable is the pool executing the restarts of the GMM fitting.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * This flag is set when the fitting has been cancelled.
+   */
+  private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+  /**
+   * This variable is the pool shared by the mixture creators that are not given
+   * a specific one, sized after the number of available processors.
+   */
+  private static ForkJoinPool sharedPool = null;
+
   /**
    * Simple constructor of the MixtureCreator
    */
   public MixtureCreator ()
   {
-    n = 0;
+    this(new Random().nextLong());
   }
 
   /**
-   * This function is used for the creation of an GMM Distribution given the
-   * variable and the input.The result is exported to a file.
+   * Constructor of the MixtureCreator with a given seed, so that the fitting is
+   * reproducible.
    * 
-   * @param input
-   *          The input file with the value array.
-   * @param output
-   *          The output file name.
-   * @param variable
-   *          The random variable for which the GMM is created.
-   * @throws IOException
+   * @param seed
+   *          The seed of the random number generators.
    */
-  public void createGMM (String input, String output, String variable)
-    throws IOException
+  public MixtureCreator (long seed)
   {
+    this(seed, getSharedPool());
+  }
 
-    temp = readFile(input);
+  /**
+   * Constructor of the MixtureCreator with a given seed and the pool that will
+   * run the restarts of the fitting.
+   * 
+   * @param seed
+   *          The seed of the random number generators.
+   * @param pool
+   *          The pool executing the restarts.
+   */
+  public MixtureCreator (long seed, ForkJoinPool pool)
+  {
+    n = 0;
+    this.seed = seed;
+    this.pool = pool;
+  }
 
-    if (variable.equals("Duration") || variable.equals("DailyTimes")) {
-      max = findMax();
-    }
-    else if (variable.equals("StartTime")) {
-      max = Constants.MINUTES_PER_DAY;
-    }
-    else if (variable.equals("StartTimeBinned")) {
-      max = Constants.MINUTES_PER_DAY / Constants.TEN_MINUTES;
-    }
+  /**
+   * This function returns the pool shared by the mixture creators, creating it
+   * on first use.
+   * 
+   * @return the shared pool.
+   */
+  private static synchronized ForkJoinPool getSharedPool ()
+  {
+    if (sharedPool == null)
+      sharedPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    return sharedPool;
+  }
 
-    if (temp.length < Constants.HOUR_SAMPLE_LIMIT) {
-      n = Constants.LOW_SAMPLE_MIXTURE;
-    }
-    else if (temp.length < Constants.QUARTER_SAMPLE_LIMIT) {
-      n = Constants.MEDIUM_SAMPLE_MIXTURE;
-    }
-    else if (temp.length < Constants.TEN_MINUTE_SAMPLE_LIMIT) {
-      n = Constants.HIGH_SAMPLE_MIXTURE;
-    }
-    else {
-      n = Constants.VERY_HIGH_SAMPLE_MIXTURE;
-    }
+  /**
+   * This is a setter function of the way the number of mixtures of a GMM is
+   * chosen.
+   * 
+   * @param selection
+   *          The way the number of mixtures is chosen.
+   */
+  public void setSelection (Selection selection)
+  {
+    this.selection = selection;
+  }
 
-    int interval = (int) (max / n);
-    int median = (int) (interval / 2);
+  /**
+   * This is a getter function of the number of mixtures of the last GMM
+   * fitted.
+   * 
+   * @return the number of mixtures.
+   */
+  public int getNumberOfMixtures ()
+  {
+    return n;
+  }
 
-    // Initial mixture model
-    MixtureModel mm = new MixtureModel(n);
-    MixtureModel best = null;
-    mm.EF = new UnivariateGaussian();
-    for (int i = 0; i < n; i++) {
-      PVector param = new PVector(2);
-      param.array[0] = interval * i + median;
-      param.array[1] = param.array[0] / 10;
-      mm.param[i] = param;
-      mm.weight[i] = 1;
-    }
-    mm.normalizeWeights();
-    // System.out.println("Initial mixture model \n" + mm + "\n");
+  /**
+   * This is a getter function of the information criterion of each candidate
+   * number of mixtures of the last selection. The value of index i refers to
+   * i + 1 mixtures and is NaN if the candidate was not fitted.
+   * 
+   * @return the array of the criterion values.
+   */
+  public double[] getCriterionValues ()
+  {
+    return criterionValues.clone();
+  }
 
-    double[] whatever = new double[1];
+  /**
+   * This is a getter function of the time spent fitting each candidate number
+   * of mixtures of the last selection, in milliseconds.
+   * 
+   * @return the array of the fitting times.
+   */
+  public double[] getFitTimes ()
+  {
+    return fitTimes.clone();
+  }
 
-    // PVector[] pointsInit = mm.drawRandomPoints(n);
-    PVector[] points = mm.drawRandomPoints(temp.length);
+  /**
+   * This function returns a summary of the last GMM fitting: the way the
+   * number of mixtures was chosen, the number chosen and the time spent, along
+   * with the criterion value and the fitting time of each candidate if an
+   * information criterion was used.
+   * 
+   * @return the summary of the fitting.
+   */
+  public String getReport ()
+  {
+    String report = "GMM " + selection + " selection: " + n + " mixtures";
+
+    if (selection != Selection.SAMPLE_SIZE) {
+      DecimalFormat df = new DecimalFormat("#.##");
+      String criteria = "", times = "";
+
+      // Only the candidates fitted are reported
+      for (int k = 1; k <= criterionValues.length; k++) {
+        if (Double.isNaN(criterionValues[k - 1]))
+          break;
+        criteria += " " + k + "=" + df.format(criterionValues[k - 1]);
+        times += " " + k + "=" + df.format(fitTimes[k - 1]);
+      }
 
-    for (int i = 0; i < temp.length; i++) {
+      report += ", criteria" + criteria + ", fit times (ms)" + times;
+    }
 
-      whatever[0] = temp[i];
-      points[i].setArray(whatever.clone());
+    return report + ", total " + Math.round(totalTime) + " ms";
+  }
 
-    }
+  /**
+   * This function cancels the fitting in progress. The running restarts stop
+   * at their next iteration and the fitting functions throw a
+   * CancellationException.
+   */
+  public void cancel ()
+  {
+    cancelled.set(true);
+  }
 
-    double logBest = Double.NEGATIVE_INFINITY, logNew = 0;
-    MixtureModel mmc = null;
+  /**
+   * This function states if the fitting has been cancelled.
+   * 
+   * @return true if the fitting was cancelled, false otherwise.
+   */
+  public boolean isCancelled ()
+  {
+    return cancelled.get();
+  }
 
-    for (int i = 0; i < 100; i++) {
+  /**
+   * This function is used for the creation of an GMM Distribution given the
+   * variable and the values of the sample. The fitting is done in memory and
+   * the parameters are returned to be passed to the distribution constructor.
+   * 
+   * @param values
+   *          The array of values of the sample.
+   * @param variable
+   *          The random variable for which the GMM is created.
+   * @return the parameters of the fitted mixture.
+   */
+  public MixtureParameters fitGMM (int[] values, String variable)
+  {
 
-      Vector<PVector>[] clusters = KMeans.run(points, n);
+    temp = values;
 
-      // Classical MixtureCreator
+    return fitGMM(Sample1D.fromValues(values), variable);
+  }
 
-      mmc = ExpectationMaximization1D.initialize(clusters);
-      // System.out.println("Mixture model initial state \n" + mmc + "\n");
-      mmc = ExpectationMaximization1D.run(points, mmc);
+  /**
+   * This function is used for the creation of an GMM Distribution given the
+   * variable and the sample in compact form, as a weighted histogram of its
+   * distinct values. The cost of the fitting depends on the number of distinct
+   * values, not on the number of events. The number of mixtures depends on the
+   * total weight of the sample.
+   * 
+   * @param sample
+   *          The sample as distinct values with their number of occurrences.
+   * @param variable
+   *          The random variable for which the GMM is created.
+   * @return the parameters of the fitted mixture.
+   */
+  public MixtureParameters fitGMM (Sample1D sample, String variable)
+  {
+    long start = System.nanoTime();
+    max = maxValue(variable, sample);
+
+    Restart result = null;
 
-      logNew = Math.abs(ExpectationMaximization1D.logLikelihood(points, mmc));
+    if (selection == Selection.SAMPLE_SIZE) {
 
-      // System.out.println(logNew);
+      double size = sample.getTotalWeight();
 
-      if (logBest < logNew) {
-        logBest = logNew;
-        best = mmc;
+      if (size < Constants.HOUR_SAMPLE_LIMIT) {
+        n = Constants.LOW_SAMPLE_MIXTURE;
+      }
+      else if (size < Constants.QUARTER_SAMPLE_LIMIT) {
+        n = Constants.MEDIUM_SAMPLE_MIXTURE;
+      }
+      else if (size < Constants.TEN_MINUTE_SAMPLE_LIMIT) {
+        n = Constants.HIGH_SAMPLE_MIXTURE;
       }
+      else {
+        n = Constants.VERY_HIGH_SAMPLE_MIXTURE;
+      }
+
+      // KMeans needs at least as many distinct values as clusters
+      n = Math.min(n, sample.size());
 
+      // The restarts are independent, each one with its own random number
+      // generator, so they run in parallel and the best one is kept.
+      if (n > 0)
+        result = pool.invoke(restarts(sample, n));
     }
+    else
+      result = selectMixtures(sample);
+
+    if (cancelled.get())
+      throw new CancellationException("GMM fitting cancelled");
+
+    totalTime = (System.nanoTime() - start) / 1e6;
+
+    GaussianMixture1D best = (result == null) ? null : result.model;
 
     // System.out
     // .println("Mixture model estimated using classical MixtureCreator: "
     // + best + "\n");
     if (best != null)
-      GMM2File(best, output);
+      return parameters(best, true);
     else {
       System.out
               .println("The GMM is not working for too small sample sizes. Turn to normal.");
-      createNormal(input, output, variable, true);
+      return fitNormal(sample, variable);
     }
   }
 
   /**
    * This function is used for the creation of an Gaussian distribution given
-   * the variable and the input.The result is exported to a file.
+   * the variable and the values of the sample. The fitting is done in memory
+   * and the parameters are returned to be passed to the distribution
+   * constructor.
    * 
-   * @param input
-   *          The input file with the value array.
-   * @param output
-   *          The output file name.
+   * @param values
+   *          The array of values of the sample.
    * @param variable
-   *          The random variable for which the GMM is created.
-   * @throws IOException
+   *          The random variable for which the Gaussian is created.
+   * @return the parameters of the fitted distribution, as a single component
+   *         mixture.
    */
-  public void createNormal (String input, String output, String variable,
-                            boolean fromGMM) throws IOException
+  public MixtureParameters fitNormal (int[] values, String variable)
   {
 
-    temp = readFile(input);
+    temp = values;
+
+    return fitNormal(Sample1D.fromValues(values), variable);
+  }
+
+  /**
+   * This function is used for the creation of an Gaussian distribution given
+   * the variable and the sample in compact form, as a weighted histogram of
+   * its distinct values.
+   * 
+   * @param sample
+   *          The sample as distinct values with their number of occurrences.
+   * @param variable
+   *          The random variable for which the Gaussian is created.
+   * @return the parameters of the fitted distribution, as a single component
+   *         mixture.
+   */
+  public MixtureParameters fitNormal (Sample1D sample, String variable)
+  {
+    max = maxValue(variable, sample);
     n = 1;
 
+    if (cancelled.get())
+      throw new CancellationException("Normal fitting cancelled");
+
+    // A single cluster contains the whole sample
+    GaussianMixture1D mmc =
+      ExpectationMaximization1D.initialize(sample, new int[sample.size()], n);
+
+    // System.out
+    // .println("Mixture model estimated using classical MixtureCreator \n"
+    // + mmc + "\n");
+
+    return parameters(mmc, false);
+
+  }
+
+  /**
+   * This function returns the maximum value of the random variable, used as
+   * the range of the distribution.
+   * 
+   * @param variable
+   *          The random variable for which the distribution is created.
+   * @param sample
+   *          The sample of the random variable.
+   * @return the maximum value.
+   */
+  private int maxValue (String variable, Sample1D sample)
+  {
     if (variable.equals("Duration") || variable.equals("DailyTimes"))
-      max = findMax();
+      return sample.size() > 0 ? (int) sample.getValue(sample.size() - 1) : -1;
     else if (variable.equals("StartTime"))
-      max = Constants.MINUTES_PER_DAY;
+      return Constants.MINUTES_PER_DAY;
     else if (variable.equals("StartTimeBinned"))
-      max = Constants.MINUTES_PER_DAY / Constants.TEN_MINUTES;
-
-    int interval = (int) (max / n);
+      return Constants.MINUTES_PER_DAY / Constants.TEN_MINUTES;
+    return max;
+  }
 
-    int median = (int) (interval / 2);
+  /**
+   * This function creates the task running the restarts of the fitting of a
+   * GMM with a given number of mixtures. Each number of mixtures has its own
+   * range of restart indices, so that the candidates of a selection use
+   * different random number generators.
+   * 
+   * @param sample
+   *          The sample as distinct values with their number of occurrences.
+   * @param k
+   *          The number of mixtures.
+   * @return the task running the restarts.
+   */
+  private RestartTask restarts (Sample1D sample, int k)
+  {
+    return new RestartTask(sample, k, (k - 1) * RESTARTS, k * RESTARTS);
+  }
 
-    // Initial mixture model
-    MixtureModel mm = new MixtureModel(n);
-    mm.EF = new UnivariateGaussian();
-    for (int i = 0; i < n; i++) {
-      PVector param = new PVector(2);
-      param.array[0] = interval * i + median;
-      param.array[1] = param.array[0] / 10;
-      mm.param[i] = param;
-      mm.weight[i] = i + 1;
+  /**
+   * This function chooses the number of mixtures of a GMM using the selected
+   * information criterion. Candidates with 1, 2, ... mixtures are fitted in
+   * parallel, as many at a time as the parallelism of the pool, and examined
+   * in increasing order. The selection stops at the first candidate that does
+   * not improve on the best criterion so far, so the result does not depend on
+   * the number of candidates fitted at a time.
+   * 
+   * @param sample
+   *          The sample as distinct values with their number of occurrences.
+   * @return the result of the best candidate, or null if none could be fitted.
+   */
+  private Restart selectMixtures (Sample1D sample)
+  {
+    // Each mixture has 3 parameters, minus one as the weights sum to 1
+    double size = sample.getTotalWeight();
+    int maxMixtures = Math.min(Constants.VERY_HIGH_SAMPLE_MIXTURE, sample.size());
+    while (maxMixtures > 1 && 3 * maxMixtures - 1 >= size)
+      maxMixtures--;
+
+    criterionValues = new double[maxMixtures];
+    fitTimes = new double[maxMixtures];
+    Arrays.fill(criterionValues, Double.NaN);
+
+    Restart best = null;
+    double bestCriterion = Double.POSITIVE_INFINITY;
+    int wave = Math.max(1, pool.getParallelism());
+    boolean improving = true;
+
+    for (int from = 1; from <= maxMixtures && improving; from += wave) {
+
+      int to = Math.min(maxMixtures, from + wave - 1);
+      CandidateTask[] tasks = new CandidateTask[to - from + 1];
+
+      for (int k = from; k <= to; k++)
+        tasks[k - from] = new CandidateTask(sample, k);
+
+      pool.invoke(new CandidateWave(tasks));
+
+      if (cancelled.get())
+        return null;
+
+      for (int k = from; k <= to && improving; k++) {
+
+        Restart candidate = tasks[k - from].getRawResult();
+        fitTimes[k - 1] = tasks[k - from].millis;
+
+        double criterion = Double.POSITIVE_INFINITY;
+        if (candidate != null && !Double.isNaN(candidate.logLikelihood)) {
+          int parameters = 3 * k - 1;
+          double penalty =
+            (selection == Selection.BIC) ? parameters * Math.log(size)
+                                         : 2 * parameters;
+          criterion = penalty - 2 * candidate.logLikelihood;
+        }
+        criterionValues[k - 1] = criterion;
+
+        if (criterion < bestCriterion) {
+          bestCriterion = criterion;
+          best = candidate;
+          n = k;
+        }
+        else
+          improving = false;
+      }
     }
-    mm.normalizeWeights();
-    // System.out.println("Initial mixture model \n" + mm + "\n");
-
-    double[] whatever = new double[1];
 
-    PVector[] points = mm.drawRandomPoints(temp.length);
-
-    for (int i = 0; i < temp.length; i++) {
+    return best;
+  }
 
-      whatever[0] = temp[i];
-      points[i].setArray(whatever.clone());
+  /**
+   * This function returns the seed of the random number generator of a
+   * restart, derived from the seed of the creator and the index of the restart.
+   * 
+   * @param index
+   *          The index of the restart.
+   * @return the seed of the restart.
+   */
+  private long restartSeed (int index)
+  {
+    long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
 
-    }
+  /**
+   * This function runs a single restart of the GMM fitting: a KMeans
+   * clustering for the initial mixture followed by Expectation Maximization.
+   * 
+   * @param sample
+   *          The sample as distinct values with their number of occurrences.
+   * @param n
+   *          The number of mixtures.
+   * @param index
+   *          The index of the restart.
+   * @return the result of the restart.
+   */
+  private Restart runRestart (Sample1D sample, int n, int index)
+  {
+    Random rand = new Random(restartSeed(index));
 
-    Vector<PVector>[] clusters = KMeans.run(points, n);
+    int[] clusters = KMeans1D.run(sample, n, rand, cancelled);
 
     // Classical MixtureCreator
-    MixtureModel mmc;
-    mmc = ExpectationMaximization1D.initialize(clusters);
+    GaussianMixture1D mmc =
+      ExpectationMaximization1D.initialize(sample, clusters, n);
+    // System.out.println("Mixture model initial state \n" + mmc + "\n");
+    mmc = ExpectationMaximization1D.run(sample, mmc, MIN_SIGMA, cancelled);
 
-    // System.out
-    // .println("Mixture model estimated using classical MixtureCreator \n"
-    // + mmc + "\n");
+    double logNew = mmc.logLikelihood(sample);
 
-    Gaussian2File(mmc, output, fromGMM);
+    // System.out.println(logNew);
 
+    return new Restart(index, logNew, mmc);
   }
 
   /**
-   * This function is used for the parsing of the file containing the attribute
-   * values to add them in the array.
+   * This function returns the best of two restart results: the one with the
+   * highest log likelihood, or the one with the smallest index if they are
+   * equal, so that the result does not depend on the order of completion.
+   * Restarts with an undefined log likelihood are discarded.
    * 
-   * @param filename
-   *          The input file with the value array.
-   * @return an array with the values.
-   * @throws FileNotFoundException
+   * @param a
+   *          The first result, or null.
+   * @param b
+   *          The second result, or null.
+   * @return the best result, or null if none is valid.
+   */
+  private static Restart better (Restart a, Restart b)
+  {
+    if (a == null || Double.isNaN(a.logLikelihood))
+      return (b == null || Double.isNaN(b.logLikelihood)) ? null : b;
+    if (b == null || Double.isNaN(b.logLikelihood))
+      return a;
+
+    if (a.logLikelihood != b.logLikelihood)
+      return a.logLikelihood > b.logLikelihood ? a : b;
+
+    return a.index < b.index ? a : b;
+  }
+
+  /**
+   * This class contains the result of a single restart of the GMM fitting.
+   */
+  private static class Restart
+  {
+    final int index;
+    final double logLikelihood;
+    final GaussianMixture1D model;
+
+    Restart (int index, double logLikelihood, GaussianMixture1D model)
+    {
+      this.index = index;
+      this.logLikelihood = logLikelihood;
+      this.model = model;
+    }
+  }
+
+  /**
+   * This class is the fork-join task running a range of restarts of the GMM
+   * fitting. The range is split in halves until a single restart remains, and
+   * the results are reduced pairwise to the best one.
    */
-  private Integer[] readFile (String filename) throws FileNotFoundException
+  private class RestartTask extends RecursiveTask<Restart>
   {
-    ArrayList<Integer> temp = new ArrayList<Integer>();
+    private static final long serialVersionUID = 1L;
+
+    private final Sample1D sample;
+    private final int n;
+    private final int from;
+    private final int to;
+
+    RestartTask (Sample1D sample, int n, int from, int to)
+    {
+      this.sample = sample;
+      this.n = n;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Restart compute ()
+    {
+      if (cancelled.get())
+        return null;
+
+      if (to - from == 1)
+        return runRestart(sample, n, from);
 
-    File file = new File(filename);
-    Scanner input = new Scanner(file);
-    String nextLine;
+      int middle = (from + to) >>> 1;
+      RestartTask left = new RestartTask(sample, n, from, middle);
+      RestartTask right = new RestartTask(sample, n, middle, to);
 
-    while (input.hasNext()) {
-      nextLine = input.nextLine();
-      temp.add(Integer.parseInt(nextLine));
+      left.fork();
+      Restart rightResult = right.compute();
+      Restart leftResult = left.join();
+
+      return better(leftResult, rightResult);
     }
+  }
+  /**
+   * This class is the fork-join task fitting a candidate number of mixtures
+   * during the selection, timing the fitting.
+   */
+  private class CandidateTask extends RecursiveTask<Restart>
+  {
+    private static final long serialVersionUID = 1L;
 
-    input.close();
+    private final Sample1D sample;
+    private final int k;
+    private double millis;
 
-    Integer[] result = new Integer[temp.size()];
+    CandidateTask (Sample1D sample, int k)
+    {
+      this.sample = sample;
+      this.k = k;
+    }
 
-    result = temp.toArray(result);
+    @Override
+    protected Restart compute ()
+    {
+      long start = System.nanoTime();
+      Restart result = restarts(sample, k).invoke();
+      millis = (System.nanoTime() - start) / 1e6;
+      return result;
+    }
+  }
 
-    return result;
+  /**
+   * This class is the fork-join task fitting a group of candidate numbers of
+   * mixtures in parallel.
+   */
+  private static class CandidateWave extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final CandidateTask[] tasks;
+
+    CandidateWave (CandidateTask[] tasks)
+    {
+      this.tasks = tasks;
+    }
+
+    @Override
+    protected void compute ()
+    {
+      invokeAll(tasks);
+    }
   }
 
+
   /**
-   * This function is used for exporting the newly created GMM distribution to a
-   * file that will be parsed later on from the Training Module to create the
-   * activity model in demand.
+   * This function extracts the parameters of a fitted mixture model. Standard
+   * deviations that have collapsed to zero are replaced, by a small number for
+   * a mixture and by 1 for a single Normal distribution.
    * 
    * @param mm
    *          The Mixture Model created.
-   * @param filename
-   *          The name of the export file.
-   * @throws IOException
+   * @param mixture
+   *          The flag stating if the model is a Gaussian mixture.
+   * @return the parameters of the mixture.
    */
-  private void GMM2File (MixtureModel mm, String filename) throws IOException
+  private MixtureParameters parameters (GaussianMixture1D mm, boolean mixture)
   {
+    int n = mm.size();
+    double[] weights = new double[n];
+    double[] means = new double[n];
+    double[] sigmas = new double[n];
 
-    String line;
+    for (int i = 0; i < n; i++) {
 
-    int n = mm.size;
-    double[] weights = mm.weight;
-    Double[] means = new Double[n];
-    Double[] sigmas = new Double[n];
+      weights[i] = mixture ? mm.weights[i] : 1;
+      means[i] = mm.means[i];
+      sigmas[i] = mm.sigmas[i];
 
-    for (int i = 0; i < n; i++) {
+      if (mixture && sigmas[i] < 0.00000001)
+        sigmas[i] = 0.00000001;
+      else if (!mixture && sigmas[i] < Constants.SMALL_NUMBER)
+        sigmas[i] = 1.0;
 
-      line = mm.param[i].toString().substring(3, 15);
-      line = line.replace(" ", "");
-      means[i] = Double.parseDouble(line);
+    }
 
-      line =
-        mm.param[i].toString().substring(16,
-                                         mm.param[i].toString().length() - 1);
-      line = line.replace(" ", "");
+    return new MixtureParameters(max, weights, means, sigmas);
+  }
 
-      sigmas[i] = Double.parseDouble(line);
+  /**
+   * This function is used for exporting the newly created GMM distribution to a
+   * file, in the format parsed by the GaussianMixtureModels file constructor.
+   * It is kept as an optional export step of the training procedure.
+   * 
+   * @param parameters
+   *          The parameters of the Mixture Model created.
+   * @param filename
+   *          The name of the export file.
+   * @throws IOException
+   */
+  public static void GMM2File (MixtureParameters parameters, String filename)
+    throws IOException
+  {
 
-    }
+    int n = parameters.size();
+    double[] weights = parameters.getWeights();
+    double[] means = parameters.getMeans();
+    double[] sigmas = parameters.getSigmas();
 
     DecimalFormat df = new DecimalFormat("#.##########");
-    PrintStream realSystemOut = System.out;
 
-    OutputStream output = new FileOutputStream(filename);
-    PrintStream printOut = new PrintStream(output);
-    System.setOut(printOut);
+    PrintStream printOut = new PrintStream(new FileOutputStream(filename));
 
-    System.out.println("Max Value:" + max);
+    printOut.println("Max Value:" + parameters.getMaxValue());
 
-    System.out.println(n);
+    printOut.println(n);
 
     for (int i = 0; i < n; i++) {
 
-      System.out.print(df.format(weights[i]));
+      printOut.print(df.format(weights[i]));
       if (i != n - 1)
-        System.out.print("-");
+        printOut.print("-");
       else
-        System.out.println();
+        printOut.println();
     }
 
     for (int i = 0; i < n; i++) {
 
-      System.out.print(df.format(means[i]));
+      printOut.print(df.format(means[i]));
       if (i != n - 1)
-        System.out.print("-");
+        printOut.print("-");
       else
-        System.out.println();
+        printOut.println();
 
     }
 
     for (int i = 0; i < n; i++) {
 
-      if (sigmas[i] < 0.00000001) {
-        sigmas[i] = 0.00000001;
-      }
-
-      System.out.print(df.format(sigmas[i]));
+      printOut.print(df.format(sigmas[i]));
       if (i != n - 1)
-        System.out.print("-");
+        printOut.print("-");
       else
-        System.out.println();
+        printOut.println();
 
     }
 
-    System.setOut(realSystemOut);
-
-    output.close();
+    printOut.close();
 
   }
 
   /**
    * This function is used for exporting the newly created Normal distribution
-   * to a
-   * file that will be parsed later on from the Training Module to create the
-   * activity model in demand.
+   * to a file, in the format parsed by the Gaussian file constructor, or by the
+   * GaussianMixtureModels one if it is the fallback of a GMM. It is kept as an
+   * optional export step of the training procedure.
    * 
-   * @param mm
-   *          The Mixture Model created which has one distribution only.
+   * @param parameters
+   *          The parameters of the Mixture Model created which has one
+   *          distribution only.
    * @param filename
    *          The name of the export file.
    * @throws IOException
    */
-  private void
-    Gaussian2File (MixtureModel mm, String filename, boolean fromGMM)
-      throws IOException
+  public static void Gaussian2File (MixtureParameters parameters,
+                                    String filename, boolean fromGMM)
+    throws IOException
   {
 
-    String line;
-
-    int n = mm.size;
-    Double[] means = new Double[n];
-    Double[] sigmas = new Double[n];
-
-    for (int i = 0; i < n; i++) {
-
-      line = mm.param[i].toString().substring(3, 15);
-      line = line.replace(" ", "");
-      means[i] = Double.parseDouble(line);
-
-      line =
-        mm.param[i].toString().substring(16,
-                                         mm.param[i].toString().length() - 1);
-      line = line.replace(" ", "");
-
-      sigmas[i] = Double.parseDouble(line);
-
-      if (sigmas[i] == 0)
-        sigmas[i] = 1.0;
-
-    }
+    int n = parameters.size();
+    double[] means = parameters.getMeans();
+    double[] sigmas = parameters.getSigmas();
 
     DecimalFormat df = new DecimalFormat("#.##########");
-    PrintStream realSystemOut = System.out;
 
-    OutputStream output = new FileOutputStream(filename);
-    PrintStream printOut = new PrintStream(output);
-    System.setOut(printOut);
+    PrintStream printOut = new PrintStream(new FileOutputStream(filename));
 
-    System.out.println("Max Value:" + max);
+    printOut.println("Max Value:" + parameters.getMaxValue());
 
     if (fromGMM) {
-      System.out.println(n);
-      System.out.println(n);
+      printOut.println(n);
+      printOut.println(n);
     }
     for (int i = 0; i < n; i++) {
 
-      System.out.print(df.format(means[i]));
+      printOut.print(df.format(means[i]));
       if (i != n - 1)
-        System.out.print("-");
+        printOut.print("-");
       else
-        System.out.println();
+        printOut.println();
 
     }
 
     for (int i = 0; i < n; i++) {
 
-      System.out.print(df.format(sigmas[i]));
+      printOut.print(df.format(sigmas[i]));
       if (i != n - 1)
-        System.out.print("-");
+        printOut.print("-");
       else
-        System.out.println();
+        printOut.println();
 
     }
 
-    System.setOut(realSystemOut);
-
-    output.close();
+    printOut.close();
 
   }
 
@@ -0,0 +1,130 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+import java.util.Arrays;
+
+/**
+ * This class contains the fitted parameters of a Normal or Gaussian Mixture
+ * Models distribution, as estimated by the MixtureCreator. It is used for
+ * passing the result of the fitting directly to the distribution constructors,
+ * instead of exporting it to a file and parsing it back.
+ */
+public class MixtureParameters
+{
+
+  /**
+   * This variable is the maximum value of the random variable, used as the
+   * range of the precomputed histogram of the distribution.
+   */
+  private final int maxValue;
+
+  /**
+   * This is an array of the weights of the mixture components.
+   */
+  private final double[] weights;
+
+  /**
+   * This is an array of the mean values of the mixture components.
+   */
+  private final double[] means;
+
+  /**
+   * This is an array of the standard deviations of the mixture components.
+   */
+  private final double[] sigmas;
+
+  /**
+   * The constructor of the mixture parameters.
+   *
+   * @param maxValue
+   *          The maximum value of the random variable.
+   * @param weights
+   *          The weights of the mixture components.
+   * @param means
+   *          The mean values of the mixture components.
+   * @param sigmas
+   *          The standard deviations of the mixture components.
+   */
+  public MixtureParameters (int maxValue, double[] weights, double[] means,
+                            double[] sigmas)
+  {
+    this.maxValue = maxValue;
+    this.weights = weights.clone();
+    this.means = means.clone();
+    this.sigmas = sigmas.clone();
+  }
+
+  /**
+   * This is a getter function of the maximum value of the random variable.
+   *
+   * @return the maximum value.
+   */
+  public int getMaxValue ()
+  {
+    return maxValue;
+  }
+
+  /**
+   * This is a getter function of the number of mixture components.
+   *
+   * @return the number of components.
+   */
+  public int size ()
+  {
+    return weights.length;
+  }
+
+  /**
+   * This is a getter function of the weights of the mixture components.
+   *
+   * @return a copy of the weights array.
+   */
+  public double[] getWeights ()
+  {
+    return weights.clone();
+  }
+
+  /**
+   * This is a getter function of the mean values of the mixture components.
+   *
+   * @return a copy of the means array.
+   */
+  public double[] getMeans ()
+  {
+    return means.clone();
+  }
+
+  /**
+   * This is a getter function of the standard deviations of the mixture
+   * components.
+   *
+   * @return a copy of the standard deviations array.
+   */
+  public double[] getSigmas ()
+  {
+    return sigmas.clone();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return "Max Value:" + maxValue + " Weights:" + Arrays.toString(weights)
+           + " Means:" + Arrays.toString(means) + " Sigmas:"
+           + Arrays.toString(sigmas);
+  }
+}
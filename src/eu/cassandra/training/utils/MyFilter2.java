@@ -48,7 +48,8 @@ public class MyFilter2 extends FileFilter
 
     String extension = getExtension(f);
     if (extension != null) {
-      if (extension.equals("csv") || extension.equals("xls")) {
+      if (extension.equals("csv") || extension.equals("xls")
+          || extension.equals("xlsx")) {
         return true;
       }
       else {
@@ -67,7 +68,7 @@ public class MyFilter2 extends FileFilter
    */
   public String getDescription ()
   {
-    return "*.xls,*.csv";
+    return "*.xls,*.xlsx,*.csv";
   }
 
   /**
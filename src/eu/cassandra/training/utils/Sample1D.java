@@ -0,0 +1,149 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+import java.util.Arrays;
+
+/**
+ * This class contains a one-dimensional sample in compact form: the distinct
+ * values of the sample in ascending order, together with the weight (number of
+ * occurrences) of each one. The attributes of the consumption events are small
+ * integers, so the fitting methods working on this form iterate over a few
+ * hundred distinct values instead of every single event.
+ */
+public class Sample1D
+{
+
+  /**
+   * This is the array of the distinct values in ascending order.
+   */
+  final double[] values;
+
+  /**
+   * This is the array of the weights of the distinct values.
+   */
+  final double[] weights;
+
+  /**
+   * This variable is the total weight of the sample.
+   */
+  final double total;
+
+  /**
+   * The constructor of a sample out of its distinct values and their weights.
+   * 
+   * @param values
+   *          The distinct values in strictly ascending order.
+   * @param weights
+   *          The non-negative weights of the values.
+   */
+  public Sample1D (double[] values, double[] weights)
+  {
+    if (values.length != weights.length)
+      throw new IllegalArgumentException("Values and weights differ in length");
+
+    double sum = 0;
+
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0 && !(values[i] > values[i - 1]))
+        throw new IllegalArgumentException("Values are not strictly ascending");
+      if (!(weights[i] >= 0))
+        throw new IllegalArgumentException("Negative weight for value "
+                                           + values[i]);
+      sum += weights[i];
+    }
+
+    this.values = values.clone();
+    this.weights = weights.clone();
+    this.total = sum;
+  }
+
+  /**
+   * This function creates the compact sample out of the values of the sample,
+   * counting the occurrences of each distinct value.
+   * 
+   * @param sample
+   *          The array of values of the sample.
+   * @return the compact sample.
+   */
+  public static Sample1D fromValues (int[] sample)
+  {
+    int[] sorted = sample.clone();
+    Arrays.sort(sorted);
+
+    int distinct = 0;
+    for (int i = 0; i < sorted.length; i++)
+      if (i == 0 || sorted[i] != sorted[i - 1])
+        distinct++;
+
+    double[] values = new double[distinct];
+    double[] weights = new double[distinct];
+    int index = -1;
+
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[i - 1])
+        values[++index] = sorted[i];
+      weights[index]++;
+    }
+
+    return new Sample1D(values, weights);
+  }
+
+  /**
+   * This is a getter function of the number of distinct values.
+   * 
+   * @return the number of distinct values.
+   */
+  public int size ()
+  {
+    return values.length;
+  }
+
+  /**
+   * This is a getter function of the total weight of the sample.
+   * 
+   * @return the total weight.
+   */
+  public double getTotalWeight ()
+  {
+    return total;
+  }
+
+  /**
+   * This is a getter function of a distinct value of the sample.
+   * 
+   * @param index
+   *          The index of the value.
+   * @return the value.
+   */
+  public double getValue (int index)
+  {
+    return values[index];
+  }
+
+  /**
+   * This is a getter function of the weight of a distinct value of the sample.
+   * 
+   * @param index
+   *          The index of the value.
+   * @return the weight of the value.
+   */
+  public double getWeight (int index)
+  {
+    return weights[index];
+  }
+}
@@ -0,0 +1,678 @@
+/*
+Copyright 2011-2013 The Cassandra Consortium (cassandra-fp7.eu)
+
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package eu.cassandra.training.utils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * This class is an event-driven reader for the .xls and .xlsx measurement
+ * files of an installation. Instead of building the object model of the whole
+ * workbook, the cells of the first sheet are streamed one by one and the power
+ * values are added directly to primitive arrays, while the file is validated
+ * in the same pass.
+ *
+ * The first row of the sheet is a header. Each following row must contain the
+ * active power in the second column and, if available, the reactive power in
+ * the third column, with no further cell next to them. Reading stops at the
+ * first row that does not have this format.
+ *
+ * The .xls files are read with the POI event API. The .xlsx files are read
+ * with a SAX parser straight from the zip archive, so they are not limited to
+ * the 65536 rows of the .xls format.
+ */
+public class SpreadsheetReader
+{
+
+  /**
+   * This variable is the column of the active power.
+   */
+  private static final int ACTIVE_COLUMN = 1;
+
+  /**
+   * This variable is the column of the reactive power.
+   */
+  private static final int REACTIVE_COLUMN = 2;
+
+  /**
+   * This variable is the class name of the SAX parser factory of the Java
+   * platform.
+   */
+  private static final String PLATFORM_SAX_PARSER_FACTORY =
+    "com.sun.org.apache.xerces.internal.jaxp.SAXParserFactoryImpl";
+
+  /**
+   * This variable states if only the active power is available.
+   */
+  private final boolean activeOnly;
+
+  /**
+   * This is the array where the active power values are added.
+   */
+  private final GrowableDoubleArray active = new GrowableDoubleArray();
+
+  /**
+   * This is the array where the reactive power values are added.
+   */
+  private final GrowableDoubleArray reactive = new GrowableDoubleArray();
+
+  /**
+   * This variable is the index of the row currently being read.
+   */
+  private int row = 0;
+
+  /**
+   * These variables are the values of the current row.
+   */
+  private double activeValue, reactiveValue;
+
+  /**
+   * These variables state which values of the current row have been read.
+   */
+  private boolean hasActive, hasReactive;
+
+  /**
+   * This variable states if an erroneous cell was found in the current row.
+   */
+  private boolean invalidRow = false;
+
+  /**
+   * This variable contains the line of error, or -1 if no error was found.
+   */
+  private int errorLine = -1;
+
+  /**
+   * The constructor of a spreadsheet reader.
+   *
+   * @param activeOnly
+   *          The flag stating if only the active power is available.
+   */
+  private SpreadsheetReader (boolean activeOnly)
+  {
+    this.activeOnly = activeOnly;
+  }
+
+  /**
+   * This function is used for validating and loading an .xls measurements file
+   * in a single pass.
+   *
+   * @param filename
+   *          The name of the measurements file.
+   * @param activeOnly
+   *          The flag stating if only the active power is available.
+   * @return the measurements read, with the line of error if one was found.
+   * @throws IOException
+   */
+  public static Measurements readXLS (String filename, boolean activeOnly)
+    throws IOException
+  {
+    final SpreadsheetReader reader = new SpreadsheetReader(activeOnly);
+
+    AbortableHSSFListener listener = new AbortableHSSFListener() {
+
+      private SSTRecord strings;
+      private int sheets = 0;
+
+      @Override
+      public short abortableProcessRecord (Record record)
+        throws HSSFUserException
+      {
+        switch (record.getSid()) {
+
+        case BOFRecord.sid:
+          if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET)
+            sheets++;
+          break;
+
+        case EOFRecord.sid:
+          // Only the first sheet is read
+          if (sheets == 1) {
+            reader.finish();
+            return 1;
+          }
+          break;
+
+        case SSTRecord.sid:
+          strings = (SSTRecord) record;
+          break;
+
+        case NumberRecord.sid:
+          if (sheets == 1)
+            reader.cell((NumberRecord) record,
+                        ((NumberRecord) record).getValue());
+          break;
+
+        case FormulaRecord.sid:
+          if (sheets == 1)
+            reader.cell((FormulaRecord) record,
+                        ((FormulaRecord) record).getValue());
+          break;
+
+        case LabelSSTRecord.sid:
+          if (sheets == 1) {
+            LabelSSTRecord label = (LabelSSTRecord) record;
+            reader.cell(label, strings.getString(label.getSSTIndex())
+                                      .getString());
+          }
+          break;
+
+        case LabelRecord.sid:
+          if (sheets == 1)
+            reader.cell((LabelRecord) record,
+                        ((LabelRecord) record).getValue());
+          break;
+
+        case BlankRecord.sid:
+        case BoolErrRecord.sid:
+          if (sheets == 1)
+            reader.cell((CellValueRecordInterface) record, "");
+          break;
+        }
+
+        return reader.errorLine == -1 ? (short) 0 : (short) 1;
+      }
+    };
+
+    HSSFRequest request = new HSSFRequest();
+    request.addListenerForAllRecords(listener);
+
+    try (InputStream in = new FileInputStream(filename)) {
+      new HSSFEventFactory()
+              .abortableProcessWorkbookEvents(request, new POIFSFileSystem(in));
+    }
+    catch (HSSFUserException e) {
+      throw new IOException(e);
+    }
+
+    reader.finish();
+    return reader.result();
+  }
+
+  /**
+   * This function is used for validating and loading an .xlsx measurements
+   * file in a single pass.
+   *
+   * @param filename
+   *          The name of the measurements file.
+   * @param activeOnly
+   *          The flag stating if only the active power is available.
+   * @return the measurements read, with the line of error if one was found.
+   * @throws IOException
+   */
+  public static Measurements readXLSX (String filename, boolean activeOnly)
+    throws IOException
+  {
+    final SpreadsheetReader reader = new SpreadsheetReader(activeOnly);
+
+    try (ZipFile zip = new ZipFile(filename)) {
+
+      SAXParser parser = newParser();
+
+      ArrayList<String> strings = new ArrayList<String>();
+      ZipEntry entry = zip.getEntry("xl/sharedStrings.xml");
+      if (entry != null)
+        try (InputStream in = zip.getInputStream(entry)) {
+          parser.parse(in, new SharedStringsHandler(strings));
+        }
+
+      entry = zip.getEntry(firstSheet(zip, parser));
+      if (entry == null)
+        throw new IOException("No worksheet found in " + filename);
+
+      try (InputStream in = zip.getInputStream(entry)) {
+        parser.parse(in, new SheetHandler(reader, strings));
+      }
+      catch (StopParsingException e) {
+        // The first error was found
+      }
+    }
+    catch (ParserConfigurationException | SAXException e) {
+      throw new IOException(e);
+    }
+
+    reader.finish();
+    return reader.result();
+  }
+
+  /**
+   * This function creates the SAX parser of the parts of an .xlsx file. The
+   * files are supplied by the user, so document type declarations and
+   * external entities are refused, so that a crafted file cannot make the
+   * parser read other files or connect to other hosts.
+   *
+   * @return the SAX parser.
+   * @throws ParserConfigurationException
+   * @throws SAXException
+   */
+  private static SAXParser newParser ()
+    throws ParserConfigurationException, SAXException
+  {
+    // The parser of the platform is requested by name, since the default one
+    // would be the parser of gnujaxp, which is on the class path for the
+    // charts and does not support these features
+    SAXParserFactory factory =
+      SAXParserFactory.newInstance(PLATFORM_SAX_PARSER_FACTORY, null);
+
+    factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl",
+                       true);
+    factory.setFeature("http://xml.org/sax/features/external-general-entities",
+                       false);
+    factory
+            .setFeature("http://xml.org/sax/features/external-parameter-entities",
+                        false);
+    factory
+            .setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd",
+                        false);
+    factory.setXIncludeAware(false);
+
+    return factory.newSAXParser();
+  }
+
+  /**
+   * This function finds the part name of the first sheet of the workbook, as
+   * listed in the workbook and its relationships.
+   *
+   * @param zip
+   *          The .xlsx archive.
+   * @param parser
+   *          The SAX parser used.
+   * @return the part name of the first sheet.
+   * @throws IOException
+   * @throws SAXException
+   */
+  private static String firstSheet (ZipFile zip, SAXParser parser)
+    throws IOException, SAXException
+  {
+    final String[] id = new String[1];
+    final String[] target = new String[1];
+
+    ZipEntry workbook = zip.getEntry("xl/workbook.xml");
+    ZipEntry relationships = zip.getEntry("xl/_rels/workbook.xml.rels");
+
+    if (workbook != null && relationships != null) {
+
+      try (InputStream in = zip.getInputStream(workbook)) {
+        parser.parse(in, new DefaultHandler() {
+          @Override
+          public void startElement (String uri, String localName,
+                                    String qName, Attributes attributes)
+          {
+            if (id[0] == null && localName(qName).equals("sheet"))
+              for (int i = 0; i < attributes.getLength(); i++)
+                if (localName(attributes.getQName(i)).equals("id"))
+                  id[0] = attributes.getValue(i);
+          }
+        });
+      }
+
+      if (id[0] != null)
+        try (InputStream in = zip.getInputStream(relationships)) {
+          parser.parse(in, new DefaultHandler() {
+            @Override
+            public void startElement (String uri, String localName,
+                                      String qName, Attributes attributes)
+            {
+              if (localName(qName).equals("Relationship")
+                  && id[0].equals(attributes.getValue("Id")))
+                target[0] = attributes.getValue("Target");
+            }
+          });
+        }
+    }
+
+    if (target[0] == null)
+      return "xl/worksheets/sheet1.xml";
+    if (target[0].startsWith("/"))
+      return target[0].substring(1);
+    return "xl/" + target[0];
+  }
+
+  /**
+   * This function returns the local part of a qualified XML name.
+   *
+   * @param qName
+   *          The qualified name.
+   * @return the name without its prefix.
+   */
+  private static String localName (String qName)
+  {
+    return qName.substring(qName.indexOf(':') + 1);
+  }
+
+  /**
+   * This function handles a cell of the .xls sheet with a numeric value.
+   *
+   * @param cell
+   *          The cell record.
+   * @param value
+   *          The value of the cell.
+   */
+  private void cell (CellValueRecordInterface cell, double value)
+  {
+    if (startCell(cell.getRow(), cell.getColumn()))
+      setValue(cell.getColumn(), value);
+  }
+
+  /**
+   * This function handles a cell of the .xls sheet with a text value.
+   *
+   * @param cell
+   *          The cell record.
+   * @param text
+   *          The text of the cell.
+   */
+  private void cell (CellValueRecordInterface cell, String text)
+  {
+    cell(cell.getRow(), cell.getColumn(), text);
+  }
+
+  /**
+   * This function handles a cell with a text value, which must be a number if
+   * it is one of the power columns.
+   *
+   * @param row
+   *          The row of the cell.
+   * @param column
+   *          The column of the cell.
+   * @param text
+   *          The text of the cell.
+   */
+  private void cell (int row, int column, String text)
+  {
+    if (!startCell(row, column))
+      return;
+
+    try {
+      setValue(column, Double.parseDouble(text));
+    }
+    catch (NumberFormatException e) {
+      invalidRow = true;
+    }
+  }
+
+  /**
+   * This function moves to the row of a new cell and checks whether the cell
+   * is relevant to the measurements.
+   *
+   * @param row
+   *          The row of the cell.
+   * @param column
+   *          The column of the cell.
+   * @return true if the cell is one of the power columns, false otherwise.
+   */
+  private boolean startCell (int row, int column)
+  {
+    // The header row is skipped
+    if (errorLine != -1 || row == 0)
+      return false;
+
+    if (row != this.row) {
+      finishRow();
+
+      // A missing row in the middle of the measurements is an error
+      if (errorLine == -1 && row > this.row + 1)
+        errorLine = this.row + 2;
+
+      if (errorLine != -1)
+        return false;
+
+      this.row = row;
+    }
+
+    // No cell is allowed after the power columns
+    if (column == (activeOnly ? REACTIVE_COLUMN : REACTIVE_COLUMN + 1))
+      invalidRow = true;
+
+    return column == ACTIVE_COLUMN
+           || (!activeOnly && column == REACTIVE_COLUMN);
+  }
+
+  /**
+   * This function sets one of the values of the current row.
+   *
+   * @param column
+   *          The column of the value.
+   * @param value
+   *          The value.
+   */
+  private void setValue (int column, double value)
+  {
+    if (column == ACTIVE_COLUMN) {
+      activeValue = value;
+      hasActive = true;
+    }
+    else {
+      reactiveValue = value;
+      hasReactive = true;
+    }
+  }
+
+  /**
+   * This function completes the current row, adding its values to the arrays
+   * or recording its line as erroneous.
+   */
+  private void finishRow ()
+  {
+    if (row == 0 || errorLine != -1)
+      return;
+
+    if (invalidRow || !hasActive || (!activeOnly && !hasReactive))
+      errorLine = row + 1;
+    else {
+      active.add(activeValue);
+      if (!activeOnly)
+        reactive.add(reactiveValue);
+    }
+
+    hasActive = hasReactive = invalidRow = false;
+  }
+
+  /**
+   * This function completes the last row of the sheet.
+   */
+  private void finish ()
+  {
+    finishRow();
+    row = 0;
+  }
+
+  /**
+   * This function creates the result of the reading.
+   *
+   * @return the measurements read.
+   */
+  private Measurements result ()
+  {
+    return new Measurements(null, active.toArray(),
+                            activeOnly ? null : reactive.toArray(), errorLine);
+  }
+
+  /**
+   * This handler collects the shared strings of an .xlsx workbook.
+   */
+  private static class SharedStringsHandler extends DefaultHandler
+  {
+    private final ArrayList<String> strings;
+    private final StringBuilder text = new StringBuilder();
+    private boolean inText = false;
+
+    SharedStringsHandler (ArrayList<String> strings)
+    {
+      this.strings = strings;
+    }
+
+    @Override
+    public void startElement (String uri, String localName, String qName,
+                              Attributes attributes)
+    {
+      String name = localName(qName);
+      if (name.equals("si"))
+        text.setLength(0);
+      else if (name.equals("t"))
+        inText = true;
+    }
+
+    @Override
+    public void endElement (String uri, String localName, String qName)
+    {
+      String name = localName(qName);
+      if (name.equals("si"))
+        strings.add(text.toString());
+      else if (name.equals("t"))
+        inText = false;
+    }
+
+    @Override
+    public void characters (char[] ch, int start, int length)
+    {
+      if (inText)
+        text.append(ch, start, length);
+    }
+  }
+
+  /**
+   * This handler streams the cells of an .xlsx worksheet to the reader.
+   */
+  private static class SheetHandler extends DefaultHandler
+  {
+    private final SpreadsheetReader reader;
+    private final ArrayList<String> strings;
+    private final StringBuilder text = new StringBuilder();
+    private boolean inValue = false;
+    private int row = -1;
+    private int column = -1;
+    private String type;
+
+    SheetHandler (SpreadsheetReader reader, ArrayList<String> strings)
+    {
+      this.reader = reader;
+      this.strings = strings;
+    }
+
+    @Override
+    public void startElement (String uri, String localName, String qName,
+                              Attributes attributes)
+    {
+      String name = localName(qName);
+
+      if (name.equals("row")) {
+        String r = attributes.getValue("r");
+        row = (r != null) ? Integer.parseInt(r) - 1 : row + 1;
+        column = -1;
+      }
+      else if (name.equals("c")) {
+        String r = attributes.getValue("r");
+        column = (r != null) ? column(r) : column + 1;
+        type = attributes.getValue("t");
+        text.setLength(0);
+      }
+      else if (name.equals("v") || name.equals("t")) {
+        inValue = true;
+      }
+    }
+
+    @Override
+    public void endElement (String uri, String localName, String qName)
+      throws SAXException
+    {
+      String name = localName(qName);
+
+      if (name.equals("v") || name.equals("t"))
+        inValue = false;
+      else if (name.equals("c")) {
+        String value = text.toString();
+        if ("s".equals(type)) {
+          try {
+            value = strings.get(Integer.parseInt(value.trim()));
+          }
+          catch (NumberFormatException | IndexOutOfBoundsException e) {
+            value = "";
+          }
+        }
+        else if ("b".equals(type) || "e".equals(type))
+          value = "";
+
+        reader.cell(row, column, value);
+
+        if (reader.errorLine != -1)
+          throw new StopParsingException();
+      }
+    }
+
+    @Override
+    public void characters (char[] ch, int start, int length)
+    {
+      if (inValue)
+        text.append(ch, start, length);
+    }
+
+    /**
+     * This function converts the column letters of a cell reference such as
+     * "AB12" to a zero-based column index.
+     */
+    private static int column (String reference)
+    {
+      int result = 0;
+      for (int i = 0; i < reference.length(); i++) {
+        char c = reference.charAt(i);
+        if (c < 'A' || c > 'Z')
+          break;
+        result = result * 26 + (c - 'A' + 1);
+      }
+      return result - 1;
+    }
+  }
+
+  /**
+   * This exception is used to stop the parsing of a worksheet at the first
+   * erroneous row.
+   */
+  private static class StopParsingException extends SAXException
+  {
+    private static final long serialVersionUID = 1L;
+  }
+}
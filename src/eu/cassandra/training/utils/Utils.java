@@ -18,14 +18,8 @@ limitations under the License.
 package eu.cassandra.training.utils;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Scanner;
-
-import org.apache.poi.hssf.usermodel.HSSFRow;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 
 import eu.cassandra.training.activity.ActivityModel;
 
@@ -64,7 +58,8 @@ public class Utils
    * temporary folder used to store the csv and xls used to create the entity
    * models during the procedure of training and disaggregation. It is done when
    * the program starts, when the program ends and when the reset button is
-   * pressed by the user.
+   * pressed by the user. The measurements stores are kept so that the imported
+   * files load fast, unless they have not been used for a long time.
    */
   public static void cleanFiles ()
   {
@@ -90,6 +85,9 @@ public class Utils
       }
     }
 
+    MeasurementsStore.evict(directory, Constants.MEASUREMENTS_STORE_DAYS * 24L
+                                       * 60 * 60 * 1000);
+
     // directory = new File(Constants.resultFolder);
     // files = directory.listFiles();
     // extension = "";
@@ -140,98 +138,60 @@ public class Utils
   public static int parseMeasurementsFile (String measurementsFile,
                                            boolean power) throws IOException
   {
+    return loadMeasurementsFile(measurementsFile, power).getErrorLine();
+  }
 
-    int result = -1;
+  /**
+   * This function validates and loads the measurement file in a single pass.
+   * It parses through the file checking for errors and, if none is found,
+   * returns the arrays of the active and reactive power consumptions, so that
+   * the file does not need to be parsed a second time. It can parse through
+   * .csv, .xls and .xlsx files, streaming each of them without loading the
+   * whole file in memory.
+   * 
+   * @param measurementsFile
+   *          The file name of the measurements file.
+   * @param power
+   *          The type of data sets contained within the file (only active or
+   *          active and reactive power)
+   * @return the measurements, containing the first line of error or -1 if no
+   *         error is found.
+   * @throws IOException
+   */
+  public static Measurements loadMeasurementsFile (String measurementsFile,
+                                                   boolean power)
+    throws IOException
+  {
+
+    Measurements result = null;
 
     String extension =
-      measurementsFile.substring(measurementsFile.length() - 3,
-                                 measurementsFile.length());
+      measurementsFile.substring(measurementsFile.lastIndexOf('.') + 1)
+              .toLowerCase();
 
     switch (extension) {
 
     case "csv":
 
-      File file = new File(measurementsFile);
-      Scanner scanner = new Scanner(file);
-      scanner.nextLine();
-      int counter = 2;
-      while (scanner.hasNext()) {
-
-        String line = scanner.nextLine();
-
-        String[] testString = line.split(",");
-
-        if (power) {
-          if (testString.length != 2)
-            result = counter;
-          try {
-            Double.parseDouble(testString[1]);
-          }
-          catch (NumberFormatException e) {
-            result = counter;
-          }
-        }
-        else {
-          if (testString.length != 3)
-            result = counter;
-          try {
-            Double.parseDouble(testString[1]);
-            Double.parseDouble(testString[2]);
-          }
-          catch (NumberFormatException e) {
-            result = counter;
-          }
-
-          if (result != -1)
-            break;
-        }
-        counter++;
-      }
-
-      scanner.close();
+      result = MeasurementsReader.readCSV(measurementsFile, power);
       System.out.println("Your csv file has been read!");
       break;
 
     case "xls":
 
-      HSSFWorkbook workbook =
-        new HSSFWorkbook(new FileInputStream(measurementsFile));
-
-      // Get the first sheet.
-      HSSFSheet sheet = workbook.getSheetAt(0);
-      for (int i = 0; i < sheet.getLastRowNum(); i++) {
-        // Set value of the first cell.
-        HSSFRow row = sheet.getRow(i + 1);
-
-        if (power) {
-          if (row.getCell(2) != null)
-            result = i + 2;
-          try {
-            Double.parseDouble(row.getCell(1).toString());
-          }
-          catch (NumberFormatException e) {
-            result = i + 2;
-          }
-        }
-        else {
-          if (row.getCell(3) != null)
-            result = i + 2;
-          try {
-            Double.parseDouble(row.getCell(1).toString());
-            Double.parseDouble(row.getCell(2).toString());
-          }
-          catch (NumberFormatException e) {
-            result = i + 2;
-          }
-        }
+      result = SpreadsheetReader.readXLS(measurementsFile, power);
+      System.out.println("Your excel file has been read!");
+      break;
 
-        if (result != -1)
-          break;
-      }
+    case "xlsx":
 
+      result = SpreadsheetReader.readXLSX(measurementsFile, power);
       System.out.println("Your excel file has been read!");
       break;
 
+    default:
+      throw new IOException("Unsupported measurements file "
+                            + measurementsFile);
     }
 
     return result;
@@ -406,8 +366,6 @@ public class Utils
     int durationMax =
       Math.min(Constants.MINUTES_PER_DAY, activity.getDurationMax());
 
-    double[] result = new double[Constants.MINUTES_PER_DAY];
-
     System.out.println("Activity " + activity.getName() + " duration max: "
                        + durationMax);
 
@@ -422,20 +380,14 @@ public class Utils
     // + Arrays.toString(activity.getDuration()
     // .getGreaterProbability()));
 
-    for (int i = 0; i < activity.getAppliancesOf().length; i++) {
-
-      Double[] applianceConsumption =
-        activity.getAppliancesOf()[i].getActiveConsumptionModel();
+    ExpectedPowerEngine engine =
+      new ExpectedPowerEngine(activity.getDuration(), durationMax);
 
-      boolean staticConsumption =
-        activity.getAppliancesOf()[i].getStaticConsumption();
+    for (int i = 0; i < activity.getAppliancesOf().length; i++)
+      engine.addAppliance(activity.getAppliancesOf()[i].getActiveProfile(),
+                          activity.getAppliancesOf()[i].getStaticConsumption());
 
-      for (int j = 0; j < result.length; j++)
-        result[j] +=
-          aggregatedProbability(activity, applianceConsumption, j, durationMax,
-                                staticConsumption);
-
-    }
+    double[] result = engine.estimate(activity.getStartTime());
 
     double factor =
       activity.estimateNumberOfTimesFactor()
@@ -458,47 +410,4 @@ public class Utils
     activity.setExpectedPower(result);
 
   }
-
-  private static double aggregatedProbability (ActivityModel activity,
-                                               Double[] consumption, int index,
-                                               int durationMax,
-                                               boolean staticConsumption)
-  {
-
-    double result = 0;
-
-    for (int i = 0; i < durationMax; i++) {
-
-      // System.out
-      // .println("Index "
-      // + ((TrainingConstants.MINUTES_PER_DAY + index - i) %
-      // TrainingConstants.MINUTES_PER_DAY)
-      // + ": Duration Probability: "
-      // + activity.getDuration().getProbabilityGreaterEqual(i)
-      // + " Start Time Probability: "
-      // + activity.getStartTime().getProbability(index - i)
-      // + " Consumption: " + consumption[i % consumption.length]);
-
-      if (staticConsumption)
-        result +=
-          activity.getDuration().getProbabilityGreater(i)
-                  * activity
-                          .getStartTime()
-                          .getProbability((Constants.MINUTES_PER_DAY + index - i)
-                                                  % Constants.MINUTES_PER_DAY)
-                  * consumption[0];
-      else
-        result +=
-          activity.getDuration().getProbabilityGreater(i)
-                  * activity
-                          .getStartTime()
-                          .getProbability((Constants.MINUTES_PER_DAY + index - i)
-                                                  % Constants.MINUTES_PER_DAY)
-                  * consumption[i % consumption.length];
-
-    }
-
-    return result;
-
-  }
 }